@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.interleaved;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.packed.PackedInts;
+
+import static org.apache.lucene.codecs.interleaved.InterleavedPostingsFormat.BLOCK_SIZE;
+
+/**
+ * Encode all values of a block with a fixed bit width, which is determined by
+ * the max value in this block, using a lane-interleaved layout.
+ * <p>
+ * Values are distributed across {@link #LANES} lanes in a round-robin fashion:
+ * value {@code i} belongs to lane {@code i % LANES}. Each lane bit-packs its
+ * {@code BLOCK_SIZE / LANES} values into 32-bit words, and the words of all lanes
+ * are interleaved so that word {@code w} of lane {@code l} is stored at index
+ * {@code w * LANES + l}. As a consequence, decoding performs the very same
+ * shifts and masks on {@link #LANES} consecutive words at a time, which is a
+ * pattern that the JIT can turn into SIMD instructions, while the scalar code
+ * remains a valid fallback on platforms that can't.
+ * <p>
+ * A block of values that need {@code b} bits per value takes exactly
+ * {@code b * BLOCK_SIZE / 8} bytes on disk, like with non-interleaved bit packing.
+ */
+final class ForUtil {
+
+  /**
+   * Special number of bits per value used whenever all values to encode are equal.
+   */
+  private static final int ALL_VALUES_EQUAL = 0;
+
+  /**
+   * Number of lanes that values are interleaved across.
+   */
+  static final int LANES = 4;
+
+  /**
+   * Number of values per lane.
+   */
+  private static final int VALUES_PER_LANE = BLOCK_SIZE / LANES;
+
+  /**
+   * Upper limit of the number of bytes that might be required to stored
+   * <code>BLOCK_SIZE</code> encoded values.
+   */
+  static final int MAX_ENCODED_SIZE = BLOCK_SIZE * 4;
+
+  /**
+   * Size of the buffers that values are decoded into. Decoding uses the
+   * entries after <code>BLOCK_SIZE</code> as scratch space for the encoded
+   * words, so they contain garbage after a call to
+   * {@link #readBlock(IndexInput, byte[], int[])}.
+   */
+  static final int MAX_DATA_SIZE = BLOCK_SIZE * 2;
+
+  // scratch space for encoding, writing blocks is single-threaded
+  private final int[] words = new int[BLOCK_SIZE];
+
+  /**
+   * Sole constructor.
+   */
+  ForUtil() {}
+
+  /**
+   * Write a block of data (<code>For</code> format).
+   *
+   * @param data     the data to write
+   * @param encoded  a buffer to use to encode data
+   * @param out      the destination output
+   * @throws IOException If there is a low-level I/O error
+   */
+  void writeBlock(int[] data, byte[] encoded, IndexOutput out) throws IOException {
+    if (isAllEqual(data)) {
+      out.writeByte((byte) ALL_VALUES_EQUAL);
+      out.writeVInt(data[0]);
+      return;
+    }
+
+    final int numBits = bitsRequired(data);
+    assert numBits > 0 && numBits <= 32 : numBits;
+    final int numWords = numBits * LANES;
+    encode(data, numBits, words);
+    for (int i = 0; i < numWords; ++i) {
+      final int word = words[i];
+      final int o = i << 2;
+      encoded[o] = (byte) (word >>> 24);
+      encoded[o + 1] = (byte) (word >>> 16);
+      encoded[o + 2] = (byte) (word >>> 8);
+      encoded[o + 3] = (byte) word;
+    }
+
+    out.writeByte((byte) numBits);
+    out.writeBytes(encoded, numWords << 2);
+  }
+
+  /**
+   * Read the next block of data (<code>For</code> format).
+   *
+   * @param in        the input to use to read data
+   * @param encoded   a buffer that can be used to store encoded data
+   * @param decoded   where to write decoded data
+   * @throws IOException If there is a low-level I/O error
+   */
+  void readBlock(IndexInput in, byte[] encoded, int[] decoded) throws IOException {
+    final int numBits = in.readByte();
+    assert numBits <= 32 : numBits;
+
+    if (numBits == ALL_VALUES_EQUAL) {
+      final int value = in.readVInt();
+      Arrays.fill(decoded, 0, BLOCK_SIZE, value);
+      return;
+    }
+
+    final int numWords = numBits * LANES;
+    in.readBytes(encoded, 0, numWords << 2);
+    for (int i = 0; i < numWords; ++i) {
+      final int o = i << 2;
+      decoded[BLOCK_SIZE + i] = ((encoded[o] & 0xFF) << 24) | ((encoded[o + 1] & 0xFF) << 16)
+          | ((encoded[o + 2] & 0xFF) << 8) | (encoded[o + 3] & 0xFF);
+    }
+    decode(decoded, BLOCK_SIZE, numBits, decoded);
+  }
+
+  /**
+   * Read the next block of doc deltas and turn them into absolute doc IDs,
+   * starting from <code>base</code>.
+   *
+   * @param in        the input to use to read data
+   * @param encoded   a buffer that can be used to store encoded data
+   * @param docs      where to write decoded doc IDs
+   * @param base      the doc ID that the first delta is relative to
+   * @throws IOException If there is a low-level I/O error
+   */
+  void readDocBlock(IndexInput in, byte[] encoded, int[] docs, int base) throws IOException {
+    readBlock(in, encoded, docs);
+    prefixSum(docs, BLOCK_SIZE, base);
+  }
+
+  /**
+   * Skip the next block of data.
+   *
+   * @param in      the input where to read data
+   * @throws IOException If there is a low-level I/O error
+   */
+  void skipBlock(IndexInput in) throws IOException {
+    final int numBits = in.readByte();
+    if (numBits == ALL_VALUES_EQUAL) {
+      in.readVInt();
+      return;
+    }
+    assert numBits > 0 && numBits <= 32 : numBits;
+    in.seek(in.getFilePointer() + numBits * LANES * Integer.BYTES);
+  }
+
+  /**
+   * Replace the first <code>count</code> deltas of <code>buffer</code> with
+   * their cumulative sum, starting from <code>base</code>.
+   */
+  static void prefixSum(int[] buffer, int count, int base) {
+    int sum = base;
+    for (int i = 0; i < count; ++i) {
+      sum += buffer[i];
+      buffer[i] = sum;
+    }
+  }
+
+  /**
+   * Bit-pack the first <code>BLOCK_SIZE</code> values of <code>data</code>
+   * into <code>numBits * LANES</code> interleaved words.
+   */
+  static void encode(int[] data, int numBits, int[] words) {
+    Arrays.fill(words, 0, numBits * LANES, 0);
+    int bitPos = 0;
+    for (int i = 0; i < VALUES_PER_LANE; ++i) {
+      final int word = (bitPos >>> 5) * LANES;
+      final int shift = bitPos & 31;
+      final int o = i * LANES;
+      for (int lane = 0; lane < LANES; ++lane) {
+        final int value = data[o + lane];
+        words[word + lane] |= value << shift;
+        if (shift + numBits > 32) {
+          words[word + LANES + lane] |= value >>> (32 - shift);
+        }
+      }
+      bitPos += numBits;
+    }
+  }
+
+  /**
+   * Decode <code>BLOCK_SIZE</code> values from the interleaved words that
+   * start at <code>words[wordsOffset]</code>. <code>words</code> and
+   * <code>values</code> may be the same array as long as the words are stored
+   * after the first <code>BLOCK_SIZE</code> entries.
+   */
+  static void decode(int[] words, int wordsOffset, int numBits, int[] values) {
+    final int mask = -1 >>> (32 - numBits);
+    int bitPos = 0;
+    for (int i = 0; i < VALUES_PER_LANE; ++i) {
+      final int word = wordsOffset + (bitPos >>> 5) * LANES;
+      final int shift = bitPos & 31;
+      final int o = i * LANES;
+      if (shift + numBits <= 32) {
+        // the value is contained in a single word: same shift and mask for all lanes
+        for (int lane = 0; lane < LANES; ++lane) {
+          values[o + lane] = (words[word + lane] >>> shift) & mask;
+        }
+      } else {
+        // the value spans two consecutive words of its lane
+        final int shift2 = 32 - shift;
+        for (int lane = 0; lane < LANES; ++lane) {
+          values[o + lane] = ((words[word + lane] >>> shift) | (words[word + LANES + lane] << shift2)) & mask;
+        }
+      }
+      bitPos += numBits;
+    }
+  }
+
+  private static boolean isAllEqual(final int[] data) {
+    final int v = data[0];
+    for (int i = 1; i < BLOCK_SIZE; ++i) {
+      if (data[i] != v) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Compute the number of bits required to serialize any of the longs in
+   * <code>data</code>.
+   */
+  private static int bitsRequired(final int[] data) {
+    long or = 0;
+    for (int i = 0; i < BLOCK_SIZE; ++i) {
+      assert data[i] >= 0;
+      or |= data[i];
+    }
+    return PackedInts.bitsRequired(or);
+  }
+
+}
@@ -153,13 +153,9 @@ public class SimpleTextStoredFieldsReader extends StoredFieldsReader {
     readLine();
     assert StringHelper.startsWith(scratch.get(), VALUE);
     if (type == TYPE_STRING) {
-      byte[] bytes = new byte[scratch.length() - VALUE.length];
-      System.arraycopy(scratch.bytes(), VALUE.length, bytes, 0, bytes.length);
-      visitor.stringField(fieldInfo, bytes);
+      visitor.stringField(fieldInfo, new BytesRef(scratch.bytes(), VALUE.length, scratch.length() - VALUE.length));
     } else if (type == TYPE_BINARY) {
-      byte[] copy = new byte[scratch.length()-VALUE.length];
-      System.arraycopy(scratch.bytes(), VALUE.length, copy, 0, copy.length);
-      visitor.binaryField(fieldInfo, copy);
+      visitor.binaryField(fieldInfo, new BytesRef(scratch.bytes(), VALUE.length, scratch.length() - VALUE.length));
     } else if (type == TYPE_INT) {
       scratchUTF16.copyUTF8Bytes(scratch.bytes(), VALUE.length, scratch.length()-VALUE.length);
       visitor.intField(fieldInfo, Integer.parseInt(scratchUTF16.toString()));
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.interleaved;
+
+
+import static org.apache.lucene.codecs.interleaved.InterleavedPostingsFormat.BLOCK_SIZE;
+import static org.apache.lucene.codecs.interleaved.ForUtil.MAX_DATA_SIZE;
+import static org.apache.lucene.codecs.interleaved.ForUtil.MAX_ENCODED_SIZE;
+
+import java.io.IOException;
+
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+import org.apache.lucene.util.packed.PackedInts;
+
+import com.carrotsearch.randomizedtesting.generators.RandomNumbers;
+
+public class TestForUtil extends LuceneTestCase {
+
+  private static int[] randomValues(int iterations) {
+    final int[] values = new int[iterations * BLOCK_SIZE];
+    for (int i = 0; i < iterations; ++i) {
+      final int bpv = random().nextInt(33);
+      if (bpv == 0) {
+        final int value = RandomNumbers.randomIntBetween(random(), 0, Integer.MAX_VALUE);
+        for (int j = 0; j < BLOCK_SIZE; ++j) {
+          values[i * BLOCK_SIZE + j] = value;
+        }
+      } else {
+        // values are non-negative so 31 bits is the maximum that may be used
+        final int maxValue = (int) PackedInts.maxValue(Math.min(bpv, 31));
+        for (int j = 0; j < BLOCK_SIZE; ++j) {
+          values[i * BLOCK_SIZE + j] = RandomNumbers.randomIntBetween(random(), 0, maxValue);
+        }
+      }
+    }
+    return values;
+  }
+
+  public void testEncodeDecode() throws IOException {
+    final int iterations = RandomNumbers.randomIntBetween(random(), 1, 1000);
+    final int[] values = randomValues(iterations);
+
+    final Directory d = new ByteBuffersDirectory();
+    final long endPointer;
+
+    {
+      // encode
+      IndexOutput out = d.createOutput("test.bin", IOContext.DEFAULT);
+      final ForUtil forUtil = new ForUtil();
+
+      for (int i = 0; i < iterations; ++i) {
+        int[] block = ArrayUtil.copyOfSubArray(values, i*BLOCK_SIZE, (i+1)*BLOCK_SIZE);
+        forUtil.writeBlock(ArrayUtil.grow(block, MAX_DATA_SIZE), new byte[MAX_ENCODED_SIZE], out);
+      }
+      endPointer = out.getFilePointer();
+      out.close();
+    }
+
+    {
+      // decode
+      IndexInput in = d.openInput("test.bin", IOContext.READONCE);
+      final ForUtil forUtil = new ForUtil();
+      for (int i = 0; i < iterations; ++i) {
+        if (random().nextBoolean()) {
+          forUtil.skipBlock(in);
+          continue;
+        }
+        final int[] restored = new int[MAX_DATA_SIZE];
+        forUtil.readBlock(in, new byte[MAX_ENCODED_SIZE], restored);
+        assertArrayEquals(ArrayUtil.copyOfSubArray(values, i*BLOCK_SIZE, (i+1)*BLOCK_SIZE),
+            ArrayUtil.copyOfSubArray(restored, 0, BLOCK_SIZE));
+      }
+      assertEquals(endPointer, in.getFilePointer());
+      in.close();
+    }
+
+    d.close();
+  }
+
+  public void testEncodedSize() throws IOException {
+    final Directory d = new ByteBuffersDirectory();
+    for (int bpv = 1; bpv <= 31; ++bpv) {
+      final int[] block = new int[MAX_DATA_SIZE];
+      for (int j = 0; j < BLOCK_SIZE; ++j) {
+        block[j] = RandomNumbers.randomIntBetween(random(), 0, (int) PackedInts.maxValue(bpv));
+      }
+      // make sure the block needs exactly bpv bits
+      block[random().nextInt(BLOCK_SIZE)] = (int) PackedInts.maxValue(bpv);
+      block[random().nextInt(BLOCK_SIZE)] = 0;
+      try (IndexOutput out = d.createOutput("test" + bpv + ".bin", IOContext.DEFAULT)) {
+        new ForUtil().writeBlock(block, new byte[MAX_ENCODED_SIZE], out);
+        // same size as non-interleaved bit packing, plus one header byte
+        assertEquals(1 + bpv * BLOCK_SIZE / Byte.SIZE, out.getFilePointer());
+      }
+    }
+    d.close();
+  }
+
+  public void testReadDocBlock() throws IOException {
+    final int[] deltas = new int[MAX_DATA_SIZE];
+    final int bpv = TestUtil.nextInt(random(), 1, 20);
+    for (int j = 0; j < BLOCK_SIZE; ++j) {
+      deltas[j] = RandomNumbers.randomIntBetween(random(), 1, (int) PackedInts.maxValue(bpv));
+    }
+    final int base = random().nextInt(1000);
+
+    final Directory d = new ByteBuffersDirectory();
+    try (IndexOutput out = d.createOutput("test.bin", IOContext.DEFAULT)) {
+      new ForUtil().writeBlock(deltas, new byte[MAX_ENCODED_SIZE], out);
+    }
+    final int[] docs = new int[MAX_DATA_SIZE];
+    try (IndexInput in = d.openInput("test.bin", IOContext.READONCE)) {
+      new ForUtil().readDocBlock(in, new byte[MAX_ENCODED_SIZE], docs, base);
+    }
+    int doc = base;
+    for (int j = 0; j < BLOCK_SIZE; ++j) {
+      doc += deltas[j];
+      assertEquals(doc, docs[j]);
+    }
+    d.close();
+  }
+
+}
@@ -57,7 +57,7 @@ public abstract class Codec implements NamedSPILoader.NamedSPI {
     }
     
     // TODO: should we use this, or maybe a system property is better?
-    static Codec defaultCodec = LOADER.lookup("Lucene80");
+    static Codec defaultCodec = LOADER.lookup("Lucene90");
   }
 
   private final String name;
@@ -110,6 +110,9 @@ public abstract class Codec implements NamedSPILoader.NamedSPI {
 
   /** Encodes/decodes points index */
   public abstract PointsFormat pointsFormat();
+
+  /** Encodes/decodes numeric vector fields */
+  public abstract VectorFormat vectorFormat();
   
   /** looks up a codec by name */
   public static Codec forName(String name) {
@@ -39,6 +39,16 @@ public abstract class StoredFieldsReader implements Cloneable, Closeable, Accoun
   /** Visit the stored fields for document <code>docID</code> */
   public abstract void visitDocument(int docID, StoredFieldVisitor visitor) throws IOException;
 
+  /**
+   * Optional method: Give a hint to this reader that the stored fields of document
+   * <code>docID</code> will soon be visited, so that it may start loading them
+   * asynchronously, see {@link org.apache.lucene.store.IndexInput#prefetch(long, long)}.
+   * <p>
+   * The default implementation is a no-op.
+   * @lucene.experimental
+   */
+  public void prefetch(int docID) throws IOException {}
+
   @Override
   public abstract StoredFieldsReader clone();
   
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.index.DocIDMerger;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.MergeState;
+import org.apache.lucene.index.RandomAccessVectorValues;
+import org.apache.lucene.index.RandomAccessVectorValuesProducer;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Bits;
+
+import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
+
+/**
+ * Writes vectors to an index.
+ *
+ * @lucene.experimental
+ */
+public abstract class VectorWriter implements Closeable {
+
+  /** Sole constructor */
+  protected VectorWriter() {}
+
+  /**
+   * Write all values contained in the provided reader. {@code values} must also implement
+   * {@link RandomAccessVectorValuesProducer} if this writer needs random access to vectors,
+   * e.g. to build a nearest-neighbor graph.
+   */
+  public abstract void writeField(FieldInfo fieldInfo, VectorValues values) throws IOException;
+
+  /** Called once at the end before close */
+  public abstract void finish() throws IOException;
+
+  /** Merge the vector values from multiple segments, for all fields */
+  public void merge(MergeState mergeState) throws IOException {
+    for (VectorReader reader : mergeState.vectorReaders) {
+      if (reader != null) {
+        reader.checkIntegrity();
+      }
+    }
+    for (FieldInfo fieldInfo : mergeState.mergeFieldInfos) {
+      if (fieldInfo.hasVectorValues()) {
+        mergeOneField(fieldInfo, mergeState);
+      }
+    }
+    finish();
+  }
+
+  /**
+   * Merge the vector values of a single field. The default implementation writes the
+   * {@link MergedVectorValues#merge(FieldInfo, MergeState) merged vector values}.
+   */
+  protected void mergeOneField(FieldInfo fieldInfo, MergeState mergeState) throws IOException {
+    writeField(fieldInfo, MergedVectorValues.merge(fieldInfo, mergeState));
+  }
+
+  /**
+   * View over the vector values of a field across all segments being merged, in the order of
+   * the merged segment and without deleted documents. In addition to iterating, vectors may be
+   * accessed randomly by their ordinal in the merged segment.
+   */
+  public static final class MergedVectorValues extends VectorValues implements RandomAccessVectorValuesProducer {
+
+    /**
+     * Create a view over the vector values of {@code fieldInfo} across all segments of
+     * {@code mergeState}.
+     *
+     * @throws IllegalArgumentException if the vector values of a segment don't support
+     *     random access
+     */
+    public static MergedVectorValues merge(FieldInfo fieldInfo, MergeState mergeState) throws IOException {
+      final List<VectorValuesSub> subs = new ArrayList<>();
+      final RandomAccessVectorValuesProducer[] producers = new RandomAccessVectorValuesProducer[mergeState.vectorReaders.length];
+      final int[] sizes = new int[mergeState.vectorReaders.length];
+      for (int i = 0; i < mergeState.vectorReaders.length; i++) {
+        final VectorReader vectorReader = mergeState.vectorReaders[i];
+        if (vectorReader == null) {
+          continue;
+        }
+        final FieldInfo readerFieldInfo = mergeState.fieldInfos[i].fieldInfo(fieldInfo.name);
+        if (readerFieldInfo == null || readerFieldInfo.hasVectorValues() == false) {
+          continue;
+        }
+        final VectorValues values = vectorReader.getVectorValues(fieldInfo.name);
+        if (values == null) {
+          continue;
+        }
+        if (values instanceof RandomAccessVectorValuesProducer == false) {
+          throw new IllegalArgumentException("Merging vectors requires random access to vectors, got " + values);
+        }
+        producers[i] = (RandomAccessVectorValuesProducer) values;
+        sizes[i] = values.size();
+        subs.add(new VectorValuesSub(i, mergeState.docMaps[i], values));
+      }
+
+      // record the segment and segment ordinal of every merged ordinal
+      int[] docs = new int[0];
+      int[] subIndexes = new int[0];
+      int[] subOrds = new int[0];
+      final int[] firstOrds = new int[sizes.length];
+      final int[] counts = new int[sizes.length];
+      final boolean[] contiguous = new boolean[sizes.length];
+      int size = 0;
+      final DocIDMerger<VectorValuesSub> docIdMerger = DocIDMerger.of(subs, mergeState.needsIndexSort);
+      for (VectorValuesSub sub = docIdMerger.next(); sub != null; sub = docIdMerger.next()) {
+        if (size == docs.length) {
+          docs = ArrayUtil.grow(docs, size + 1);
+          subIndexes = ArrayUtil.growExact(subIndexes, docs.length);
+          subOrds = ArrayUtil.growExact(subOrds, docs.length);
+        }
+        final int segment = sub.segmentIndex;
+        if (counts[segment] == 0) {
+          firstOrds[segment] = size;
+          contiguous[segment] = true;
+        }
+        contiguous[segment] &= size - firstOrds[segment] == sub.ord;
+        counts[segment]++;
+        docs[size] = sub.mappedDocID;
+        subIndexes[size] = segment;
+        subOrds[size] = sub.ord;
+        size++;
+      }
+      final int[] ordOffsets = new int[sizes.length];
+      for (int i = 0; i < sizes.length; ++i) {
+        // the vectors of this segment map to [ordOffset, ordOffset + size) in the merged segment
+        final boolean allVectorsMerged = producers[i] != null && counts[i] == sizes[i];
+        ordOffsets[i] = allVectorsMerged && (sizes[i] == 0 || contiguous[i]) ? firstOrds[i] : -1;
+      }
+      return new MergedVectorValues(fieldInfo.getVectorDimension(), size, docs, subIndexes, subOrds,
+          producers, ordOffsets);
+    }
+
+    private final int dimension;
+    private final int size;
+    private final int[] docs;
+    private final int[] subIndexes;
+    private final int[] subOrds;
+    private final RandomAccessVectorValuesProducer[] producers;
+    private final int[] ordOffsets;
+    private final RandomAccessVectorValues randomAccess;
+    private int ord = -1;
+
+    private MergedVectorValues(int dimension, int size, int[] docs, int[] subIndexes, int[] subOrds,
+        RandomAccessVectorValuesProducer[] producers, int[] ordOffsets) {
+      this.dimension = dimension;
+      this.size = size;
+      this.docs = docs;
+      this.subIndexes = subIndexes;
+      this.subOrds = subOrds;
+      this.producers = producers;
+      this.ordOffsets = ordOffsets;
+      this.randomAccess = randomAccess();
+    }
+
+    /**
+     * If the vectors of segment {@code segmentIndex} (the index of the segment in the
+     * {@link MergeState}) are all merged, in the same order and contiguously, return the
+     * ordinal of the first of them in the merged segment. Otherwise, return {@code -1}.
+     * This allows reusing data structures that have been built on the vectors of a segment.
+     */
+    public int getOrdOffset(int segmentIndex) {
+      return ordOffsets[segmentIndex];
+    }
+
+    @Override
+    public int dimension() {
+      return dimension;
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public int docID() {
+      if (ord == -1) {
+        return -1;
+      }
+      return ord < size ? docs[ord] : NO_MORE_DOCS;
+    }
+
+    @Override
+    public int nextDoc() {
+      if (ord < size) {
+        ++ord;
+      }
+      return docID();
+    }
+
+    @Override
+    public int advance(int target) {
+      while (nextDoc() < target) {}
+      return docID();
+    }
+
+    @Override
+    public float[] vectorValue() throws IOException {
+      return randomAccess.vectorValue(ord);
+    }
+
+    @Override
+    public TopDocs search(float[] target, int k, int fanOut, Bits acceptDocs) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public RandomAccessVectorValues randomAccess() {
+      final RandomAccessVectorValues[] accesses = new RandomAccessVectorValues[producers.length];
+      return new RandomAccessVectorValues() {
+        @Override
+        public int size() {
+          return size;
+        }
+
+        @Override
+        public int dimension() {
+          return dimension;
+        }
+
+        @Override
+        public float[] vectorValue(int targetOrd) throws IOException {
+          final int subIndex = subIndexes[targetOrd];
+          RandomAccessVectorValues access = accesses[subIndex];
+          if (access == null) {
+            // each accessor may overwrite the vectors it returns, so don't share them
+            access = accesses[subIndex] = producers[subIndex].randomAccess();
+          }
+          return access.vectorValue(subOrds[targetOrd]);
+        }
+      };
+    }
+  }
+
+  /** Tracks state of one sub-reader that we are merging */
+  private static class VectorValuesSub extends DocIDMerger.Sub {
+
+    final int segmentIndex;
+    final VectorValues values;
+    int ord = -1;
+
+    VectorValuesSub(int segmentIndex, MergeState.DocMap docMap, VectorValues values) {
+      super(docMap);
+      this.segmentIndex = segmentIndex;
+      this.values = values;
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      final int doc = values.nextDoc();
+      if (doc != NO_MORE_DOCS) {
+        // the ordinal of a vector is the number of vectors that precede it in its segment
+        ++ord;
+      }
+      return doc;
+    }
+  }
+}
@@ -34,7 +34,9 @@ import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.SegmentReadState;
 import org.apache.lucene.index.Terms;
+import org.apache.lucene.store.FilterDirectory;
 import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Accountables;
 import org.apache.lucene.util.BytesRef;
@@ -100,9 +102,32 @@ public final class BlockTreeTermsReader extends FieldsProducer {
   static final String TERMS_INDEX_EXTENSION = "tip";
   final static String TERMS_INDEX_CODEC_NAME = "BlockTreeTermsIndex";
 
+  /**
+   * Controls whether the FSTs of the terms index are loaded on the heap or
+   * read directly from the terms index file.
+   */
+  public enum FSTLoadMode {
+    /** Always load FSTs on the heap. */
+    ON_HEAP,
+    /** Always read FSTs from the terms index file, which is then kept open. */
+    OFF_HEAP,
+    /**
+     * Read FSTs from the terms index file if the segment is opened from a
+     * {@link MMapDirectory} and the field looks like a primary key, ie. every
+     * document has a single unique term, and load them on the heap otherwise.
+     * Primary keys tend to have the largest FSTs and lookups are dominated by
+     * the cost of seeking the terms dictionary anyway. Segments that use the
+     * compound file format always load FSTs on the heap.
+     */
+    AUTO
+  }
+
   // Open input to the main terms dict file (_X.tib)
   final IndexInput termsIn;
 
+  // Open input to the terms index file (_X.tip) if some FSTs are off-heap, null otherwise
+  private IndexInput indexIn;
+
   //private static final boolean DEBUG = BlockTreeTermsWriter.DEBUG;
 
   // Reads the terms dict entries, to gather state to
@@ -115,10 +140,16 @@ public final class BlockTreeTermsReader extends FieldsProducer {
   
   final int version;
 
-  /** Sole constructor. */
+  /** Create a reader that uses {@link FSTLoadMode#AUTO}. */
   public BlockTreeTermsReader(PostingsReaderBase postingsReader, SegmentReadState state) throws IOException {
+    this(postingsReader, state, FSTLoadMode.AUTO);
+  }
+
+  /** Create a reader that loads the FSTs of the terms index according to the given {@link FSTLoadMode}. */
+  public BlockTreeTermsReader(PostingsReaderBase postingsReader, SegmentReadState state, FSTLoadMode fstLoadMode) throws IOException {
     boolean success = false;
     IndexInput indexIn = null;
+    boolean anyOffHeapIndex = false;
     
     this.postingsReader = postingsReader;
     this.segment = state.segmentInfo.name;
@@ -190,15 +221,22 @@ public final class BlockTreeTermsReader extends FieldsProducer {
           throw new CorruptIndexException("invalid sumTotalTermFreq: " + sumTotalTermFreq + " sumDocFreq: " + sumDocFreq, termsIn);
         }
         final long indexStartFP = indexIn.readVLong();
+        final boolean offHeapIndex = isOffHeapIndex(fstLoadMode, state, numTerms, sumDocFreq, docCount);
+        anyOffHeapIndex |= offHeapIndex;
         FieldReader previous = fields.put(fieldInfo.name,       
                                           new FieldReader(this, fieldInfo, numTerms, rootCode, sumTotalTermFreq, sumDocFreq, docCount,
-                                                          indexStartFP, longsSize, indexIn, minTerm, maxTerm));
+                                                          indexStartFP, longsSize, indexIn, offHeapIndex, minTerm, maxTerm));
         if (previous != null) {
           throw new CorruptIndexException("duplicate field: " + fieldInfo.name, termsIn);
         }
       }
       
-      indexIn.close();
+      if (anyOffHeapIndex) {
+        // FSTs read from this input
+        this.indexIn = indexIn;
+      } else {
+        indexIn.close();
+      }
       success = true;
     } finally {
       if (!success) {
@@ -222,6 +260,21 @@ public final class BlockTreeTermsReader extends FieldsProducer {
     return bytes;
   }
 
+  private static boolean isOffHeapIndex(FSTLoadMode fstLoadMode, SegmentReadState state,
+      long numTerms, long sumDocFreq, int docCount) {
+    switch (fstLoadMode) {
+      case ON_HEAP:
+        return false;
+      case OFF_HEAP:
+        return true;
+      case AUTO:
+        return FilterDirectory.unwrap(state.directory) instanceof MMapDirectory
+            && numTerms == docCount && sumDocFreq == docCount;
+      default:
+        throw new AssertionError();
+    }
+  }
+
   /** Seek {@code input} to the directory offset. */
   private static void seekDir(IndexInput input) throws IOException {
     input.seek(input.length() - CodecUtil.footerLength() - 8);
@@ -237,7 +290,7 @@ public final class BlockTreeTermsReader extends FieldsProducer {
   @Override
   public void close() throws IOException {
     try {
-      IOUtils.close(termsIn, postingsReader);
+      IOUtils.close(indexIn, termsIn, postingsReader);
     } finally { 
       // Clear so refs to terms index is GCable even if
       // app hangs onto us:
@@ -30,6 +30,7 @@ import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.IOSupplier;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.lucene.util.fst.FST;
 import org.apache.lucene.util.fst.Util;
@@ -314,8 +315,51 @@ final class SegmentTermsEnum extends TermsEnum {
   }
   */
 
+  // results of seekIndex
+  private static final int SEEK_FOUND = 0;
+  private static final int SEEK_NOT_FOUND = 1;
+  private static final int SEEK_SCAN_BLOCK = 2;
+
   @Override
   public boolean seekExact(BytesRef target) throws IOException {
+    switch (seekIndex(target)) {
+      case SEEK_FOUND:
+        return true;
+      case SEEK_NOT_FOUND:
+        return false;
+      default:
+        return scanBlock(target);
+    }
+  }
+
+  @Override
+  public IOSupplier<Boolean> prepareSeekExact(BytesRef target) throws IOException {
+    switch (seekIndex(target)) {
+      case SEEK_FOUND:
+        return () -> true;
+      case SEEK_NOT_FOUND:
+        return () -> false;
+      default:
+        // only the block remains to be read, hint it so that it may be loaded while other
+        // enums are prepared
+        initIndexInput();
+        in.prefetch(currentFrame.fp, 1);
+        return () -> scanBlock(target);
+    }
+  }
+
+  /** Loads the block that the index walk of {@link #seekIndex} stopped at, and scans it for the target. */
+  private boolean scanBlock(BytesRef target) throws IOException {
+    currentFrame.loadBlock();
+    return currentFrame.scanToTerm(target, true) == SeekStatus.FOUND;
+  }
+
+  /**
+   * Walks the terms index down to the block that may contain the target, without reading it. Returns
+   * {@link #SEEK_FOUND} or {@link #SEEK_NOT_FOUND} if this is enough to know whether the target exists,
+   * and {@link #SEEK_SCAN_BLOCK} if {@link #scanBlock} must be called.
+   */
+  private int seekIndex(BytesRef target) throws IOException {
 
     if (fr.index == null) {
       throw new IllegalStateException("terms index was not loaded");
@@ -436,7 +480,7 @@ final class SegmentTermsEnum extends TermsEnum {
           // if (DEBUG) {
           //   System.out.println("  target is same as current; return true");
           // }
-          return true;
+          return SEEK_FOUND;
         } else {
           // if (DEBUG) {
           //   System.out.println("  target is same as current but term doesn't exist");
@@ -499,23 +543,10 @@ final class SegmentTermsEnum extends TermsEnum {
           // if (DEBUG) {
           //   System.out.println("  FAST NOT_FOUND term=" + brToString(term));
           // }
-          return false;
+          return SEEK_NOT_FOUND;
         }
 
-        currentFrame.loadBlock();
-
-        final SeekStatus result = currentFrame.scanToTerm(target, true);            
-        if (result == SeekStatus.FOUND) {
-          // if (DEBUG) {
-          //   System.out.println("  return FOUND term=" + term.utf8ToString() + " " + term);
-          // }
-          return true;
-        } else {
-          // if (DEBUG) {
-          //   System.out.println("  got " + result + "; return NOT_FOUND term=" + brToString(term));
-          // }
-          return false;
-        }
+        return SEEK_SCAN_BLOCK;
       } else {
         // Follow this arc
         arc = nextArc;
@@ -551,24 +582,10 @@ final class SegmentTermsEnum extends TermsEnum {
       // if (DEBUG) {
       //   System.out.println("  FAST NOT_FOUND term=" + brToString(term));
       // }
-      return false;
+      return SEEK_NOT_FOUND;
     }
 
-    currentFrame.loadBlock();
-
-    final SeekStatus result = currentFrame.scanToTerm(target, true);            
-    if (result == SeekStatus.FOUND) {
-      // if (DEBUG) {
-      //   System.out.println("  return FOUND term=" + term.utf8ToString() + " " + term);
-      // }
-      return true;
-    } else {
-      // if (DEBUG) {
-      //   System.out.println("  got result " + result + "; return NOT_FOUND term=" + term.utf8ToString());
-      // }
-
-      return false;
-    }
+    return SEEK_SCAN_BLOCK;
   }
 
   @Override
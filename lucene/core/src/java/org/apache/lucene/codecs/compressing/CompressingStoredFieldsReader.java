@@ -89,6 +89,8 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
   private final BlockState state;
   private final long numChunks; // number of compressed blocks written
   private final long numDirtyChunks; // number of incomplete compressed blocks written
+  private final BytesRef valueRef = new BytesRef(); // exposes binary and string values to visitors
+  private byte[] valueBuffer = BytesRef.EMPTY_BYTES; // only used for values that span several decompressed slices
   private boolean closed;
 
   // used by clone
@@ -202,19 +204,14 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     }
   }
 
-  private static void readField(DataInput in, StoredFieldVisitor visitor, FieldInfo info, int bits) throws IOException {
+  private void readField(SerializedDocument doc, StoredFieldVisitor visitor, FieldInfo info, int bits) throws IOException {
+    final DataInput in = doc.in;
     switch (bits & TYPE_MASK) {
       case BYTE_ARR:
-        int length = in.readVInt();
-        byte[] data = new byte[length];
-        in.readBytes(data, 0, length);
-        visitor.binaryField(info, data);
+        visitor.binaryField(info, readBytesValue(doc));
         break;
       case STRING:
-        length = in.readVInt();
-        data = new byte[length];
-        in.readBytes(data, 0, length);
-        visitor.stringField(info, data);
+        visitor.stringField(info, readBytesValue(doc));
         break;
       case NUMERIC_INT:
         visitor.intField(info, in.readZInt());
@@ -233,6 +230,33 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     }
   }
 
+  /**
+   * Read a length-prefixed value. When the document is entirely available in
+   * a decompressed buffer, the returned {@link BytesRef} points directly into
+   * that buffer, otherwise the value is read into a reused scratch buffer. In
+   * both cases, the returned bytes are only valid until the next read.
+   */
+  private BytesRef readBytesValue(SerializedDocument doc) throws IOException {
+    final int length = doc.in.readVInt();
+    if (doc.bytes != null) {
+      final ByteArrayDataInput in = (ByteArrayDataInput) doc.in;
+      final int offset = in.getPosition();
+      if (length < 0 || offset + length > in.length()) {
+        throw new CorruptIndexException("Invalid stored value length: " + length, fieldsStream);
+      }
+      in.skipBytes(length);
+      valueRef.bytes = doc.bytes;
+      valueRef.offset = offset;
+    } else {
+      valueBuffer = ArrayUtil.grow(valueBuffer, length);
+      doc.in.readBytes(valueBuffer, 0, length);
+      valueRef.bytes = valueBuffer;
+      valueRef.offset = 0;
+    }
+    valueRef.length = length;
+    return valueRef;
+  }
+
   private static void skipField(DataInput in, int bits) throws IOException {
     switch (bits & TYPE_MASK) {
       case BYTE_ARR:
@@ -348,10 +372,18 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     // the number of stored fields
     final int numStoredFields;
 
+    // the array that backs the serialized data if it is fully decompressed, null otherwise
+    final byte[] bytes;
+
     private SerializedDocument(DataInput in, int length, int numStoredFields) {
+      this(in, length, numStoredFields, null);
+    }
+
+    private SerializedDocument(DataInput in, int length, int numStoredFields, byte[] bytes) {
       this.in = in;
       this.length = length;
       this.numStoredFields = numStoredFields;
+      this.bytes = bytes;
     }
 
   }
@@ -509,7 +541,7 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
         documentInput = new ByteArrayDataInput();
       } else if (merging) {
         // already decompressed
-        documentInput = new ByteArrayDataInput(bytes.bytes, bytes.offset + offset, length);
+        return new SerializedDocument(new ByteArrayDataInput(bytes.bytes, bytes.offset + offset, length), length, numStoredFields, bytes.bytes);
       } else if (sliced) {
         fieldsStream.seek(startPointer);
         decompressor.decompress(fieldsStream, chunkSize, offset, Math.min(length, chunkSize - offset), bytes);
@@ -554,7 +586,7 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
         fieldsStream.seek(startPointer);
         decompressor.decompress(fieldsStream, totalLength, offset, length, bytes);
         assert bytes.length == length;
-        documentInput = new ByteArrayDataInput(bytes.bytes, bytes.offset, bytes.length);
+        return new SerializedDocument(new ByteArrayDataInput(bytes.bytes, bytes.offset, bytes.length), length, numStoredFields, bytes.bytes);
       }
 
       return new SerializedDocument(documentInput, length, numStoredFields);
@@ -571,6 +603,16 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     return state.document(docID);
   }
 
+  @Override
+  public void prefetch(int docID) throws IOException {
+    if (state.contains(docID) == false) {
+      final long startPointer = indexReader.getStartPointer(docID);
+      // compressed chunks are usually smaller than the chunk size, the prefetched range may
+      // still fall short for large documents, which is fine for a hint
+      fieldsStream.prefetch(startPointer, Math.min(chunkSize, maxPointer - startPointer));
+    }
+  }
+
   @Override
   public void visitDocument(int docID, StoredFieldVisitor visitor)
       throws IOException {
@@ -587,7 +629,7 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
 
       switch(visitor.needsField(fieldInfo)) {
         case YES:
-          readField(doc.in, visitor, fieldInfo, bits);
+          readField(doc, visitor, fieldInfo, bits);
           break;
         case NO:
           if (fieldIDX == doc.numStoredFields - 1) {// don't skipField on last field value; treat like STOP
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.compressing;
+
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+
+import static org.apache.lucene.codecs.compressing.LZ4WithPresetDictCompressionMode.NUM_SUB_BLOCKS;
+import static org.apache.lucene.codecs.compressing.LZ4WithPresetDictCompressionMode.blockLength;
+import static org.apache.lucene.codecs.compressing.LZ4WithPresetDictCompressionMode.dictLength;
+
+/**
+ * A compression mode that compresses data with DEFLATE using a preset
+ * dictionary that is shared by several sub blocks.
+ * <p>
+ * Like with {@link LZ4WithPresetDictCompressionMode}, the first bytes of the
+ * data are compressed as a dictionary, and the rest is split into
+ * {@value LZ4WithPresetDictCompressionMode#NUM_SUB_BLOCKS} sub blocks that
+ * are compressed independently, with the dictionary set as the preset
+ * dictionary of their DEFLATE stream. Reading a single document only requires
+ * to inflate the dictionary and the sub blocks that contain the document.
+ * <p>
+ * This mode is meant to be used with chunks that are
+ * {@value LZ4WithPresetDictCompressionMode#NUM_SUB_BLOCKS} times larger than
+ * what would be used with {@link CompressionMode#HIGH_COMPRESSION}.
+ * @lucene.experimental
+ */
+public final class DeflateWithPresetDictCompressionMode extends CompressionMode {
+
+  // the dictionary is a fraction of the size of a sub block
+  private static final int DICT_SIZE_FACTOR = 6;
+  // DEFLATE can't reference bytes that are more than 32KB behind
+  private static final int MAX_DICT_LENGTH = 32 * 1024;
+
+  /** Sole constructor. */
+  public DeflateWithPresetDictCompressionMode() {}
+
+  @Override
+  public Compressor newCompressor() {
+    // notes:
+    // 3 is the highest level that doesn't have lazy match evaluation
+    // 6 is the default, higher than that is just a waste of cpu
+    return new DeflateWithPresetDictCompressor(6);
+  }
+
+  @Override
+  public Decompressor newDecompressor() {
+    return new DeflateWithPresetDictDecompressor();
+  }
+
+  @Override
+  public String toString() {
+    return "BEST_COMPRESSION_PRESET_DICT";
+  }
+
+  private static final class DeflateWithPresetDictDecompressor extends Decompressor {
+
+    private byte[] compressed = BytesRef.EMPTY_BYTES;
+
+    // inflate the next compressed block and append it to bytes, which must have enough room
+    private void doDecompress(DataInput in, Inflater decompressor, BytesRef bytes) throws IOException {
+      final int compressedLength = in.readVInt();
+      if (compressedLength == 0) {
+        return;
+      }
+      // pad with extra "dummy byte": see javadocs for using Inflater(true)
+      // we do it for compliance, but it's unnecessary for years in zlib.
+      final int paddedLength = compressedLength + 1;
+      compressed = ArrayUtil.grow(compressed, paddedLength);
+      in.readBytes(compressed, 0, compressedLength);
+      compressed[compressedLength] = 0; // explicitly set dummy byte to 0
+
+      // extra "dummy byte"
+      decompressor.setInput(compressed, 0, paddedLength);
+      try {
+        bytes.length += decompressor.inflate(bytes.bytes, bytes.length, bytes.bytes.length - bytes.length);
+      } catch (DataFormatException e) {
+        throw new IOException(e);
+      }
+      if (decompressor.finished() == false) {
+        throw new CorruptIndexException("Invalid decoder state: needsInput=" + decompressor.needsInput()
+                                                            + ", needsDict=" + decompressor.needsDictionary(), in);
+      }
+    }
+
+    @Override
+    public void decompress(DataInput in, int originalLength, int offset, int length, BytesRef bytes) throws IOException {
+      assert offset + length <= originalLength;
+      if (length == 0) {
+        bytes.length = 0;
+        return;
+      }
+
+      final int dictLength = in.readVInt();
+      final int blockLength = in.readVInt();
+      if (dictLength > originalLength || (blockLength == 0 && originalLength > dictLength)) {
+        throw new CorruptIndexException("Illegal dictionary or block length: dictLength=" + dictLength
+            + ", blockLength=" + blockLength + ", originalLength=" + originalLength, in);
+      }
+      bytes.bytes = ArrayUtil.grow(bytes.bytes, dictLength);
+      bytes.offset = bytes.length = 0;
+
+      final Inflater decompressor = new Inflater(true);
+      try {
+        // read the dictionary
+        doDecompress(in, decompressor, bytes);
+        if (bytes.length != dictLength) {
+          throw new CorruptIndexException("Lengths mismatch: " + bytes.length + " != " + dictLength, in);
+        }
+
+        int offsetInBlock = dictLength;
+        int offsetInBytesRef = offset;
+        // skip sub blocks that don't contain any of the requested bytes
+        while (offsetInBlock + blockLength <= offset) {
+          in.skipBytes(in.readVInt());
+          offsetInBlock += blockLength;
+          offsetInBytesRef -= blockLength;
+        }
+
+        // inflate sub blocks that contain requested bytes, right after the dictionary
+        while (offsetInBlock < offset + length) {
+          bytes.bytes = ArrayUtil.grow(bytes.bytes, bytes.length + blockLength);
+          decompressor.reset();
+          if (dictLength > 0) {
+            decompressor.setDictionary(bytes.bytes, 0, dictLength);
+          }
+          doDecompress(in, decompressor, bytes);
+          offsetInBlock += blockLength;
+        }
+
+        bytes.offset = offsetInBytesRef;
+        bytes.length = length;
+        assert bytes.isValid();
+      } finally {
+        decompressor.end();
+      }
+    }
+
+    @Override
+    public Decompressor clone() {
+      return new DeflateWithPresetDictDecompressor();
+    }
+
+  }
+
+  private static class DeflateWithPresetDictCompressor extends Compressor {
+
+    final Deflater compressor;
+    byte[] compressed;
+    boolean closed;
+
+    DeflateWithPresetDictCompressor(int level) {
+      compressor = new Deflater(level, true);
+      compressed = new byte[64];
+    }
+
+    // write the length of the compressed block followed by its bytes
+    private void doCompress(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+      if (len == 0) {
+        out.writeVInt(0);
+        return;
+      }
+      compressor.setInput(bytes, off, len);
+      compressor.finish();
+      assert compressor.needsInput() == false;
+
+      int totalCount = 0;
+      for (;;) {
+        final int count = compressor.deflate(compressed, totalCount, compressed.length - totalCount);
+        totalCount += count;
+        assert totalCount <= compressed.length;
+        if (compressor.finished()) {
+          break;
+        } else {
+          compressed = ArrayUtil.grow(compressed);
+        }
+      }
+
+      out.writeVInt(totalCount);
+      out.writeBytes(compressed, totalCount);
+    }
+
+    @Override
+    public void compress(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+      final int dictLength = dictLength(len, DICT_SIZE_FACTOR, MAX_DICT_LENGTH);
+      final int blockLength = blockLength(len, dictLength);
+      out.writeVInt(dictLength);
+      out.writeVInt(blockLength);
+      final int end = off + len;
+
+      // compress the dictionary first
+      compressor.reset();
+      doCompress(bytes, off, dictLength, out);
+
+      // then every sub block, with the dictionary as a preset dictionary
+      for (int start = off + dictLength; start < end; start += blockLength) {
+        compressor.reset();
+        if (dictLength > 0) {
+          compressor.setDictionary(bytes, off, dictLength);
+        }
+        doCompress(bytes, start, Math.min(blockLength, end - start), out);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed == false) {
+        compressor.end();
+        closed = true;
+      }
+    }
+
+  }
+
+}
@@ -202,20 +202,49 @@ final class LZ4 {
    * but can safely be reused.
    */
   public static void compress(byte[] bytes, int off, int len, DataOutput out, HashTable ht) throws IOException {
+    compressWithDictionary(bytes, off, 0, len, out, ht);
+  }
+
+  /**
+   * Compress <code>bytes[dictOff+dictLen:dictOff+dictLen+len]</code> into
+   * <code>out</code> using at most 16KB of memory.
+   * <code>bytes[dictOff:dictOff+dictLen]</code> will be used as a dictionary:
+   * matches may reference bytes of the dictionary, which are not written to
+   * <code>out</code>. Decompressing thus requires the dictionary to be copied
+   * right before the destination offset, see
+   * {@link #decompress(DataInput, int, byte[], int)}.
+   * <code>ht</code> shouldn't be shared across threads but can safely be
+   * reused.
+   */
+  public static void compressWithDictionary(byte[] bytes, int dictOff, int dictLen, int len, DataOutput out, HashTable ht) throws IOException {
+    if (dictLen < 0 || dictLen >= MAX_DISTANCE) {
+      throw new IllegalArgumentException("dictLen must be in [0, " + MAX_DISTANCE + "), got " + dictLen);
+    }
 
-    final int base = off;
+    final int base = dictOff;
+    int off = dictOff + dictLen;
     final int end = off + len;
 
-    int anchor = off++;
+    int anchor = off;
 
     if (len > LAST_LITERALS + MIN_MATCH) {
 
       final int limit = end - LAST_LITERALS;
       final int matchLimit = limit - MIN_MATCH;
-      ht.reset(len);
+      ht.reset(dictLen + len);
       final int hashLog = ht.hashLog;
       final PackedInts.Mutable hashTable = ht.hashTable;
 
+      if (dictLen == 0) {
+        // the first byte can't be part of a match
+        ++off;
+      } else {
+        // register the positions of the dictionary so that matches can reference it
+        for (int i = dictOff; i < dictOff + dictLen; ++i) {
+          hashTable.set(hash(readInt(bytes, i), hashLog), i - base);
+        }
+      }
+
       main:
       while (off <= limit) {
         // find a match
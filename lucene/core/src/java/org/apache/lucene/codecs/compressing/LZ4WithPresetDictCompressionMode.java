@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.compressing;
+
+
+import java.io.IOException;
+
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.ByteBuffersDataOutput;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * A compression mode that compresses data with LZ4 using a preset dictionary
+ * that is shared by several sub blocks.
+ * <p>
+ * The first bytes of the data to compress are used as a dictionary, the rest
+ * is split into {@value #NUM_SUB_BLOCKS} sub blocks that are compressed
+ * independently of each other but that can all reference the dictionary. This
+ * helps compress data that is made of many small and similar documents, such
+ * as log lines or JSON objects, since every sub block benefits from the
+ * redundancy with the dictionary, while only the dictionary and the sub blocks
+ * that contain the requested bytes need to be decompressed in order to read a
+ * single document.
+ * <p>
+ * This mode is meant to be used with chunks that are {@value #NUM_SUB_BLOCKS}
+ * times larger than what would be used with {@link CompressionMode#FAST}.
+ * @lucene.experimental
+ */
+public final class LZ4WithPresetDictCompressionMode extends CompressionMode {
+
+  /** Number of sub blocks that the data is split into after the dictionary. */
+  public static final int NUM_SUB_BLOCKS = 10;
+  // the dictionary is a fraction of the size of a sub block
+  private static final int DICT_SIZE_FACTOR = 16;
+  // don't split small inputs into tiny sub blocks that would not compress
+  private static final int MIN_BLOCK_LENGTH = 512;
+
+  /** Sole constructor. */
+  public LZ4WithPresetDictCompressionMode() {}
+
+  @Override
+  public Compressor newCompressor() {
+    return new LZ4WithPresetDictCompressor();
+  }
+
+  @Override
+  public Decompressor newDecompressor() {
+    return new LZ4WithPresetDictDecompressor();
+  }
+
+  @Override
+  public String toString() {
+    return "BEST_SPEED_PRESET_DICT";
+  }
+
+  /** Compute the length of the dictionary for data of the given length. */
+  static int dictLength(int len, int dictSizeFactor, int maxDictLength) {
+    return Math.min(maxDictLength, len / (NUM_SUB_BLOCKS * dictSizeFactor));
+  }
+
+  /** Compute the length of sub blocks for data of the given length. */
+  static int blockLength(int len, int dictLength) {
+    return Math.max(MIN_BLOCK_LENGTH, (len - dictLength + NUM_SUB_BLOCKS - 1) / NUM_SUB_BLOCKS);
+  }
+
+  /**
+   * Read the compressed lengths of the sub blocks of data of the given length
+   * into <code>compressedLengths</code> and return the number of sub blocks.
+   */
+  static int readCompressedLengths(DataInput in, int originalLength, int dictLength, int blockLength,
+      int[] compressedLengths) throws IOException {
+    if (dictLength > originalLength || (blockLength == 0 && originalLength > dictLength)) {
+      throw new CorruptIndexException("Illegal dictionary or block length: dictLength=" + dictLength
+          + ", blockLength=" + blockLength + ", originalLength=" + originalLength, in);
+    }
+    final int numBlocks = blockLength == 0 ? 0 : (originalLength - dictLength + blockLength - 1) / blockLength;
+    if (numBlocks > compressedLengths.length) {
+      throw new CorruptIndexException("Illegal number of sub blocks: " + numBlocks, in);
+    }
+    for (int i = 0; i < numBlocks; ++i) {
+      compressedLengths[i] = in.readVInt();
+    }
+    return numBlocks;
+  }
+
+  private static final class LZ4WithPresetDictDecompressor extends Decompressor {
+
+    private final int[] compressedLengths = new int[NUM_SUB_BLOCKS];
+    private byte[] buffer = BytesRef.EMPTY_BYTES;
+
+    @Override
+    public void decompress(DataInput in, int originalLength, int offset, int length, BytesRef bytes) throws IOException {
+      assert offset + length <= originalLength;
+      if (length == 0) {
+        bytes.length = 0;
+        return;
+      }
+
+      final int dictLength = in.readVInt();
+      final int blockLength = in.readVInt();
+      final int numBlocks = readCompressedLengths(in, originalLength, dictLength, blockLength, compressedLengths);
+      // add 7 padding bytes, this is not necessary but can help decompression run faster
+      buffer = ArrayUtil.grow(buffer, dictLength + blockLength + 7);
+      bytes.length = 0;
+
+      // read the dictionary
+      if (LZ4.decompress(in, dictLength, buffer, 0) != dictLength) {
+        throw new CorruptIndexException("Illegal dict length", in);
+      }
+
+      int offsetInBlock = dictLength;
+      int offsetInBytesRef = offset;
+      if (offset >= dictLength) {
+        offsetInBytesRef -= dictLength;
+        // skip sub blocks that don't contain any of the requested bytes
+        int numBytesToSkip = 0;
+        for (int i = 0; i < numBlocks && offsetInBlock + blockLength <= offset; ++i) {
+          numBytesToSkip += compressedLengths[i];
+          offsetInBlock += blockLength;
+          offsetInBytesRef -= blockLength;
+        }
+        in.skipBytes(numBytesToSkip);
+      } else {
+        // the dictionary contains some of the requested bytes
+        bytes.bytes = ArrayUtil.grow(bytes.bytes, dictLength);
+        System.arraycopy(buffer, 0, bytes.bytes, 0, dictLength);
+        bytes.length = dictLength;
+      }
+
+      // decompress sub blocks that contain requested bytes
+      while (offsetInBlock < offset + length) {
+        final int bytesToDecompress = Math.min(blockLength, offset + length - offsetInBlock);
+        LZ4.decompress(in, dictLength + bytesToDecompress, buffer, dictLength);
+        bytes.bytes = ArrayUtil.grow(bytes.bytes, bytes.length + bytesToDecompress);
+        System.arraycopy(buffer, dictLength, bytes.bytes, bytes.length, bytesToDecompress);
+        bytes.length += bytesToDecompress;
+        offsetInBlock += blockLength;
+      }
+
+      bytes.offset = offsetInBytesRef;
+      bytes.length = length;
+      assert bytes.isValid();
+    }
+
+    @Override
+    public Decompressor clone() {
+      return new LZ4WithPresetDictDecompressor();
+    }
+  }
+
+  private static final class LZ4WithPresetDictCompressor extends Compressor {
+
+    private final ByteBuffersDataOutput compressed = ByteBuffersDataOutput.newResettableInstance();
+    private final LZ4.HashTable hashTable = new LZ4.HashTable();
+    private final int[] compressedLengths = new int[NUM_SUB_BLOCKS];
+    private byte[] buffer = BytesRef.EMPTY_BYTES;
+
+    @Override
+    public void compress(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+      final int dictLength = dictLength(len, DICT_SIZE_FACTOR, LZ4.MAX_DISTANCE - 1);
+      final int blockLength = blockLength(len, dictLength);
+      out.writeVInt(dictLength);
+      out.writeVInt(blockLength);
+
+      final int end = off + len;
+      compressed.reset();
+      // compress the dictionary first
+      LZ4.compress(bytes, off, dictLength, compressed, hashTable);
+
+      // then every sub block, with a copy of the dictionary right before it
+      buffer = ArrayUtil.grow(buffer, dictLength + blockLength);
+      System.arraycopy(bytes, off, buffer, 0, dictLength);
+      int numBlocks = 0;
+      for (int start = off + dictLength; start < end; start += blockLength) {
+        final int l = Math.min(blockLength, end - start);
+        System.arraycopy(bytes, start, buffer, dictLength, l);
+        final long before = compressed.size();
+        LZ4.compressWithDictionary(buffer, 0, dictLength, l, compressed, hashTable);
+        compressedLengths[numBlocks++] = Math.toIntExact(compressed.size() - before);
+      }
+
+      // compressed lengths of sub blocks first so that readers can skip them
+      for (int i = 0; i < numBlocks; ++i) {
+        out.writeVInt(compressedLengths[i]);
+      }
+      compressed.copyTo(out);
+    }
+
+    @Override
+    public void close() throws IOException {
+      // no-op
+    }
+  }
+
+}
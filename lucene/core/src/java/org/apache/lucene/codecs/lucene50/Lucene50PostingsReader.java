@@ -246,6 +246,17 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
     return new BlockImpactsEverythingEnum(fieldInfo, (IntBlockTermState) state, flags);
   }
 
+  /**
+   * Give hints that the first block of postings and the skip data of the term are going to be
+   * read, so that they can be loaded concurrently with other terms of the same query.
+   */
+  private static void prefetchPostings(IndexInput docIn, IntBlockTermState termState) throws IOException {
+    docIn.prefetch(termState.docStartFP, 1);
+    if (termState.skipOffset != -1) {
+      docIn.prefetch(termState.docStartFP + termState.skipOffset, 1);
+    }
+  }
+
   final class BlockDocsEnum extends PostingsEnum {
     private final byte[] encoded;
     
@@ -316,6 +327,7 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
           docIn = startDocIn.clone();
         }
         docIn.seek(docTermStartFP);
+        prefetchPostings(docIn, termState);
       }
 
       doc = -1;
@@ -572,9 +584,11 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
           docIn = startDocIn.clone();
         }
         docIn.seek(docTermStartFP);
+        prefetchPostings(docIn, termState);
       }
       posPendingFP = posTermStartFP;
       posPendingCount = 0;
+      posIn.prefetch(posTermStartFP, 1);
       if (termState.totalTermFreq < BLOCK_SIZE) {
         lastPosBlockFP = posTermStartFP;
       } else if (termState.totalTermFreq == BLOCK_SIZE) {
@@ -945,10 +959,12 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
           docIn = startDocIn.clone();
         }
         docIn.seek(docTermStartFP);
+        prefetchPostings(docIn, termState);
       }
       posPendingFP = posTermStartFP;
       payPendingFP = payTermStartFP;
       posPendingCount = 0;
+      posIn.prefetch(posTermStartFP, 1);
       if (termState.totalTermFreq < BLOCK_SIZE) {
         lastPosBlockFP = posTermStartFP;
       } else if (termState.totalTermFreq == BLOCK_SIZE) {
@@ -1311,6 +1327,8 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
     private int posBufferUpto;
 
     private final Lucene50ScoreSkipReader skipper;
+    private boolean skipperInitialized;
+    private final long skipOffset;
 
     final IndexInput docIn;
     final IndexInput posIn;
@@ -1416,10 +1434,15 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
       posTermStartFP = termState.posStartFP;
       payTermStartFP = termState.payStartFP;
       totalTermFreq = termState.totalTermFreq;
+      skipOffset = termState.skipOffset;
       docIn.seek(docTermStartFP);
+      prefetchPostings(docIn, termState);
       posPendingFP = posTermStartFP;
       payPendingFP = payTermStartFP;
       posPendingCount = 0;
+      if (posIn != null) {
+        posIn.prefetch(posTermStartFP, 1);
+      }
       if (termState.totalTermFreq < BLOCK_SIZE) {
         lastPosBlockFP = posTermStartFP;
       } else if (termState.totalTermFreq == BLOCK_SIZE) {
@@ -1439,7 +1462,8 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
           indexHasPos,
           indexHasOffsets,
           indexHasPayloads);
-      skipper.init(docTermStartFP+termState.skipOffset, docTermStartFP, posTermStartFP, payTermStartFP, docFreq);
+      // the skipper is initialized lazily so that reading skip data doesn't block
+      // on I/O before the prefetched data of other terms could be requested
 
       if (indexHasFreq == false) {
         Arrays.fill(freqBuffer, 1);
@@ -1540,9 +1564,17 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
       }
     }
 
+    private void initSkipper() throws IOException {
+      if (skipperInitialized == false) {
+        skipper.init(docTermStartFP+skipOffset, docTermStartFP, posTermStartFP, payTermStartFP, docFreq);
+        skipperInitialized = true;
+      }
+    }
+
     @Override
     public void advanceShallow(int target) throws IOException {
       if (target > nextSkipDoc) {
+        initSkipper();
         // always plus one to fix the result, since skip position in Lucene50SkipReader 
         // is a little different from MultiLevelSkipListReader
         final int newDocUpto = skipper.skipTo(target) + 1; 
@@ -1572,6 +1604,7 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
     @Override
     public Impacts getImpacts() throws IOException {
       advanceShallow(doc);
+      initSkipper();
       return skipper.getImpacts();
     }
 
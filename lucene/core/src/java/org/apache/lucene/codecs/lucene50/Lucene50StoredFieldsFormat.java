@@ -27,6 +27,8 @@ import org.apache.lucene.codecs.StoredFieldsWriter;
 import org.apache.lucene.codecs.compressing.CompressingStoredFieldsFormat;
 import org.apache.lucene.codecs.compressing.CompressingStoredFieldsIndexWriter;
 import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.DeflateWithPresetDictCompressionMode;
+import org.apache.lucene.codecs.compressing.LZ4WithPresetDictCompressionMode;
 import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.SegmentInfo;
 import org.apache.lucene.index.StoredFieldVisitor;
@@ -57,6 +59,15 @@ import org.apache.lucene.util.packed.PackedInts;
  *   // instead for higher performance (but slower):
  *   // indexWriterConfig.setCodec(new Lucene54Codec(Mode.BEST_COMPRESSION));
  * </pre>
+ * <p>Both options also exist in a flavor that compresses chunks that are 10 times
+ * larger, and split into a shared dictionary followed by 10 sub blocks that are
+ * compressed independently using this dictionary
+ * ({@link Mode#BEST_SPEED_PRESET_DICT BEST_SPEED_PRESET_DICT} and
+ * {@link Mode#BEST_COMPRESSION_PRESET_DICT BEST_COMPRESSION_PRESET_DICT}). This
+ * gives better compression ratios on indices of many small documents such as
+ * logs, while retrieving a document only requires to decompress the dictionary
+ * and the sub block(s) that contain the document, see
+ * {@link LZ4WithPresetDictCompressionMode} and {@link DeflateWithPresetDictCompressionMode}.
  * <p><b>File formats</b>
  * <p>Stored fields are represented by two files:
  * <ol>
@@ -145,9 +156,17 @@ public final class Lucene50StoredFieldsFormat extends StoredFieldsFormat {
     /** Trade compression ratio for retrieval speed. */
     BEST_SPEED,
     /** Trade retrieval speed for compression ratio. */
-    BEST_COMPRESSION
+    BEST_COMPRESSION,
+    /** Like {@link #BEST_SPEED}, with larger chunks whose sub blocks share a preset dictionary. */
+    BEST_SPEED_PRESET_DICT,
+    /** Like {@link #BEST_COMPRESSION}, with larger chunks whose sub blocks share a preset dictionary. */
+    BEST_COMPRESSION_PRESET_DICT
   }
   
+  // shared instances so that segments that use the same mode can be merged by copying compressed chunks
+  private static final CompressionMode LZ4_WITH_PRESET_DICT = new LZ4WithPresetDictCompressionMode();
+  private static final CompressionMode DEFLATE_WITH_PRESET_DICT = new DeflateWithPresetDictCompressionMode();
+
   /** Attribute key for compression mode. */
   public static final String MODE_KEY = Lucene50StoredFieldsFormat.class.getSimpleName() + ".mode";
   
@@ -189,6 +208,14 @@ public final class Lucene50StoredFieldsFormat extends StoredFieldsFormat {
         return new CompressingStoredFieldsFormat("Lucene50StoredFieldsFast", CompressionMode.FAST, 1 << 14, 128, 1024);
       case BEST_COMPRESSION: 
         return new CompressingStoredFieldsFormat("Lucene50StoredFieldsHigh", CompressionMode.HIGH_COMPRESSION, 61440, 512, 1024);
+      case BEST_SPEED_PRESET_DICT:
+        // shoot for 10 sub blocks of 16KB each
+        return new CompressingStoredFieldsFormat("Lucene50StoredFieldsFastDict", LZ4_WITH_PRESET_DICT,
+            LZ4WithPresetDictCompressionMode.NUM_SUB_BLOCKS << 14, 1280, 1024);
+      case BEST_COMPRESSION_PRESET_DICT:
+        // shoot for 10 sub blocks of 60KB each
+        return new CompressingStoredFieldsFormat("Lucene50StoredFieldsHighDict", DEFLATE_WITH_PRESET_DICT,
+            LZ4WithPresetDictCompressionMode.NUM_SUB_BLOCKS * 61440, 5120, 1024);
       default: throw new AssertionError();
     }
   }
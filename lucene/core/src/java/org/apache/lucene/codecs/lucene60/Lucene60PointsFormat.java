@@ -18,6 +18,7 @@ package org.apache.lucene.codecs.lucene60;
 
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.codecs.PointsFormat;
@@ -25,6 +26,7 @@ import org.apache.lucene.codecs.PointsReader;
 import org.apache.lucene.codecs.PointsWriter;
 import org.apache.lucene.index.SegmentReadState;
 import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.util.bkd.BKDWriter;
 
 /**
  * Lucene 6.0 point format, which encodes dimensional values in a block KD-tree structure
@@ -70,6 +72,9 @@ import org.apache.lucene.index.SegmentWriteState;
  *
  * <p>After all fields blocks + index data are written, {@link CodecUtil#writeFooter} writes the checksum.
  *
+ * <p>BKD trees of merged multi-dimensional fields can optionally be built concurrently, see
+ * {@link #Lucene60PointsFormat(ExecutorService, int)}. This has no effect on the index format.
+ *
  * @lucene.experimental
  */
 
@@ -94,13 +99,31 @@ public final class Lucene60PointsFormat extends PointsFormat {
   static final int INDEX_VERSION_START = 0;
   static final int INDEX_VERSION_CURRENT = INDEX_VERSION_START;
 
-  /** Sole constructor */
+  private final ExecutorService mergeExecutor;
+  private final int numMergeThreads;
+
+  /** Creates a format that builds BKD trees in the indexing or merging thread. */
   public Lucene60PointsFormat() {
+    this(null, 1);
+  }
+
+  /** Creates a format that builds the sub-trees of the BKD trees of merged multi-dimensional
+   *  fields concurrently on {@code mergeExecutor}, using up to {@code numMergeThreads} threads
+   *  per field. The calling merge thread partitions the top levels of the tree and then waits for
+   *  sub-trees to be built, so it must not be a thread of {@code mergeExecutor}.
+   *  @see Lucene60PointsWriter#Lucene60PointsWriter(SegmentWriteState, int, double, ExecutorService, int) */
+  public Lucene60PointsFormat(ExecutorService mergeExecutor, int numMergeThreads) {
+    if (numMergeThreads < 1) {
+      throw new IllegalArgumentException("numMergeThreads must be >= 1, got " + numMergeThreads);
+    }
+    this.mergeExecutor = mergeExecutor;
+    this.numMergeThreads = numMergeThreads;
   }
 
   @Override
   public PointsWriter fieldsWriter(SegmentWriteState state) throws IOException {
-    return new Lucene60PointsWriter(state);
+    return new Lucene60PointsWriter(state, BKDWriter.DEFAULT_MAX_POINTS_IN_LEAF_NODE, BKDWriter.DEFAULT_MAX_MB_SORT_IN_HEAP,
+        mergeExecutor, numMergeThreads);
   }
 
   @Override
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.codecs.MutablePointValues;
@@ -53,14 +54,27 @@ public class Lucene60PointsWriter extends PointsWriter implements Closeable {
   final SegmentWriteState writeState;
   final int maxPointsInLeafNode;
   final double maxMBSortInHeap;
+  final ExecutorService executor;
+  final int numThreads;
   private boolean finished;
 
-  /** Full constructor */
-  public Lucene60PointsWriter(SegmentWriteState writeState, int maxPointsInLeafNode, double maxMBSortInHeap) throws IOException {
+  /** Full constructor.
+   *  @param executor if not null, multi-dimensional fields that are written from a non-mutable
+   *         {@link PointsReader}, typically on merge, build the sub-trees of their BKD tree
+   *         concurrently on this executor
+   *  @param numThreads the number of threads of {@code executor} that a single field may use
+   *  @see BKDWriter#finish(IndexOutput, ExecutorService, int) */
+  public Lucene60PointsWriter(SegmentWriteState writeState, int maxPointsInLeafNode, double maxMBSortInHeap,
+      ExecutorService executor, int numThreads) throws IOException {
     assert writeState.fieldInfos.hasPointValues();
+    if (numThreads < 1) {
+      throw new IllegalArgumentException("numThreads must be >= 1, got " + numThreads);
+    }
     this.writeState = writeState;
     this.maxPointsInLeafNode = maxPointsInLeafNode;
     this.maxMBSortInHeap = maxMBSortInHeap;
+    this.executor = executor;
+    this.numThreads = numThreads;
     String dataFileName = IndexFileNames.segmentFileName(writeState.segmentInfo.name,
                                                          writeState.segmentSuffix,
                                                          Lucene60PointsFormat.DATA_EXTENSION);
@@ -80,6 +94,11 @@ public class Lucene60PointsWriter extends PointsWriter implements Closeable {
     }
   }
 
+  /** Builds BKD trees in the current thread. */
+  public Lucene60PointsWriter(SegmentWriteState writeState, int maxPointsInLeafNode, double maxMBSortInHeap) throws IOException {
+    this(writeState, maxPointsInLeafNode, maxMBSortInHeap, null, 1);
+  }
+
   /** Uses the defaults values for {@code maxPointsInLeafNode} (1024) and {@code maxMBSortInHeap} (16.0) */
   public Lucene60PointsWriter(SegmentWriteState writeState) throws IOException {
     this(writeState, BKDWriter.DEFAULT_MAX_POINTS_IN_LEAF_NODE, BKDWriter.DEFAULT_MAX_MB_SORT_IN_HEAP);
@@ -126,7 +145,7 @@ public class Lucene60PointsWriter extends PointsWriter implements Closeable {
 
       // We could have 0 points on merge since all docs with dimensional fields may be deleted:
       if (writer.getPointCount() > 0) {
-        indexFPs.put(fieldInfo.name, writer.finish(dataOut));
+        indexFPs.put(fieldInfo.name, writer.finish(dataOut, executor, numThreads));
       }
     }
   }
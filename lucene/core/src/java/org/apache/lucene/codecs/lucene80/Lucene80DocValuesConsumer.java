@@ -55,15 +55,18 @@ import org.apache.lucene.util.packed.DirectWriter;
 import static org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat.DIRECT_MONOTONIC_BLOCK_SHIFT;
 import static org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat.NUMERIC_BLOCK_SHIFT;
 import static org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat.NUMERIC_BLOCK_SIZE;
+import static org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat.SKIP_INDEX_INTERVAL_SIZE;
 
 /** writer for {@link Lucene80DocValuesFormat} */
 final class Lucene80DocValuesConsumer extends DocValuesConsumer implements Closeable {
 
   IndexOutput data, meta;
   final int maxDoc;
+  final boolean skipIndex;
 
   /** expert: Creates a new writer */
-  public Lucene80DocValuesConsumer(SegmentWriteState state, String dataCodec, String dataExtension, String metaCodec, String metaExtension) throws IOException {
+  public Lucene80DocValuesConsumer(SegmentWriteState state, String dataCodec, String dataExtension, String metaCodec, String metaExtension, boolean skipIndex) throws IOException {
+    this.skipIndex = skipIndex;
     boolean success = false;
     try {
       String dataName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, dataExtension);
@@ -108,12 +111,97 @@ final class Lucene80DocValuesConsumer extends DocValuesConsumer implements Close
     meta.writeInt(field.number);
     meta.writeByte(Lucene80DocValuesFormat.NUMERIC);
 
-    writeValues(field, new EmptyDocValuesProducer() {
+    DocValuesProducer singletonProducer = new EmptyDocValuesProducer() {
       @Override
       public SortedNumericDocValues getSortedNumeric(FieldInfo field) throws IOException {
         return DocValues.singleton(valuesProducer.getNumeric(field));
       }
-    });
+    };
+    writeValues(field, singletonProducer);
+    writeSkipIndex(field, singletonProducer);
+  }
+
+  private static class SkipIntervalAccumulator {
+    int minDocID, maxDocID, docCount;
+    long minValue, maxValue;
+
+    SkipIntervalAccumulator() {
+      reset();
+    }
+
+    private void reset() {
+      minDocID = maxDocID = -1;
+      docCount = 0;
+      minValue = Long.MAX_VALUE;
+      maxValue = Long.MIN_VALUE;
+    }
+
+    /** Accumulate the values of the current document of {@code values}. */
+    void accumulate(int doc, SortedNumericDocValues values) throws IOException {
+      if (docCount == 0) {
+        minDocID = doc;
+      }
+      maxDocID = doc;
+      ++docCount;
+      // values are sorted
+      final int count = values.docValueCount();
+      long value = values.nextValue();
+      minValue = Math.min(minValue, value);
+      for (int i = 1; i < count; ++i) {
+        value = values.nextValue();
+      }
+      maxValue = Math.max(maxValue, value);
+    }
+
+    /** Write the current interval and get ready for accumulating documents for the next one. */
+    void writeTo(IndexOutput out) throws IOException {
+      out.writeInt(minDocID);
+      out.writeInt(maxDocID);
+      out.writeLong(minValue);
+      out.writeLong(maxValue);
+      out.writeInt(docCount);
+      reset();
+    }
+  }
+
+  /**
+   * Write the skip index of a numeric or sorted numeric field, or a marker that the field has no
+   * skip index if skip indexes are disabled.
+   */
+  private void writeSkipIndex(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+    if (skipIndex == false) {
+      meta.writeLong(-1L); // no skip index
+      return;
+    }
+    final long start = data.getFilePointer();
+    SortedNumericDocValues values = valuesProducer.getSortedNumeric(field);
+    SkipIntervalAccumulator accumulator = new SkipIntervalAccumulator();
+    int numIntervals = 0;
+    int globalDocCount = 0;
+    long globalMinValue = Long.MAX_VALUE;
+    long globalMaxValue = Long.MIN_VALUE;
+    for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+      accumulator.accumulate(doc, values);
+      if (accumulator.docCount == SKIP_INDEX_INTERVAL_SIZE) {
+        globalMinValue = Math.min(globalMinValue, accumulator.minValue);
+        globalMaxValue = Math.max(globalMaxValue, accumulator.maxValue);
+        globalDocCount += accumulator.docCount;
+        accumulator.writeTo(data);
+        numIntervals++;
+      }
+    }
+    if (accumulator.docCount > 0) {
+      globalMinValue = Math.min(globalMinValue, accumulator.minValue);
+      globalMaxValue = Math.max(globalMaxValue, accumulator.maxValue);
+      globalDocCount += accumulator.docCount;
+      accumulator.writeTo(data);
+      numIntervals++;
+    }
+    meta.writeLong(start);
+    meta.writeInt(numIntervals);
+    meta.writeLong(globalMinValue);
+    meta.writeLong(globalMaxValue);
+    meta.writeInt(globalDocCount);
   }
 
   private static class MinMaxTracker {
@@ -593,6 +681,8 @@ final class Lucene80DocValuesConsumer extends DocValuesConsumer implements Close
       addressesWriter.finish();
       meta.writeLong(data.getFilePointer() - start);
     }
+
+    writeSkipIndex(field, valuesProducer);
   }
 
   @Override
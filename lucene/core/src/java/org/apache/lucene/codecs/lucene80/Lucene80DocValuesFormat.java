@@ -122,6 +122,14 @@ import org.apache.lucene.util.packed.DirectWriter;
  *        strategies above.
  * </ul>
  * <p>
+ * Optionally, {@link DocValuesType#NUMERIC NUMERIC} and {@link DocValuesType#SORTED_NUMERIC SORTED_NUMERIC}
+ * fields may also get a skip index: the documents that have a value are split into intervals of 4096
+ * documents and the min and max doc IDs, the min and max values and the number of documents of every
+ * interval are recorded, along with global min and max values and doc count. This allows range queries to
+ * skip intervals whose values do not intersect the range, which is especially efficient on segments that are
+ * {@link IndexWriterConfig#setIndexSort(org.apache.lucene.search.Sort) sorted} on the field. The skip index
+ * is exposed through {@link org.apache.lucene.index.LeafReader#getDocValuesSkipper(String)}.
+ * <p>
  * Files:
  * <ol>
  *   <li><tt>.dvd</tt>: DocValues data</li>
@@ -131,14 +139,26 @@ import org.apache.lucene.util.packed.DirectWriter;
  */
 public final class Lucene80DocValuesFormat extends DocValuesFormat {
 
-  /** Sole Constructor */
+  private final boolean skipIndex;
+
+  /** Creates a format that doesn't write skip indexes. */
   public Lucene80DocValuesFormat() {
+    this(false);
+  }
+
+  /**
+   * Creates a format that writes a skip index for numeric and sorted numeric fields if
+   * {@code skipIndex} is true. Use a {@link org.apache.lucene.codecs.Codec} that overrides
+   * {@code getDocValuesFormatForField} in order to only enable it on some fields.
+   */
+  public Lucene80DocValuesFormat(boolean skipIndex) {
     super("Lucene80");
+    this.skipIndex = skipIndex;
   }
 
   @Override
   public DocValuesConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
-    return new Lucene80DocValuesConsumer(state, DATA_CODEC, DATA_EXTENSION, META_CODEC, META_EXTENSION);
+    return new Lucene80DocValuesConsumer(state, DATA_CODEC, DATA_EXTENSION, META_CODEC, META_EXTENSION, skipIndex);
   }
 
   @Override
@@ -151,7 +171,8 @@ public final class Lucene80DocValuesFormat extends DocValuesFormat {
   static final String META_CODEC = "Lucene80DocValuesMetadata";
   static final String META_EXTENSION = "dvm";
   static final int VERSION_START = 0;
-  static final int VERSION_CURRENT = VERSION_START;
+  static final int VERSION_SKIP_INDEX = 1;
+  static final int VERSION_CURRENT = VERSION_SKIP_INDEX;
 
   // indicates docvalues type
   static final byte NUMERIC = 0;
@@ -172,4 +193,9 @@ public final class Lucene80DocValuesFormat extends DocValuesFormat {
   static final int TERMS_DICT_REVERSE_INDEX_SHIFT = 10;
   static final int TERMS_DICT_REVERSE_INDEX_SIZE = 1 << TERMS_DICT_REVERSE_INDEX_SHIFT;
   static final int TERMS_DICT_REVERSE_INDEX_MASK = TERMS_DICT_REVERSE_INDEX_SIZE - 1;
+
+  static final int SKIP_INDEX_INTERVAL_SHIFT = 12;
+  static final int SKIP_INDEX_INTERVAL_SIZE = 1 << SKIP_INDEX_INTERVAL_SHIFT;
+  // min doc, max doc, min value, max value, doc count
+  static final int SKIP_INDEX_INTERVAL_BYTES = 2 * Integer.BYTES + 2 * Long.BYTES + Integer.BYTES;
 }
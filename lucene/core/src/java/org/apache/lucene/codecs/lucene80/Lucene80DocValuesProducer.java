@@ -18,6 +18,7 @@ package org.apache.lucene.codecs.lucene80;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -26,6 +27,7 @@ import org.apache.lucene.codecs.DocValuesProducer;
 import org.apache.lucene.index.BinaryDocValues;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.ImpactsEnum;
@@ -38,6 +40,7 @@ import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.index.TermsEnum.SeekStatus;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.store.ChecksumIndexInput;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.RandomAccessInput;
@@ -76,7 +79,7 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
                                         Lucene80DocValuesFormat.VERSION_CURRENT,
                                         state.segmentInfo.getId(),
                                         state.segmentSuffix);
-        readFields(in, state.fieldInfos);
+        readFields(in, state.fieldInfos, version);
       } catch (Throwable exception) {
         priorE = exception;
       } finally {
@@ -111,7 +114,7 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
     }
   }
 
-  private void readFields(ChecksumIndexInput meta, FieldInfos infos) throws IOException {
+  private void readFields(ChecksumIndexInput meta, FieldInfos infos, int version) throws IOException {
     for (int fieldNumber = meta.readInt(); fieldNumber != -1; fieldNumber = meta.readInt()) {
       FieldInfo info = infos.fieldInfo(fieldNumber);
       if (info == null) {
@@ -119,7 +122,11 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
       }
       byte type = meta.readByte();
       if (type == Lucene80DocValuesFormat.NUMERIC) {
-        numerics.put(info.name, readNumeric(meta));
+        NumericEntry entry = readNumeric(meta);
+        if (version >= Lucene80DocValuesFormat.VERSION_SKIP_INDEX) {
+          readSkipIndex(meta, entry);
+        }
+        numerics.put(info.name, entry);
       } else if (type == Lucene80DocValuesFormat.BINARY) {
         binaries.put(info.name, readBinary(meta));
       } else if (type == Lucene80DocValuesFormat.SORTED) {
@@ -127,7 +134,11 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
       } else if (type == Lucene80DocValuesFormat.SORTED_SET) {
         sortedSets.put(info.name, readSortedSet(meta));
       } else if (type == Lucene80DocValuesFormat.SORTED_NUMERIC) {
-        sortedNumerics.put(info.name, readSortedNumeric(meta));
+        SortedNumericEntry entry = readSortedNumeric(meta);
+        if (version >= Lucene80DocValuesFormat.VERSION_SKIP_INDEX) {
+          readSkipIndex(meta, entry);
+        }
+        sortedNumerics.put(info.name, entry);
       } else {
         throw new CorruptIndexException("invalid type: " + type, meta);
       }
@@ -268,6 +279,16 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
     return entry;
   }
 
+  private void readSkipIndex(ChecksumIndexInput meta, NumericEntry entry) throws IOException {
+    entry.skipIndexOffset = meta.readLong();
+    if (entry.skipIndexOffset != -1) {
+      entry.skipIndexIntervalCount = meta.readInt();
+      entry.skipIndexGlobalMinValue = meta.readLong();
+      entry.skipIndexGlobalMaxValue = meta.readLong();
+      entry.skipIndexGlobalDocCount = meta.readInt();
+    }
+  }
+
   @Override
   public void close() throws IOException {
     data.close();
@@ -287,6 +308,11 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
     long valuesOffset;
     long valuesLength;
     long valueJumpTableOffset; // -1 if no jump-table
+    long skipIndexOffset = -1; // -1 if no skip index
+    int skipIndexIntervalCount;
+    long skipIndexGlobalMinValue;
+    long skipIndexGlobalMaxValue;
+    int skipIndexGlobalDocCount;
   }
 
   private static class BinaryEntry {
@@ -403,6 +429,13 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
       return maxDoc;
     }
 
+    /** Position this iterator like {@link #longValues} requires it. */
+    final void positionOnLast(int count, int[] docs) {
+      if (count > 0) {
+        doc = docs[count - 1];
+      }
+    }
+
   }
 
   private static abstract class SparseNumericDocValues extends NumericDocValues {
@@ -451,6 +484,12 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
           public long longValue() throws IOException {
             return entry.minValue;
           }
+
+          @Override
+          public void longValues(int count, int[] docs, long[] values, long missingValue) {
+            Arrays.fill(values, 0, count, entry.minValue);
+            positionOnLast(count, docs);
+          }
         };
       } else {
         final RandomAccessInput slice = data.randomAccessSlice(entry.valuesOffset, entry.valuesLength);
@@ -463,6 +502,14 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
             public long longValue() throws IOException {
               return vBPVReader.getLongValue(doc);
             }
+
+            @Override
+            public void longValues(int count, int[] docs, long[] values, long missingValue) throws IOException {
+              for (int i = 0; i < count; ++i) {
+                values[i] = vBPVReader.getLongValue(docs[i]);
+              }
+              positionOnLast(count, docs);
+            }
           };
         } else {
           final LongValues values = DirectReader.getInstance(slice, entry.bitsPerValue);
@@ -473,6 +520,14 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
               public long longValue() throws IOException {
                 return table[(int) values.get(doc)];
               }
+
+              @Override
+              public void longValues(int count, int[] docs, long[] dest, long missingValue) {
+                for (int i = 0; i < count; ++i) {
+                  dest[i] = table[(int) values.get(docs[i])];
+                }
+                positionOnLast(count, docs);
+              }
             };
           } else {
             final long mul = entry.gcd;
@@ -482,6 +537,14 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
               public long longValue() throws IOException {
                 return mul * values.get(doc) + delta;
               }
+
+              @Override
+              public void longValues(int count, int[] docs, long[] dest, long missingValue) {
+                for (int i = 0; i < count; ++i) {
+                  dest[i] = mul * values.get(docs[i]) + delta;
+                }
+                positionOnLast(count, docs);
+              }
             };
           }
         }
@@ -496,6 +559,14 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
           public long longValue() throws IOException {
             return entry.minValue;
           }
+
+          @Override
+          public void longValues(int count, int[] docs, long[] values, long missingValue) throws IOException {
+            final long value = entry.minValue;
+            for (int i = 0; i < count; ++i) {
+              values[i] = disi.advanceExact(docs[i]) ? value : missingValue;
+            }
+          }
         };
       } else {
         final RandomAccessInput slice = data.randomAccessSlice(entry.valuesOffset, entry.valuesLength);
@@ -509,6 +580,13 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
               final int index = disi.index();
               return vBPVReader.getLongValue(index);
             }
+
+            @Override
+            public void longValues(int count, int[] docs, long[] values, long missingValue) throws IOException {
+              for (int i = 0; i < count; ++i) {
+                values[i] = disi.advanceExact(docs[i]) ? vBPVReader.getLongValue(disi.index()) : missingValue;
+              }
+            }
           };
         } else {
           final LongValues values = DirectReader.getInstance(slice, entry.bitsPerValue);
@@ -519,6 +597,13 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
               public long longValue() throws IOException {
                 return table[(int) values.get(disi.index())];
               }
+
+              @Override
+              public void longValues(int count, int[] docs, long[] dest, long missingValue) throws IOException {
+                for (int i = 0; i < count; ++i) {
+                  dest[i] = disi.advanceExact(docs[i]) ? table[(int) values.get(disi.index())] : missingValue;
+                }
+              }
             };
           } else {
             final long mul = entry.gcd;
@@ -528,6 +613,13 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
               public long longValue() throws IOException {
                 return mul * values.get(disi.index()) + delta;
               }
+
+              @Override
+              public void longValues(int count, int[] docs, long[] dest, long missingValue) throws IOException {
+                for (int i = 0; i < count; ++i) {
+                  dest[i] = disi.advanceExact(docs[i]) ? mul * values.get(disi.index()) + delta : missingValue;
+                }
+              }
             };
           }
         }
@@ -806,6 +898,16 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
         public int ordValue() {
           return (int) ords.get(doc);
         }
+
+        @Override
+        public void ordValues(int count, int[] docs, int[] dest) {
+          for (int i = 0; i < count; ++i) {
+            dest[i] = (int) ords.get(docs[i]);
+          }
+          if (count > 0) {
+            doc = docs[count - 1];
+          }
+        }
       };
     } else {
       // sparse
@@ -842,6 +944,13 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
         public int ordValue() {
           return (int) ords.get(disi.index());
         }
+
+        @Override
+        public void ordValues(int count, int[] docs, int[] dest) throws IOException {
+          for (int i = 0; i < count; ++i) {
+            dest[i] = disi.advanceExact(docs[i]) ? (int) ords.get(disi.index()) : -1;
+          }
+        }
       };
     }
   }
@@ -1361,6 +1470,119 @@ final class Lucene80DocValuesProducer extends DocValuesProducer implements Close
     }
   }
 
+  @Override
+  public DocValuesSkipper getSkipper(FieldInfo field) throws IOException {
+    final NumericEntry entry;
+    switch (field.getDocValuesType()) {
+      case NUMERIC:
+        entry = numerics.get(field.name);
+        break;
+      case SORTED_NUMERIC:
+        entry = sortedNumerics.get(field.name);
+        break;
+      default:
+        return null;
+    }
+    if (entry == null || entry.skipIndexOffset == -1) {
+      return null;
+    }
+    final RandomAccessInput slice = data.randomAccessSlice(entry.skipIndexOffset,
+        (long) entry.skipIndexIntervalCount * Lucene80DocValuesFormat.SKIP_INDEX_INTERVAL_BYTES);
+    return new SkipIndexReader(entry, slice);
+  }
+
+  /**
+   * Reader for the skip index of a numeric field. Intervals have a fixed size on disk, so the
+   * interval that contains a target doc ID is found with a binary search on max doc IDs.
+   */
+  private static class SkipIndexReader extends DocValuesSkipper {
+    final NumericEntry entry;
+    final RandomAccessInput slice;
+    int interval = -1;
+    int minDocID = -1;
+    int maxDocID = -1;
+    long minValue, maxValue;
+    int docCount;
+
+    SkipIndexReader(NumericEntry entry, RandomAccessInput slice) {
+      this.entry = entry;
+      this.slice = slice;
+    }
+
+    private long offset(int interval) {
+      return (long) interval * Lucene80DocValuesFormat.SKIP_INDEX_INTERVAL_BYTES;
+    }
+
+    @Override
+    public void advance(int target) throws IOException {
+      if (target <= maxDocID) {
+        return;
+      }
+      // find the first interval whose max doc ID is greater than or equal to the target
+      int lo = interval + 1;
+      int hi = entry.skipIndexIntervalCount - 1;
+      while (lo <= hi) {
+        final int mid = (lo + hi) >>> 1;
+        if (slice.readInt(offset(mid) + Integer.BYTES) < target) {
+          lo = mid + 1;
+        } else {
+          hi = mid - 1;
+        }
+      }
+      interval = lo;
+      if (interval == entry.skipIndexIntervalCount) {
+        minDocID = maxDocID = DocIdSetIterator.NO_MORE_DOCS;
+      } else {
+        final long offset = offset(interval);
+        minDocID = slice.readInt(offset);
+        maxDocID = slice.readInt(offset + Integer.BYTES);
+        minValue = slice.readLong(offset + 2 * Integer.BYTES);
+        maxValue = slice.readLong(offset + 2 * Integer.BYTES + Long.BYTES);
+        docCount = slice.readInt(offset + 2 * Integer.BYTES + 2 * Long.BYTES);
+      }
+    }
+
+    @Override
+    public int minDocID() {
+      return minDocID;
+    }
+
+    @Override
+    public int maxDocID() {
+      return maxDocID;
+    }
+
+    @Override
+    public long minValue() {
+      return minValue;
+    }
+
+    @Override
+    public long maxValue() {
+      return maxValue;
+    }
+
+    @Override
+    public int docCount() {
+      return docCount;
+    }
+
+    @Override
+    public long globalMinValue() {
+      return entry.skipIndexGlobalMinValue;
+    }
+
+    @Override
+    public long globalMaxValue() {
+      return entry.skipIndexGlobalMaxValue;
+    }
+
+    @Override
+    public int globalDocCount() {
+      return entry.skipIndexGlobalDocCount;
+    }
+  }
+
   @Override
   public void checkIntegrity() throws IOException {
     CodecUtil.checksumEntireFile(data);
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene90;
+
+
+import java.io.IOException;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.VectorFormat;
+import org.apache.lucene.codecs.VectorReader;
+import org.apache.lucene.codecs.VectorWriter;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.util.hnsw.HnswGraph;
+import org.apache.lucene.util.hnsw.HnswGraphBuilder;
+
+/**
+ * Lucene 9.0 vector format, which encodes numeric vector values and an optional associated graph
+ * connecting the documents having values. The graph is used to power HNSW search. The format
+ * consists of three files:
+ *
+ * <h2>.vec (vector data) file</h2>
+ * <p>For each field:
+ * <ul>
+ *   <li>Floating-point vector data ordered by field, document ordinal, and vector dimension. The
+ *       floats are stored in big-endian byte order. Each vector consumes
+ *       {@code dimension * 4} bytes.</li>
+ * </ul>
+ *
+ * <h2>.vex (vector index) file</h2>
+ * <p>Stores graphs connecting the documents for each field. For each document having a vector
+ * for a given field, this is stored as:
+ * <ul>
+ *   <li><b>[vint]</b> the number of neighbor nodes</li>
+ *   <li><b>array[vint]</b> the delta-encoded neighbor ordinals, in increasing order</li>
+ * </ul>
+ *
+ * <h2>.vem (vector metadata) file</h2>
+ * <p>For each field:
+ * <ul>
+ *   <li><b>[int32]</b> field number</li>
+ *   <li><b>[int32]</b> vector similarity function ordinal</li>
+ *   <li><b>[vlong]</b> offset to this field's vectors in the .vec file</li>
+ *   <li><b>[vlong]</b> length of this field's vectors, in bytes</li>
+ *   <li><b>[vlong]</b> offset to this field's index in the .vex file</li>
+ *   <li><b>[vlong]</b> length of this field's index data, in bytes</li>
+ *   <li><b>[int]</b> dimension of this field's vectors</li>
+ *   <li><b>[int]</b> the number of documents having values for this field</li>
+ *   <li><b>array[vint]</b> the delta-encoded docids of documents having vectors, in order</li>
+ *   <li><b>array[vlong]</b> the delta-encoded offsets of the neighbors of each node in the .vex
+ *       file, relative to the start of this field's index</li>
+ * </ul>
+ * <p>The list of fields is terminated by a field number of -1.
+ *
+ * <p>Graphs are {@link HnswGraph single-layer navigable small-world graphs} that are built by
+ * {@link HnswGraphBuilder}. Merges copy the graph of the largest segment that has no deletions
+ * and only add the vectors of the other segments to it.
+ *
+ * @lucene.experimental
+ */
+public final class Lucene90VectorFormat extends VectorFormat {
+
+  static final String META_CODEC_NAME = "Lucene90VectorFormatMeta";
+  static final String VECTOR_DATA_CODEC_NAME = "Lucene90VectorFormatData";
+  static final String VECTOR_INDEX_CODEC_NAME = "Lucene90VectorFormatIndex";
+  static final String META_EXTENSION = "vem";
+  static final String VECTOR_DATA_EXTENSION = "vec";
+  static final String VECTOR_INDEX_EXTENSION = "vex";
+
+  static final int VERSION_START = 0;
+  static final int VERSION_CURRENT = VERSION_START;
+
+  private final int maxConn;
+  private final int beamWidth;
+
+  /** Create a new instance with default graph construction parameters. */
+  public Lucene90VectorFormat() {
+    this(HnswGraphBuilder.DEFAULT_MAX_CONN, HnswGraphBuilder.DEFAULT_BEAM_WIDTH);
+  }
+
+  /**
+   * Create a new instance with the given graph construction parameters.
+   *
+   * @param maxConn the maximum number of neighbors of a node of the graph
+   * @param beamWidth the number of candidate neighbors to explore when adding a node to the graph
+   */
+  public Lucene90VectorFormat(int maxConn, int beamWidth) {
+    if (maxConn <= 0) {
+      throw new IllegalArgumentException("maxConn must be positive, got " + maxConn);
+    }
+    if (beamWidth <= 0) {
+      throw new IllegalArgumentException("beamWidth must be positive, got " + beamWidth);
+    }
+    this.maxConn = maxConn;
+    this.beamWidth = beamWidth;
+  }
+
+  @Override
+  public VectorWriter fieldsWriter(SegmentWriteState state) throws IOException {
+    return new Lucene90VectorWriter(state, maxConn, beamWidth);
+  }
+
+  @Override
+  public VectorReader fieldsReader(SegmentReadState state) throws IOException {
+    return new Lucene90VectorReader(state);
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(maxConn=" + maxConn + ", beamWidth=" + beamWidth + ")";
+  }
+}
@@ -0,0 +1,414 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene90;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.VectorReader;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.RandomAccessVectorValues;
+import org.apache.lucene.index.RandomAccessVectorValuesProducer;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.hnsw.HnswGraph;
+import org.apache.lucene.util.hnsw.HnswGraphBuilder;
+import org.apache.lucene.util.hnsw.KnnGraphValues;
+import org.apache.lucene.util.hnsw.NeighborQueue;
+
+import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
+
+/**
+ * Reads vectors from the index segments along with index data structures supporting KNN search.
+ */
+final class Lucene90VectorReader extends VectorReader {
+
+  private final Map<String, FieldEntry> fields = new HashMap<>();
+  private final IndexInput vectorData;
+  private final IndexInput vectorIndex;
+  private long ramBytesUsed;
+
+  Lucene90VectorReader(SegmentReadState state) throws IOException {
+    ramBytesUsed = RamUsageEstimator.shallowSizeOfInstance(getClass());
+
+    int versionMeta = -1;
+    String metaFileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+        Lucene90VectorFormat.META_EXTENSION);
+    try (ChecksumIndexInput meta = state.directory.openChecksumInput(metaFileName, state.context)) {
+      Throwable priorE = null;
+      try {
+        versionMeta = CodecUtil.checkIndexHeader(meta,
+            Lucene90VectorFormat.META_CODEC_NAME,
+            Lucene90VectorFormat.VERSION_START,
+            Lucene90VectorFormat.VERSION_CURRENT,
+            state.segmentInfo.getId(),
+            state.segmentSuffix);
+        readFields(meta, state.fieldInfos);
+      } catch (Throwable exception) {
+        priorE = exception;
+      } finally {
+        CodecUtil.checkFooter(meta, priorE);
+      }
+    }
+
+    boolean success = false;
+    IndexInput vectorData = null;
+    IndexInput vectorIndex = null;
+    try {
+      vectorData = openDataInput(state, versionMeta, Lucene90VectorFormat.VECTOR_DATA_EXTENSION,
+          Lucene90VectorFormat.VECTOR_DATA_CODEC_NAME);
+      vectorIndex = openDataInput(state, versionMeta, Lucene90VectorFormat.VECTOR_INDEX_EXTENSION,
+          Lucene90VectorFormat.VECTOR_INDEX_CODEC_NAME);
+      success = true;
+    } finally {
+      if (success == false) {
+        IOUtils.closeWhileHandlingException(vectorData, vectorIndex);
+      }
+    }
+    this.vectorData = vectorData;
+    this.vectorIndex = vectorIndex;
+  }
+
+  private static IndexInput openDataInput(SegmentReadState state, int versionMeta, String fileExtension,
+      String codecName) throws IOException {
+    String fileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, fileExtension);
+    IndexInput in = state.directory.openInput(fileName, state.context);
+    boolean success = false;
+    try {
+      int versionVectorData = CodecUtil.checkIndexHeader(in,
+          codecName,
+          Lucene90VectorFormat.VERSION_START,
+          Lucene90VectorFormat.VERSION_CURRENT,
+          state.segmentInfo.getId(),
+          state.segmentSuffix);
+      if (versionMeta != versionVectorData) {
+        throw new CorruptIndexException("Format versions mismatch: meta=" + versionMeta + ", " + codecName + "="
+            + versionVectorData, in);
+      }
+      // NOTE: data files are too costly to verify checksum against all the bytes on open,
+      // but for now we at least verify proper structure of the checksum footer: which looks
+      // for FOOTER_MAGIC + algorithmID. This is cheap and can detect some forms of corruption
+      // such as file truncation.
+      CodecUtil.retrieveChecksum(in);
+      success = true;
+      return in;
+    } finally {
+      if (success == false) {
+        IOUtils.closeWhileHandlingException(in);
+      }
+    }
+  }
+
+  private void readFields(ChecksumIndexInput meta, FieldInfos infos) throws IOException {
+    for (int fieldNumber = meta.readInt(); fieldNumber != -1; fieldNumber = meta.readInt()) {
+      FieldInfo info = infos.fieldInfo(fieldNumber);
+      if (info == null) {
+        throw new CorruptIndexException("Invalid field number: " + fieldNumber, meta);
+      }
+      int similarityFunctionId = meta.readInt();
+      if (similarityFunctionId < 0 || similarityFunctionId >= VectorSimilarityFunction.values().length) {
+        throw new CorruptIndexException("Invalid similarity function id: " + similarityFunctionId, meta);
+      }
+      FieldEntry fieldEntry = new FieldEntry(meta, VectorSimilarityFunction.values()[similarityFunctionId]);
+      if (fieldEntry.similarityFunction != info.getVectorSimilarityFunction()) {
+        throw new CorruptIndexException("Inconsistent vector similarity function for field=\"" + info.name + "\"; "
+            + fieldEntry.similarityFunction + " != " + info.getVectorSimilarityFunction(), meta);
+      }
+      if (fieldEntry.dimension != info.getVectorDimension()) {
+        throw new CorruptIndexException("Inconsistent vector dimension for field=\"" + info.name + "\"; "
+            + fieldEntry.dimension + " != " + info.getVectorDimension(), meta);
+      }
+      long numBytes = (long) fieldEntry.size() * fieldEntry.dimension * Float.BYTES;
+      if (numBytes != fieldEntry.vectorDataLength) {
+        throw new CorruptIndexException("Vector data length " + fieldEntry.vectorDataLength
+            + " not matching size=" + fieldEntry.size() + " * dim=" + fieldEntry.dimension + " * 4 = " + numBytes, meta);
+      }
+      ramBytesUsed += RamUsageEstimator.sizeOf(fieldEntry.ordToDoc) + RamUsageEstimator.sizeOf(fieldEntry.ordOffsets);
+      fields.put(info.name, fieldEntry);
+    }
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return ramBytesUsed;
+  }
+
+  @Override
+  public void checkIntegrity() throws IOException {
+    CodecUtil.checksumEntireFile(vectorData);
+    CodecUtil.checksumEntireFile(vectorIndex);
+  }
+
+  @Override
+  public VectorValues getVectorValues(String field) throws IOException {
+    FieldEntry fieldEntry = fields.get(field);
+    if (fieldEntry == null || fieldEntry.dimension == 0) {
+      return null;
+    }
+    IndexInput bytesSlice = vectorData.slice("vector-data", fieldEntry.vectorDataOffset, fieldEntry.vectorDataLength);
+    return new OffHeapVectorValues(fieldEntry, bytesSlice);
+  }
+
+  /** Get knn graph values; used for searching, merging and checking the index */
+  @Override
+  public KnnGraphValues getGraphValues(String field) throws IOException {
+    FieldEntry entry = fields.get(field);
+    if (entry == null || entry.dimension == 0) {
+      return KnnGraphValues.EMPTY;
+    }
+    return getGraphValues(entry);
+  }
+
+  private KnnGraphValues getGraphValues(FieldEntry entry) throws IOException {
+    IndexInput bytesSlice = vectorIndex.slice("graph-data", entry.indexDataOffset, entry.indexDataLength);
+    return new IndexedKnnGraphReader(entry, bytesSlice);
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOUtils.close(vectorData, vectorIndex);
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(fields=" + fields.size() + ")";
+  }
+
+  private static class FieldEntry {
+
+    final int dimension;
+    final VectorSimilarityFunction similarityFunction;
+
+    final long vectorDataOffset;
+    final long vectorDataLength;
+    final long indexDataOffset;
+    final long indexDataLength;
+    final int[] ordToDoc;
+    final long[] ordOffsets;
+
+    FieldEntry(IndexInput input, VectorSimilarityFunction similarityFunction) throws IOException {
+      this.similarityFunction = similarityFunction;
+      vectorDataOffset = input.readVLong();
+      vectorDataLength = input.readVLong();
+      indexDataOffset = input.readVLong();
+      indexDataLength = input.readVLong();
+      dimension = input.readInt();
+      int size = input.readInt();
+      ordToDoc = new int[size];
+      int lastDocID = 0;
+      for (int i = 0; i < size; i++) {
+        int docID = lastDocID + input.readVInt();
+        ordToDoc[i] = docID;
+        lastDocID = docID;
+      }
+      ordOffsets = new long[size];
+      long offset = 0;
+      for (int i = 0; i < ordOffsets.length; i++) {
+        offset += input.readVLong();
+        ordOffsets[i] = offset;
+      }
+    }
+
+    int size() {
+      return ordToDoc.length;
+    }
+  }
+
+  /** Read the vector values from the index input. This supports both iterated and random access. */
+  private final class OffHeapVectorValues extends VectorValues
+      implements RandomAccessVectorValues, RandomAccessVectorValuesProducer {
+
+    final FieldEntry fieldEntry;
+    final IndexInput dataIn;
+
+    final ByteBuffer byteBuffer;
+    final FloatBuffer floatBuffer;
+    final int byteSize;
+    final float[] value;
+
+    int ord = -1;
+    int doc = -1;
+
+    OffHeapVectorValues(FieldEntry fieldEntry, IndexInput dataIn) {
+      this.fieldEntry = fieldEntry;
+      this.dataIn = dataIn;
+      byteSize = Float.BYTES * fieldEntry.dimension;
+      byteBuffer = ByteBuffer.allocate(byteSize);
+      floatBuffer = byteBuffer.asFloatBuffer();
+      value = new float[fieldEntry.dimension];
+    }
+
+    @Override
+    public int dimension() {
+      return fieldEntry.dimension;
+    }
+
+    @Override
+    public int size() {
+      return fieldEntry.size();
+    }
+
+    @Override
+    public float[] vectorValue() throws IOException {
+      return vectorValue(ord);
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() {
+      if (++ord >= size()) {
+        doc = NO_MORE_DOCS;
+      } else {
+        doc = fieldEntry.ordToDoc[ord];
+      }
+      return doc;
+    }
+
+    @Override
+    public int advance(int target) {
+      assert docID() < target;
+      ord = Arrays.binarySearch(fieldEntry.ordToDoc, ord + 1, fieldEntry.ordToDoc.length, target);
+      if (ord < 0) {
+        ord = -(ord + 1);
+      }
+      assert ord <= fieldEntry.ordToDoc.length;
+      if (ord == fieldEntry.ordToDoc.length) {
+        doc = NO_MORE_DOCS;
+      } else {
+        doc = fieldEntry.ordToDoc[ord];
+      }
+      return doc;
+    }
+
+    @Override
+    public TopDocs search(float[] target, int k, int fanOut, Bits acceptDocs) throws IOException {
+      if (k <= 0) {
+        throw new IllegalArgumentException("k must be positive, got " + k);
+      }
+      if (fanOut < 0) {
+        throw new IllegalArgumentException("fanOut must be non-negative, got " + fanOut);
+      }
+      if (target.length != dimension()) {
+        throw new IllegalArgumentException("vector dimensions differ: " + target.length + "!=" + dimension());
+      }
+      final Bits acceptOrds = acceptDocs == null ? null : new Bits() {
+        @Override
+        public boolean get(int index) {
+          return acceptDocs.get(fieldEntry.ordToDoc[index]);
+        }
+
+        @Override
+        public int length() {
+          return fieldEntry.ordToDoc.length;
+        }
+      };
+      // use a seed that is fixed for the index, but that differs per field
+      final Random random = new Random(HnswGraphBuilder.DEFAULT_RAND_SEED + fieldEntry.vectorDataOffset);
+      final int numCandidates = k + fanOut;
+      final NeighborQueue results = HnswGraph.search(target, numCandidates, numCandidates,
+          randomAccess(), fieldEntry.similarityFunction,
+          getGraphValues(fieldEntry), acceptOrds, random);
+      while (results.size() > k) {
+        results.pop();
+      }
+      final ScoreDoc[] scoreDocs = new ScoreDoc[results.size()];
+      // pop the least similar first
+      for (int i = scoreDocs.length - 1; i >= 0; --i) {
+        final float score = results.topScore();
+        final int node = results.pop();
+        scoreDocs[i] = new ScoreDoc(fieldEntry.ordToDoc[node], score);
+      }
+      return new TopDocs(new TotalHits(scoreDocs.length, TotalHits.Relation.EQUAL_TO), scoreDocs);
+    }
+
+    @Override
+    public RandomAccessVectorValues randomAccess() {
+      return new OffHeapVectorValues(fieldEntry, dataIn.clone());
+    }
+
+    @Override
+    public float[] vectorValue(int targetOrd) throws IOException {
+      dataIn.seek((long) targetOrd * byteSize);
+      dataIn.readBytes(byteBuffer.array(), byteBuffer.arrayOffset(), byteSize);
+      floatBuffer.position(0);
+      floatBuffer.get(value, 0, fieldEntry.dimension);
+      return value;
+    }
+  }
+
+  /** Read the nearest-neighbors graph from the index input */
+  private static final class IndexedKnnGraphReader extends KnnGraphValues {
+
+    final FieldEntry entry;
+    final IndexInput dataIn;
+
+    int arraySize;
+    int neighborCount;
+    int lastNeighbor;
+
+    IndexedKnnGraphReader(FieldEntry entry, IndexInput dataIn) {
+      this.entry = entry;
+      this.dataIn = dataIn;
+    }
+
+    @Override
+    public int size() {
+      return entry.size();
+    }
+
+    @Override
+    public void seek(int targetOrd) throws IOException {
+      // unsafe; no bounds checking
+      dataIn.seek(entry.ordOffsets[targetOrd]);
+      arraySize = dataIn.readVInt();
+      neighborCount = 0;
+      lastNeighbor = 0;
+    }
+
+    @Override
+    public int nextNeighbor() throws IOException {
+      if (neighborCount++ >= arraySize) {
+        return NO_MORE_DOCS;
+      }
+      lastNeighbor += dataIn.readVInt();
+      return lastNeighbor;
+    }
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene90;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.VectorReader;
+import org.apache.lucene.codecs.VectorWriter;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.MergeState;
+import org.apache.lucene.index.RandomAccessVectorValuesProducer;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.hnsw.HnswGraph;
+import org.apache.lucene.util.hnsw.HnswGraphBuilder;
+import org.apache.lucene.util.hnsw.KnnGraphValues;
+import org.apache.lucene.util.hnsw.NeighborArray;
+
+/**
+ * Writes vector values and knn graphs to index segments.
+ */
+final class Lucene90VectorWriter extends VectorWriter {
+
+  private final IndexOutput meta, vectorData, vectorIndex;
+  private final int maxConn;
+  private final int beamWidth;
+
+  private boolean finished;
+
+  Lucene90VectorWriter(SegmentWriteState state, int maxConn, int beamWidth) throws IOException {
+    this.maxConn = maxConn;
+    this.beamWidth = beamWidth;
+    assert state.fieldInfos.hasVectorValues();
+
+    String metaFileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+        Lucene90VectorFormat.META_EXTENSION);
+    String vectorDataFileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+        Lucene90VectorFormat.VECTOR_DATA_EXTENSION);
+    String indexDataFileName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+        Lucene90VectorFormat.VECTOR_INDEX_EXTENSION);
+
+    boolean success = false;
+    try {
+      meta = state.directory.createOutput(metaFileName, state.context);
+      vectorData = state.directory.createOutput(vectorDataFileName, state.context);
+      vectorIndex = state.directory.createOutput(indexDataFileName, state.context);
+
+      CodecUtil.writeIndexHeader(meta, Lucene90VectorFormat.META_CODEC_NAME, Lucene90VectorFormat.VERSION_CURRENT,
+          state.segmentInfo.getId(), state.segmentSuffix);
+      CodecUtil.writeIndexHeader(vectorData, Lucene90VectorFormat.VECTOR_DATA_CODEC_NAME, Lucene90VectorFormat.VERSION_CURRENT,
+          state.segmentInfo.getId(), state.segmentSuffix);
+      CodecUtil.writeIndexHeader(vectorIndex, Lucene90VectorFormat.VECTOR_INDEX_CODEC_NAME, Lucene90VectorFormat.VERSION_CURRENT,
+          state.segmentInfo.getId(), state.segmentSuffix);
+      success = true;
+    } finally {
+      if (success == false) {
+        IOUtils.closeWhileHandlingException(this);
+      }
+    }
+  }
+
+  @Override
+  public void writeField(FieldInfo fieldInfo, VectorValues vectors) throws IOException {
+    writeField(fieldInfo, vectors, null, 0);
+  }
+
+  @Override
+  protected void mergeOneField(FieldInfo fieldInfo, MergeState mergeState) throws IOException {
+    final MergedVectorValues merged = MergedVectorValues.merge(fieldInfo, mergeState);
+    // start from the graph of the largest segment whose vectors are merged as-is
+    KnnGraphValues initialGraph = null;
+    int initialGraphOrdOffset = 0;
+    int initialGraphSize = 1;
+    for (int i = 0; i < mergeState.vectorReaders.length; ++i) {
+      final int ordOffset = merged.getOrdOffset(i);
+      final VectorReader vectorReader = mergeState.vectorReaders[i];
+      if (ordOffset != -1 && vectorReader instanceof Lucene90VectorReader) {
+        final KnnGraphValues graph = ((Lucene90VectorReader) vectorReader).getGraphValues(fieldInfo.name);
+        if (graph.size() > initialGraphSize) {
+          initialGraph = graph;
+          initialGraphOrdOffset = ordOffset;
+          initialGraphSize = graph.size();
+        }
+      }
+    }
+    writeField(fieldInfo, merged, initialGraph, initialGraphOrdOffset);
+  }
+
+  private void writeField(FieldInfo fieldInfo, VectorValues vectors, KnnGraphValues initialGraph,
+      int initialGraphOrdOffset) throws IOException {
+    if (vectors.dimension() != fieldInfo.getVectorDimension()) {
+      throw new IllegalArgumentException("vectors of field \"" + fieldInfo.name + "\" have dimension "
+          + vectors.dimension() + ", expected " + fieldInfo.getVectorDimension());
+    }
+    if (vectors instanceof RandomAccessVectorValuesProducer == false) {
+      throw new IllegalArgumentException("Indexing an HNSW graph requires a random access vector values, got " + vectors);
+    }
+
+    final long vectorDataOffset = vectorData.getFilePointer();
+    final int[] docIds = writeVectorData(vectorData, vectors);
+    final long vectorDataLength = vectorData.getFilePointer() - vectorDataOffset;
+
+    final long vectorIndexOffset = vectorIndex.getFilePointer();
+    final long[] offsets;
+    if (docIds.length > 0) {
+      final HnswGraphBuilder builder = new HnswGraphBuilder((RandomAccessVectorValuesProducer) vectors,
+          fieldInfo.getVectorSimilarityFunction(), maxConn, beamWidth, HnswGraphBuilder.DEFAULT_RAND_SEED);
+      if (initialGraph != null) {
+        builder.addGraph(initialGraph, initialGraphOrdOffset);
+      }
+      offsets = writeGraph(vectorIndex, builder.build(), vectorIndexOffset);
+    } else {
+      offsets = new long[0];
+    }
+    final long vectorIndexLength = vectorIndex.getFilePointer() - vectorIndexOffset;
+
+    writeMeta(fieldInfo, vectorDataOffset, vectorDataLength, vectorIndexOffset, vectorIndexLength, docIds, offsets);
+  }
+
+  private void writeMeta(FieldInfo field, long vectorDataOffset, long vectorDataLength, long indexDataOffset,
+      long indexDataLength, int[] docIds, long[] graphOffsets) throws IOException {
+    meta.writeInt(field.number);
+    meta.writeInt(field.getVectorSimilarityFunction().ordinal());
+    meta.writeVLong(vectorDataOffset);
+    meta.writeVLong(vectorDataLength);
+    meta.writeVLong(indexDataOffset);
+    meta.writeVLong(indexDataLength);
+    meta.writeInt(field.getVectorDimension());
+    meta.writeInt(docIds.length);
+    int lastDocId = 0;
+    for (int docId : docIds) {
+      meta.writeVInt(docId - lastDocId);
+      lastDocId = docId;
+    }
+    long lastOffset = 0;
+    for (long offset : graphOffsets) {
+      meta.writeVLong(offset - lastOffset);
+      lastOffset = offset;
+    }
+  }
+
+  /**
+   * Writes the vector values to the output and returns a mapping from dense ordinals to document
+   * IDs. The length of the returned array matches the total number of documents with a vector
+   * (which excludes deleted documents), so it may be less than {@link VectorValues#size()}.
+   */
+  private static int[] writeVectorData(IndexOutput output, VectorValues vectors) throws IOException {
+    int[] docIds = new int[vectors.size()];
+    int count = 0;
+    final ByteBuffer buffer = ByteBuffer.allocate(vectors.dimension() * Float.BYTES);
+    for (int docv = vectors.nextDoc(); docv != DocIdSetIterator.NO_MORE_DOCS; docv = vectors.nextDoc(), count++) {
+      // write vector
+      buffer.asFloatBuffer().put(vectors.vectorValue());
+      output.writeBytes(buffer.array(), buffer.array().length);
+      if (count == docIds.length) {
+        docIds = ArrayUtil.grow(docIds, count + 1);
+      }
+      docIds[count] = docv;
+    }
+    if (docIds.length > count) {
+      return Arrays.copyOf(docIds, count);
+    }
+    return docIds;
+  }
+
+  /**
+   * Writes the neighbors of every node of the graph and returns the offset of each node's
+   * neighbors, relative to {@code startOffset}.
+   */
+  private static long[] writeGraph(IndexOutput graphData, HnswGraph graph, long startOffset) throws IOException {
+    final int size = graph.size();
+    final long[] offsets = new long[size];
+    int[] scratch = new int[graph.maxConn()];
+    for (int node = 0; node < size; node++) {
+      offsets[node] = graphData.getFilePointer() - startOffset;
+      final NeighborArray neighbors = graph.getNeighbors(node);
+      final int numNeighbors = neighbors.size();
+      if (scratch.length < numNeighbors) {
+        scratch = ArrayUtil.grow(scratch, numNeighbors);
+      }
+      for (int i = 0; i < numNeighbors; ++i) {
+        scratch[i] = neighbors.node(i);
+      }
+      // sort so that neighbors can be delta-encoded
+      Arrays.sort(scratch, 0, numNeighbors);
+      graphData.writeVInt(numNeighbors);
+      int lastNode = 0;
+      for (int i = 0; i < numNeighbors; ++i) {
+        graphData.writeVInt(scratch[i] - lastNode);
+        lastNode = scratch[i];
+      }
+    }
+    return offsets;
+  }
+
+  @Override
+  public void finish() throws IOException {
+    if (finished) {
+      throw new IllegalStateException("already finished");
+    }
+    finished = true;
+
+    if (meta != null) {
+      // write end of fields marker
+      meta.writeInt(-1);
+      CodecUtil.writeFooter(meta);
+    }
+    if (vectorData != null) {
+      CodecUtil.writeFooter(vectorData);
+      CodecUtil.writeFooter(vectorIndex);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOUtils.close(meta, vectorData, vectorIndex);
+  }
+}
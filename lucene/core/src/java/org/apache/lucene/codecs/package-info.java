@@ -26,6 +26,7 @@
  *   <li>Stored fields - see {@link org.apache.lucene.codecs.StoredFieldsFormat}</li>
  *   <li>Term vectors - see {@link org.apache.lucene.codecs.TermVectorsFormat}</li>
  *   <li>Points - see {@link org.apache.lucene.codecs.PointsFormat}</li>
+ *   <li>Vectors - see {@link org.apache.lucene.codecs.VectorFormat}</li>
  *   <li>FieldInfos - see {@link org.apache.lucene.codecs.FieldInfosFormat}</li>
  *   <li>SegmentInfo - see {@link org.apache.lucene.codecs.SegmentInfoFormat}</li>
  *   <li>Norms - see {@link org.apache.lucene.codecs.NormsFormat}</li>
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Objects;
 
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
@@ -27,7 +28,9 @@ import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.ConstantScoreScorer;
 import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
+import org.apache.lucene.search.DocValuesRangeIterator;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreMode;
@@ -107,8 +110,24 @@ abstract class SortedNumericDocValuesRangeQuery extends Query {
         if (values == null) {
           return null;
         }
+        final DocValuesSkipper skipper = context.reader().getDocValuesSkipper(field);
+        if (skipper != null) {
+          if (skipper.globalMinValue() > upperValue || skipper.globalMaxValue() < lowerValue) {
+            return null;
+          }
+          if (skipper.globalMinValue() >= lowerValue && skipper.globalMaxValue() <= upperValue) {
+            // all documents that have a value match
+            final DocIdSetIterator iterator;
+            if (skipper.globalDocCount() == context.reader().maxDoc()) {
+              iterator = DocIdSetIterator.all(context.reader().maxDoc());
+            } else {
+              iterator = values;
+            }
+            return new ConstantScoreScorer(this, score(), scoreMode, iterator);
+          }
+        }
         final NumericDocValues singleton = DocValues.unwrapSingleton(values);
-        final TwoPhaseIterator iterator;
+        TwoPhaseIterator iterator;
         if (singleton != null) {
           iterator = new TwoPhaseIterator(singleton) {
             @Override
@@ -143,6 +162,9 @@ abstract class SortedNumericDocValuesRangeQuery extends Query {
             }
           };
         }
+        if (skipper != null) {
+          iterator = new DocValuesRangeIterator(iterator, skipper, lowerValue, upperValue);
+        }
         return new ConstantScoreScorer(this, score(), scoreMode, iterator);
       }
 
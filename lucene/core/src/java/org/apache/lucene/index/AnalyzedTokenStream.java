@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TermFrequencyAttribute;
+import org.apache.lucene.util.AttributeSource;
+import org.apache.lucene.util.IOUtils;
+
+/**
+ * A {@link TokenStream} that replays the tokens that the token stream of a
+ * field produced on another thread. This allows to analyze the fields of a
+ * document concurrently while their terms are still added by the indexing
+ * thread, in order. If the analysis failed, the exception is rethrown by the
+ * replayed stream at the same step as the original one threw it.
+ */
+final class AnalyzedTokenStream extends TokenStream {
+
+  /** Consumes and closes the token stream of the given field. */
+  static AnalyzedTokenStream analyze(IndexableField field, Analyzer analyzer) throws IOException {
+    final TokenStream stream = field.tokenStream(analyzer, null);
+    // FieldInvertState adds these attributes when the stream doesn't have them: add them here
+    // already so that they are captured with the other attributes
+    stream.addAttribute(TermFrequencyAttribute.class);
+    stream.addAttribute(PositionIncrementAttribute.class);
+    stream.addAttribute(OffsetAttribute.class);
+    final List<State> tokens = new ArrayList<>();
+    State endState = null;
+    boolean resetDone = false, tokensDone = false;
+    Throwable failure = null;
+    try {
+      stream.reset();
+      resetDone = true;
+      while (stream.incrementToken()) {
+        tokens.add(stream.captureState());
+      }
+      tokensDone = true;
+      stream.end();
+      endState = stream.captureState();
+    } catch (Throwable t) {
+      failure = t;
+    }
+    // clone once the stream is consumed, in case some attributes were only added on the way
+    final AttributeSource attributes = stream.cloneAttributes();
+    Throwable closeFailure = null;
+    try {
+      stream.close();
+    } catch (Throwable t) {
+      if (failure == null) {
+        closeFailure = t;
+      } else {
+        failure.addSuppressed(t);
+      }
+    }
+    return new AnalyzedTokenStream(attributes, tokens, endState, resetDone, tokensDone, failure, closeFailure);
+  }
+
+  private final List<State> tokens;
+  private final State endState;
+  private final boolean resetDone;
+  private final boolean tokensDone;
+  private final Throwable failure;
+  private final Throwable closeFailure;
+  private int upto;
+
+  private AnalyzedTokenStream(AttributeSource attributes, List<State> tokens, State endState,
+      boolean resetDone, boolean tokensDone, Throwable failure, Throwable closeFailure) {
+    super(attributes);
+    this.tokens = tokens;
+    this.endState = endState;
+    this.resetDone = resetDone;
+    this.tokensDone = tokensDone;
+    this.failure = failure;
+    this.closeFailure = closeFailure;
+  }
+
+  @Override
+  public void reset() throws IOException {
+    if (resetDone == false) {
+      throw IOUtils.rethrowAlways(failure);
+    }
+    upto = 0;
+  }
+
+  @Override
+  public boolean incrementToken() throws IOException {
+    if (upto < tokens.size()) {
+      restoreState(tokens.get(upto++));
+      return true;
+    }
+    if (tokensDone == false) {
+      throw IOUtils.rethrowAlways(failure);
+    }
+    return false;
+  }
+
+  @Override
+  public void end() throws IOException {
+    if (endState == null) {
+      throw IOUtils.rethrowAlways(failure);
+    }
+    restoreState(endState);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closeFailure != null) {
+      throw IOUtils.rethrowAlways(closeFailure);
+    }
+  }
+}
@@ -17,6 +17,7 @@
 package org.apache.lucene.index;
 
 
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -30,6 +31,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.DocValuesProducer;
@@ -38,6 +46,7 @@ import org.apache.lucene.codecs.PointsReader;
 import org.apache.lucene.codecs.PostingsFormat;
 import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.codecs.TermVectorsReader;
+import org.apache.lucene.codecs.VectorReader;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.DocumentStoredFieldVisitor;
 import org.apache.lucene.index.CheckIndex.Status.DocValuesStatus;
@@ -62,11 +71,14 @@ import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.FutureArrays;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LongBitSet;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.StringHelper;
 import org.apache.lucene.util.SuppressForbidden;
+import org.apache.lucene.util.ThreadInterruptedException;
 import org.apache.lucene.util.Version;
 import org.apache.lucene.util.automaton.Automata;
 import org.apache.lucene.util.automaton.CompiledAutomaton;
+import org.apache.lucene.util.hnsw.KnnGraphValues;
 
 import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
 
@@ -219,6 +231,9 @@ public final class CheckIndex implements Closeable {
       /** Status for testing of PointValues (null if PointValues could not be tested). */
       public PointsStatus pointsStatus;
 
+      /** Status for testing of VectorValues (null if VectorValues could not be tested). */
+      public VectorValuesStatus vectorValuesStatus;
+
       /** Status of index sort */
       public IndexSortStatus indexSortStatus;
     }
@@ -379,6 +394,27 @@ public final class CheckIndex implements Closeable {
       public Throwable error = null;
     }
 
+    /**
+     * Status from testing VectorValues
+     */
+    public static final class VectorValuesStatus {
+
+      VectorValuesStatus() {
+      }
+
+      /** Total number of vector values tested. */
+      public long totalVectorValues;
+
+      /** Total number of fields with vectors. */
+      public int totalVectorFields;
+
+      /** Total number of fields whose graph of nearest neighbors was tested. */
+      public int totalGraphFields;
+
+      /** Exception thrown during vector values test (null on success) */
+      public Throwable error = null;
+    }
+
     /**
      * Status from testing index sort
      */
@@ -449,6 +485,23 @@ public final class CheckIndex implements Closeable {
     return failFast;
   }
 
+  private int threadCount = 1;
+
+  /** Set the number of threads that check segments and their parts concurrently.
+   *  Defaults to 1, which checks everything sequentially.
+   *  @lucene.experimental */
+  public void setThreadCount(int threadCount) {
+    if (threadCount <= 0) {
+      throw new IllegalArgumentException("threadCount must be greater than 0, got " + threadCount);
+    }
+    this.threadCount = threadCount;
+  }
+
+  /** See {@link #setThreadCount}. */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
   private boolean verbose;
   
   /** See {@link #getChecksumsOnly}. */
@@ -503,8 +556,32 @@ public final class CheckIndex implements Closeable {
    *
    *  <p>As this method checks every byte in the specified
    *  segments, on a large index it can take quite a long
-   *  time to run. */
+   *  time to run.  If {@link #setThreadCount(int) more than one thread} is configured, segments and
+   *  their parts are checked concurrently. */
   public Status checkIndex(List<String> onlySegments) throws IOException {
+    if (threadCount <= 1) {
+      return checkIndex(onlySegments, null);
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(threadCount, new NamedThreadFactory("async-check-index"));
+    try {
+      return checkIndex(onlySegments, executor);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /** Returns a {@link Status} instance detailing
+   *  the state of the index.
+   *
+   *  @param onlySegments list of specific segment names to check
+   *  @param executor if not null, segments and their independent parts
+   *  (postings, stored fields, doc values, ...) are checked concurrently on
+   *  this executor; the report of every segment is printed at once when the
+   *  segment is done, so segments may be reported out of order, but the
+   *  returned {@link Status} is the same as with a sequential check
+   *
+   *  @lucene.experimental */
+  public Status checkIndex(List<String> onlySegments, ExecutorService executor) throws IOException {
     ensureOpen();
     long startNS = System.nanoTime();
     NumberFormat nf = NumberFormat.getInstance(Locale.ROOT);
@@ -607,6 +684,7 @@ public final class CheckIndex implements Closeable {
     result.newSegments.clear();
     result.maxSegmentName = -1;
 
+    final List<SegmentCheck> checks = new ArrayList<>();
     for(int i=0;i<numSegments;i++) {
       final SegmentCommitInfo info = sis.info(i);
       long segmentName = Long.parseLong(info.info.name.substring(1), Character.MAX_RADIX);
@@ -616,98 +694,144 @@ public final class CheckIndex implements Closeable {
       if (onlySegments != null && !onlySegments.contains(info.info.name)) {
         continue;
       }
-      Status.SegmentInfoStatus segInfoStat = new Status.SegmentInfoStatus();
-      result.segmentInfos.add(segInfoStat);
-      msg(infoStream, "  " + (1+i) + " of " + numSegments + ": name=" + info.info.name + " maxDoc=" + info.info.maxDoc());
-      segInfoStat.name = info.info.name;
-      segInfoStat.maxDoc = info.info.maxDoc();
-      
-      final Version version = info.info.getVersion();
-      if (info.info.maxDoc() <= 0) {
-        throw new RuntimeException("illegal number of documents: maxDoc=" + info.info.maxDoc());
+      checks.add(new SegmentCheck(i, info));
+    }
+
+    if (executor == null) {
+      for (SegmentCheck check : checks) {
+        checkSegment(sis, check, nf, infoStream, null);
       }
+    } else {
+      checkSegmentsConcurrently(sis, checks, nf, executor);
+    }
 
-      int toLoseDocCount = info.info.maxDoc();
+    for (SegmentCheck check : checks) {
+      result.segmentInfos.add(check.status);
+      if (check.failed) {
+        result.totLoseDocCount += check.toLoseDocCount;
+        result.numBadSegments++;
+      } else {
+        // Keeper
+        result.newSegments.add(check.info.clone());
+      }
+    }
+    if (0 == result.numBadSegments) {
+      result.clean = true;
+    } else
+      msg(infoStream, "WARNING: " + result.numBadSegments + " broken segments (containing " + result.totLoseDocCount + " documents) detected");
 
-      SegmentReader reader = null;
-      Sort previousIndexSort = null;
+    if ( ! (result.validCounter = (result.maxSegmentName < sis.counter))) {
+      result.clean = false;
+      result.newSegments.counter = result.maxSegmentName + 1; 
+      msg(infoStream, "ERROR: Next segment name counter " + sis.counter + " is not greater than max segment name " + result.maxSegmentName);
+    }
+    
+    if (result.clean) {
+      msg(infoStream, "No problems were detected with this index.\n");
+    }
 
-      try {
-        msg(infoStream, "    version=" + (version == null ? "3.0" : version));
-        msg(infoStream, "    id=" + StringHelper.idToString(info.info.getId()));
-        final Codec codec = info.info.getCodec();
-        msg(infoStream, "    codec=" + codec);
-        segInfoStat.codec = codec;
-        msg(infoStream, "    compound=" + info.info.getUseCompoundFile());
-        segInfoStat.compound = info.info.getUseCompoundFile();
-        msg(infoStream, "    numFiles=" + info.files().size());
-        Sort indexSort = info.info.getIndexSort();
-        if (indexSort != null) {
-          msg(infoStream, "    sort=" + indexSort);
-          if (previousIndexSort != null) {
-            if (previousIndexSort.equals(indexSort) == false) {
-              throw new RuntimeException("index sort changed from " + previousIndexSort + " to " + indexSort);
-            }
-          } else {
-            previousIndexSort = indexSort;
-          }
-        }
-        segInfoStat.numFiles = info.files().size();
-        segInfoStat.sizeMB = info.sizeInBytes()/(1024.*1024.);
-        msg(infoStream, "    size (MB)=" + nf.format(segInfoStat.sizeMB));
-        Map<String,String> diagnostics = info.info.getDiagnostics();
-        segInfoStat.diagnostics = diagnostics;
-        if (diagnostics.size() > 0) {
-          msg(infoStream, "    diagnostics = " + diagnostics);
-        }
+    msg(infoStream, String.format(Locale.ROOT, "Took %.3f sec total.", nsToSec(System.nanoTime()-startNS)));
 
-        if (!info.hasDeletions()) {
-          msg(infoStream, "    no deletions");
-          segInfoStat.hasDeletions = false;
+    return result;
+  }
+
+  /** Checks a single segment, printing its report to the given stream.  When an executor is
+   *  provided, the independent parts of the segment are checked concurrently on it. */
+  private void checkSegment(SegmentInfos sis, SegmentCheck check, NumberFormat nf, PrintStream infoStream,
+                            ExecutorService executor) throws IOException {
+    final SegmentCommitInfo info = check.info;
+    final Status.SegmentInfoStatus segInfoStat = check.status;
+    msg(infoStream, "  " + (1+check.ord) + " of " + sis.size() + ": name=" + info.info.name + " maxDoc=" + info.info.maxDoc());
+    segInfoStat.name = info.info.name;
+    segInfoStat.maxDoc = info.info.maxDoc();
+    
+    final Version version = info.info.getVersion();
+    if (info.info.maxDoc() <= 0) {
+      throw new RuntimeException("illegal number of documents: maxDoc=" + info.info.maxDoc());
+    }
+
+    check.toLoseDocCount = info.info.maxDoc();
+
+    SegmentReader reader = null;
+    Sort previousIndexSort = null;
+
+    try {
+      msg(infoStream, "    version=" + (version == null ? "3.0" : version));
+      msg(infoStream, "    id=" + StringHelper.idToString(info.info.getId()));
+      final Codec codec = info.info.getCodec();
+      msg(infoStream, "    codec=" + codec);
+      segInfoStat.codec = codec;
+      msg(infoStream, "    compound=" + info.info.getUseCompoundFile());
+      segInfoStat.compound = info.info.getUseCompoundFile();
+      msg(infoStream, "    numFiles=" + info.files().size());
+      Sort indexSort = info.info.getIndexSort();
+      if (indexSort != null) {
+        msg(infoStream, "    sort=" + indexSort);
+        if (previousIndexSort != null) {
+          if (previousIndexSort.equals(indexSort) == false) {
+            throw new RuntimeException("index sort changed from " + previousIndexSort + " to " + indexSort);
+          }
         } else {
-          msg(infoStream, "    has deletions [delGen=" + info.getDelGen() + "]");
-          segInfoStat.hasDeletions = true;
-          segInfoStat.deletionsGen = info.getDelGen();
+          previousIndexSort = indexSort;
         }
-        
-        long startOpenReaderNS = System.nanoTime();
-        if (infoStream != null)
-          infoStream.print("    test: open reader.........");
-        reader = new SegmentReader(info, sis.getIndexCreatedVersionMajor(), IOContext.DEFAULT);
-        msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startOpenReaderNS)));
+      }
+      segInfoStat.numFiles = info.files().size();
+      segInfoStat.sizeMB = info.sizeInBytes()/(1024.*1024.);
+      msg(infoStream, "    size (MB)=" + nf.format(segInfoStat.sizeMB));
+      Map<String,String> diagnostics = info.info.getDiagnostics();
+      segInfoStat.diagnostics = diagnostics;
+      if (diagnostics.size() > 0) {
+        msg(infoStream, "    diagnostics = " + diagnostics);
+      }
 
-        segInfoStat.openReaderPassed = true;
-        
-        long startIntegrityNS = System.nanoTime();
-        if (infoStream != null)
-          infoStream.print("    test: check integrity.....");
-        reader.checkIntegrity();
-        msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startIntegrityNS)));
+      if (!info.hasDeletions()) {
+        msg(infoStream, "    no deletions");
+        segInfoStat.hasDeletions = false;
+      } else {
+        msg(infoStream, "    has deletions [delGen=" + info.getDelGen() + "]");
+        segInfoStat.hasDeletions = true;
+        segInfoStat.deletionsGen = info.getDelGen();
+      }
+      
+      long startOpenReaderNS = System.nanoTime();
+      if (infoStream != null)
+        infoStream.print("    test: open reader.........");
+      reader = new SegmentReader(info, sis.getIndexCreatedVersionMajor(), IOContext.DEFAULT);
+      msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startOpenReaderNS)));
+
+      segInfoStat.openReaderPassed = true;
+      
+      long startIntegrityNS = System.nanoTime();
+      if (infoStream != null)
+        infoStream.print("    test: check integrity.....");
+      reader.checkIntegrity();
+      msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startIntegrityNS)));
 
-        if (reader.maxDoc() != info.info.maxDoc()) {
-          throw new RuntimeException("SegmentReader.maxDoc() " + reader.maxDoc() + " != SegmentInfo.maxDoc " + info.info.maxDoc());
+      if (reader.maxDoc() != info.info.maxDoc()) {
+        throw new RuntimeException("SegmentReader.maxDoc() " + reader.maxDoc() + " != SegmentInfo.maxDoc " + info.info.maxDoc());
+      }
+      
+      final int numDocs = reader.numDocs();
+      check.toLoseDocCount = numDocs;
+      
+      if (reader.hasDeletions()) {
+        if (reader.numDocs() != info.info.maxDoc() - info.getDelCount()) {
+          throw new RuntimeException("delete count mismatch: info=" + (info.info.maxDoc() - info.getDelCount()) + " vs reader=" + reader.numDocs());
         }
-        
-        final int numDocs = reader.numDocs();
-        toLoseDocCount = numDocs;
-        
-        if (reader.hasDeletions()) {
-          if (reader.numDocs() != info.info.maxDoc() - info.getDelCount()) {
-            throw new RuntimeException("delete count mismatch: info=" + (info.info.maxDoc() - info.getDelCount()) + " vs reader=" + reader.numDocs());
-          }
-          if ((info.info.maxDoc() - reader.numDocs()) > reader.maxDoc()) {
-            throw new RuntimeException("too many deleted docs: maxDoc()=" + reader.maxDoc() + " vs del count=" + (info.info.maxDoc() - reader.numDocs()));
-          }
-          if (info.info.maxDoc() - reader.numDocs() != info.getDelCount()) {
-            throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
-          }
-        } else {
-          if (info.getDelCount() != 0) {
-            throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
-          }
+        if ((info.info.maxDoc() - reader.numDocs()) > reader.maxDoc()) {
+          throw new RuntimeException("too many deleted docs: maxDoc()=" + reader.maxDoc() + " vs del count=" + (info.info.maxDoc() - reader.numDocs()));
         }
-        
-        if (checksumsOnly == false) {
+        if (info.info.maxDoc() - reader.numDocs() != info.getDelCount()) {
+          throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
+        }
+      } else {
+        if (info.getDelCount() != 0) {
+          throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
+        }
+      }
+      
+      if (checksumsOnly == false) {
+        if (executor == null) {
           // Test Livedocs
           segInfoStat.liveDocStatus = testLiveDocs(reader, infoStream, failFast);
 
@@ -732,81 +856,235 @@ public final class CheckIndex implements Closeable {
           // Test PointValues
           segInfoStat.pointsStatus = testPoints(reader, infoStream, failFast);
 
+          // Test VectorValues
+          segInfoStat.vectorValuesStatus = testVectors(reader, infoStream, failFast);
+
           // Test index sort
           segInfoStat.indexSortStatus = testSort(reader, indexSort, infoStream, failFast);
+        } else {
+          testPartsConcurrently(reader, indexSort, segInfoStat, infoStream, executor);
+        }
+
+        // Rethrow the first exception we encountered
+        //  This will cause stats for failed segments to be incremented properly
+        if (segInfoStat.liveDocStatus.error != null) {
+          throw new RuntimeException("Live docs test failed");
+        } else if (segInfoStat.fieldInfoStatus.error != null) {
+          throw new RuntimeException("Field Info test failed");
+        } else if (segInfoStat.fieldNormStatus.error != null) {
+          throw new RuntimeException("Field Norm test failed");
+        } else if (segInfoStat.termIndexStatus.error != null) {
+          throw new RuntimeException("Term Index test failed");
+        } else if (segInfoStat.storedFieldStatus.error != null) {
+          throw new RuntimeException("Stored Field test failed");
+        } else if (segInfoStat.termVectorStatus.error != null) {
+          throw new RuntimeException("Term Vector test failed");
+        } else if (segInfoStat.docValuesStatus.error != null) {
+          throw new RuntimeException("DocValues test failed");
+        } else if (segInfoStat.pointsStatus.error != null) {
+          throw new RuntimeException("Points test failed");
+        } else if (segInfoStat.vectorValuesStatus.error != null) {
+          throw new RuntimeException("Vectors test failed");
+        }
+      }
+      final String softDeletesField = reader.getFieldInfos().getSoftDeletesField();
+      if (softDeletesField != null) {
+        checkSoftDeletes(softDeletesField, info, reader, infoStream, failFast);
+      }
+      msg(infoStream, "");
+      
+      if (verbose) {
+        msg(infoStream, "detailed segment RAM usage: ");
+        msg(infoStream, Accountables.toString(reader));
+      }
 
-          // Rethrow the first exception we encountered
-          //  This will cause stats for failed segments to be incremented properly
-          if (segInfoStat.liveDocStatus.error != null) {
-            throw new RuntimeException("Live docs test failed");
-          } else if (segInfoStat.fieldInfoStatus.error != null) {
-            throw new RuntimeException("Field Info test failed");
-          } else if (segInfoStat.fieldNormStatus.error != null) {
-            throw new RuntimeException("Field Norm test failed");
-          } else if (segInfoStat.termIndexStatus.error != null) {
-            throw new RuntimeException("Term Index test failed");
-          } else if (segInfoStat.storedFieldStatus.error != null) {
-            throw new RuntimeException("Stored Field test failed");
-          } else if (segInfoStat.termVectorStatus.error != null) {
-            throw new RuntimeException("Term Vector test failed");
-          } else if (segInfoStat.docValuesStatus.error != null) {
-            throw new RuntimeException("DocValues test failed");
-          } else if (segInfoStat.pointsStatus.error != null) {
-            throw new RuntimeException("Points test failed");
+    } catch (Throwable t) {
+      if (failFast) {
+        throw IOUtils.rethrowAlways(t);
+      }
+      msg(infoStream, "FAILED");
+      String comment;
+      comment = "exorciseIndex() would remove reference to this segment";
+      msg(infoStream, "    WARNING: " + comment + "; full exception:");
+      if (infoStream != null)
+        t.printStackTrace(infoStream);
+      msg(infoStream, "");
+      check.failed = true;
+    } finally {
+      if (reader != null)
+        reader.close();
+    }
+
+  }
+
+  /** Checks the given segments concurrently on the executor, largest segments first.  Every segment
+   *  reports into its own buffer, which is printed as soon as the segment is done. */
+  private void checkSegmentsConcurrently(SegmentInfos sis, List<SegmentCheck> checks, NumberFormat nf,
+                                         ExecutorService executor) throws IOException {
+    final List<SegmentCheck> bySize = new ArrayList<>(checks);
+    for (SegmentCheck check : bySize) {
+      check.sizeInBytes = check.info.sizeInBytes();
+    }
+    // start with the largest segments so that smaller ones fill the gaps at the end
+    bySize.sort((a, b) -> Long.compare(b.sizeInBytes, a.sizeInBytes));
+
+    msg(infoStream, "Checking " + checks.size() + " segments concurrently");
+    final CompletionService<SegmentCheck> completionService = new ExecutorCompletionService<>(executor);
+    for (SegmentCheck check : bySize) {
+      // NumberFormat is not thread-safe
+      final NumberFormat segmentNf = (NumberFormat) nf.clone();
+      completionService.submit(() -> {
+        final PrintStream out = infoStream == null ? null : new PrintStream(check.output, false, IOUtils.UTF_8);
+        try {
+          checkSegment(sis, check, segmentNf, out, executor);
+        } catch (Throwable t) {
+          check.exception = t;
+        } finally {
+          if (out != null) {
+            out.flush();
           }
         }
-        final String softDeletesField = reader.getFieldInfos().getSoftDeletesField();
-        if (softDeletesField != null) {
-          checkSoftDeletes(softDeletesField, info, reader, infoStream, failFast);
-        }
-        msg(infoStream, "");
-        
-        if (verbose) {
-          msg(infoStream, "detailed segment RAM usage: ");
-          msg(infoStream, Accountables.toString(reader));
-        }
+        return check;
+      });
+    }
 
-      } catch (Throwable t) {
-        if (failFast) {
-          throw IOUtils.rethrowAlways(t);
-        }
-        msg(infoStream, "FAILED");
-        String comment;
-        comment = "exorciseIndex() would remove reference to this segment";
-        msg(infoStream, "    WARNING: " + comment + "; full exception:");
-        if (infoStream != null)
-          t.printStackTrace(infoStream);
-        msg(infoStream, "");
-        result.totLoseDocCount += toLoseDocCount;
-        result.numBadSegments++;
-        continue;
-      } finally {
-        if (reader != null)
-          reader.close();
+    for (int done = 1; done <= checks.size(); done++) {
+      final SegmentCheck check;
+      try {
+        check = completionService.take().get();
+      } catch (InterruptedException e) {
+        throw new ThreadInterruptedException(e);
+      } catch (ExecutionException e) {
+        throw IOUtils.rethrowAlways(e.getCause());
       }
-
-      // Keeper
-      result.newSegments.add(info.clone());
+      if (infoStream != null) {
+        infoStream.print(check.output.toString(IOUtils.UTF_8));
+      }
+      if (check.exception != null) {
+        throw IOUtils.rethrowAlways(check.exception);
+      }
+      msg(infoStream, String.format(Locale.ROOT, "  [%d of %d segments checked]", done, checks.size()));
     }
+  }
 
-    if (0 == result.numBadSegments) {
-      result.clean = true;
-    } else
-      msg(infoStream, "WARNING: " + result.numBadSegments + " broken segments (containing " + result.totLoseDocCount + " documents) detected");
+  /** Runs the checks of the independent parts of a segment concurrently, then prints their reports
+   *  in the same order as a sequential check would. */
+  private void testPartsConcurrently(SegmentReader reader, Sort indexSort, Status.SegmentInfoStatus segInfoStat,
+                                     PrintStream infoStream, ExecutorService executor) throws IOException {
+    final ConcurrentParts parts = new ConcurrentParts(infoStream, executor);
+    final Future<Status.LiveDocStatus> liveDocs = parts.submit(out -> testLiveDocs(reader, out, failFast));
+    final Future<Status.FieldInfoStatus> fieldInfos = parts.submit(out -> testFieldInfos(reader, out, failFast));
+    final Future<Status.FieldNormStatus> norms = parts.submit(out -> testFieldNorms(reader, out, failFast));
+    final Future<Status.TermIndexStatus> postings = parts.submit(out -> testPostings(reader, out, verbose, doSlowChecks, failFast));
+    final Future<Status.StoredFieldStatus> storedFields = parts.submit(out -> testStoredFields(reader, out, failFast));
+    final Future<Status.TermVectorStatus> termVectors = parts.submit(out -> testTermVectors(reader, out, verbose, doSlowChecks, failFast));
+    final Future<Status.DocValuesStatus> docValues = parts.submit(out -> testDocValues(reader, out, failFast));
+    final Future<Status.PointsStatus> points = parts.submit(out -> testPoints(reader, out, failFast));
+    final Future<Status.VectorValuesStatus> vectors = parts.submit(out -> testVectors(reader, out, failFast));
+    final Future<Status.IndexSortStatus> sort = parts.submit(out -> testSort(reader, indexSort, out, failFast));
+    parts.finish();
+
+    segInfoStat.liveDocStatus = get(liveDocs);
+    segInfoStat.fieldInfoStatus = get(fieldInfos);
+    segInfoStat.fieldNormStatus = get(norms);
+    segInfoStat.termIndexStatus = get(postings);
+    segInfoStat.storedFieldStatus = get(storedFields);
+    segInfoStat.termVectorStatus = get(termVectors);
+    segInfoStat.docValuesStatus = get(docValues);
+    segInfoStat.pointsStatus = get(points);
+    segInfoStat.vectorValuesStatus = get(vectors);
+    segInfoStat.indexSortStatus = get(sort);
+  }
 
-    if ( ! (result.validCounter = (result.maxSegmentName < sis.counter))) {
-      result.clean = false;
-      result.newSegments.counter = result.maxSegmentName + 1; 
-      msg(infoStream, "ERROR: Next segment name counter " + sis.counter + " is not greater than max segment name " + result.maxSegmentName);
+  private static <T> T get(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      throw new ThreadInterruptedException(e);
+    } catch (ExecutionException e) {
+      throw IOUtils.rethrowAlways(e.getCause());
     }
-    
-    if (result.clean) {
-      msg(infoStream, "No problems were detected with this index.\n");
+  }
+
+  /** The state of the check of one segment. */
+  private static final class SegmentCheck {
+    final int ord;
+    final SegmentCommitInfo info;
+    final Status.SegmentInfoStatus status = new Status.SegmentInfoStatus();
+    final ByteArrayOutputStream output = new ByteArrayOutputStream(1024);
+    int toLoseDocCount;
+    boolean failed;
+    long sizeInBytes;
+    Throwable exception;
+
+    SegmentCheck(int ord, SegmentCommitInfo info) {
+      this.ord = ord;
+      this.info = info;
     }
+  }
 
-    msg(infoStream, String.format(Locale.ROOT, "Took %.3f sec total.", nsToSec(System.nanoTime()-startNS)));
+  /** Checks a part of a segment, printing to the given stream. */
+  @FunctionalInterface
+  private interface PartCheck<T> {
+    T check(PrintStream infoStream) throws IOException;
+  }
 
-    return result;
+  /** Parts of a segment that are checked concurrently, each one reporting into its own buffer. */
+  private static final class ConcurrentParts {
+    private final PrintStream infoStream;
+    private final ExecutorService executor;
+    private final List<FutureTask<?>> tasks = new ArrayList<>();
+    private final List<ByteArrayOutputStream> outputs = new ArrayList<>();
+
+    ConcurrentParts(PrintStream infoStream, ExecutorService executor) {
+      this.infoStream = infoStream;
+      this.executor = executor;
+    }
+
+    <T> Future<T> submit(PartCheck<T> part) {
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+      final FutureTask<T> task = new FutureTask<>(() -> {
+        final PrintStream out = infoStream == null ? null : new PrintStream(output, false, IOUtils.UTF_8);
+        try {
+          return part.check(out);
+        } finally {
+          if (out != null) {
+            out.flush();
+          }
+        }
+      });
+      tasks.add(task);
+      outputs.add(output);
+      executor.execute(task);
+      return task;
+    }
+
+    /** Waits for all parts and prints their reports in submission order. */
+    void finish() throws IOException {
+      // parts that no thread picked up yet run in the calling thread, so that checking a segment never
+      // waits on an executor whose threads are all busy checking other segments
+      for (FutureTask<?> task : tasks) {
+        task.run();
+      }
+      Throwable failure = null;
+      for (int i = 0; i < tasks.size(); i++) {
+        try {
+          tasks.get(i).get();
+        } catch (InterruptedException e) {
+          throw new ThreadInterruptedException(e);
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          }
+        }
+        if (infoStream != null) {
+          infoStream.print(outputs.get(i).toString(IOUtils.UTF_8));
+        }
+      }
+      if (failure != null) {
+        throw IOUtils.rethrowAlways(failure);
+      }
+    }
   }
 
   /**
@@ -1881,6 +2159,108 @@ public final class CheckIndex implements Closeable {
     return status;
   }
 
+  /**
+   * Test the vectors index, and the graph of their nearest neighbors if the format indexes one
+   * @lucene.experimental
+   */
+  public static Status.VectorValuesStatus testVectors(CodecReader reader, PrintStream infoStream, boolean failFast) throws IOException {
+    if (infoStream != null) {
+      infoStream.print("    test: vectors.............");
+    }
+    long startNS = System.nanoTime();
+    FieldInfos fieldInfos = reader.getFieldInfos();
+    Status.VectorValuesStatus status = new Status.VectorValuesStatus();
+    try {
+
+      if (fieldInfos.hasVectorValues()) {
+        VectorReader vectorReader = reader.getVectorReader();
+        if (vectorReader == null) {
+          throw new RuntimeException("there are fields with vectors, but reader.getVectorReader() is null");
+        }
+        for (FieldInfo fieldInfo : fieldInfos) {
+          if (fieldInfo.hasVectorValues()) {
+            VectorValues values = vectorReader.getVectorValues(fieldInfo.name);
+            if (values == null) {
+              continue;
+            }
+
+            status.totalVectorFields++;
+
+            int dimension = fieldInfo.getVectorDimension();
+            if (values.dimension() != dimension) {
+              throw new RuntimeException("vector values for field \"" + fieldInfo.name + "\" have dimension=" + values.dimension() + " but the field has dimension=" + dimension);
+            }
+            int size = values.size();
+            int count = 0;
+            int lastDoc = -1;
+            for (int doc = values.nextDoc(); doc != NO_MORE_DOCS; doc = values.nextDoc()) {
+              if (doc <= lastDoc) {
+                throw new RuntimeException("vector values for field \"" + fieldInfo.name + "\" are out of order: doc=" + doc + " after doc=" + lastDoc);
+              }
+              if (doc >= reader.maxDoc()) {
+                throw new RuntimeException("vector values for field \"" + fieldInfo.name + "\" have doc=" + doc + " but maxDoc=" + reader.maxDoc());
+              }
+              float[] vector = values.vectorValue();
+              if (vector.length != dimension) {
+                throw new RuntimeException("vector of doc=" + doc + " for field \"" + fieldInfo.name + "\" has length=" + vector.length + " but the field has dimension=" + dimension);
+              }
+              lastDoc = doc;
+              count++;
+            }
+            if (count != size) {
+              throw new RuntimeException("vector values for field \"" + fieldInfo.name + "\" claim to have size=" + size + " but in fact have " + count);
+            }
+            status.totalVectorValues += count;
+
+            KnnGraphValues graph = vectorReader.getGraphValues(fieldInfo.name);
+            if (graph != null) {
+              checkGraph(fieldInfo.name, graph, size);
+              status.totalGraphFields++;
+            }
+          }
+        }
+      }
+
+      msg(infoStream, String.format(Locale.ROOT, "OK [%d fields, %d vectors, %d graphs] [took %.3f sec]", status.totalVectorFields, status.totalVectorValues, status.totalGraphFields, nsToSec(System.nanoTime()-startNS)));
+
+    } catch (Throwable e) {
+      if (failFast) {
+        throw IOUtils.rethrowAlways(e);
+      }
+      msg(infoStream, "ERROR: " + e);
+      status.error = e;
+      if (infoStream != null) {
+        e.printStackTrace(infoStream);
+      }
+    }
+
+    return status;
+  }
+
+  /** Checks that the graph has a node per vector, and that the neighbors of every node are distinct
+   *  other nodes, iterated in increasing order. */
+  private static void checkGraph(String field, KnnGraphValues graph, int numVectors) throws IOException {
+    if (graph.size() != numVectors) {
+      throw new RuntimeException("graph for field \"" + field + "\" has size=" + graph.size() + " but there are " + numVectors + " vectors");
+    }
+    for (int node = 0; node < numVectors; node++) {
+      graph.seek(node);
+      int lastNeighbor = -1;
+      for (int neighbor = graph.nextNeighbor(); neighbor != NO_MORE_DOCS; neighbor = graph.nextNeighbor()) {
+        if (neighbor < 0 || neighbor >= numVectors) {
+          throw new RuntimeException("node=" + node + " of the graph for field \"" + field + "\" has neighbor=" + neighbor + " but the graph has size=" + numVectors);
+        }
+        if (neighbor <= lastNeighbor) {
+          throw new RuntimeException("neighbors of node=" + node + " of the graph for field \"" + field + "\" are out of order: neighbor=" + neighbor + " after neighbor=" + lastNeighbor);
+        }
+        if (neighbor == node) {
+          throw new RuntimeException("node=" + node + " of the graph for field \"" + field + "\" is its own neighbor");
+        }
+        lastNeighbor = neighbor;
+      }
+    }
+  }
+
   /**
    * Test the points index
    * @lucene.experimental
@@ -2442,6 +2822,49 @@ public final class CheckIndex implements Closeable {
     }
   }
   
+  private static void checkDocValuesSkipper(String fieldName, DocValuesSkipper skipper, SortedNumericDocValues values) throws IOException {
+    if (skipper == null) {
+      return;
+    }
+    int docCount = 0;
+    int globalDocCount = 0;
+    for (int doc = values.nextDoc(); doc != NO_MORE_DOCS; doc = values.nextDoc()) {
+      if (doc > skipper.maxDocID()) {
+        if (docCount != (skipper.maxDocID() == -1 ? 0 : skipper.docCount())) {
+          throw new RuntimeException("skip index for field: " + fieldName + " has docCount=" + skipper.docCount() + " for interval ending at doc=" + skipper.maxDocID() + ", but found " + docCount + " docs");
+        }
+        skipper.advance(doc);
+        docCount = 0;
+        if (skipper.minDocID() != doc) {
+          throw new RuntimeException("skip index for field: " + fieldName + " advanced to interval [" + skipper.minDocID() + "-" + skipper.maxDocID() + "] for target=" + doc + " which is the first doc of its interval");
+        }
+      }
+      docCount++;
+      globalDocCount++;
+      for (int i = 0, count = values.docValueCount(); i < count; ++i) {
+        long value = values.nextValue();
+        if (value < skipper.minValue() || value > skipper.maxValue()) {
+          throw new RuntimeException("skip index for field: " + fieldName + " has interval [" + skipper.minValue() + "-" + skipper.maxValue() + "] for doc=" + doc + ", which has value=" + value);
+        }
+        if (value < skipper.globalMinValue() || value > skipper.globalMaxValue()) {
+          throw new RuntimeException("skip index for field: " + fieldName + " has global interval [" + skipper.globalMinValue() + "-" + skipper.globalMaxValue() + "], but doc=" + doc + " has value=" + value);
+        }
+      }
+    }
+    if (docCount != (skipper.maxDocID() == -1 ? 0 : skipper.docCount())) {
+      throw new RuntimeException("skip index for field: " + fieldName + " has docCount=" + skipper.docCount() + " for interval ending at doc=" + skipper.maxDocID() + ", but found " + docCount + " docs");
+    }
+    if (skipper.maxDocID() != NO_MORE_DOCS) {
+      skipper.advance(skipper.maxDocID() + 1);
+      if (skipper.maxDocID() != NO_MORE_DOCS) {
+        throw new RuntimeException("skip index for field: " + fieldName + " has interval [" + skipper.minDocID() + "-" + skipper.maxDocID() + "] after the last doc that has a value");
+      }
+    }
+    if (globalDocCount != skipper.globalDocCount()) {
+      throw new RuntimeException("skip index for field: " + fieldName + " has globalDocCount=" + skipper.globalDocCount() + ", but found " + globalDocCount + " docs");
+    }
+  }
+
   private static void checkDocValues(FieldInfo fi, DocValuesProducer dvReader, int maxDoc, PrintStream infoStream, DocValuesStatus status) throws Exception {
     switch(fi.getDocValuesType()) {
       case SORTED:
@@ -2454,6 +2877,7 @@ public final class CheckIndex implements Closeable {
         status.totalSortedNumericFields++;
         checkDVIterator(fi, maxDoc, dvReader::getSortedNumeric);
         checkSortedNumericDocValues(fi.name, maxDoc, dvReader.getSortedNumeric(fi));
+        checkDocValuesSkipper(fi.name, dvReader.getSkipper(fi), dvReader.getSortedNumeric(fi));
         break;
       case SORTED_SET:
         status.totalSortedSetFields++;
@@ -2469,6 +2893,7 @@ public final class CheckIndex implements Closeable {
         status.totalNumericFields++;
         checkDVIterator(fi, maxDoc, dvReader::getNumeric);
         checkNumericDocValues(fi.name, dvReader.getNumeric(fi));
+        checkDocValuesSkipper(fi.name, dvReader.getSkipper(fi), DocValues.singleton(dvReader.getNumeric(fi)));
         break;
       default:
         throw new AssertionError();
@@ -2724,7 +3149,7 @@ public final class CheckIndex implements Closeable {
     <p>
     Run it like this:
     <pre>
-    java -ea:org.apache.lucene... org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-verbose] [-segment X] [-segment Y]
+    java -ea:org.apache.lucene... org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-verbose] [-segment X] [-segment Y] [-threadCount X]
     </pre>
     <ul>
     <li><code>-exorcise</code>: actually write a new segments_N file, removing any problematic segments. *LOSES DATA*
@@ -2734,6 +3159,11 @@ public final class CheckIndex implements Closeable {
     to check more than one segment, eg <code>-segment _2
     -segment _a</code>.  You can't use this with the -exorcise
     option.
+
+    <li><code>-threadCount X</code>: check segments, and the
+    independent parts of every segment, concurrently with the
+    specified number of threads. Segments are reported as soon
+    as they are checked, which may not be in index order.
     </ul>
 
     <p><b>WARNING</b>: <code>-exorcise</code> should only be used on an emergency basis as it will cause
@@ -2764,6 +3194,7 @@ public final class CheckIndex implements Closeable {
     boolean doSlowChecks = false;
     boolean verbose = false;
     boolean doChecksumsOnly = false;
+    int threadCount = 1;
     List<String> onlySegments = new ArrayList<>();
     String indexPath = null;
     String dirImpl = null;
@@ -2860,6 +3291,19 @@ public final class CheckIndex implements Closeable {
         }
         i++;
         opts.onlySegments.add(args[i]);
+      } else if ("-threadCount".equals(arg)) {
+        if (i == args.length - 1) {
+          throw new IllegalArgumentException("ERROR: missing value for -threadCount option");
+        }
+        i++;
+        try {
+          opts.threadCount = Integer.parseInt(args[i]);
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("ERROR: invalid value for -threadCount option: " + args[i]);
+        }
+        if (opts.threadCount <= 0) {
+          throw new IllegalArgumentException("ERROR: -threadCount must be greater than 0, got " + opts.threadCount);
+        }
       } else if ("-dir-impl".equals(arg)) {
         if (i == args.length - 1) {
           throw new IllegalArgumentException("ERROR: missing value for -dir-impl option");
@@ -2877,7 +3321,7 @@ public final class CheckIndex implements Closeable {
 
     if (opts.indexPath == null) {
       throw new IllegalArgumentException("\nERROR: index path not specified" +
-                         "\nUsage: java org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-slow] [-segment X] [-segment Y] [-dir-impl X]\n" +
+                         "\nUsage: java org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-slow] [-segment X] [-segment Y] [-threadCount X] [-dir-impl X]\n" +
                          "\n" +
                          "  -exorcise: actually write a new segments_N file, removing any problematic segments\n" +
                          "  -fast: just verify file checksums, omitting logical integrity checks\n" + 
@@ -2887,6 +3331,7 @@ public final class CheckIndex implements Closeable {
                          "  -segment X: only check the specified segments.  This can be specified multiple\n" + 
                          "              times, to check more than one segment, eg '-segment _2 -segment _a'.\n" +
                          "              You can't use this with the -exorcise option\n" +
+                         "  -threadCount X: number of threads used to check segments and their parts concurrently; defaults to 1\n" +
                          "  -dir-impl X: use a specific " + FSDirectory.class.getSimpleName() + " implementation. " +
                          "If no package is specified the " + FSDirectory.class.getPackage().getName() + " package will be used.\n" +
                          "\n" +
@@ -2926,6 +3371,7 @@ public final class CheckIndex implements Closeable {
   public int doCheck(Options opts) throws IOException, InterruptedException {
     setDoSlowChecks(opts.doSlowChecks);
     setChecksumsOnly(opts.doChecksumsOnly);
+    setThreadCount(opts.threadCount);
     setInfoStream(opts.out, opts.verbose);
 
     Status result = checkIndex(opts.onlySegments);
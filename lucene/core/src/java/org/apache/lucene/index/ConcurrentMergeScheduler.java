@@ -111,7 +111,7 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
   private static final double START_MB_PER_SEC = 20.0;
 
   /** Merges below this size are not counted in the maxThreadCount, i.e. they can freely run in their own thread (up until maxMergeCount). */
-  private static final double MIN_BIG_MERGE_MB = 50.0;
+  static final double MIN_BIG_MERGE_MB = 50.0;
 
   /** Current IO writes throttle rate */
   protected double targetMBPerSec = START_MB_PER_SEC;
@@ -428,7 +428,7 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
     }
   }
 
-  private static String rateToString(double mbPerSec) {
+  static String rateToString(double mbPerSec) {
     if (mbPerSec == 0.0) {
       return "stopped";
     } else if (mbPerSec == Double.POSITIVE_INFINITY) {
@@ -838,11 +838,11 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
   protected void targetMBPerSecChanged() {
   }
 
-  private static double nsToSec(long ns) {
+  static double nsToSec(long ns) {
     return ns / 1000000000.0;
   }
 
-  private static double bytesToMB(long bytes) {
+  static double bytesToMB(long bytes) {
     return bytes/1024./1024.;
   }
 }
@@ -26,6 +26,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.codecs.DocValuesConsumer;
@@ -35,7 +42,11 @@ import org.apache.lucene.codecs.NormsFormat;
 import org.apache.lucene.codecs.NormsProducer;
 import org.apache.lucene.codecs.PointsFormat;
 import org.apache.lucene.codecs.PointsWriter;
+import org.apache.lucene.codecs.VectorFormat;
+import org.apache.lucene.codecs.VectorWriter;
+import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.VectorField;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
@@ -49,10 +60,14 @@ import org.apache.lucene.util.BytesRefHash.MaxBytesLengthExceededException;
 import org.apache.lucene.util.Counter;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.ThreadInterruptedException;
 
 /** Default general purpose indexing chain, which handles
  *  indexing all types of fields. */
 final class DefaultIndexingChain extends DocConsumer {
+  /** Minimum number of tokenized fields a document needs for them to be analyzed concurrently. */
+  static final int MIN_CONCURRENT_ANALYSIS_FIELDS = 8;
+
   final Counter bytesUsed;
   final DocumentsWriterPerThread.DocState docState;
   final DocumentsWriterPerThread docWriter;
@@ -77,11 +92,15 @@ final class DefaultIndexingChain extends DocConsumer {
 
   private final Set<String> finishedDocValues = new HashSet<>();
 
+  // Non-null if fields are analyzed and formats flushed concurrently
+  private final ExecutorService executor;
+
   public DefaultIndexingChain(DocumentsWriterPerThread docWriter) throws IOException {
     this.docWriter = docWriter;
     this.fieldInfos = docWriter.getFieldInfosBuilder();
     this.docState = docWriter.docState;
     this.bytesUsed = docWriter.bytesUsed;
+    this.executor = docWriter.indexingExecutor;
 
     final TermsHash termVectorsWriter;
     if (docWriter.getSegmentInfo().getIndexSort() == null) {
@@ -126,34 +145,45 @@ final class DefaultIndexingChain extends DocConsumer {
     // aborting on any exception from this method
     Sorter.DocMap sortMap = maybeSortSegment(state);
     int maxDoc = state.segmentInfo.maxDoc();
-    long t0 = System.nanoTime();
-    writeNorms(state, sortMap);
-    if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write norms");
-    }
-    SegmentReadState readState = new SegmentReadState(state.directory, state.segmentInfo, state.fieldInfos, IOContext.READ, state.segmentSuffix);
-    
-    t0 = System.nanoTime();
-    writeDocValues(state, sortMap);
-    if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write docValues");
-    }
-
-    t0 = System.nanoTime();
-    writePoints(state, sortMap);
-    if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write points");
-    }
-    
+    IORunnable norms = () -> timed("write norms", () -> writeNorms(state, sortMap));
+    IORunnable docValues = () -> timed("write docValues", () -> writeDocValues(state, sortMap));
+    IORunnable points = () -> timed("write points", () -> writePoints(state, sortMap));
+    IORunnable vectors = () -> timed("write vectors", () -> writeVectors(state, sortMap));
     // it's possible all docs hit non-aborting exceptions...
-    t0 = System.nanoTime();
-    storedFieldsConsumer.finish(maxDoc);
-    storedFieldsConsumer.flush(state, sortMap);
-    if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to finish stored fields");
+    IORunnable storedFields = () -> timed("finish stored fields", () -> {
+      storedFieldsConsumer.finish(maxDoc);
+      storedFieldsConsumer.flush(state, sortMap);
+    });
+    IORunnable postings = () -> timed("write postings and finish vectors", () -> writePostings(state, sortMap));
+
+    if (executor == null) {
+      norms.run();
+      docValues.run();
+      points.run();
+      vectors.run();
+      storedFields.run();
+      postings.run();
+    } else {
+      // postings are written against the flushed norms, all other formats are independent:
+      runConcurrently(() -> {
+        norms.run();
+        postings.run();
+      }, docValues, points, vectors, storedFields);
     }
 
-    t0 = System.nanoTime();
+    // Important to save after asking consumer to flush so
+    // consumer can alter the FieldInfo* if necessary.  EG,
+    // FreqProxTermsWriter does this with
+    // FieldInfo.storePayload.
+    timed("write fieldInfos", () ->
+        docWriter.codec.fieldInfosFormat().write(state.directory, state.segmentInfo, "", state.fieldInfos, IOContext.DEFAULT));
+
+    return sortMap;
+  }
+
+  /** Writes the postings and term vectors of all fields, once norms are written. */
+  private void writePostings(SegmentWriteState state, Sorter.DocMap sortMap) throws IOException {
+    SegmentReadState readState = new SegmentReadState(state.directory, state.segmentInfo, state.fieldInfos, IOContext.READ, state.segmentSuffix);
     Map<String,TermsHashPerField> fieldsToFlush = new HashMap<>();
     for (int i=0;i<fieldHash.length;i++) {
       PerField perField = fieldHash[i];
@@ -175,21 +205,64 @@ final class DefaultIndexingChain extends DocConsumer {
       }
       termsHash.flush(fieldsToFlush, state, sortMap, normsMergeInstance);
     }
+    // the postings are written: give the blocks that buffered them back to the allocators
+    termsHash.reset();
+  }
+
+  /** Runs one step of {@link #flush}, and reports how long it took. */
+  private void timed(String step, IORunnable runnable) throws IOException {
+    long t0 = System.nanoTime();
+    runnable.run();
     if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write postings and finish vectors");
+      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to " + step);
     }
+  }
 
-    // Important to save after asking consumer to flush so
-    // consumer can alter the FieldInfo* if necessary.  EG,
-    // FreqProxTermsWriter does this with
-    // FieldInfo.storePayload.
-    t0 = System.nanoTime();
-    docWriter.codec.fieldInfosFormat().write(state.directory, state.segmentInfo, "", state.fieldInfos, IOContext.DEFAULT);
-    if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write fieldInfos");
+  /** Runs the given parts of {@link #flush} on the executor, and waits for all
+   *  of them to finish before rethrowing the first failure, if any. */
+  private void runConcurrently(IORunnable... parts) throws IOException {
+    List<FutureTask<Void>> tasks = new ArrayList<>(parts.length);
+    for (IORunnable part : parts) {
+      FutureTask<Void> task = new FutureTask<>(() -> {
+        part.run();
+        return null;
+      });
+      tasks.add(task);
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException e) {
+        // run below by this thread
+      }
+    }
+    Throwable failure = null;
+    for (FutureTask<Void> task : tasks) {
+      // runs the part in this thread if no thread of the executor picked it up yet, so that
+      // flushes make progress even if the executor is busy with the threads that wait here
+      task.run();
+      try {
+        get(task);
+      } catch (Throwable t) {
+        failure = IOUtils.useOrSuppress(failure, t);
+      }
+    }
+    if (failure != null) {
+      throw IOUtils.rethrowAlways(failure);
     }
+  }
 
-    return sortMap;
+  private static <T> T get(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      throw new ThreadInterruptedException(e);
+    } catch (ExecutionException e) {
+      throw IOUtils.rethrowAlways(e.getCause());
+    }
+  }
+
+  @FunctionalInterface
+  private interface IORunnable {
+    void run() throws IOException;
   }
 
   /** Writes all buffered points. */
@@ -236,6 +309,50 @@ final class DefaultIndexingChain extends DocConsumer {
     }
   }
 
+  /** Writes all buffered vectors. */
+  private void writeVectors(SegmentWriteState state, Sorter.DocMap sortMap) throws IOException {
+    VectorWriter vectorWriter = null;
+    boolean success = false;
+    try {
+      for (int i=0;i<fieldHash.length;i++) {
+        PerField perField = fieldHash[i];
+        while (perField != null) {
+          if (perField.vectorValuesWriter != null) {
+            if (perField.fieldInfo.getVectorDimension() == 0) {
+              // BUG
+              throw new AssertionError("segment=" + state.segmentInfo + ": field=\"" + perField.fieldInfo.name + "\" has no vectors but wrote them");
+            }
+            if (vectorWriter == null) {
+              // lazy init
+              VectorFormat fmt = state.segmentInfo.getCodec().vectorFormat();
+              if (fmt == null) {
+                throw new IllegalStateException("field=\"" + perField.fieldInfo.name + "\" was indexed as vectors but codec does not support vectors");
+              }
+              vectorWriter = fmt.fieldsWriter(state);
+            }
+
+            perField.vectorValuesWriter.flush(sortMap, vectorWriter);
+            perField.vectorValuesWriter = null;
+          } else if (perField.fieldInfo.getVectorDimension() != 0) {
+            // BUG
+            throw new AssertionError("segment=" + state.segmentInfo + ": field=\"" + perField.fieldInfo.name + "\" has vectors but did not write them");
+          }
+          perField = perField.next;
+        }
+      }
+      if (vectorWriter != null) {
+        vectorWriter.finish();
+      }
+      success = true;
+    } finally {
+      if (success) {
+        IOUtils.close(vectorWriter);
+      } else {
+        IOUtils.closeWhileHandlingException(vectorWriter);
+      }
+    }
+  }
+
   /** Writes all buffered doc values (called from {@link #flush}). */
   private void writeDocValues(SegmentWriteState state, Sorter.DocMap sortMap) throws IOException {
     int maxDoc = state.segmentInfo.maxDoc();
@@ -400,11 +517,26 @@ final class DefaultIndexingChain extends DocConsumer {
     termsHash.startDocument();
 
     startStoredFields(docState.docID);
+    List<AnalysisTask> analysis = null;
     try {
-      for (IndexableField field : docState.doc) {
-        fieldCount = processField(field, fieldGen, fieldCount);
+      if (executor == null) {
+        for (IndexableField field : docState.doc) {
+          fieldCount = processField(field, null, fieldGen, fieldCount);
+        }
+      } else {
+        List<IndexableField> docFields = new ArrayList<>();
+        for (IndexableField field : docState.doc) {
+          docFields.add(field);
+        }
+        analysis = analyzeConcurrently(docFields);
+        for (int i = 0; i < docFields.size(); i++) {
+          fieldCount = processField(docFields.get(i), analysis == null ? null : analysis.get(i), fieldGen, fieldCount);
+        }
       }
     } finally {
+      if (analysis != null) {
+        awaitAnalysis(analysis);
+      }
       if (docWriter.hasHitAbortingException() == false) {
         // Finish each indexed field name seen in the document:
         for (int i=0;i<fieldCount;i++) {
@@ -424,7 +556,93 @@ final class DefaultIndexingChain extends DocConsumer {
     }
   }
 
-  private int processField(IndexableField field, long fieldGen, int fieldCount) throws IOException {
+  /** Starts analyzing the tokenized fields of the current document on the executor, or returns null
+   *  if the document doesn't have enough of them. The returned list has a (possibly null) task for
+   *  each field of the document. */
+  private List<AnalysisTask> analyzeConcurrently(List<IndexableField> docFields) {
+    int analyzedCount = 0;
+    for (IndexableField field : docFields) {
+      if (canAnalyzeConcurrently(field)) {
+        analyzedCount++;
+      }
+    }
+    if (analyzedCount < MIN_CONCURRENT_ANALYSIS_FIELDS) {
+      return null;
+    }
+
+    List<AnalysisTask> analysis = new ArrayList<>(docFields.size());
+    for (IndexableField field : docFields) {
+      AnalysisTask task = null;
+      if (canAnalyzeConcurrently(field)) {
+        task = new AnalysisTask(() -> AnalyzedTokenStream.analyze(field, docState.analyzer));
+        try {
+          executor.execute(task);
+        } catch (RejectedExecutionException e) {
+          // run by this thread when the field is inverted
+        }
+      }
+      analysis.add(task);
+    }
+    return analysis;
+  }
+
+  /** Only fields whose token stream is created by the analyzer can be analyzed by another thread: a
+   *  token stream instance provided by the field itself could be shared with other fields. */
+  private boolean canAnalyzeConcurrently(IndexableField field) {
+    if (field instanceof Field == false || ((Field) field).tokenStreamValue() != null) {
+      return false;
+    }
+    IndexableFieldType fieldType = field.fieldType();
+    return fieldType.indexOptions() != null && fieldType.indexOptions() != IndexOptions.NONE
+        && fieldType.tokenized() && docState.analyzer != null;
+  }
+
+  /** Waits for the analysis of all fields of the current document to be over, so that the
+   *  caller can reuse its fields once the document is indexed, even if it failed. */
+  private static void awaitAnalysis(List<AnalysisTask> analysis) {
+    for (AnalysisTask task : analysis) {
+      // the analysis of fields that were not inverted because the document failed is cancelled if
+      // no thread picked it up yet, otherwise we need to wait for the thread to be done with the field
+      if (task != null && task.cancelIfNotStarted() == false) {
+        try {
+          task.get();
+        } catch (ExecutionException e) {
+          // the document failed on this field, or on a previous one
+        } catch (InterruptedException e) {
+          throw new ThreadInterruptedException(e);
+        }
+      }
+    }
+  }
+
+  /** The analysis of a field, which runs at most once, either on the executor or on the indexing thread. */
+  private static final class AnalysisTask extends FutureTask<TokenStream> {
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    AnalysisTask(Callable<TokenStream> analysis) {
+      super(analysis);
+    }
+
+    @Override
+    public void run() {
+      if (started.compareAndSet(false, true)) {
+        super.run();
+      }
+    }
+
+    /** Cancel this task and return true if no thread started running it, or return false
+     *  otherwise. Unlike {@link #cancel}, this never cancels a task that is running. */
+    boolean cancelIfNotStarted() {
+      if (started.compareAndSet(false, true)) {
+        cancel(false);
+        return true;
+      }
+      return false;
+    }
+  }
+
+  private int processField(IndexableField field, AnalysisTask analysis, long fieldGen, int fieldCount) throws IOException {
     String fieldName = field.name();
     IndexableFieldType fieldType = field.fieldType();
 
@@ -438,7 +656,7 @@ final class DefaultIndexingChain extends DocConsumer {
     if (fieldType.indexOptions() != IndexOptions.NONE) {
       fp = getOrAddField(fieldName, fieldType, true);
       boolean first = fp.fieldGen != fieldGen;
-      fp.invert(field, first);
+      fp.invert(field, analysis, first);
 
       if (first) {
         fields[fieldCount++] = fp;
@@ -483,6 +701,12 @@ final class DefaultIndexingChain extends DocConsumer {
       }
       indexPoint(fp, field);
     }
+    if (fieldType.vectorDimension() != 0) {
+      if (fp == null) {
+        fp = getOrAddField(fieldName, fieldType, false);
+      }
+      indexVector(fp, field);
+    }
     
     return fieldCount;
   }
@@ -527,6 +751,27 @@ final class DefaultIndexingChain extends DocConsumer {
     fp.pointValuesWriter.addPackedValue(docState.docID, field.binaryValue());
   }
 
+  /** Called from processDocument to index one field's vector value */
+  private void indexVector(PerField fp, IndexableField field) {
+    if (field instanceof VectorField == false) {
+      throw new IllegalArgumentException("field=\"" + field.name() + "\" has a vector dimension but is not a VectorField");
+    }
+    int dimension = field.fieldType().vectorDimension();
+    VectorSimilarityFunction similarityFunction = field.fieldType().vectorSimilarityFunction();
+
+    // Record dimension and similarity function for this field; this setter will throw IllegalArgExc if
+    // the dimension or similarity function were already set to something different:
+    if (fp.fieldInfo.getVectorDimension() == 0) {
+      fieldInfos.globalFieldNumbers.setVectorDimensionsAndSimilarityFunction(fp.fieldInfo.number, fp.fieldInfo.name, dimension, similarityFunction);
+    }
+    fp.fieldInfo.setVectorDimensionAndSimilarityFunction(dimension, similarityFunction);
+
+    if (fp.vectorValuesWriter == null) {
+      fp.vectorValuesWriter = new VectorValuesWriter(fp.fieldInfo, docWriter.bytesUsed);
+    }
+    fp.vectorValuesWriter.addValue(docState.docID, ((VectorField) field).vectorValue());
+  }
+
   private void validateIndexSortDVType(Sort indexSort, String fieldName, DocValuesType dvType) {
     for (SortField sortField : indexSort.getSort()) {
       if (sortField.getField().equals(fieldName)) {
@@ -718,6 +963,9 @@ final class DefaultIndexingChain extends DocConsumer {
     // Non-null if this field ever had points in this segment:
     PointValuesWriter pointValuesWriter;
 
+    // Non-null if this field had vectors in this segment
+    VectorValuesWriter vectorValuesWriter;
+
     /** We use this to know when a PerField is seen for the
      *  first time in the current document. */
     long fieldGen = -1;
@@ -777,8 +1025,9 @@ final class DefaultIndexingChain extends DocConsumer {
 
     /** Inverts one field for one document; first is true
      *  if this is the first time we are seeing this field
-     *  name in this document. */
-    public void invert(IndexableField field, boolean first) throws IOException {
+     *  name in this document. If analysis is not null, it
+     *  provides the already analyzed tokens of the field. */
+    public void invert(IndexableField field, AnalysisTask analysis, boolean first) throws IOException {
       if (first) {
         // First time we're seeing this field (indexed) in
         // this document:
@@ -802,7 +1051,7 @@ final class DefaultIndexingChain extends DocConsumer {
        * but rather a finally that takes note of the problem.
        */
       boolean succeededInProcessingField = false;
-      try (TokenStream stream = tokenStream = field.tokenStream(docState.analyzer, tokenStream)) {
+      try (TokenStream stream = fieldTokenStream(field, analysis)) {
         // reset the TokenStream to the first token
         stream.reset();
         invertState.setAttributeSource(stream);
@@ -896,6 +1145,15 @@ final class DefaultIndexingChain extends DocConsumer {
         invertState.offset += docState.analyzer.getOffsetGap(fieldInfo.name);
       }
     }
+
+    private TokenStream fieldTokenStream(IndexableField field, AnalysisTask analysis) throws IOException {
+      if (analysis == null) {
+        return tokenStream = field.tokenStream(docState.analyzer, tokenStream);
+      }
+      // analyzes the field in this thread if no thread of the executor picked it up yet
+      analysis.run();
+      return get(analysis);
+    }
   }
 
   @Override
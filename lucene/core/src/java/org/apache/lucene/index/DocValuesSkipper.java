@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+
+import org.apache.lucene.search.DocIdSetIterator;
+
+/**
+ * Skip index over the values of a {@link DocValuesType#NUMERIC} or
+ * {@link DocValuesType#SORTED_NUMERIC} field. Documents that have a value are
+ * grouped into intervals of consecutive doc IDs, and the skip index records the
+ * minimum and maximum value and the number of documents of each interval. This
+ * allows queries to skip whole intervals whose values can't match, or to match
+ * them without decoding any value. This is especially efficient on segments
+ * that are sorted on the field.
+ * <p>
+ * A skipper starts unpositioned, and {@link #advance(int) advances} to the
+ * interval that contains a target doc ID or to the first interval after it.
+ *
+ * @see LeafReader#getDocValuesSkipper(String)
+ * @lucene.experimental
+ */
+public abstract class DocValuesSkipper {
+
+  /** Sole constructor. (For invocation by subclass
+   *  constructors, typically implicit.) */
+  protected DocValuesSkipper() {}
+
+  /**
+   * Moves to the first interval whose {@link #maxDocID() maximum doc ID} is
+   * greater than or equal to {@code target}. If there is no such interval, both
+   * {@link #minDocID()} and {@link #maxDocID()} return
+   * {@link DocIdSetIterator#NO_MORE_DOCS}. Targets must be increasing.
+   */
+  public abstract void advance(int target) throws IOException;
+
+  /** The first doc ID of the current interval that has a value, -1 if the
+   *  skipper is not positioned yet. */
+  public abstract int minDocID();
+
+  /** The last doc ID of the current interval that has a value, -1 if the
+   *  skipper is not positioned yet. */
+  public abstract int maxDocID();
+
+  /** The minimum value of the current interval. */
+  public abstract long minValue();
+
+  /** The maximum value of the current interval. */
+  public abstract long maxValue();
+
+  /** The number of documents of the current interval that have a value. */
+  public abstract int docCount();
+
+  /** The minimum value of the field across the segment. */
+  public abstract long globalMinValue();
+
+  /** The maximum value of the field across the segment. */
+  public abstract long globalMaxValue();
+
+  /** The number of documents of the segment that have a value for the field. */
+  public abstract int globalDocCount();
+}
@@ -426,7 +426,7 @@ final class DocumentsWriter implements Closeable, Accountable {
       final FieldInfos.Builder infos = new FieldInfos.Builder(globalFieldNumberMap);
       state.dwpt = new DocumentsWriterPerThread(indexCreatedVersionMajor, segmentNameSupplier.get(), directoryOrig,
                                                 directory, config, infoStream, deleteQueue, infos,
-                                                pendingNumDocs, enableTestPoints);
+                                                pendingNumDocs, enableTestPoints, flushControl.blockRecycler);
     }
   }
 
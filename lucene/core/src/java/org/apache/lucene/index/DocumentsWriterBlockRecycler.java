@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * Keeps the byte and int blocks that {@link DocumentsWriterPerThread}s give
+ * back once their in-memory postings and term vectors are flushed, and hands
+ * them out again to the next blocks allocations. Without recycling, every
+ * flushed {@link DocumentsWriterPerThread} turns its whole share of the RAM
+ * buffer into garbage, which causes a lot of allocation churn and GC work with
+ * large RAM buffers.
+ * <p>
+ * The recycled blocks are not part of the bytes that trigger flushes, so they
+ * are bounded by a small fraction, {@value #MAX_RECYCLED_RAM_BUFFER_DIVISOR}th,
+ * of the {@link LiveIndexWriterConfig#getRAMBufferSizeMB() RAM buffer size}, in
+ * addition to the RAM buffer itself. They are accounted in
+ * {@link DocumentsWriterFlushControl#ramBytesUsed()}. Blocks are handed out as
+ * they were given back: callers must clear them.
+ */
+final class DocumentsWriterBlockRecycler implements Accountable {
+
+  /** The recycled blocks may use up to the RAM buffer size divided by this number. */
+  static final int MAX_RECYCLED_RAM_BUFFER_DIVISOR = 8;
+
+  private final LiveIndexWriterConfig config;
+  private byte[][] freeByteBlocks = new byte[0][];
+  private int numFreeByteBlocks;
+  private int[][] freeIntBlocks = new int[0][];
+  private int numFreeIntBlocks;
+  private long recycledBytes;
+
+  DocumentsWriterBlockRecycler(LiveIndexWriterConfig config) {
+    this.config = config;
+  }
+
+  /** Returns a recycled byte block, or null if there is none. */
+  synchronized byte[] takeByteBlock() {
+    if (numFreeByteBlocks == 0) {
+      return null;
+    }
+    final byte[] block = freeByteBlocks[--numFreeByteBlocks];
+    freeByteBlocks[numFreeByteBlocks] = null;
+    recycledBytes -= block.length;
+    return block;
+  }
+
+  /** Returns a recycled int block, or null if there is none. */
+  synchronized int[] takeIntBlock() {
+    if (numFreeIntBlocks == 0) {
+      return null;
+    }
+    final int[] block = freeIntBlocks[--numFreeIntBlocks];
+    freeIntBlocks[numFreeIntBlocks] = null;
+    recycledBytes -= (long) block.length * Integer.BYTES;
+    return block;
+  }
+
+  /** Keeps the given byte blocks for reuse, as long as the recycled bytes stay within their bound,
+   *  and clears their slots in the array. */
+  synchronized void recycleByteBlocks(byte[][] blocks, int start, int end) {
+    final long maxRecycledBytes = maxRecycledBytes();
+    if (recycledBytes > maxRecycledBytes) {
+      // the RAM buffer was made smaller
+      clear();
+    }
+    for (int i = start; i < end; i++) {
+      final byte[] block = blocks[i];
+      if (block != null && recycledBytes + block.length <= maxRecycledBytes) {
+        freeByteBlocks = ArrayUtil.grow(freeByteBlocks, numFreeByteBlocks + 1);
+        freeByteBlocks[numFreeByteBlocks++] = block;
+        recycledBytes += block.length;
+      }
+      blocks[i] = null;
+    }
+  }
+
+  /** Keeps the given int blocks for reuse, as long as the recycled bytes stay within their bound,
+   *  and clears their slots in the array. */
+  synchronized void recycleIntBlocks(int[][] blocks, int start, int end) {
+    final long maxRecycledBytes = maxRecycledBytes();
+    if (recycledBytes > maxRecycledBytes) {
+      // the RAM buffer was made smaller
+      clear();
+    }
+    for (int i = start; i < end; i++) {
+      final int[] block = blocks[i];
+      if (block != null && recycledBytes + (long) block.length * Integer.BYTES <= maxRecycledBytes) {
+        freeIntBlocks = ArrayUtil.grow(freeIntBlocks, numFreeIntBlocks + 1);
+        freeIntBlocks[numFreeIntBlocks++] = block;
+        recycledBytes += (long) block.length * Integer.BYTES;
+      }
+      blocks[i] = null;
+    }
+  }
+
+  /** Drops all recycled blocks. */
+  synchronized void clear() {
+    freeByteBlocks = new byte[0][];
+    numFreeByteBlocks = 0;
+    freeIntBlocks = new int[0][];
+    numFreeIntBlocks = 0;
+    recycledBytes = 0;
+  }
+
+  private long maxRecycledBytes() {
+    final double ramBufferSizeMB = config.getRAMBufferSizeMB();
+    if (ramBufferSizeMB == IndexWriterConfig.DISABLE_AUTO_FLUSH) {
+      return 0;
+    }
+    return (long) (ramBufferSizeMB * 1024 * 1024) / MAX_RECYCLED_RAM_BUFFER_DIVISOR;
+  }
+
+  @Override
+  public synchronized long ramBytesUsed() {
+    return recycledBytes + RamUsageEstimator.shallowSizeOf(freeByteBlocks) + RamUsageEstimator.shallowSizeOf(freeIntBlocks);
+  }
+
+  @Override
+  public String toString() {
+    return "DocumentsWriterBlockRecycler(byteBlocks=" + numFreeByteBlocks + ", intBlocks=" + numFreeIntBlocks + ")";
+  }
+}
@@ -71,6 +71,8 @@ final class DocumentsWriterFlushControl implements Accountable {
   private final DocumentsWriter documentsWriter;
   private final LiveIndexWriterConfig config;
   private final InfoStream infoStream;
+  /** Recycles the blocks of flushed DWPTs, or null if {@link LiveIndexWriterConfig#getRecycleIndexingBlocks()} is false. */
+  final DocumentsWriterBlockRecycler blockRecycler;
 
   DocumentsWriterFlushControl(DocumentsWriter documentsWriter, LiveIndexWriterConfig config) {
     this.infoStream = config.getInfoStream();
@@ -80,6 +82,7 @@ final class DocumentsWriterFlushControl implements Accountable {
     this.config = config;
     this.hardMaxBytesPerDWPT = config.getRAMPerThreadHardLimitMB() * 1024 * 1024;
     this.documentsWriter = documentsWriter;
+    this.blockRecycler = config.getRecycleIndexingBlocks() ? new DocumentsWriterBlockRecycler(config) : null;
   }
 
   public synchronized long activeBytes() {
@@ -398,6 +401,10 @@ final class DocumentsWriterFlushControl implements Accountable {
   synchronized void setClosed() {
     // set by DW to signal that we should not release new DWPT after close
     this.closed = true;
+    if (blockRecycler != null) {
+      // no new DWPT will ever take these blocks
+      blockRecycler.clear();
+    }
   }
 
   /**
@@ -443,7 +450,13 @@ final class DocumentsWriterFlushControl implements Accountable {
   @Override
   public long ramBytesUsed() {
     // TODO: improve this to return more detailed info?
-    return getDeleteBytesUsed() + netBytes();
+    return getDeleteBytesUsed() + netBytes() + getRecycledBytesUsed();
+  }
+
+  /** Returns heap bytes retained by blocks that flushed DWPTs gave back for reuse. These
+   *  bytes are not part of {@link #netBytes()} and so don't trigger flushes. */
+  public long getRecycledBytesUsed() {
+    return blockRecycler == null ? 0 : blockRecycler.ramBytesUsed();
   }
   
   synchronized int numFlushingDWPT() {
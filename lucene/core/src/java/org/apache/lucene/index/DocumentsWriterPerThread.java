@@ -18,11 +18,13 @@ package org.apache.lucene.index;
 
 import java.io.IOException;
 import java.text.NumberFormat;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -36,7 +38,6 @@ import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.TrackingDirectoryWrapper;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.ByteBlockPool.Allocator;
-import org.apache.lucene.util.ByteBlockPool.DirectTrackingAllocator;
 import org.apache.lucene.util.Counter;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.InfoStream;
@@ -152,6 +153,8 @@ final class DocumentsWriterPerThread {
   final DocState docState;
   final DocConsumer consumer;
   final Counter bytesUsed;
+  // Analyzes fields and writes flushed formats concurrently, or null
+  final ExecutorService indexingExecutor;
   
   // Updates for our still-in-RAM (to be flushed next) segment
   final BufferedUpdates pendingUpdates;
@@ -172,7 +175,8 @@ final class DocumentsWriterPerThread {
   private final int indexVersionCreated;
 
   public DocumentsWriterPerThread(int indexVersionCreated, String segmentName, Directory directoryOrig, Directory directory, LiveIndexWriterConfig indexWriterConfig, InfoStream infoStream, DocumentsWriterDeleteQueue deleteQueue,
-                                  FieldInfos.Builder fieldInfos, AtomicLong pendingNumDocs, boolean enableTestPoints) throws IOException {
+                                  FieldInfos.Builder fieldInfos, AtomicLong pendingNumDocs, boolean enableTestPoints,
+                                  DocumentsWriterBlockRecycler blockRecycler) throws IOException {
     this.directoryOrig = directoryOrig;
     this.directory = new TrackingDirectoryWrapper(directory);
     this.fieldInfos = fieldInfos;
@@ -182,10 +186,12 @@ final class DocumentsWriterPerThread {
     this.docState = new DocState(this, infoStream);
     this.docState.similarity = indexWriterConfig.getSimilarity();
     this.pendingNumDocs = pendingNumDocs;
-    bytesUsed = Counter.newCounter();
-    byteBlockAllocator = new DirectTrackingAllocator(bytesUsed);
+    this.indexingExecutor = indexWriterConfig.getIndexingExecutor();
+    // the formats of a segment update the RAM usage concurrently when they are flushed by the executor
+    bytesUsed = Counter.newCounter(indexingExecutor != null);
+    byteBlockAllocator = new ByteBlockAllocator(bytesUsed, blockRecycler);
     pendingUpdates = new BufferedUpdates(segmentName);
-    intBlockAllocator = new IntBlockAllocator(bytesUsed);
+    intBlockAllocator = new IntBlockAllocator(bytesUsed, blockRecycler);
     this.deleteQueue = deleteQueue;
     assert numDocsInRAM == 0 : "num docs " + numDocsInRAM;
     deleteSlice = deleteQueue.newSlice();
@@ -649,26 +655,71 @@ final class DocumentsWriterPerThread {
 
   private static class IntBlockAllocator extends IntBlockPool.Allocator {
     private final Counter bytesUsed;
+    private final DocumentsWriterBlockRecycler blockRecycler;
     
-    public IntBlockAllocator(Counter bytesUsed) {
+    public IntBlockAllocator(Counter bytesUsed, DocumentsWriterBlockRecycler blockRecycler) {
       super(IntBlockPool.INT_BLOCK_SIZE);
       this.bytesUsed = bytesUsed;
+      this.blockRecycler = blockRecycler;
     }
     
     /* Allocate another int[] from the shared pool */
     @Override
     public int[] getIntBlock() {
-      int[] b = new int[IntBlockPool.INT_BLOCK_SIZE];
+      int[] b = blockRecycler == null ? null : blockRecycler.takeIntBlock();
+      if (b == null) {
+        b = new int[IntBlockPool.INT_BLOCK_SIZE];
+      } else {
+        // slices rely on blocks being zero-filled
+        Arrays.fill(b, 0);
+      }
       bytesUsed.addAndGet(IntBlockPool.INT_BLOCK_SIZE * Integer.BYTES);
       return b;
     }
     
     @Override
-    public void recycleIntBlocks(int[][] blocks, int offset, int length) {
-      bytesUsed.addAndGet(-(length * (IntBlockPool.INT_BLOCK_SIZE * Integer.BYTES)));
+    public void recycleIntBlocks(int[][] blocks, int start, int end) {
+      bytesUsed.addAndGet(-((end - start) * (IntBlockPool.INT_BLOCK_SIZE * Integer.BYTES)));
+      if (blockRecycler != null) {
+        blockRecycler.recycleIntBlocks(blocks, start, end);
+      }
     }
     
   }
+
+  private static class ByteBlockAllocator extends Allocator {
+    private final Counter bytesUsed;
+    private final DocumentsWriterBlockRecycler blockRecycler;
+
+    public ByteBlockAllocator(Counter bytesUsed, DocumentsWriterBlockRecycler blockRecycler) {
+      super(BYTE_BLOCK_SIZE);
+      this.bytesUsed = bytesUsed;
+      this.blockRecycler = blockRecycler;
+    }
+
+    @Override
+    public byte[] getByteBlock() {
+      byte[] b = blockRecycler == null ? null : blockRecycler.takeByteBlock();
+      if (b == null) {
+        b = new byte[blockSize];
+      } else {
+        // slices rely on blocks being zero-filled
+        Arrays.fill(b, (byte) 0);
+      }
+      bytesUsed.addAndGet(blockSize);
+      return b;
+    }
+
+    @Override
+    public void recycleByteBlocks(byte[][] blocks, int start, int end) {
+      bytesUsed.addAndGet(-((end - start) * blockSize));
+      if (blockRecycler != null) {
+        blockRecycler.recycleByteBlocks(blocks, start, end);
+      } else {
+        Arrays.fill(blocks, start, end, null);
+      }
+    }
+  }
   
   @Override
   public String toString() {
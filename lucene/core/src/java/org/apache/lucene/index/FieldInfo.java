@@ -54,17 +54,23 @@ public final class FieldInfo {
   private int pointIndexDimensionCount;
   private int pointNumBytes;
 
+  /** If positive, it means this field indexed vectors
+   *  (see {@link org.apache.lucene.codecs.VectorFormat}). */
+  private int vectorDimension;
+  private VectorSimilarityFunction vectorSimilarityFunction;
+
   // whether this field is used as the soft-deletes field
   private final boolean softDeletesField;
 
   /**
-   * Sole constructor.
+   * Main constructor.
    *
    * @lucene.experimental
    */
   public FieldInfo(String name, int number, boolean storeTermVector, boolean omitNorms, boolean storePayloads,
                    IndexOptions indexOptions, DocValuesType docValues, long dvGen, Map<String,String> attributes,
-                   int pointDataDimensionCount, int pointIndexDimensionCount, int pointNumBytes, boolean softDeletesField) {
+                   int pointDataDimensionCount, int pointIndexDimensionCount, int pointNumBytes,
+                   int vectorDimension, VectorSimilarityFunction vectorSimilarityFunction, boolean softDeletesField) {
     this.name = Objects.requireNonNull(name);
     this.number = number;
     this.docValuesType = Objects.requireNonNull(docValues, "DocValuesType must not be null (field: \"" + name + "\")");
@@ -83,6 +89,9 @@ public final class FieldInfo {
     this.pointDataDimensionCount = pointDataDimensionCount;
     this.pointIndexDimensionCount = pointIndexDimensionCount;
     this.pointNumBytes = pointNumBytes;
+    this.vectorDimension = vectorDimension;
+    this.vectorSimilarityFunction = Objects.requireNonNull(vectorSimilarityFunction,
+        "VectorSimilarityFunction must not be null (field: \"" + name + "\")");
     this.softDeletesField = softDeletesField;
     assert checkConsistency();
   }
@@ -132,6 +141,10 @@ public final class FieldInfo {
     if (pointNumBytes != 0 && pointDataDimensionCount == 0) {
       throw new IllegalStateException("pointDataDimensionCount must be > 0 when pointNumBytes=" + pointNumBytes);
     }
+
+    if (vectorDimension < 0) {
+      throw new IllegalStateException("vectorDimension must be >= 0; got " + vectorDimension);
+    }
     
     if (dvGen != -1 && docValuesType == DocValuesType.NONE) {
       throw new IllegalStateException("field '" + name + "' cannot have a docvalues update generation without having docvalues");
@@ -232,6 +245,46 @@ public final class FieldInfo {
     return pointNumBytes;
   }
 
+  /** Record that this field is indexed with vectors, with the specified dimension and
+   *  similarity function. */
+  public void setVectorDimensionAndSimilarityFunction(int dimension, VectorSimilarityFunction similarityFunction) {
+    if (dimension <= 0) {
+      throw new IllegalArgumentException("vector dimension must be > 0; got " + dimension + " for field=\"" + name + "\"");
+    }
+    if (dimension > VectorValues.MAX_DIMENSIONS) {
+      throw new IllegalArgumentException("vector dimension must be <= VectorValues.MAX_DIMENSIONS (= " + VectorValues.MAX_DIMENSIONS + "); got " + dimension + " for field=\"" + name + "\"");
+    }
+    if (similarityFunction == null) {
+      throw new NullPointerException("VectorSimilarityFunction must not be null (field: \"" + name + "\")");
+    }
+    if (vectorDimension != 0 && vectorDimension != dimension) {
+      throw new IllegalArgumentException("cannot change vector dimension from " + vectorDimension + " to " + dimension + " for field=\"" + name + "\"");
+    }
+    if (vectorDimension != 0 && vectorSimilarityFunction != similarityFunction) {
+      throw new IllegalArgumentException("cannot change vector similarity function from " + vectorSimilarityFunction + " to " + similarityFunction + " for field=\"" + name + "\"");
+    }
+
+    vectorDimension = dimension;
+    vectorSimilarityFunction = similarityFunction;
+
+    assert checkConsistency();
+  }
+
+  /** Returns the number of dimensions of the vector value, or 0 if this field doesn't index vectors */
+  public int getVectorDimension() {
+    return vectorDimension;
+  }
+
+  /** Returns {@link VectorSimilarityFunction} for the field */
+  public VectorSimilarityFunction getVectorSimilarityFunction() {
+    return vectorSimilarityFunction;
+  }
+
+  /** Returns true if any document indexed vector values for this field */
+  public boolean hasVectorValues() {
+    return vectorDimension > 0;
+  }
+
   /** Record that this field is indexed with docvalues, with the specified type */
   public void setDocValuesType(DocValuesType type) {
     if (type == null) {
@@ -338,7 +391,7 @@ public final class FieldInfo {
   /**
    * Get a codec attribute value, or null if it does not exist
    */
-  public String getAttribute(String key) {
+  public synchronized String getAttribute(String key) {
     return attributes.get(key);
   }
   
@@ -353,7 +406,7 @@ public final class FieldInfo {
    * the new value. If the value of the attributes for a same field is changed between
    * the documents, the behaviour after merge is undefined.
    */
-  public String putAttribute(String key, String value) {
+  public synchronized String putAttribute(String key, String value) {
     return attributes.put(key, value);
   }
   
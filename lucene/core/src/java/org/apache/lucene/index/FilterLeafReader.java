@@ -315,6 +315,11 @@ public abstract class FilterLeafReader extends LeafReader {
     return in.getPointValues(field);
   }
 
+  @Override
+  public VectorValues getVectorValues(String field) throws IOException {
+    return in.getVectorValues(field);
+  }
+
   @Override
   public Fields getTermVectors(int docID)
           throws IOException {
@@ -340,6 +345,12 @@ public abstract class FilterLeafReader extends LeafReader {
     in.document(docID, visitor);
   }
 
+  @Override
+  public void prefetchDocument(int docID) throws IOException {
+    ensureOpen();
+    in.prefetchDocument(docID);
+  }
+
   @Override
   protected void doClose() throws IOException {
     in.close();
@@ -389,6 +400,12 @@ public abstract class FilterLeafReader extends LeafReader {
     return in.getSortedSetDocValues(field);
   }
 
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    ensureOpen();
+    return in.getDocValuesSkipper(field);
+  }
+
   @Override
   public NumericDocValues getNormValues(String field) throws IOException {
     ensureOpen();
@@ -321,6 +321,18 @@ public abstract class IndexReader implements Closeable {
    *  #document(int)}.  If you want to load a subset, use
    *  {@link DocumentStoredFieldVisitor}.  */
   public abstract void document(int docID, StoredFieldVisitor visitor) throws IOException;
+
+  /**
+   * Optional method: Give a hint to this reader that the stored fields of
+   * document <code>docID</code> will soon be loaded. Calling this method for
+   * all documents to load before loading any of them allows their stored fields
+   * to be read concurrently on a cold cache, see
+   * {@link org.apache.lucene.store.IndexInput#prefetch(long, long)}.
+   * <p>
+   * The default implementation is a no-op.
+   * @lucene.experimental
+   */
+  public void prefetchDocument(int docID) throws IOException {}
   
   /**
    * Returns the stored fields of the <code>n</code><sup>th</sup>
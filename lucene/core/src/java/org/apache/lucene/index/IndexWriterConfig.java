@@ -20,6 +20,7 @@ package org.apache.lucene.index;
 import java.io.PrintStream;
 import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -110,6 +111,9 @@ public final class IndexWriterConfig extends LiveIndexWriterConfig {
   
   /** Default value for whether calls to {@link IndexWriter#close()} include a commit. */
   public final static boolean DEFAULT_COMMIT_ON_CLOSE = true;
+
+  /** Default value for whether the blocks that buffer postings in RAM are recycled. */
+  public final static boolean DEFAULT_RECYCLE_INDEXING_BLOCKS = false;
   
   // indicates whether this config instance is already attached to a writer.
   // not final so that it can be cloned properly.
@@ -482,6 +486,43 @@ public final class IndexWriterConfig extends LiveIndexWriterConfig {
     return this;
   }
 
+  /**
+   * Expert: sets if the byte and int blocks that buffer postings and term
+   * vectors in RAM should be recycled once flushed, instead of being left to
+   * the garbage collector. This saves a lot of allocations and GC work with
+   * large RAM buffers, at the cost of retaining up to an eighth of
+   * {@link #setRAMBufferSizeMB(double) the RAM buffer size} of recycled
+   * blocks on top of the RAM buffer, which is reported by
+   * {@link IndexWriter#ramBytesUsed()}.
+   * Blocks are only recycled when flushing by RAM usage.
+   * Default is <code>false</code>.
+   *
+   * @lucene.experimental
+   */
+  public IndexWriterConfig setRecycleIndexingBlocks(boolean recycleIndexingBlocks) {
+    this.recycleIndexingBlocks = recycleIndexingBlocks;
+    return this;
+  }
+
+  /**
+   * Expert: sets an {@link ExecutorService} that indexing threads use to
+   * analyze the tokenized fields of documents that have many of them, and to
+   * write norms and postings, doc values, points, vectors and stored fields
+   * concurrently when flushing a segment. Terms are still added to the
+   * in-memory postings of a segment by the thread that indexes the document,
+   * in the document's field order, so the resulting index is the same as
+   * without an executor. This helps single-threaded bulk loads of wide
+   * documents to use more than one core. The executor is not shut down by
+   * {@link IndexWriter}. Default is <code>null</code>: all this work is done
+   * by the indexing threads.
+   *
+   * @lucene.experimental
+   */
+  public IndexWriterConfig setIndexingExecutor(ExecutorService indexingExecutor) {
+    this.indexingExecutor = indexingExecutor;
+    return this;
+  }
+
   /** We only allow sorting on these types */
   private static final EnumSet<SortField.Type> ALLOWED_INDEX_SORT_TYPES = EnumSet.of(SortField.Type.STRING,
                                                                                      SortField.Type.LONG,
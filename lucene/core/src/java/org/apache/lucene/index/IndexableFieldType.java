@@ -114,6 +114,18 @@ public interface IndexableFieldType {
    */
   public int pointNumBytes();
 
+  /**
+   * The number of dimensions of the field's vector value, or 0 if the field doesn't index
+   * vectors
+   */
+  public int vectorDimension();
+
+  /**
+   * The {@link VectorSimilarityFunction} of the field's vector value. This is only meaningful
+   * if {@link #vectorDimension()} is positive.
+   */
+  public VectorSimilarityFunction vectorSimilarityFunction();
+
   /**
    * Attributes for the field type.
    *
@@ -197,6 +197,15 @@ public abstract class LeafReader extends IndexReader {
    *  used by a single thread. */
   public abstract SortedSetDocValues getSortedSetDocValues(String field) throws IOException;
 
+  /** Returns a {@link DocValuesSkipper} over the values of this field, or
+   *  null if no skip index was written for this field. The returned instance
+   *  should only be used by a single thread.
+   *  <p>The default implementation returns null.
+   *  @lucene.experimental */
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    return null;
+  }
+
   /** Returns {@link NumericDocValues} representing norms
    *  for this field, or null if no {@link NumericDocValues}
    *  were indexed. The returned instance should only be
@@ -231,6 +240,11 @@ public abstract class LeafReader extends IndexReader {
    *  are no point fields. */
   public abstract PointValues getPointValues(String field) throws IOException;
 
+  /** Returns the {@link VectorValues} for the given {@code field}, or null if the field
+   *  doesn't index vectors.
+   *  @lucene.experimental */
+  public abstract VectorValues getVectorValues(String field) throws IOException;
+
   /**
    * Checks consistency of this reader.
    * <p>
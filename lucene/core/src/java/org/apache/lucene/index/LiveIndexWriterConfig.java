@@ -19,6 +19,7 @@ package org.apache.lucene.index;
 
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.codecs.Codec;
@@ -101,6 +102,12 @@ public class LiveIndexWriterConfig {
   /** True if calls to {@link IndexWriter#close()} should first do a commit. */
   protected boolean commitOnClose = IndexWriterConfig.DEFAULT_COMMIT_ON_CLOSE;
 
+  /** True if the blocks buffering postings in RAM are recycled once flushed. */
+  protected boolean recycleIndexingBlocks = IndexWriterConfig.DEFAULT_RECYCLE_INDEXING_BLOCKS;
+
+  /** Executor used to analyze wide documents and to flush segments concurrently, or null. */
+  protected ExecutorService indexingExecutor = null;
+
   /** The sort order to use to write merged segments. */
   protected Sort indexSort = null;
 
@@ -430,6 +437,23 @@ public class LiveIndexWriterConfig {
     return commitOnClose;
   }
 
+  /**
+   * Returns <code>true</code> if the blocks that buffer postings and term vectors
+   * in RAM are recycled once flushed, rather than left to the garbage collector.
+   */
+  public boolean getRecycleIndexingBlocks() {
+    return recycleIndexingBlocks;
+  }
+
+  /**
+   * Returns the {@link ExecutorService} that indexing threads use to analyze
+   * the fields of wide documents and to write the parts of flushed segments
+   * concurrently, or <code>null</code> if they do all this work themselves.
+   */
+  public ExecutorService getIndexingExecutor() {
+    return indexingExecutor;
+  }
+
   /**
    * Get the index-time {@link Sort} order, applied to all (flushed and merged) segments.
    */
@@ -496,6 +520,8 @@ public class LiveIndexWriterConfig {
     sb.append("perThreadHardLimitMB=").append(getRAMPerThreadHardLimitMB()).append("\n");
     sb.append("useCompoundFile=").append(getUseCompoundFile()).append("\n");
     sb.append("commitOnClose=").append(getCommitOnClose()).append("\n");
+    sb.append("recycleIndexingBlocks=").append(getRecycleIndexingBlocks()).append("\n");
+    sb.append("indexingExecutor=").append(getIndexingExecutor()).append("\n");
     sb.append("indexSort=").append(getIndexSort()).append("\n");
     sb.append("checkPendingFlushOnUpdate=").append(isCheckPendingFlushOnUpdate()).append("\n");
     sb.append("softDeletesField=").append(getSoftDeletesField()).append("\n");
@@ -19,6 +19,7 @@ package org.apache.lucene.index;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.packed.PackedInts;
@@ -557,6 +558,16 @@ public class MultiDocValues {
    * </p>  
    */
   public static SortedDocValues getSortedValues(final IndexReader r, final String field) throws IOException {
+    return getSortedValues(r, field, null, null);
+  }
+
+  /** Returns a SortedDocValues for a reader's docvalues, whose {@link OrdinalMap} may reuse
+   * {@code previous}, typically the {@link MultiSortedDocValues#mapping} of the same field on a reader
+   * that {@code r} was reopened from.
+   * @see OrdinalMap#build(IndexReader.CacheKey, List, String, SortedDocValues[], OrdinalMap, ExecutorService, float)
+   */
+  public static SortedDocValues getSortedValues(final IndexReader r, final String field,
+      OrdinalMap previous, ExecutorService executor) throws IOException {
     final List<LeafReaderContext> leaves = r.leaves();
     final int size = leaves.size();
     
@@ -589,7 +600,7 @@ public class MultiDocValues {
     } else {
       IndexReader.CacheHelper cacheHelper = r.getReaderCacheHelper();
       IndexReader.CacheKey owner = cacheHelper == null ? null : cacheHelper.getKey();
-      OrdinalMap mapping = OrdinalMap.build(owner, values, PackedInts.DEFAULT);
+      OrdinalMap mapping = OrdinalMap.build(owner, leaves, field, values, previous, executor, PackedInts.DEFAULT);
       return new MultiSortedDocValues(values, starts, mapping, totalCost);
     }
   }
@@ -601,6 +612,16 @@ public class MultiDocValues {
    * </p>  
    */
   public static SortedSetDocValues getSortedSetValues(final IndexReader r, final String field) throws IOException {
+    return getSortedSetValues(r, field, null, null);
+  }
+
+  /** Returns a SortedSetDocValues for a reader's docvalues, whose {@link OrdinalMap} may reuse
+   * {@code previous}, typically the {@link MultiSortedSetDocValues#mapping} of the same field on a reader
+   * that {@code r} was reopened from.
+   * @see OrdinalMap#build(IndexReader.CacheKey, List, String, SortedSetDocValues[], OrdinalMap, ExecutorService, float)
+   */
+  public static SortedSetDocValues getSortedSetValues(final IndexReader r, final String field,
+      OrdinalMap previous, ExecutorService executor) throws IOException {
     final List<LeafReaderContext> leaves = r.leaves();
     final int size = leaves.size();
     
@@ -633,7 +654,7 @@ public class MultiDocValues {
     } else {
       IndexReader.CacheHelper cacheHelper = r.getReaderCacheHelper();
       IndexReader.CacheKey owner = cacheHelper == null ? null : cacheHelper.getKey();
-      OrdinalMap mapping = OrdinalMap.build(owner, values, PackedInts.DEFAULT);
+      OrdinalMap mapping = OrdinalMap.build(owner, leaves, field, values, previous, executor, PackedInts.DEFAULT);
       return new MultiSortedSetDocValues(values, starts, mapping, totalCost);
     }
   }
@@ -36,4 +36,25 @@ public abstract class NumericDocValues extends DocValuesIterator {
    */
   public abstract long longValue() throws IOException;
 
+  /**
+   * Bulk version of {@link #advanceExact(int)} and {@link #longValue()}: for
+   * every {@code i} between {@code 0} inclusive and {@code count} exclusive,
+   * sets {@code values[i]} to the value of document {@code docs[i]}, or to
+   * {@code missingValue} if this document has no value. Doc IDs must be
+   * strictly increasing and greater than or equal to the current
+   * {@link #docID() doc ID}. This iterator is positioned on the last doc ID
+   * afterwards, but {@link #longValue()} may only be called again after the next
+   * call to {@link #advanceExact(int)}.
+   * <p>
+   * The default implementation calls {@link #advanceExact(int)} and
+   * {@link #longValue()} for every document, sub-classes should override it
+   * if they can decode values for multiple documents at once more efficiently.
+   * @lucene.experimental
+   */
+  public void longValues(int count, int[] docs, long[] values, long missingValue) throws IOException {
+    for (int i = 0; i < count; ++i) {
+      values[i] = advanceExact(docs[i]) ? longValue() : missingValue;
+    }
+  }
+
 }
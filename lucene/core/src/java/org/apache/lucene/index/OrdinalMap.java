@@ -21,16 +21,25 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Accountables;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.InPlaceMergeSorter;
 import org.apache.lucene.util.LongValues;
 import org.apache.lucene.util.PriorityQueue;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.ThreadInterruptedException;
 import org.apache.lucene.util.packed.PackedInts;
 import org.apache.lucene.util.packed.PackedLongValues;
 
@@ -39,6 +48,10 @@ import org.apache.lucene.util.packed.PackedLongValues;
  *  <p><b>NOTE</b>: this is a costly operation, as it must merge sort all terms, and may require non-trivial RAM once done.  It's better to operate in
  *  segment-private ordinal space instead when possible.
  *
+ *  <p>Ordinal maps that are built from the leaves of a reader, see
+ *  {@link #build(IndexReader.CacheKey, List, String, SortedSetDocValues[], OrdinalMap, ExecutorService, float)},
+ *  can be reused to build the ordinal map of a reopened reader incrementally.
+ *
  * @lucene.internal */
 public class OrdinalMap implements Accountable {
   // TODO: we could also have a utility method to merge Terms[] and use size() as a weight when we need it
@@ -61,6 +74,90 @@ public class OrdinalMap implements Accountable {
     }
   }
 
+  /**
+   * Iterates over the global terms of a previous ordinal map, reading each term
+   * from the first segment that contains it.
+   */
+  private static class PreviousTermsEnumIndex extends TermsEnumIndex {
+    private final OrdinalMap previous;
+    // the terms of each segment of the previous map, in its own segment order
+    private final TermsEnum[] subs;
+    private final long[] subOrds;
+    long globalOrd = -1;
+    int firstSegment;
+    long firstSegmentOrd;
+
+    PreviousTermsEnumIndex(OrdinalMap previous, TermsEnum[] subs) {
+      super(null, -1);
+      this.previous = previous;
+      this.subs = subs;
+      this.subOrds = new long[subs.length];
+      Arrays.fill(subOrds, -1);
+    }
+
+    @Override
+    public BytesRef next() throws IOException {
+      if (++globalOrd >= previous.getValueCount()) {
+        currentTerm = null;
+        return null;
+      }
+      firstSegment = (int) previous.firstSegments.get(globalOrd);
+      firstSegmentOrd = globalOrd - previous.globalOrdDeltas.get(globalOrd);
+      final TermsEnum sub = subs[firstSegment];
+      if (subOrds[firstSegment] + 1 == firstSegmentOrd) {
+        currentTerm = sub.next();
+      } else {
+        sub.seekExact(firstSegmentOrd);
+        currentTerm = sub.term();
+      }
+      subOrds[firstSegment] = firstSegmentOrd;
+      return currentTerm;
+    }
+  }
+
+  /**
+   * Identifies the doc values of a field in a segment: two segments that share
+   * the same core and doc values generation have the same terms and ordinals.
+   */
+  static final class SegmentKey {
+    static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(SegmentKey.class);
+
+    final IndexReader.CacheKey coreKey;
+    final String field;
+    final long docValuesGen;
+
+    SegmentKey(IndexReader.CacheKey coreKey, String field, long docValuesGen) {
+      this.coreKey = coreKey;
+      this.field = field;
+      this.docValuesGen = docValuesGen;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == null || obj.getClass() != getClass()) {
+        return false;
+      }
+      final SegmentKey that = (SegmentKey) obj;
+      return coreKey == that.coreKey && field.equals(that.field) && docValuesGen == that.docValuesGen;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(coreKey, field, docValuesGen);
+    }
+  }
+
+  /** Per-segment mapping from segment ordinals to global ordinals. */
+  private static class SegmentGlobalOrds {
+    final LongValues globalOrds;
+    final long ramBytesUsed;
+
+    SegmentGlobalOrds(LongValues globalOrds, long ramBytesUsed) {
+      this.globalOrds = globalOrds;
+      this.ramBytesUsed = ramBytesUsed;
+    }
+  }
+
   private static class SegmentMap implements Accountable {
     private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(SegmentMap.class);
 
@@ -147,6 +244,109 @@ public class OrdinalMap implements Accountable {
     return build(owner, subs, weights, acceptableOverheadRatio);
   }
 
+  /**
+   * Create an ordinal map for the {@link SortedDocValues} of {@code field} in
+   * {@code leaves}, that uses the number of unique values of each segment as a
+   * weight.
+   * @see #build(IndexReader.CacheKey, List, String, SortedSetDocValues[], OrdinalMap, ExecutorService, float)
+   */
+  public static OrdinalMap build(IndexReader.CacheKey owner, List<LeafReaderContext> leaves, String field, SortedDocValues[] values,
+      OrdinalMap previous, ExecutorService executor, float acceptableOverheadRatio) throws IOException {
+    final TermsEnum[] subs = new TermsEnum[values.length];
+    final long[] weights = new long[values.length];
+    for (int i = 0; i < values.length; ++i) {
+      subs[i] = values[i].termsEnum();
+      weights[i] = values[i].getValueCount();
+    }
+    return build(owner, leaves, field, subs, weights, previous, executor, acceptableOverheadRatio);
+  }
+
+  /**
+   * Create an ordinal map for the {@link SortedSetDocValues} of {@code field} in
+   * {@code leaves}, that uses the number of unique values of each segment as a
+   * weight.
+   * <p>
+   * If {@code previous} was built with this method for the same field, typically
+   * on a reader that this reader was reopened from, and all of its segments are
+   * still part of {@code leaves} with the same doc values, then only the terms of
+   * the new segments are merged with the global terms of {@code previous}. The
+   * global ordinals of the segments that both maps share are then derived from
+   * their previous global ordinals, concurrently on {@code executor} if it is not
+   * null, and are reused as-is when the new segments didn't introduce terms that
+   * sort before their last term. Otherwise, for instance after segments were
+   * merged away, the map is built from scratch.
+   *
+   * @param owner a cache key
+   * @param leaves the leaves that {@code values} were pulled from
+   * @param field the field that {@code values} were pulled from
+   * @param values the doc values of every leaf, empty doc values for leaves that
+   *               don't have this field
+   * @param previous an ordinal map that may be reused, or null
+   * @param executor executor to remap segment ordinals concurrently, or null to
+   *                 do it in the current thread
+   * @throws IOException if an I/O error occurred.
+   */
+  public static OrdinalMap build(IndexReader.CacheKey owner, List<LeafReaderContext> leaves, String field, SortedSetDocValues[] values,
+      OrdinalMap previous, ExecutorService executor, float acceptableOverheadRatio) throws IOException {
+    final TermsEnum[] subs = new TermsEnum[values.length];
+    final long[] weights = new long[values.length];
+    for (int i = 0; i < values.length; ++i) {
+      subs[i] = values[i].termsEnum();
+      weights[i] = values[i].getValueCount();
+    }
+    return build(owner, leaves, field, subs, weights, previous, executor, acceptableOverheadRatio);
+  }
+
+  private static OrdinalMap build(IndexReader.CacheKey owner, List<LeafReaderContext> leaves, String field, TermsEnum[] subs, long[] valueCounts,
+      OrdinalMap previous, ExecutorService executor, float acceptableOverheadRatio) throws IOException {
+    if (leaves.size() != subs.length) {
+      throw new IllegalArgumentException("leaves and values must have the same length");
+    }
+    final SegmentKey[] segmentKeys = new SegmentKey[leaves.size()];
+    for (int i = 0; i < segmentKeys.length; ++i) {
+      final LeafReader reader = leaves.get(i).reader();
+      final IndexReader.CacheHelper cacheHelper = reader.getCoreCacheHelper();
+      if (cacheHelper == null) {
+        // segments can't be identified, this map won't be reusable
+        return new OrdinalMap(owner, subs, new SegmentMap(valueCounts), null, null, null, null, null, acceptableOverheadRatio);
+      }
+      final FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo(field);
+      // the doc values generation is -1 both when the field has no updates and when the segment doesn't have it
+      segmentKeys[i] = new SegmentKey(cacheHelper.getKey(), field, fieldInfo == null ? -1 : fieldInfo.getDocValuesGen());
+    }
+    final SegmentMap segmentMap = new SegmentMap(valueCounts);
+    final int[] previousSegments = previous == null ? null : previous.previousSegments(segmentKeys, segmentMap);
+    return new OrdinalMap(owner, subs, segmentMap, segmentKeys, valueCounts, previous, previousSegments, executor, acceptableOverheadRatio);
+  }
+
+  /**
+   * Return, for every segment of a new ordinal map in its segment order, the
+   * index of the same segment in the segment order of this map or -1 if it is a
+   * new segment, or null if this map can't be reused because some of its segments
+   * are not part of the new map.
+   */
+  private int[] previousSegments(SegmentKey[] newSegmentKeys, SegmentMap newSegmentMap) {
+    if (segmentKeys == null) {
+      return null;
+    }
+    final Map<SegmentKey,Integer> newSegments = new HashMap<>();
+    for (int i = 0; i < newSegmentKeys.length; ++i) {
+      if (newSegments.put(newSegmentKeys[i], newSegmentMap.oldToNew(i)) != null) {
+        return null;
+      }
+    }
+    final int[] previousSegments = new int[newSegmentKeys.length];
+    Arrays.fill(previousSegments, -1);
+    for (int i = 0; i < segmentKeys.length; ++i) {
+      final Integer newSegment = newSegments.get(segmentKeys[i]);
+      if (newSegment == null) {
+        return null;
+      }
+      previousSegments[newSegment] = segmentMap.oldToNew(i);
+    }
+    return previousSegments;
+  }
+
   /** 
    * Creates an ordinal map that allows mapping ords to/from a merged
    * space from <code>subs</code>.
@@ -165,7 +365,7 @@ public class OrdinalMap implements Accountable {
 
     // enums are not sorted, so let's sort to save memory
     final SegmentMap segmentMap = new SegmentMap(weights);
-    return new OrdinalMap(owner, subs, segmentMap, acceptableOverheadRatio);
+    return new OrdinalMap(owner, subs, segmentMap, null, null, null, null, null, acceptableOverheadRatio);
   }
 
   private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(OrdinalMap.class);
@@ -178,16 +378,27 @@ public class OrdinalMap implements Accountable {
   final PackedLongValues firstSegments;
   // for every segment, segmentOrd -> globalOrd
   final LongValues segmentToGlobalOrds[];
+  // for every segment, ram usage of its segmentOrd -> globalOrd mapping
+  final long segmentRamBytesUsed[];
   // the map from/to segment ids
   final SegmentMap segmentMap;
+  // identity of every segment, in the order of the subs that were passed to build, or null if unknown
+  final SegmentKey segmentKeys[];
   // ram usage
   final long ramBytesUsed;
-    
-  OrdinalMap(IndexReader.CacheKey owner, TermsEnum subs[], SegmentMap segmentMap, float acceptableOverheadRatio) throws IOException {
+
+  /**
+   * @param valueCounts the number of unique terms of every sub, only used when reusing previous
+   * @param previousSegments for every sub, in the order of segmentMap, the index of the same
+   *                         segment in previous or -1 for new segments, null to ignore previous
+   */
+  OrdinalMap(IndexReader.CacheKey owner, TermsEnum subs[], SegmentMap segmentMap, SegmentKey segmentKeys[], long valueCounts[],
+      OrdinalMap previous, int previousSegments[], ExecutorService executor, float acceptableOverheadRatio) throws IOException {
     // create the ordinal mappings by pulling a termsenum over each sub's 
     // unique terms, and walking a multitermsenum over those
     this.owner = owner;
     this.segmentMap = segmentMap;
+    this.segmentKeys = segmentKeys;
     // even though we accept an overhead ratio, we keep these ones with COMPACT
     // since they are only used to resolve values given a global ord, which is
     // slow anyway
@@ -195,10 +406,14 @@ public class OrdinalMap implements Accountable {
     PackedLongValues.Builder firstSegments = PackedLongValues.packedBuilder(PackedInts.COMPACT);
     final PackedLongValues.Builder[] ordDeltas = new PackedLongValues.Builder[subs.length];
     for (int i = 0; i < ordDeltas.length; i++) {
-      ordDeltas[i] = PackedLongValues.monotonicBuilder(acceptableOverheadRatio);
+      if (previousSegments == null || previousSegments[i] == -1) {
+        ordDeltas[i] = PackedLongValues.monotonicBuilder(acceptableOverheadRatio);
+      }
     }
     long[] ordDeltaBits = new long[subs.length];
     long[] segmentOrds = new long[subs.length];
+    // previous globalOrd -> number of new terms that sort before it
+    final PackedLongValues.Builder insertions = previousSegments == null ? null : PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
 
     // Just merge-sorts by term:
     PriorityQueue<TermsEnumIndex> queue = new PriorityQueue<TermsEnumIndex>(subs.length) {
@@ -209,12 +424,33 @@ public class OrdinalMap implements Accountable {
       };
     
     for (int i = 0; i < subs.length; i++) {
+      if (ordDeltas[i] == null) {
+        // terms of segments that the previous map knows about are read through its global terms
+        continue;
+      }
       TermsEnumIndex sub = new TermsEnumIndex(subs[segmentMap.newToOld(i)], i);
       if (sub.next() != null) {
         queue.add(sub);
       }
     }
 
+    PreviousTermsEnumIndex previousTerms = null;
+    int[] previousToNew = null;
+    if (previousSegments != null) {
+      previousToNew = new int[previous.segmentToGlobalOrds.length];
+      final TermsEnum[] previousSubs = new TermsEnum[previous.segmentToGlobalOrds.length];
+      for (int i = 0; i < previousSegments.length; i++) {
+        if (previousSegments[i] != -1) {
+          previousToNew[previousSegments[i]] = i;
+          previousSubs[previousSegments[i]] = subs[segmentMap.newToOld(i)];
+        }
+      }
+      previousTerms = new PreviousTermsEnumIndex(previous, previousSubs);
+      if (previousTerms.next() != null) {
+        queue.add(previousTerms);
+      }
+    }
+
     BytesRefBuilder scratch = new BytesRefBuilder();
       
     long globalOrd = 0;
@@ -228,30 +464,40 @@ public class OrdinalMap implements Accountable {
       // Advance past this term, recording the per-segment ord deltas:
       while (true) {
         top = queue.top();
-        long segmentOrd = top.termsEnum.ord();
-        long delta = globalOrd - segmentOrd;
-        int segmentIndex = top.subIndex;
-        // We compute the least segment where the term occurs. In case the
-        // first segment contains most (or better all) values, this will
-        // help save significant memory
-        if (segmentIndex < firstSegmentIndex) {
-          firstSegmentIndex = segmentIndex;
-          globalOrdDelta = delta;
+        if (top == previousTerms) {
+          // a term that segments of the previous map already have, their ords are remapped below
+          insertions.add(globalOrd - previousTerms.globalOrd);
+          int segmentIndex = previousToNew[previousTerms.firstSegment];
+          if (segmentIndex < firstSegmentIndex) {
+            firstSegmentIndex = segmentIndex;
+            globalOrdDelta = globalOrd - previousTerms.firstSegmentOrd;
+          }
+        } else {
+          long segmentOrd = top.termsEnum.ord();
+          long delta = globalOrd - segmentOrd;
+          int segmentIndex = top.subIndex;
+          // We compute the least segment where the term occurs. In case the
+          // first segment contains most (or better all) values, this will
+          // help save significant memory
+          if (segmentIndex < firstSegmentIndex) {
+            firstSegmentIndex = segmentIndex;
+            globalOrdDelta = delta;
+          }
+          ordDeltaBits[segmentIndex] |= delta;
+
+          // for each per-segment ord, map it back to the global term; the while loop is needed
+          // in case the incoming TermsEnums don't have compact ordinals (some ordinal values
+          // are skipped), which can happen e.g. with a FilteredTermsEnum:
+          assert segmentOrds[segmentIndex] <= segmentOrd;
+
+          // TODO: we could specialize this case (the while loop is not needed when the ords
+          // are compact)
+          do {
+            ordDeltas[segmentIndex].add(delta);
+            segmentOrds[segmentIndex]++;
+          } while (segmentOrds[segmentIndex] <= segmentOrd);
         }
-        ordDeltaBits[segmentIndex] |= delta;
-
-        // for each per-segment ord, map it back to the global term; the while loop is needed
-        // in case the incoming TermsEnums don't have compact ordinals (some ordinal values
-        // are skipped), which can happen e.g. with a FilteredTermsEnum:
-        assert segmentOrds[segmentIndex] <= segmentOrd;
-
-        // TODO: we could specialize this case (the while loop is not needed when the ords
-        // are compact)
-        do {
-          ordDeltas[segmentIndex].add(delta);
-          segmentOrds[segmentIndex]++;
-        } while (segmentOrds[segmentIndex] <= segmentOrd);
-        
+
         if (top.next() == null) {
           queue.pop();
           if (queue.size() == 0) {
@@ -273,51 +519,144 @@ public class OrdinalMap implements Accountable {
 
     this.firstSegments = firstSegments.build();
     this.globalOrdDeltas = globalOrdDeltas.build();
-    // ordDeltas is typically the bottleneck, so let's see what we can do to make it faster
     segmentToGlobalOrds = new LongValues[subs.length];
+    segmentRamBytesUsed = new long[subs.length];
+    for (int i = 0; i < ordDeltas.length; ++i) {
+      if (ordDeltas[i] != null) {
+        setSegmentGlobalOrds(i, toGlobalOrds(ordDeltas[i].build(), ordDeltaBits[i], acceptableOverheadRatio));
+      }
+    }
+    if (previousSegments != null) {
+      remapPreviousSegments(valueCounts, previous, previousSegments, insertions.build(), executor, acceptableOverheadRatio);
+    }
     long ramBytesUsed = BASE_RAM_BYTES_USED + this.globalOrdDeltas.ramBytesUsed()
       + this.firstSegments.ramBytesUsed() + RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds)
-      + segmentMap.ramBytesUsed();
-    for (int i = 0; i < ordDeltas.length; ++i) {
-      final PackedLongValues deltas = ordDeltas[i].build();
-      if (ordDeltaBits[i] == 0L) {
-        // segment ords perfectly match global ordinals
-        // likely in case of low cardinalities and large segments
-        segmentToGlobalOrds[i] = LongValues.IDENTITY;
+      + RamUsageEstimator.sizeOf(segmentRamBytesUsed) + segmentMap.ramBytesUsed();
+    if (segmentKeys != null) {
+      // the core keys and field name are not owned by this map
+      ramBytesUsed += RamUsageEstimator.shallowSizeOf(segmentKeys) + segmentKeys.length * SegmentKey.BASE_RAM_BYTES_USED;
+    }
+    for (long segmentRam : segmentRamBytesUsed) {
+      ramBytesUsed += segmentRam;
+    }
+    this.ramBytesUsed = ramBytesUsed;
+  }
+
+  private void setSegmentGlobalOrds(int segmentIndex, SegmentGlobalOrds globalOrds) {
+    segmentToGlobalOrds[segmentIndex] = globalOrds.globalOrds;
+    segmentRamBytesUsed[segmentIndex] = globalOrds.ramBytesUsed;
+  }
+
+  /**
+   * Compute the global ordinals of the segments that are shared with the previous map, given
+   * the number of new terms that sort before each global ordinal of the previous map.
+   */
+  private void remapPreviousSegments(long valueCounts[], OrdinalMap previous, int previousSegments[], PackedLongValues insertions,
+      ExecutorService executor, float acceptableOverheadRatio) throws IOException {
+    // global ords of the previous map that are less than this one did not change
+    long firstInsertion = 0, lastNoInsertion = insertions.size();
+    while (firstInsertion < lastNoInsertion) {
+      final long mid = (firstInsertion + lastNoInsertion) >>> 1;
+      if (insertions.get(mid) == 0) {
+        firstInsertion = mid + 1;
       } else {
-        final int bitsRequired = ordDeltaBits[i] < 0 ? 64 : PackedInts.bitsRequired(ordDeltaBits[i]);
-        final long monotonicBits = deltas.ramBytesUsed() * 8;
-        final long packedBits = bitsRequired * deltas.size();
-        if (deltas.size() <= Integer.MAX_VALUE
-            && packedBits <= monotonicBits * (1 + acceptableOverheadRatio)) {
-          // monotonic compression mostly adds overhead, let's keep the mapping in plain packed ints
-          final int size = (int) deltas.size();
-          final PackedInts.Mutable newDeltas = PackedInts.getMutable(size, bitsRequired, acceptableOverheadRatio);
-          final PackedLongValues.Iterator it = deltas.iterator();
-          for (int ord = 0; ord < size; ++ord) {
-            newDeltas.set(ord, it.next());
-          }
-          assert it.hasNext() == false;
-          segmentToGlobalOrds[i] = new LongValues() {
-              @Override
-              public long get(long ord) {
-                return ord + newDeltas.get((int) ord);
-              }
-            };
-          ramBytesUsed += newDeltas.ramBytesUsed();
-        } else {
-          segmentToGlobalOrds[i] = new LongValues() {
-              @Override
-              public long get(long ord) {
-                return ord + deltas.get(ord);
-              }
-            };
-          ramBytesUsed += deltas.ramBytesUsed();
+        lastNoInsertion = mid;
+      }
+    }
+
+    final List<Integer> segments = new ArrayList<>();
+    final List<Callable<SegmentGlobalOrds>> tasks = new ArrayList<>();
+    for (int i = 0; i < previousSegments.length; ++i) {
+      if (previousSegments[i] == -1) {
+        continue;
+      }
+      final LongValues previousGlobalOrds = previous.segmentToGlobalOrds[previousSegments[i]];
+      final long segmentValueCount = valueCounts[segmentMap.newToOld(i)];
+      if (segmentValueCount == 0 || previousGlobalOrds.get(segmentValueCount - 1) < firstInsertion) {
+        // all terms of this segment sort before new terms
+        segmentToGlobalOrds[i] = previousGlobalOrds;
+        segmentRamBytesUsed[i] = previous.segmentRamBytesUsed[previousSegments[i]];
+        continue;
+      }
+      segments.add(i);
+      tasks.add(() -> {
+        final PackedLongValues.Builder deltas = PackedLongValues.monotonicBuilder(acceptableOverheadRatio);
+        long deltaBits = 0;
+        for (long ord = 0; ord < segmentValueCount; ++ord) {
+          final long previousGlobalOrd = previousGlobalOrds.get(ord);
+          final long delta = previousGlobalOrd + insertions.get(previousGlobalOrd) - ord;
+          deltas.add(delta);
+          deltaBits |= delta;
+        }
+        return toGlobalOrds(deltas.build(), deltaBits, acceptableOverheadRatio);
+      });
+    }
+
+    if (executor == null || tasks.size() <= 1) {
+      for (int i = 0; i < tasks.size(); ++i) {
+        try {
+          setSegmentGlobalOrds(segments.get(i), tasks.get(i).call());
+        } catch (Exception e) {
+          throw IOUtils.rethrowAlways(e);
+        }
+      }
+    } else {
+      final List<Future<SegmentGlobalOrds>> futures = new ArrayList<>();
+      for (Callable<SegmentGlobalOrds> task : tasks) {
+        futures.add(executor.submit(task));
+      }
+      for (int i = 0; i < futures.size(); ++i) {
+        try {
+          setSegmentGlobalOrds(segments.get(i), futures.get(i).get());
+        } catch (InterruptedException e) {
+          throw new ThreadInterruptedException(e);
+        } catch (ExecutionException e) {
+          throw IOUtils.rethrowAlways(e.getCause());
         }
-        ramBytesUsed += RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds[i]);
       }
     }
-    this.ramBytesUsed = ramBytesUsed;
+  }
+
+  private static SegmentGlobalOrds toGlobalOrds(PackedLongValues deltas, long ordDeltaBits, float acceptableOverheadRatio) {
+    // ordDeltas is typically the bottleneck, so let's see what we can do to make it faster
+    if (ordDeltaBits == 0L) {
+      // segment ords perfectly match global ordinals
+      // likely in case of low cardinalities and large segments
+      return new SegmentGlobalOrds(LongValues.IDENTITY, 0);
+    }
+    final int bitsRequired = ordDeltaBits < 0 ? 64 : PackedInts.bitsRequired(ordDeltaBits);
+    final long monotonicBits = deltas.ramBytesUsed() * 8;
+    final long packedBits = bitsRequired * deltas.size();
+    final LongValues globalOrds;
+    long ramBytesUsed;
+    if (deltas.size() <= Integer.MAX_VALUE
+        && packedBits <= monotonicBits * (1 + acceptableOverheadRatio)) {
+      // monotonic compression mostly adds overhead, let's keep the mapping in plain packed ints
+      final int size = (int) deltas.size();
+      final PackedInts.Mutable newDeltas = PackedInts.getMutable(size, bitsRequired, acceptableOverheadRatio);
+      final PackedLongValues.Iterator it = deltas.iterator();
+      for (int ord = 0; ord < size; ++ord) {
+        newDeltas.set(ord, it.next());
+      }
+      assert it.hasNext() == false;
+      globalOrds = new LongValues() {
+          @Override
+          public long get(long ord) {
+            return ord + newDeltas.get((int) ord);
+          }
+        };
+      ramBytesUsed = newDeltas.ramBytesUsed();
+    } else {
+      globalOrds = new LongValues() {
+          @Override
+          public long get(long ord) {
+            return ord + deltas.get(ord);
+          }
+        };
+      ramBytesUsed = deltas.ramBytesUsed();
+    }
+    ramBytesUsed += RamUsageEstimator.shallowSizeOf(globalOrds);
+    return new SegmentGlobalOrds(globalOrds, ramBytesUsed);
   }
 
   /** 
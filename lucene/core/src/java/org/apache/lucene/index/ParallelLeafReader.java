@@ -256,6 +256,14 @@ public class ParallelLeafReader extends LeafReader {
       reader.document(docID, visitor);
     }
   }
+
+  @Override
+  public void prefetchDocument(int docID) throws IOException {
+    ensureOpen();
+    for (final LeafReader reader: storedFieldsReaders) {
+      reader.prefetchDocument(docID);
+    }
+  }
   
   @Override
   public CacheHelper getCoreCacheHelper() {
@@ -354,6 +362,13 @@ public class ParallelLeafReader extends LeafReader {
     return reader == null ? null : reader.getSortedSetDocValues(field);
   }
 
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    ensureOpen();
+    LeafReader reader = fieldToReader.get(field);
+    return reader == null ? null : reader.getDocValuesSkipper(field);
+  }
+
   @Override
   public NumericDocValues getNormValues(String field) throws IOException {
     ensureOpen();
@@ -369,6 +384,13 @@ public class ParallelLeafReader extends LeafReader {
     return reader == null ? null : reader.getPointValues(fieldName);
   }
 
+  @Override
+  public VectorValues getVectorValues(String fieldName) throws IOException {
+    ensureOpen();
+    LeafReader reader = fieldToReader.get(fieldName);
+    return reader == null ? null : reader.getVectorValues(fieldName);
+  }
+
   @Override
   public void checkIntegrity() throws IOException {
     ensureOpen();
@@ -0,0 +1,509 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.index.MergePolicy.OneMerge;
+import org.apache.lucene.util.CollectionUtil;
+import org.apache.lucene.util.ThreadInterruptedException;
+
+/**
+ * A {@link ConcurrentMergeScheduler} that decides which merges to run based on
+ * how much they reduce the search cost of the index rather than on their size
+ * only.
+ *
+ * <p>The priority of a merge is the number of segments that it removes from
+ * the index per byte that it needs to write, see {@link #getMergePriority}.
+ * Merges that are smaller than {@link #getMinBigMergeMB()} always run, like with
+ * {@link ConcurrentMergeScheduler}, and at most {@link #getMaxThreadCount()}
+ * larger merges run at the same time, in decreasing order of priority. Other
+ * merges are paused.</p>
+ *
+ * <p>When the index has more than {@link #getMaxSegmentCount()} segments,
+ * large merges are additionally preempted, ie. paused, as long as small merges
+ * are running, so that the latter may use all available IO and CPU to bring
+ * the segment count down. In order to avoid starving large merges, a merge
+ * that has been paused for more than {@link #getMaxPauseSec()} seconds gets
+ * resumed regardless of its priority. A background thread, which only runs
+ * while merges are paused, makes sure that this happens even if no merges get
+ * scheduled or completed in the meantime.</p>
+ *
+ * <p>Per-merge progress and queueing metrics are available through
+ * {@link #getRunningMerges()}, {@link #getPreemptionCount()},
+ * {@link #getCompletedMergeCount()} and {@link #getTotalQueuedNS()}.</p>
+ *
+ * @lucene.experimental
+ */
+public class PriorityMergeScheduler extends ConcurrentMergeScheduler {
+
+  /** Default value for {@link #getMaxSegmentCount()}. */
+  public static final int DEFAULT_MAX_SEGMENT_COUNT = 50;
+
+  /** Default value for {@link #getMaxPauseSec()}. */
+  public static final double DEFAULT_MAX_PAUSE_SEC = 60.0;
+
+  /** Default value for {@link #getMinBigMergeMB()}. */
+  public static final double DEFAULT_MIN_BIG_MERGE_MB = MIN_BIG_MERGE_MB;
+
+  private int maxSegmentCount = DEFAULT_MAX_SEGMENT_COUNT;
+  private double maxPauseSec = DEFAULT_MAX_PAUSE_SEC;
+  private double minBigMergeMB = DEFAULT_MIN_BIG_MERGE_MB;
+
+  // number of segments of the index the last time merge threads were updated
+  private int segmentCount;
+
+  // resumes paused merges once they are overdue, null if no merges are paused
+  private Thread overdueMergesThread;
+  private boolean closed;
+
+  private long preemptionCount;
+  private long completedMergeCount;
+  private long totalQueuedNS;
+
+  /** Sole constructor, with all settings set to default values. */
+  public PriorityMergeScheduler() {
+  }
+
+  /**
+   * Set the number of segments above which large merges get preempted in favor
+   * of small merges.
+   */
+  public synchronized void setMaxSegmentCount(int maxSegmentCount) {
+    if (maxSegmentCount < 1) {
+      throw new IllegalArgumentException("maxSegmentCount must be >= 1, got " + maxSegmentCount);
+    }
+    this.maxSegmentCount = maxSegmentCount;
+  }
+
+  /** See {@link #setMaxSegmentCount}. */
+  public synchronized int getMaxSegmentCount() {
+    return maxSegmentCount;
+  }
+
+  /**
+   * Set the maximum amount of time that a merge may be paused in favor of
+   * merges that have a higher priority before it gets resumed.
+   */
+  public synchronized void setMaxPauseSec(double maxPauseSec) {
+    if (maxPauseSec >= 0 == false) {
+      throw new IllegalArgumentException("maxPauseSec must be >= 0, got " + maxPauseSec);
+    }
+    this.maxPauseSec = maxPauseSec;
+    // paused merges may get overdue sooner
+    notifyAll();
+  }
+
+  /** See {@link #setMaxPauseSec}. */
+  public synchronized double getMaxPauseSec() {
+    return maxPauseSec;
+  }
+
+  /**
+   * Set the estimated size in MB above which merges are considered big. Big
+   * merges may be paused in favor of merges that have a higher priority, while
+   * smaller merges always run.
+   */
+  public synchronized void setMinBigMergeMB(double minBigMergeMB) {
+    if (minBigMergeMB >= 0 == false) {
+      throw new IllegalArgumentException("minBigMergeMB must be >= 0, got " + minBigMergeMB);
+    }
+    this.minBigMergeMB = minBigMergeMB;
+  }
+
+  /** See {@link #setMinBigMergeMB}. */
+  public synchronized double getMinBigMergeMB() {
+    return minBigMergeMB;
+  }
+
+  /**
+   * Return the priority of the given merge, merges with a higher priority run
+   * first. The default implementation returns the number of segments that
+   * the merge removes from the index per MB that it needs to write. Singleton
+   * merges, which only reclaim deleted documents, are treated as if they
+   * removed one segment.
+   */
+  protected double getMergePriority(OneMerge merge) {
+    final int reclaimedSegments = Math.max(1, merge.segments.size() - 1);
+    final double mergeMB = Math.max(1.0, bytesToMB(merge.estimatedMergeBytes));
+    return reclaimedSegments / mergeMB;
+  }
+
+  /** Return the number of times that a merge got paused in favor of merges that have a higher priority. */
+  public synchronized long getPreemptionCount() {
+    return preemptionCount;
+  }
+
+  /** Return the number of merges that this scheduler ran to completion or abort. */
+  public synchronized long getCompletedMergeCount() {
+    return completedMergeCount;
+  }
+
+  /**
+   * Return the sum of the times that completed merges spent between being
+   * scheduled and getting started by {@link IndexWriter}, in nanoseconds.
+   */
+  public synchronized long getTotalQueuedNS() {
+    return totalQueuedNS;
+  }
+
+  /** Return a snapshot of the progress of the merges that are currently running or paused. */
+  public synchronized List<RunningMerge> getRunningMerges() {
+    final long now = System.nanoTime();
+    final List<RunningMerge> runningMerges = new ArrayList<>();
+    for (MergeThread mergeThread : mergeThreads) {
+      if (mergeThread.isAlive()) {
+        runningMerges.add(new RunningMerge((PriorityMergeThread) mergeThread, now));
+      }
+    }
+    return Collections.unmodifiableList(runningMerges);
+  }
+
+  @Override
+  protected synchronized MergeThread getMergeThread(IndexWriter writer, OneMerge merge) throws IOException {
+    final MergeThread thread = new PriorityMergeThread(writer, merge, getMergePriority(merge));
+    thread.setDaemon(true);
+    thread.setName("Lucene Merge Thread #" + mergeThreadCount++);
+    return thread;
+  }
+
+  @Override
+  protected void doMerge(IndexWriter writer, OneMerge merge) throws IOException {
+    try {
+      super.doMerge(writer, merge);
+    } finally {
+      final Thread thread = Thread.currentThread();
+      synchronized (this) {
+        completedMergeCount++;
+        final long mergeStartNS = merge.mergeStartNS;
+        if (mergeStartNS != -1 && thread instanceof PriorityMergeThread) {
+          totalQueuedNS += mergeStartNS - ((PriorityMergeThread) thread).scheduledNS;
+        }
+      }
+    }
+  }
+
+  @Override
+  protected synchronized void updateMergeThreads() {
+
+    // Only look at threads that are alive & not in the
+    // process of stopping (ie have an active merge):
+    final List<PriorityMergeThread> activeMerges = new ArrayList<>();
+
+    int threadIdx = 0;
+    while (threadIdx < mergeThreads.size()) {
+      final MergeThread mergeThread = mergeThreads.get(threadIdx);
+      if (!mergeThread.isAlive()) {
+        // Prune any dead threads
+        mergeThreads.remove(threadIdx);
+        continue;
+      }
+      activeMerges.add((PriorityMergeThread) mergeThread);
+      threadIdx++;
+    }
+
+    if (activeMerges.isEmpty() == false) {
+      // Merges and flushes may have changed the number of segments since the
+      // last update. Note: acquiring the lock of the writer while holding the
+      // lock of the scheduler is fine, getNextMerge does it too
+      segmentCount = activeMerges.get(0).writer.getSegmentCount();
+    }
+
+    final long now = System.nanoTime();
+    final long maxPauseNS = (long) (maxPauseSec * TimeUnit.SECONDS.toNanos(1));
+
+    // Merges that have been paused for too long first, then by decreasing priority:
+    CollectionUtil.timSort(activeMerges, (a, b) -> {
+      final boolean aOverdue = a.isOverdue(now, maxPauseNS);
+      final boolean bOverdue = b.isOverdue(now, maxPauseNS);
+      if (aOverdue != bOverdue) {
+        return aOverdue ? -1 : 1;
+      }
+      return Double.compare(b.priority, a.priority);
+    });
+
+    boolean hasSmallMerges = false;
+    for (PriorityMergeThread mergeThread : activeMerges) {
+      if (isBigMerge(mergeThread.merge) == false) {
+        hasSmallMerges = true;
+        break;
+      }
+    }
+    // Preempt big merges if the index has too many segments, unless there are
+    // no small merges to bring the number of segments down
+    final boolean preemptBigMerges = hasSmallMerges && segmentCount > maxSegmentCount;
+
+    final int maxThreadCount = getMaxThreadCount();
+    final double forceMergeMBPerSec = getForceMergeMBPerSec();
+    final boolean doAutoIOThrottle = getAutoIOThrottle();
+
+    StringBuilder message;
+    if (verbose()) {
+      message = new StringBuilder();
+      message.append(String.format(Locale.ROOT, "updateMergeThreads ioThrottle=%s targetMBPerSec=%.1f MB/sec segmentCount=%d preemptBigMerges=%s",
+                                   doAutoIOThrottle, targetMBPerSec, segmentCount, preemptBigMerges));
+    } else {
+      message = null;
+    }
+
+    int runningBigMergeCount = 0;
+    boolean hasPausedMerges = false;
+    for (PriorityMergeThread mergeThread : activeMerges) {
+      final OneMerge merge = mergeThread.merge;
+
+      final boolean doPause;
+      if (isBigMerge(merge) == false) {
+        doPause = false;
+      } else if (mergeThread.isOverdue(now, maxPauseNS)) {
+        doPause = false;
+        runningBigMergeCount++;
+      } else if (preemptBigMerges && merge.maxNumSegments == -1) {
+        doPause = true;
+      } else {
+        doPause = runningBigMergeCount >= maxThreadCount;
+        if (doPause == false) {
+          runningBigMergeCount++;
+        }
+      }
+
+      final double newMBPerSec;
+      if (doPause) {
+        newMBPerSec = 0.0;
+      } else if (merge.maxNumSegments != -1) {
+        newMBPerSec = forceMergeMBPerSec;
+      } else if (doAutoIOThrottle == false) {
+        newMBPerSec = Double.POSITIVE_INFINITY;
+      } else if (isBigMerge(merge) == false) {
+        // Don't rate limit small merges:
+        newMBPerSec = Double.POSITIVE_INFINITY;
+      } else {
+        newMBPerSec = targetMBPerSec;
+      }
+
+      final MergeRateLimiter rateLimiter = mergeThread.rateLimiter;
+      final double curMBPerSec = rateLimiter.getMBPerSec();
+      if (doPause) {
+        hasPausedMerges = true;
+        if (mergeThread.pausedSinceNS == -1) {
+          mergeThread.pausedSinceNS = now;
+          if (curMBPerSec != 0.0) {
+            // the merge was running
+            preemptionCount++;
+          }
+        }
+      } else {
+        mergeThread.pausedSinceNS = -1;
+      }
+
+      if (verbose()) {
+        message.append('\n');
+        message.append(String.format(Locale.ROOT, "merge thread %s estSize=%.1f MB (written=%.1f MB) priority=%.3f segments/MB rate=%s -> %s",
+                                     mergeThread.getName(),
+                                     bytesToMB(merge.estimatedMergeBytes),
+                                     bytesToMB(rateLimiter.getTotalBytesWritten()),
+                                     mergeThread.priority,
+                                     rateToString(curMBPerSec),
+                                     rateToString(newMBPerSec)));
+      }
+
+      rateLimiter.setMBPerSec(newMBPerSec);
+    }
+    if (verbose()) {
+      message(message.toString());
+    }
+
+    if (hasPausedMerges && overdueMergesThread == null && closed == false) {
+      overdueMergesThread = new OverdueMergesThread();
+      overdueMergesThread.start();
+    }
+    // let the overdue merges thread know about paused or resumed merges
+    notifyAll();
+  }
+
+  private boolean isBigMerge(OneMerge merge) {
+    return merge.estimatedMergeBytes > minBigMergeMB*1024*1024;
+  }
+
+  /**
+   * Return the number of nanoseconds until the next paused merge gets overdue,
+   * a negative value if a paused merge is already overdue, or
+   * {@link Long#MAX_VALUE} if no merges are paused.
+   */
+  private synchronized long getNanosUntilOverdue() {
+    final long now = System.nanoTime();
+    final long maxPauseNS = (long) (maxPauseSec * TimeUnit.SECONDS.toNanos(1));
+    long nanosUntilOverdue = Long.MAX_VALUE;
+    for (MergeThread mergeThread : mergeThreads) {
+      final long pausedSinceNS = ((PriorityMergeThread) mergeThread).pausedSinceNS;
+      if (pausedSinceNS != -1 && mergeThread.isAlive()) {
+        nanosUntilOverdue = Math.min(nanosUntilOverdue, maxPauseNS - (now - pausedSinceNS));
+      }
+    }
+    return nanosUntilOverdue;
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    final Thread thread;
+    synchronized (this) {
+      closed = true;
+      thread = overdueMergesThread;
+      notifyAll();
+    }
+    if (thread != null) {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          thread.join();
+          break;
+        } catch (InterruptedException ie) {
+          // ignore this Exception, we will retry until the thread is dead
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(super.toString());
+    sb.append(", maxSegmentCount=").append(maxSegmentCount);
+    sb.append(", maxPauseSec=").append(maxPauseSec);
+    sb.append(", minBigMergeMB=").append(minBigMergeMB);
+    return sb.toString();
+  }
+
+  /**
+   * Waits until paused merges get overdue to resume them, and exits when no
+   * merges are paused anymore or the scheduler gets closed.
+   */
+  private class OverdueMergesThread extends Thread {
+
+    OverdueMergesThread() {
+      setDaemon(true);
+      setName("Lucene Overdue Merges Thread");
+    }
+
+    @Override
+    public void run() {
+      synchronized (PriorityMergeScheduler.this) {
+        try {
+          while (closed == false) {
+            final long nanosUntilOverdue = getNanosUntilOverdue();
+            if (nanosUntilOverdue == Long.MAX_VALUE) {
+              break;
+            } else if (nanosUntilOverdue < 0) {
+              updateMergeThreads();
+            } else {
+              TimeUnit.NANOSECONDS.timedWait(PriorityMergeScheduler.this, nanosUntilOverdue);
+            }
+          }
+        } catch (InterruptedException ie) {
+          throw new ThreadInterruptedException(ie);
+        } finally {
+          overdueMergesThread = null;
+        }
+      }
+    }
+  }
+
+  /** A {@link MergeThread} that records scheduling information. */
+  protected class PriorityMergeThread extends MergeThread {
+    final double priority;
+    final long scheduledNS;
+    // when this merge got paused, or -1 if it is not paused
+    long pausedSinceNS = -1;
+
+    /** Sole constructor. */
+    public PriorityMergeThread(IndexWriter writer, OneMerge merge, double priority) {
+      super(writer, merge);
+      this.priority = priority;
+      this.scheduledNS = System.nanoTime();
+    }
+
+    boolean isOverdue(long now, long maxPauseNS) {
+      return pausedSinceNS != -1 && now - pausedSinceNS > maxPauseNS;
+    }
+  }
+
+  /**
+   * Snapshot of the progress of a merge.
+   * @see PriorityMergeScheduler#getRunningMerges()
+   */
+  public static final class RunningMerge {
+
+    /** Number of segments being merged. */
+    public final int segmentCount;
+
+    /** Estimated size of the merged segment, in bytes. */
+    public final long estimatedMergeBytes;
+
+    /** Number of bytes that have been written so far. */
+    public final long bytesWritten;
+
+    /** Priority of the merge, see {@link PriorityMergeScheduler#getMergePriority}. */
+    public final double priority;
+
+    /** Whether the merge is currently paused. */
+    public final boolean paused;
+
+    /**
+     * Time between the merge being scheduled and {@link IndexWriter} starting
+     * it, or until now if the merge didn't start yet, in nanoseconds.
+     */
+    public final long queuedNS;
+
+    /** Time the merge spent paused or rate-limited, in nanoseconds. */
+    public final long throttledNS;
+
+    RunningMerge(PriorityMergeThread thread, long now) {
+      final OneMerge merge = thread.merge;
+      this.segmentCount = merge.segments.size();
+      this.estimatedMergeBytes = merge.estimatedMergeBytes;
+      this.bytesWritten = thread.rateLimiter.getTotalBytesWritten();
+      this.priority = thread.priority;
+      this.paused = thread.rateLimiter.getMBPerSec() == 0.0;
+      final long mergeStartNS = merge.mergeStartNS;
+      this.queuedNS = (mergeStartNS == -1 ? now : mergeStartNS) - thread.scheduledNS;
+      this.throttledNS = thread.rateLimiter.getTotalStoppedNS() + thread.rateLimiter.getTotalPausedNS();
+    }
+
+    /** Estimated progress of the merge, between 0 and 1. */
+    public double getProgress() {
+      if (estimatedMergeBytes <= 0) {
+        return 0;
+      }
+      return Math.min(1.0, (double) bytesWritten / estimatedMergeBytes);
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.ROOT, "RunningMerge(segments=%d estSize=%.1f MB progress=%.1f%% priority=%.3f paused=%s queued=%.1fs throttled=%.1fs)",
+          segmentCount, bytesToMB(estimatedMergeBytes), 100 * getProgress(), priority, paused, nsToSec(queuedNS), nsToSec(throttledNS));
+    }
+  }
+}
@@ -48,6 +48,27 @@ public abstract class SortedDocValues extends BinaryDocValues {
    */
   public abstract int ordValue() throws IOException;
 
+  /**
+   * Bulk version of {@link #advanceExact(int)} and {@link #ordValue()}: for
+   * every {@code i} between {@code 0} inclusive and {@code count} exclusive,
+   * sets {@code ords[i]} to the ordinal of document {@code docs[i]}, or to
+   * {@code -1} if this document has no value. Doc IDs must be strictly
+   * increasing and greater than or equal to the current
+   * {@link #docID() doc ID}. This iterator is positioned on the last doc ID
+   * afterwards, but {@link #ordValue()} may only be called again after the next
+   * call to {@link #advanceExact(int)}.
+   * <p>
+   * The default implementation calls {@link #advanceExact(int)} and
+   * {@link #ordValue()} for every document, sub-classes should override it
+   * if they can decode ordinals for multiple documents at once more efficiently.
+   * @lucene.experimental
+   */
+  public void ordValues(int count, int[] docs, int[] ords) throws IOException {
+    for (int i = 0; i < count; ++i) {
+      ords[i] = advanceExact(docs[i]) ? ordValue() : -1;
+    }
+  }
+
   /** Retrieves the value for the specified ordinal. The returned
    * {@link BytesRef} may be re-used across calls to {@link #lookupOrd(int)}
    * so make sure to {@link BytesRef#deepCopyOf(BytesRef) copy it} if you want
@@ -1046,6 +1046,11 @@ class SortingLeafReader extends FilterLeafReader {
     in.document(docMap.newToOld(docID), visitor);
   }
 
+  @Override
+  public void prefetchDocument(int docID) throws IOException {
+    in.prefetchDocument(docMap.newToOld(docID));
+  }
+
   @Override
   public Terms terms(String field) throws IOException {
     Terms terms = super.terms(field);
@@ -1182,6 +1187,12 @@ class SortingLeafReader extends FilterLeafReader {
     return new SortingSortedNumericDocValues(oldDocValues, values);
   }
 
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    // intervals of the wrapped reader don't map to intervals of sorted doc IDs
+    return null;
+  }
+
   @Override
   public SortedDocValues getSortedDocValues(String field) throws IOException {
     SortedDocValues oldDocValues = in.getSortedDocValues(field);
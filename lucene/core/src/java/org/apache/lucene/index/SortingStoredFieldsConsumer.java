@@ -106,13 +106,18 @@ final class SortingStoredFieldsConsumer extends StoredFieldsConsumer {
     }
 
     @Override
-    public void binaryField(FieldInfo fieldInfo, byte[] value) throws IOException {
+    public void binaryField(FieldInfo fieldInfo, BytesRef value) throws IOException {
       reset(fieldInfo);
-      // TODO: can we avoid new BR here?
-      binaryValue = new BytesRef(value);
+      // the value is consumed by the writer before the reader reuses its buffer
+      binaryValue = value;
       write();
     }
 
+    @Override
+    public void binaryField(FieldInfo fieldInfo, byte[] value) throws IOException {
+      binaryField(fieldInfo, new BytesRef(value));
+    }
+
     @Override
     public void stringField(FieldInfo fieldInfo, byte[] value) throws IOException {
       reset(fieldInfo);
@@ -21,6 +21,7 @@ import java.io.IOException;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.DocumentStoredFieldVisitor;
+import org.apache.lucene.util.BytesRef;
 
 /**
  * Expert: provides a low-level means of accessing the stored field
@@ -57,6 +58,33 @@ public abstract class StoredFieldVisitor {
   public void stringField(FieldInfo fieldInfo, byte[] value) throws IOException {
   }
 
+  /**
+   * Process a binary field without requiring a dedicated copy of its bytes.
+   * <p>
+   * Codecs call this method rather than {@link #binaryField(FieldInfo, byte[])}.
+   * The provided {@link BytesRef} may point into an internal buffer of the
+   * reader: its content is only valid for the duration of this call and must
+   * not be modified. Visitors that stream values elsewhere can override this
+   * method to avoid allocating a new array per field value. The default
+   * implementation copies the bytes and calls {@link #binaryField(FieldInfo, byte[])}.
+   */
+  public void binaryField(FieldInfo fieldInfo, BytesRef value) throws IOException {
+    binaryField(fieldInfo, BytesRef.deepCopyOf(value).bytes);
+  }
+
+  /**
+   * Process a string field, whose UTF-8 encoded value is provided as a
+   * {@link BytesRef} that is only valid for the duration of this call.
+   * <p>
+   * Codecs call this method rather than {@link #stringField(FieldInfo, byte[])},
+   * see {@link #binaryField(FieldInfo, BytesRef)} for the contract on the provided
+   * bytes. The default implementation copies the bytes and calls
+   * {@link #stringField(FieldInfo, byte[])}.
+   */
+  public void stringField(FieldInfo fieldInfo, BytesRef value) throws IOException {
+    stringField(fieldInfo, BytesRef.deepCopyOf(value).bytes);
+  }
+
   /** Process a int numeric field. */
   public void intField(FieldInfo fieldInfo, int value) throws IOException {
   }
@@ -18,7 +18,11 @@ package org.apache.lucene.index;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.util.IOSupplier;
 
 /**
  * Maintains a {@link IndexReader} {@link TermState} view over
@@ -104,10 +108,25 @@ public final class TermStates {
     assert context != null && context.isTopLevel;
     final TermStates perReaderTermState = new TermStates(needsStats ? null : term, context);
     if (needsStats) {
-      for (final LeafReaderContext ctx : context.leaves()) {
+      final List<LeafReaderContext> leaves = context.leaves();
+      // first prepare the seeks of all segments so that the blocks of their terms dicts may be
+      // loaded concurrently on a cold cache, then complete them
+      final TermsEnum[] termsEnums = new TermsEnum[leaves.size()];
+      final List<IOSupplier<Boolean>> seeks = new ArrayList<>(leaves.size());
+      for (int i = 0; i < termsEnums.length; ++i) {
+        final Terms terms = leaves.get(i).reader().terms(term.field());
+        if (terms != null) {
+          termsEnums[i] = terms.iterator();
+          seeks.add(termsEnums[i].prepareSeekExact(term.bytes()));
+        } else {
+          seeks.add(null);
+        }
+      }
+      for (int i = 0; i < termsEnums.length; ++i) {
+        final LeafReaderContext ctx = leaves.get(i);
         //if (DEBUG) System.out.println("  r=" + leaves[i].reader);
-        TermsEnum termsEnum = loadTermsEnum(ctx, term);
-        if (termsEnum != null) {
+        TermsEnum termsEnum = termsEnums[i];
+        if (termsEnum != null && seeks.get(i).get()) {
           final TermState termState = termsEnum.termState();
           //if (DEBUG) System.out.println("    found");
           perReaderTermState.register(termState, ctx.ord, termsEnum.docFreq(), termsEnum.totalTermFreq());
@@ -22,6 +22,7 @@ import java.io.IOException;
 import org.apache.lucene.util.AttributeSource;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefIterator;
+import org.apache.lucene.util.IOSupplier;
 
 /** Iterator to seek ({@link #seekCeil(BytesRef)}, {@link
  * #seekExact(BytesRef)}) or step through ({@link
@@ -73,6 +74,24 @@ public abstract class TermsEnum implements BytesRefIterator {
     return seekCeil(text) == SeekStatus.FOUND;
   }
 
+  /**
+   * Two-phase {@link #seekExact(BytesRef)}: this method does the part of the seek that doesn't need to
+   * read data, and may hint the data that remains to be read, see
+   * {@link org.apache.lucene.store.IndexInput#prefetch(long, long)}. Calling
+   * {@link IOSupplier#get() get()} on the returned supplier completes the seek and returns whether
+   * {@code text} exists, like {@link #seekExact(BytesRef)}. Preparing the seeks of several enums
+   * before completing any of them allows their I/O to be performed concurrently on a cold cache.
+   * <p>
+   * <b>NOTE:</b> No other method of this enum may be called, and {@code text} may not be modified,
+   * until the seek is completed.
+   * <p>
+   * The default implementation defers the whole seek to the supplier.
+   * @lucene.experimental
+   */
+  public IOSupplier<Boolean> prepareSeekExact(BytesRef text) throws IOException {
+    return () -> seekExact(text);
+  }
+
   /** Seeks to the specified term, if it exists, or to the
    *  next (ceiling) term.  Returns SeekStatus to
    *  indicate whether exact term was found, a different
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import org.apache.lucene.util.VectorUtil;
+
+/**
+ * Vector similarity function; used in search to return top K most similar vectors to a target
+ * vector. Similarities are converted to scores that are higher for more similar vectors and are
+ * never negative.
+ *
+ * @lucene.experimental
+ */
+public enum VectorSimilarityFunction {
+
+  /** Euclidean distance: the score is {@code 1 / (1 + squareDistance)}. */
+  EUCLIDEAN {
+    @Override
+    public float compare(float[] v1, float[] v2) {
+      return 1 / (1 + VectorUtil.squareDistance(v1, v2));
+    }
+  },
+
+  /**
+   * Dot product: the score is {@code (1 + dotProduct) / 2}. Vectors are expected to be
+   * normalized to unit length, in which case this is equivalent to cosine similarity.
+   * Negative scores, that can only occur with vectors that are not normalized, are
+   * truncated to 0.
+   */
+  DOT_PRODUCT {
+    @Override
+    public float compare(float[] v1, float[] v2) {
+      return Math.max((1 + VectorUtil.dotProduct(v1, v2)) / 2, 0);
+    }
+  };
+
+  /**
+   * Calculates a similarity score between the two vectors. Higher scores mean more
+   * similar vectors.
+   *
+   * @param v1 a vector
+   * @param v2 another vector, of the same dimension
+   * @return the similarity score of the two vectors
+   */
+  public abstract float compare(float[] v1, float[] v2);
+}
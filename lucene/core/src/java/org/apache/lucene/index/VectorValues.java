@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.Bits;
+
+/**
+ * This class provides access to per-document floating point vector values indexed as {@link
+ * org.apache.lucene.document.VectorField}.
+ *
+ * @lucene.experimental
+ */
+public abstract class VectorValues extends DocIdSetIterator {
+
+  /** The maximum length of a vector */
+  public static final int MAX_DIMENSIONS = 1024;
+
+  /** Sole constructor */
+  protected VectorValues() {}
+
+  /** Return the dimension of the vectors */
+  public abstract int dimension();
+
+  /**
+   * Return the number of vectors for this field.
+   */
+  public abstract int size();
+
+  @Override
+  public final long cost() {
+    return size();
+  }
+
+  /**
+   * Return the vector value for the current document ID. It is illegal to call this method when
+   * the iterator is not positioned: before advancing, or after failing to advance. The returned
+   * array may be shared across calls, re-used, and modified as the iterator advances.
+   *
+   * @return the vector value
+   */
+  public abstract float[] vectorValue() throws IOException;
+
+  /**
+   * Return the k nearest neighbor documents as determined by comparison of their vector values for
+   * this field, to the given vector, by the field's similarity function. The score of each
+   * document is derived from the vector similarity in a way that ensures scores are positive and
+   * that a larger score corresponds to a higher ranking. Documents that are not accepted by
+   * {@code acceptDocs} are never returned.
+   * <p>
+   * The search is approximate: {@code fanOut} controls how many more candidates than {@code k}
+   * are explored, trading speed for recall. This operation does not change the position of this
+   * iterator.
+   *
+   * @param target the vector-valued query
+   * @param k the number of docs to return
+   * @param fanOut control the accuracy/speed tradeoff - larger values give better recall at
+   *     higher cost
+   * @param acceptDocs {@link Bits} that represents the allowed documents to match, or {@code null}
+   *     if they are all allowed to match.
+   * @return the k nearest neighbor documents, along with their (similarity-specific) scores.
+   * @throws UnsupportedOperationException if these values can't be searched, which is the case of the
+   *     values that are passed to a {@link org.apache.lucene.codecs.VectorWriter}
+   */
+  public abstract TopDocs search(float[] target, int k, int fanOut, Bits acceptDocs) throws IOException;
+
+  /**
+   * Represents the lack of vector values. It is returned by providers that do not
+   * support VectorValues.
+   */
+  public static final VectorValues EMPTY = new VectorValues() {
+
+    @Override
+    public int size() {
+      return 0;
+    }
+
+    @Override
+    public int dimension() {
+      return 0;
+    }
+
+    @Override
+    public float[] vectorValue() {
+      throw new IllegalStateException("Attempt to get vectors from EMPTY values (which was not advanced)");
+    }
+
+    @Override
+    public TopDocs search(float[] target, int k, int fanOut, Bits acceptDocs) {
+      return new TopDocs(new TotalHits(0, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]);
+    }
+
+    @Override
+    public int docID() {
+      throw new IllegalStateException("VectorValues is EMPTY, and not positioned on a doc");
+    }
+
+    @Override
+    public int nextDoc() {
+      return NO_MORE_DOCS;
+    }
+
+    @Override
+    public int advance(int target) {
+      return NO_MORE_DOCS;
+    }
+  };
+}
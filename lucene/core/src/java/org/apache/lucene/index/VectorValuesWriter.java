@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.codecs.VectorWriter;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.Counter;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/** Buffers up pending vector value(s) per doc, then flushes when segment flushes. */
+class VectorValuesWriter {
+
+  private final FieldInfo fieldInfo;
+  private final Counter iwBytesUsed;
+  private int[] docIDs;
+  private float[][] vectors;
+  private int numVectors;
+  private int lastDocID = -1;
+
+  VectorValuesWriter(FieldInfo fieldInfo, Counter iwBytesUsed) {
+    this.fieldInfo = fieldInfo;
+    this.iwBytesUsed = iwBytesUsed;
+    docIDs = new int[16];
+    vectors = new float[16][];
+    iwBytesUsed.addAndGet(16 * (Integer.BYTES + RamUsageEstimator.NUM_BYTES_OBJECT_REF));
+  }
+
+  /**
+   * Adds a value for the given document. Only a single value may be added.
+   *
+   * @param docID the value is added to this document
+   * @param vectorValue the value to add
+   * @throws IllegalArgumentException if a value has already been added to the given document
+   */
+  public void addValue(int docID, float[] vectorValue) {
+    if (docID == lastDocID) {
+      throw new IllegalArgumentException("VectorValuesField \"" + fieldInfo.name
+          + "\" appears more than once in this document (only one value is allowed per field)");
+    }
+    if (vectorValue.length != fieldInfo.getVectorDimension()) {
+      throw new IllegalArgumentException("Attempt to index a vector of dimension " + vectorValue.length
+          + " but \"" + fieldInfo.name + "\" has dimension " + fieldInfo.getVectorDimension());
+    }
+    assert docID > lastDocID;
+    if (numVectors == docIDs.length) {
+      docIDs = ArrayUtil.grow(docIDs, numVectors + 1);
+      vectors = ArrayUtil.growExact(vectors, docIDs.length);
+      iwBytesUsed.addAndGet((docIDs.length - numVectors) * (Integer.BYTES + RamUsageEstimator.NUM_BYTES_OBJECT_REF));
+    }
+    // copy since the caller may reuse the array for the next document
+    vectors[numVectors] = ArrayUtil.copyOfSubArray(vectorValue, 0, vectorValue.length);
+    docIDs[numVectors] = docID;
+    numVectors++;
+    lastDocID = docID;
+    iwBytesUsed.addAndGet(RamUsageEstimator.sizeOf(vectorValue));
+  }
+
+  /**
+   * Flush this field's values to storage, sorting the values in accordance with sortMap
+   *
+   * @param sortMap specifies the order of documents being flushed, or null if they are to be
+   *     flushed in docid order
+   * @param vectorWriter the Codec's vector writer that handles the actual encoding and I/O
+   * @throws IOException if there is an error writing the field and its values
+   */
+  public void flush(Sorter.DocMap sortMap, VectorWriter vectorWriter) throws IOException {
+    int[] docs = ArrayUtil.copyOfSubArray(docIDs, 0, numVectors);
+    float[][] values = ArrayUtil.copyOfSubArray(vectors, 0, numVectors);
+    if (sortMap != null) {
+      // sort (new doc ID, ordinal) pairs by new doc ID
+      final long[] newDocsAndOrds = new long[numVectors];
+      for (int ord = 0; ord < numVectors; ++ord) {
+        newDocsAndOrds[ord] = ((long) sortMap.oldToNew(docs[ord]) << 32) | ord;
+      }
+      Arrays.sort(newDocsAndOrds);
+      final float[][] sortedValues = new float[numVectors][];
+      for (int i = 0; i < numVectors; ++i) {
+        docs[i] = (int) (newDocsAndOrds[i] >>> 32);
+        sortedValues[i] = values[(int) newDocsAndOrds[i]];
+      }
+      values = sortedValues;
+    }
+    vectorWriter.writeField(fieldInfo, new BufferedVectorValues(docs, values, fieldInfo.getVectorDimension()));
+  }
+
+  private static class BufferedVectorValues extends VectorValues
+      implements RandomAccessVectorValues, RandomAccessVectorValuesProducer {
+
+    final int[] docs;
+    final float[][] vectors;
+    final int dimension;
+    int ord = -1;
+
+    BufferedVectorValues(int[] docs, float[][] vectors, int dimension) {
+      this.docs = docs;
+      this.vectors = vectors;
+      this.dimension = dimension;
+    }
+
+    @Override
+    public RandomAccessVectorValues randomAccess() {
+      return new BufferedVectorValues(docs, vectors, dimension);
+    }
+
+    @Override
+    public int dimension() {
+      return dimension;
+    }
+
+    @Override
+    public int size() {
+      return docs.length;
+    }
+
+    @Override
+    public float[] vectorValue() {
+      return vectors[ord];
+    }
+
+    @Override
+    public float[] vectorValue(int targetOrd) {
+      return vectors[targetOrd];
+    }
+
+    @Override
+    public TopDocs search(float[] target, int k, int fanOut, Bits acceptDocs) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int docID() {
+      if (ord == -1) {
+        return -1;
+      }
+      return ord < docs.length ? docs[ord] : NO_MORE_DOCS;
+    }
+
+    @Override
+    public int nextDoc() {
+      if (ord < docs.length) {
+        ++ord;
+      }
+      return docID();
+    }
+
+    @Override
+    public int advance(int target) {
+      int doc;
+      while ((doc = nextDoc()) < target) {}
+      return doc;
+    }
+  }
+}
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.util.Objects;
 
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
@@ -64,6 +65,11 @@ public final class DocValuesFieldExistsQuery extends Query {
     return new ConstantScoreWeight(this, boost) {
       @Override
       public Scorer scorer(LeafReaderContext context) throws IOException {
+        DocValuesSkipper skipper = context.reader().getDocValuesSkipper(field);
+        if (skipper != null && skipper.globalDocCount() == context.reader().maxDoc()) {
+          // all documents have a value, no need to iterate doc values
+          return new ConstantScoreScorer(this, score(), scoreMode, DocIdSetIterator.all(context.reader().maxDoc()));
+        }
         DocIdSetIterator iterator = getDocValuesDocIdSetIterator(field, context.reader());
         if (iterator == null) {
           return null;
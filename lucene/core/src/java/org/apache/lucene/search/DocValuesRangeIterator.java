@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.io.IOException;
+
+import org.apache.lucene.index.DocValuesSkipper;
+
+/**
+ * A {@link TwoPhaseIterator} over documents whose numeric doc values are within a range, which
+ * uses a {@link DocValuesSkipper} in order to skip intervals of documents whose values are
+ * all outside of the range, and to match intervals whose values are all within the range
+ * without checking the values of every document.
+ *
+ * @lucene.experimental
+ */
+public final class DocValuesRangeIterator extends TwoPhaseIterator {
+
+  /** How documents of the current interval of the skipper match. */
+  enum Match {
+    /** No document matches. */
+    NO,
+    /** Documents need to be checked with the wrapped {@link TwoPhaseIterator}. */
+    MAYBE,
+    /** Documents that have a value match. */
+    IF_DOC_HAS_VALUE,
+    /** All documents match. */
+    YES
+  }
+
+  private final Approximation approximation;
+  private final TwoPhaseIterator innerTwoPhase;
+
+  /**
+   * Wrap {@code twoPhase}, which must only match documents whose values are between
+   * {@code lowerValue} and {@code upperValue} inclusive, in order to skip or match intervals
+   * of documents based on the given {@code skipper}.
+   */
+  public DocValuesRangeIterator(TwoPhaseIterator twoPhase, DocValuesSkipper skipper, long lowerValue, long upperValue) {
+    super(new Approximation(twoPhase.approximation(), skipper, lowerValue, upperValue));
+    this.approximation = (Approximation) approximation();
+    this.innerTwoPhase = twoPhase;
+  }
+
+  private static class Approximation extends DocIdSetIterator {
+
+    private final DocIdSetIterator innerApproximation;
+    private final DocValuesSkipper skipper;
+    private final long lowerValue;
+    private final long upperValue;
+
+    private int doc = -1;
+
+    // how documents up to upTo inclusive match
+    private Match match = Match.MAYBE;
+    private int upTo = -1;
+
+    Approximation(DocIdSetIterator innerApproximation, DocValuesSkipper skipper, long lowerValue, long upperValue) {
+      this.innerApproximation = innerApproximation;
+      this.skipper = skipper;
+      this.lowerValue = lowerValue;
+      this.upperValue = upperValue;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      return advance(doc + 1);
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      while (true) {
+        if (target > upTo) {
+          skipper.advance(target);
+          // documents between two intervals have no value
+          target = Math.max(target, skipper.minDocID());
+          if (target == NO_MORE_DOCS) {
+            return doc = NO_MORE_DOCS;
+          }
+          upTo = skipper.maxDocID();
+          match = match(skipper);
+        }
+        switch (match) {
+          case YES:
+            return doc = target;
+          case MAYBE:
+          case IF_DOC_HAS_VALUE:
+            if (target > innerApproximation.docID()) {
+              target = innerApproximation.advance(target);
+            } else {
+              target = innerApproximation.docID();
+            }
+            if (target <= upTo) {
+              return doc = target;
+            }
+            // the next candidate is in a later interval
+            break;
+          case NO:
+            target = upTo + 1;
+            break;
+          default:
+            throw new AssertionError("Unknown match: " + match);
+        }
+      }
+    }
+
+    private Match match(DocValuesSkipper skipper) {
+      if (skipper.minValue() > upperValue || skipper.maxValue() < lowerValue) {
+        return Match.NO;
+      } else if (skipper.minValue() >= lowerValue && skipper.maxValue() <= upperValue) {
+        if (skipper.docCount() == skipper.maxDocID() - skipper.minDocID() + 1) {
+          return Match.YES;
+        } else {
+          return Match.IF_DOC_HAS_VALUE;
+        }
+      } else {
+        return Match.MAYBE;
+      }
+    }
+
+    @Override
+    public long cost() {
+      return innerApproximation.cost();
+    }
+  }
+
+  @Override
+  public boolean matches() throws IOException {
+    switch (approximation.match) {
+      case YES:
+      case IF_DOC_HAS_VALUE:
+        return true;
+      case MAYBE:
+        return innerTwoPhase.matches();
+      case NO:
+      default:
+        throw new AssertionError("Unexpected match: " + approximation.match);
+    }
+  }
+
+  @Override
+  public float matchCost() {
+    return innerTwoPhase.matchCost();
+  }
+}
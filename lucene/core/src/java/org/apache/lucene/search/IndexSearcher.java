@@ -29,6 +29,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.DirectoryReader;
@@ -100,6 +101,12 @@ public class IndexSearcher {
    */
   private static final int TOTAL_HITS_THRESHOLD = 1000;
 
+  /**
+   * Minimum size of the window of doc IDs that is collected first for
+   * segments that are collected in reverse order, see {@link TopFieldCollector}.
+   */
+  private static final int MIN_REVERSE_WINDOW_SIZE = 1024;
+
   final IndexReader reader; // package private for testing!
   
   // NOTE: these members might change in incompatible ways
@@ -117,6 +124,7 @@ public class IndexSearcher {
 
   private QueryCache queryCache = DEFAULT_QUERY_CACHE;
   private QueryCachingPolicy queryCachingPolicy = DEFAULT_CACHING_POLICY;
+  private SegmentTopDocsCache topDocsCache;
 
   /**
    * Expert: returns a default Similarity instance.
@@ -245,6 +253,30 @@ public class IndexSearcher {
     return queryCache;
   }
 
+  /**
+   * Set the {@link SegmentTopDocsCache} to use for sorted searches that do
+   * not need scores. The same cache instance should be set on all searchers
+   * that are opened on successive point-in-time views of an index, so that
+   * only segments that changed need to be searched again. A value of
+   * {@code null}, the default, indicates that top hits should never be cached.
+   * This method should be called <b>before</b> starting using this
+   * {@link IndexSearcher}.
+   * @see SegmentTopDocsCache
+   * @lucene.experimental
+   */
+  public void setTopDocsCache(SegmentTopDocsCache topDocsCache) {
+    this.topDocsCache = topDocsCache;
+  }
+
+  /**
+   * Return the top docs cache of this {@link IndexSearcher}, or {@code null}
+   * if top hits are not cached.
+   * @lucene.experimental
+   */
+  public SegmentTopDocsCache getTopDocsCache() {
+    return topDocsCache;
+  }
+
   /**
    * Set the {@link QueryCachingPolicy} to use for query caching.
    * This method should be called <b>before</b> starting using this
@@ -278,6 +310,40 @@ public class IndexSearcher {
     }
     return slices;
   }
+
+  /**
+   * Expert: Creates an array of leaf slices where each leaf that has more than
+   * {@code maxDocsPerPartition} documents is split into several doc-id ranges
+   * that are searched independently. This allows a single large segment to be
+   * searched by multiple threads. Subclasses may return the result of this method
+   * from {@link #slices(List)} in order to enable intra-segment concurrency.
+   * <p>NOTE: every partition is collected into its own {@link Collector}, so
+   * {@link Collector#getLeafCollector(LeafReaderContext)} may be called several
+   * times for the same leaf, on different collectors and from different threads.
+   *
+   * @lucene.experimental
+   */
+  public static LeafSlice[] partitionedSlices(List<LeafReaderContext> leaves, int maxDocsPerPartition) {
+    if (maxDocsPerPartition <= 0) {
+      throw new IllegalArgumentException("maxDocsPerPartition must be > 0, got " + maxDocsPerPartition);
+    }
+    final List<LeafSlice> slices = new ArrayList<>();
+    for (LeafReaderContext ctx : leaves) {
+      final int maxDoc = ctx.reader().maxDoc();
+      if (maxDoc <= maxDocsPerPartition) {
+        slices.add(new LeafSlice(ctx));
+      } else {
+        // spread documents evenly rather than creating a tiny trailing partition
+        final int numPartitions = (int) ((maxDoc + (long) maxDocsPerPartition - 1) / maxDocsPerPartition);
+        for (int i = 0; i < numPartitions; ++i) {
+          final int minDocId = (int) ((long) maxDoc * i / numPartitions);
+          final int maxDocId = (int) ((long) maxDoc * (i + 1) / numPartitions);
+          slices.add(new LeafSlice(ctx, minDocId, maxDocId));
+        }
+      }
+    }
+    return slices.toArray(new LeafSlice[0]);
+  }
   
   /** Return the {@link IndexReader} this searches. */
   public IndexReader getIndexReader() {
@@ -525,6 +591,15 @@ public class IndexSearcher {
     final int cappedNumHits = Math.min(numHits, limit);
     final Sort rewrittenSort = sort.rewrite(this);
 
+    final SegmentTopDocsCache topDocsCache = this.topDocsCache;
+    if (after == null && topDocsCache != null && rewrittenSort.needsScores() == false) {
+      TopFieldDocs topDocs = topDocsCache.search(this, query, cappedNumHits, rewrittenSort, TOTAL_HITS_THRESHOLD);
+      if (doDocScores) {
+        TopFieldCollector.populateScores(topDocs.scoreDocs, this, query);
+      }
+      return topDocs;
+    }
+
     final CollectorManager<TopFieldCollector, TopFieldDocs> manager = new CollectorManager<TopFieldCollector, TopFieldDocs>() {
 
       @Override
@@ -584,17 +659,30 @@ public class IndexSearcher {
       }
       query = rewrite(query);
       final Weight weight = createWeight(query, scoreMode, 1);
-      final List<Future<C>> topDocsFutures = new ArrayList<>(leafSlices.length);
+      final List<FutureTask<C>> topDocsFutures = new ArrayList<>(leafSlices.length);
       for (int i = 0; i < leafSlices.length; ++i) {
-        final LeafReaderContext[] leaves = leafSlices[i].leaves;
+        final LeafSlice slice = leafSlices[i];
         final C collector = collectors.get(i);
-        topDocsFutures.add(executor.submit(new Callable<C>() {
+        final FutureTask<C> task = new FutureTask<>(new Callable<C>() {
           @Override
           public C call() throws Exception {
-            search(Arrays.asList(leaves), weight, collector);
+            if (slice.isPartition()) {
+              search(slice.leaves[0], slice.minDocId, slice.maxDocId, weight, collector);
+            } else {
+              search(Arrays.asList(slice.leaves), weight, collector);
+            }
             return collector;
           }
-        }));
+        });
+        topDocsFutures.add(task);
+        executor.execute(task);
+      }
+
+      // Rather than waiting idle, the calling thread steals the slices that no
+      // executor thread has picked up yet. Running a task is a no-op if it has
+      // already been started by another thread.
+      for (FutureTask<C> task : topDocsFutures) {
+        task.run();
       }
 
       final List<C> collectedCollectors = new ArrayList<>();
@@ -638,6 +726,10 @@ public class IndexSearcher {
     // threaded...?  the Collector could be sync'd?
     // always use single thread:
     for (LeafReaderContext ctx : leaves) { // search each subreader
+      if (collector instanceof TopFieldCollector && ((TopFieldCollector) collector).collectsInReverse(ctx)) {
+        searchInReverse(ctx, 0, ctx.reader().maxDoc(), weight, (TopFieldCollector) collector);
+        continue;
+      }
       final LeafCollector leafCollector;
       try {
         leafCollector = collector.getLeafCollector(ctx);
@@ -658,6 +750,82 @@ public class IndexSearcher {
     }
   }
 
+  /**
+   * Search the range of doc ids between {@code minDocId} (inclusive) and
+   * {@code maxDocId} (exclusive) of the given leaf.
+   */
+  private void search(LeafReaderContext ctx, int minDocId, int maxDocId, Weight weight, Collector collector)
+      throws IOException {
+    if (collector instanceof TopFieldCollector && ((TopFieldCollector) collector).collectsInReverse(ctx)) {
+      searchInReverse(ctx, minDocId, maxDocId, weight, (TopFieldCollector) collector);
+      return;
+    }
+    final LeafCollector leafCollector;
+    try {
+      leafCollector = collector.getLeafCollector(ctx);
+    } catch (CollectionTerminatedException e) {
+      // there is no doc of interest in this reader context
+      return;
+    }
+    BulkScorer scorer = weight.bulkScorer(ctx);
+    if (scorer != null) {
+      try {
+        scorer.score(leafCollector, ctx.reader().getLiveDocs(), minDocId, maxDocId);
+      } catch (CollectionTerminatedException e) {
+        // collection was terminated prematurely
+      }
+    }
+  }
+
+  /**
+   * Search the range of doc ids between {@code minDocId} (inclusive) and
+   * {@code maxDocId} (exclusive) of a leaf whose index sort is the reverse of
+   * the search sort. The last window of doc IDs, which is expected to contain
+   * enough hits to fill the queue, is collected first. The docs that precede
+   * it are only collected if the collector reports that they may be
+   * competitive. Scorers can only go forward, so this creates at most two
+   * bulk scorers for the leaf.
+   */
+  private void searchInReverse(LeafReaderContext ctx, int minDocId, int maxDocId, Weight weight,
+      TopFieldCollector collector) throws IOException {
+    final Bits liveDocs = ctx.reader().getLiveDocs();
+    BulkScorer scorer = weight.bulkScorer(ctx);
+    if (scorer == null) {
+      return;
+    }
+    // size the window so that it is expected to contain twice as many hits as the queue
+    final long numDocs = (long) maxDocId - minDocId;
+    final long expectedWindowSize = 2L * collector.numHits * numDocs / Math.max(1L, scorer.cost());
+    final int windowSize = (int) Math.min(numDocs, Math.max(MIN_REVERSE_WINDOW_SIZE, expectedWindowSize));
+    final int windowMin = maxDocId - windowSize;
+    if (collectRange(ctx, scorer, collector, liveDocs, windowMin, maxDocId) == false
+        || windowMin == minDocId
+        || collector.canSkipDocsBefore(ctx, windowMin)) {
+      return;
+    }
+    scorer = weight.bulkScorer(ctx);
+    collectRange(ctx, scorer, collector, liveDocs, minDocId, windowMin);
+  }
+
+  /** Collect the given range of doc IDs of a leaf, return false if collection got terminated. */
+  private static boolean collectRange(LeafReaderContext ctx, BulkScorer scorer, Collector collector, Bits liveDocs,
+      int minDocId, int maxDocId) throws IOException {
+    final LeafCollector leafCollector;
+    try {
+      leafCollector = collector.getLeafCollector(ctx);
+    } catch (CollectionTerminatedException e) {
+      // there is no doc of interest in this reader context
+      return false;
+    }
+    try {
+      scorer.score(leafCollector, liveDocs, minDocId, maxDocId);
+    } catch (CollectionTerminatedException e) {
+      // collection was terminated prematurely
+      return false;
+    }
+    return true;
+  }
+
   /** Expert: called to re-write queries into primitive queries.
    * @throws BooleanQuery.TooManyClauses If a query would exceed 
    *         {@link BooleanQuery#getMaxClauseCount()} clauses.
@@ -732,7 +900,8 @@ public class IndexSearcher {
 
   /**
    * A class holding a subset of the {@link IndexSearcher}s leaf contexts to be
-   * executed within a single thread.
+   * executed within a single thread. A slice may also consist of a range of
+   * doc ids of a single leaf, see {@link #partitionedSlices(List, int)}.
    * 
    * @lucene.experimental
    */
@@ -742,9 +911,37 @@ public class IndexSearcher {
      *
      *  @lucene.experimental */
     public final LeafReaderContext[] leaves;
+
+    /** The first doc id (inclusive) to search in the leaf of a partition.
+     *
+     *  @lucene.experimental */
+    public final int minDocId;
+
+    /** The last doc id (exclusive) to search in the leaf of a partition, or
+     *  {@link DocIdSetIterator#NO_MORE_DOCS} if this slice covers entire leaves.
+     *
+     *  @lucene.experimental */
+    public final int maxDocId;
     
     public LeafSlice(LeafReaderContext... leaves) {
       this.leaves = leaves;
+      this.minDocId = 0;
+      this.maxDocId = DocIdSetIterator.NO_MORE_DOCS;
+    }
+
+    /** Create a slice that only searches doc ids in {@code [minDocId, maxDocId)} of {@code leaf}. */
+    public LeafSlice(LeafReaderContext leaf, int minDocId, int maxDocId) {
+      if (minDocId < 0 || minDocId >= maxDocId) {
+        throw new IllegalArgumentException("Invalid doc id range: minDocId=" + minDocId + ", maxDocId=" + maxDocId);
+      }
+      this.leaves = new LeafReaderContext[] { leaf };
+      this.minDocId = minDocId;
+      this.maxDocId = maxDocId;
+    }
+
+    /** Whether this slice only covers a range of doc ids of a single leaf. */
+    boolean isPartition() {
+      return maxDocId != DocIdSetIterator.NO_MORE_DOCS;
     }
   }
 
@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
 
@@ -73,7 +74,9 @@ import org.apache.lucene.util.RoaringDocIdSet;
  * This cache exposes some global statistics ({@link #getHitCount() hit count},
  * {@link #getMissCount() miss count}, {@link #getCacheSize() number of cache
  * entries}, {@link #getCacheCount() total number of DocIdSets that have ever
- * been cached}, {@link #getEvictionCount() number of evicted entries}). In
+ * been cached}, {@link #getEvictionCount() number of evicted entries},
+ * {@link #getLockContentionCount() number of lookups that skipped the cache
+ * because of lock contention}). In
  * case you would like to have more fine-grained statistics, such as per-index
  * or per-query-class statistics, it is possible to override various callbacks:
  * {@link #onHit}, {@link #onMiss},
@@ -83,6 +86,7 @@ import org.apache.lucene.util.RoaringDocIdSet;
  * they are called synchronously and under a lock.
  *
  * @see QueryCachingPolicy
+ * @see ShardedLRUQueryCache
  * @lucene.experimental
  */
 public class LRUQueryCache implements QueryCache, Accountable {
@@ -119,6 +123,8 @@ public class LRUQueryCache implements QueryCache, Accountable {
   private volatile long missCount;
   private volatile long cacheCount;
   private volatile long cacheSize;
+  // incremented without holding the lock
+  private final LongAdder lockContentionCount = new LongAdder();
 
   /**
    * Expert: Create a new instance that will cache at most <code>maxSize</code>
@@ -604,6 +610,19 @@ public class LRUQueryCache implements QueryCache, Accountable {
     return getCacheCount() - getCacheSize();
   }
 
+  /**
+   * Return the number of times that the cache was bypassed because another
+   * thread was holding the lock. These lookups are counted neither as
+   * {@link #getHitCount() hits} nor as {@link #getMissCount() misses}. A high
+   * number compared to the {@link #getTotalCount() total count} indicates that
+   * the cache is heavily contended and might benefit from being split into a
+   * {@link ShardedLRUQueryCache}.
+   * @see #getTotalCount()
+   */
+  public final long getLockContentionCount() {
+    return lockContentionCount.sum();
+  }
+
   // this class is not thread-safe, everything but ramBytesUsed needs to be called under a lock
   private class LeafCache implements Accountable {
 
@@ -735,6 +754,7 @@ public class LRUQueryCache implements QueryCache, Accountable {
 
       // If the lock is already busy, prefer using the uncached version than waiting
       if (lock.tryLock() == false) {
+        lockContentionCount.increment();
         return in.scorerSupplier(context);
       }
 
@@ -816,6 +836,7 @@ public class LRUQueryCache implements QueryCache, Accountable {
 
       // If the lock is already busy, prefer using the uncached version than waiting
       if (lock.tryLock() == false) {
+        lockContentionCount.increment();
         return in.bulkScorer(context);
       }
 
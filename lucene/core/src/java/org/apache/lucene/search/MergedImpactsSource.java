@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.lucene.index.Impact;
+import org.apache.lucene.index.Impacts;
+import org.apache.lucene.index.ImpactsEnum;
+import org.apache.lucene.index.ImpactsSource;
+import org.apache.lucene.util.PriorityQueue;
+
+/**
+ * An {@link ImpactsSource} that merges the impacts of multiple terms whose
+ * frequencies get summed up at scoring time, such as synonyms. This allows
+ * queries that score several terms as a single pseudo term to skip blocks of
+ * documents that can't be competitive, by wrapping their disjunction into an
+ * {@link ImpactsDISI}.
+ * <p>
+ * The frequencies of each term may be multiplied by a weight which must be
+ * greater than or equal to 1. For each norm value, the merged impacts
+ * upper-bound the weighted sum of the frequencies of all terms. This assumes
+ * that the norm of a document is greater than or equal to the norm it has for
+ * each of the merged terms, which holds when all terms come from the same field.
+ *
+ * @lucene.internal
+ */
+public final class MergedImpactsSource implements ImpactsSource {
+
+  private final ImpactsEnum[] impactsEnums;
+  private final float[] weights;
+
+  /**
+   * Merge impacts of the given terms, which all have a weight of 1.
+   */
+  public MergedImpactsSource(ImpactsEnum[] impactsEnums) {
+    this(impactsEnums, null);
+  }
+
+  /**
+   * Merge impacts of the given terms, the frequencies of {@code impactsEnums[i]}
+   * being multiplied by {@code weights[i]}. {@code weights} may be {@code null}
+   * if all terms have a weight of 1.
+   */
+  public MergedImpactsSource(ImpactsEnum[] impactsEnums, float[] weights) {
+    if (weights != null) {
+      if (weights.length != impactsEnums.length) {
+        throw new IllegalArgumentException("Got " + impactsEnums.length + " impacts but " + weights.length + " weights");
+      }
+      for (float weight : weights) {
+        if ((weight >= 1) == false) {
+          throw new IllegalArgumentException("weights must be greater than or equal to 1, got " + weight);
+        }
+      }
+    }
+    this.impactsEnums = impactsEnums.clone();
+    this.weights = weights == null ? null : weights.clone();
+  }
+
+  private float weight(int i) {
+    return weights == null ? 1f : weights[i];
+  }
+
+  private static int weightedFreq(double freq) {
+    return (int) Math.min(Integer.MAX_VALUE, Math.ceil(freq));
+  }
+
+  private static class SubIterator {
+    final Iterator<Impact> iterator;
+    final float weight;
+    int previousFreq;
+    Impact current;
+
+    SubIterator(Iterator<Impact> iterator, float weight) {
+      this.iterator = iterator;
+      this.weight = weight;
+      this.current = iterator.next();
+    }
+
+    void next() {
+      previousFreq = current.freq;
+      if (iterator.hasNext() == false) {
+        current = null;
+      } else {
+        current = iterator.next();
+      }
+    }
+
+  }
+
+  @Override
+  public Impacts getImpacts() throws IOException {
+    final Impacts[] impacts = new Impacts[impactsEnums.length];
+    // Use the impacts that have the lower next boundary as a lead.
+    // It will decide on the number of levels and the block boundaries.
+    Impacts tmpLead = null;
+    for (int i = 0; i < impactsEnums.length; ++i) {
+      impacts[i] = impactsEnums[i].getImpacts();
+      if (tmpLead == null || impacts[i].getDocIdUpTo(0) < tmpLead.getDocIdUpTo(0)) {
+        tmpLead = impacts[i];
+      }
+    }
+    final Impacts lead = tmpLead;
+    return new Impacts() {
+
+      @Override
+      public int numLevels() {
+        // Delegate to the lead
+        return lead.numLevels();
+      }
+
+      @Override
+      public int getDocIdUpTo(int level) {
+        // Delegate to the lead
+        return lead.getDocIdUpTo(level);
+      }
+
+      /**
+       * Return the minimum level whose impacts are valid up to {@code docIdUpTo},
+       * or {@code -1} if there is no such level.
+       */
+      private int getLevel(Impacts impacts, int docIdUpTo) {
+        for (int level = 0, numLevels = impacts.numLevels(); level < numLevels; ++level) {
+          if (impacts.getDocIdUpTo(level) >= docIdUpTo) {
+            return level;
+          }
+        }
+        return -1;
+      }
+
+      @Override
+      public List<Impact> getImpacts(int level) {
+        final int docIdUpTo = getDocIdUpTo(level);
+
+        List<List<Impact>> toMerge = new ArrayList<>();
+        List<Float> toMergeWeights = new ArrayList<>();
+
+        for (int i = 0; i < impactsEnums.length; ++i) {
+          if (impactsEnums[i].docID() <= docIdUpTo) {
+            int impactsLevel = getLevel(impacts[i], docIdUpTo);
+            if (impactsLevel == -1) {
+              // One instance doesn't have impacts that cover up to docIdUpTo
+              // Return impacts that trigger the maximum score
+              return Collections.singletonList(new Impact(Integer.MAX_VALUE, 1L));
+            }
+            toMerge.add(impacts[i].getImpacts(impactsLevel));
+            toMergeWeights.add(weight(i));
+          }
+        }
+        assert toMerge.size() > 0; // otherwise it would mean the docID is > docIdUpTo, which is wrong
+
+        if (toMerge.size() == 1) {
+          // common if one synonym is common and the other one is rare
+          final float weight = toMergeWeights.get(0);
+          if (weight == 1f) {
+            return toMerge.get(0);
+          }
+          List<Impact> weightedImpacts = new ArrayList<>(toMerge.get(0).size());
+          for (Impact impact : toMerge.get(0)) {
+            weightedImpacts.add(new Impact(weightedFreq((double) weight * impact.freq), impact.norm));
+          }
+          return weightedImpacts;
+        }
+
+        PriorityQueue<SubIterator> pq = new PriorityQueue<SubIterator>(impacts.length) {
+          @Override
+          protected boolean lessThan(SubIterator a, SubIterator b) {
+            if (a.current == null) { // means iteration is finished
+              return false;
+            }
+            if (b.current == null) {
+              return true;
+            }
+            return Long.compareUnsigned(a.current.norm, b.current.norm) < 0;
+          }
+        };
+        for (int i = 0; i < toMerge.size(); ++i) {
+          pq.add(new SubIterator(toMerge.get(i).iterator(), toMergeWeights.get(i)));
+        }
+
+        List<Impact> mergedImpacts = new ArrayList<>();
+
+        // Idea: merge impacts by norm. The tricky thing is that we need to
+        // consider norm values that are not in the impacts too. For
+        // instance if the list of impacts is [{freq=2,norm=10}, {freq=4,norm=12}],
+        // there might well be a document that has a freq of 2 and a length of 11,
+        // which was just not added to the list of impacts because {freq=2,norm=10}
+        // is more competitive. So the way it works is that we track the sum of
+        // the term freqs that we have seen so far in order to account for these
+        // implicit impacts.
+
+        double sumTf = 0;
+        SubIterator top = pq.top();
+        do {
+          final long norm = top.current.norm;
+          do {
+            sumTf += (double) top.weight * (top.current.freq - top.previousFreq);
+            top.next();
+            top = pq.updateTop();
+          } while (top.current != null && top.current.norm == norm);
+
+          final int freqUpperBound = weightedFreq(sumTf);
+          if (mergedImpacts.isEmpty()) {
+            mergedImpacts.add(new Impact(freqUpperBound, norm));
+          } else {
+            Impact prevImpact = mergedImpacts.get(mergedImpacts.size() - 1);
+            assert Long.compareUnsigned(prevImpact.norm, norm) < 0;
+            if (freqUpperBound > prevImpact.freq) {
+              mergedImpacts.add(new Impact(freqUpperBound, norm));
+            } // otherwise the previous impact is already more competitive
+          }
+        } while (top.current != null);
+
+        return mergedImpacts;
+      }
+    };
+  }
+
+  @Override
+  public void advanceShallow(int target) throws IOException {
+    for (ImpactsEnum impactsEnum : impactsEnums) {
+      if (impactsEnum.docID() < target) {
+        impactsEnum.advanceShallow(target);
+      }
+    }
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+
+/**
+ * A cache for the top hits of sorted queries on individual segments.
+ * <p>
+ * Searches that go through this cache compute the top hits of every segment
+ * independently and merge them with {@link TopDocs#merge(Sort, int, int, TopFieldDocs[], boolean)}.
+ * The top hits of a segment are cached by its
+ * {@link IndexReader#getReaderCacheHelper() reader cache key}, the rewritten
+ * query, the sort and the number of hits, so that when a searcher is reopened,
+ * only segments that are new or that have new deletions need to be searched
+ * again. Entries are evicted in LRU order when the cache holds more than
+ * {@code maxSize} per-segment results, and as soon as their segment is closed.
+ * <p>
+ * Only sorts that do not {@link Sort#needsScores() need scores} are cached,
+ * since scores depend on index-wide statistics that change whenever segments
+ * are added or removed. Segments on which the weight is not
+ * {@link SegmentCacheable#isCacheable(LeafReaderContext) cacheable} are
+ * always searched.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @see IndexSearcher#setTopDocsCache(SegmentTopDocsCache)
+ * @lucene.experimental
+ */
+public class SegmentTopDocsCache {
+
+  private final int maxSize;
+  // in access order so that the eldest entry is the least recently used one
+  private final Map<Key, LeafTopDocs> cache;
+  // reader keys that we registered a closed listener on
+  private final Set<IndexReader.CacheKey> readerKeys;
+
+  // these variables are volatile so that we do not need to sync reads
+  // but increments need to be performed under the lock
+  private volatile long hitCount;
+  private volatile long missCount;
+
+  /**
+   * Create a new instance that will cache the top hits of at most
+   * <code>maxSize</code> (query, sort, segment) combinations.
+   */
+  public SegmentTopDocsCache(int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be >= 1, got " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.cache = new LinkedHashMap<>(16, 0.75f, true);
+    this.readerKeys = new HashSet<>();
+  }
+
+  /**
+   * Return the top <code>n</code> hits of <code>query</code> sorted by
+   * <code>sort</code>, reusing the cached top hits of segments that have
+   * already been searched with the same query and sort. Sort field values are
+   * filled but scores are not computed.
+   * <p>
+   * This is typically called by {@link IndexSearcher} if this cache has been
+   * {@link IndexSearcher#setTopDocsCache(SegmentTopDocsCache) configured}
+   * on it.
+   *
+   * @throws IllegalArgumentException if the sort needs scores
+   */
+  public TopFieldDocs search(IndexSearcher searcher, Query query, int n, Sort sort,
+      int totalHitsThreshold) throws IOException {
+    if (sort.needsScores()) {
+      throw new IllegalArgumentException("Sorts that need scores can't be cached, got " + sort);
+    }
+    query = searcher.rewrite(query);
+    sort = sort.rewrite(searcher);
+    final int numHits = Math.min(n, Math.max(1, searcher.getIndexReader().maxDoc()));
+    final ScoreMode scoreMode = TopFieldCollector.create(sort, numHits, totalHitsThreshold).scoreMode();
+    final Weight weight = searcher.createWeight(query, scoreMode, 1);
+
+    final TopFieldDocs[] leafTopDocs = new TopFieldDocs[searcher.leafContexts.size()];
+    for (int i = 0; i < leafTopDocs.length; ++i) {
+      final LeafReaderContext context = searcher.leafContexts.get(i);
+      final IndexReader.CacheHelper cacheHelper = context.reader().getReaderCacheHelper();
+      // the top hits of a segment are the same for any number of hits >= maxDoc
+      final int leafNumHits = Math.min(numHits, Math.max(1, context.reader().maxDoc()));
+      LeafTopDocs topDocs;
+      if (cacheHelper == null || weight.isCacheable(context) == false) {
+        topDocs = searchLeaf(searcher, context, weight, leafNumHits, sort, totalHitsThreshold);
+      } else {
+        final Key key = new Key(cacheHelper.getKey(), query, sort, leafNumHits, totalHitsThreshold);
+        topDocs = get(key);
+        if (topDocs == null) {
+          topDocs = searchLeaf(searcher, context, weight, leafNumHits, sort, totalHitsThreshold);
+          put(key, cacheHelper, topDocs);
+        }
+      }
+      leafTopDocs[i] = topDocs.toTopFieldDocs(context.docBase, sort);
+    }
+    return TopDocs.merge(sort, 0, numHits, leafTopDocs, true);
+  }
+
+  private static LeafTopDocs searchLeaf(IndexSearcher searcher, LeafReaderContext context, Weight weight,
+      int numHits, Sort sort, int totalHitsThreshold) throws IOException {
+    final TopFieldCollector collector = TopFieldCollector.create(sort, numHits, totalHitsThreshold);
+    searcher.search(Collections.singletonList(context), weight, collector);
+    final TopFieldDocs topDocs = collector.topDocs();
+    final FieldDoc[] hits = new FieldDoc[topDocs.scoreDocs.length];
+    for (int i = 0; i < hits.length; ++i) {
+      final FieldDoc hit = (FieldDoc) topDocs.scoreDocs[i];
+      // store segment-local doc IDs, the doc base may change on reopen
+      hits[i] = new FieldDoc(hit.doc - context.docBase, hit.score, hit.fields);
+    }
+    return new LeafTopDocs(topDocs.totalHits, hits);
+  }
+
+  private synchronized LeafTopDocs get(Key key) {
+    final LeafTopDocs topDocs = cache.get(key);
+    if (topDocs == null) {
+      missCount += 1;
+    } else {
+      hitCount += 1;
+    }
+    return topDocs;
+  }
+
+  private synchronized void put(Key key, IndexReader.CacheHelper cacheHelper, LeafTopDocs topDocs) {
+    if (readerKeys.add(key.readerKey)) {
+      cacheHelper.addClosedListener(this::clearReaderKey);
+    }
+    cache.put(key, topDocs);
+    if (cache.size() > maxSize) {
+      final Iterator<Key> iterator = cache.keySet().iterator();
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Remove all cache entries for the given reader cache key.
+   */
+  public synchronized void clearReaderKey(IndexReader.CacheKey readerKey) {
+    if (readerKeys.remove(readerKey)) {
+      cache.keySet().removeIf(key -> key.readerKey == readerKey);
+    }
+  }
+
+  /**
+   * Clear the content of this cache.
+   */
+  public synchronized void clear() {
+    cache.clear();
+    readerKeys.clear();
+  }
+
+  /**
+   * Return the number of per-segment results that are currently cached.
+   */
+  public synchronized int getCacheSize() {
+    return cache.size();
+  }
+
+  /**
+   * Over the lifetime of this cache, the number of times that the top hits
+   * of a segment could be reused.
+   */
+  public final long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Over the lifetime of this cache, the number of times that a cacheable
+   * segment had to be searched.
+   */
+  public final long getMissCount() {
+    return missCount;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(maxSize=" + maxSize + ")";
+  }
+
+  private static class Key {
+
+    final IndexReader.CacheKey readerKey;
+    final Query query;
+    final Sort sort;
+    final int numHits;
+    final int totalHitsThreshold;
+
+    Key(IndexReader.CacheKey readerKey, Query query, Sort sort, int numHits, int totalHitsThreshold) {
+      this.readerKey = readerKey;
+      this.query = query;
+      this.sort = sort;
+      this.numHits = numHits;
+      this.totalHitsThreshold = totalHitsThreshold;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == null || obj.getClass() != getClass()) {
+        return false;
+      }
+      final Key that = (Key) obj;
+      return readerKey == that.readerKey
+          && numHits == that.numHits
+          && totalHitsThreshold == that.totalHitsThreshold
+          && query.equals(that.query)
+          && sort.equals(that.sort);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(readerKey, query, sort, numHits, totalHitsThreshold);
+    }
+  }
+
+  private static class LeafTopDocs {
+
+    final TotalHits totalHits;
+    final FieldDoc[] hits; // with segment-local doc IDs
+
+    LeafTopDocs(TotalHits totalHits, FieldDoc[] hits) {
+      this.totalHits = totalHits;
+      this.hits = hits;
+    }
+
+    TopFieldDocs toTopFieldDocs(int docBase, Sort sort) {
+      // return new FieldDoc instances since merging sets their shard index
+      final FieldDoc[] rebased = new FieldDoc[hits.length];
+      for (int i = 0; i < hits.length; ++i) {
+        rebased[i] = new FieldDoc(docBase + hits[i].doc, hits[i].score, hits[i].fields);
+      }
+      return new TopFieldDocs(totalHits, rebased, sort.getSort());
+    }
+  }
+}
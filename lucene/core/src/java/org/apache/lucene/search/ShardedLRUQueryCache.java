@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
+
+/**
+ * A {@link QueryCache} that partitions queries across several independent
+ * {@link LRUQueryCache} shards based on their hash code. Each shard has its own
+ * lock, so that concurrent lookups of different queries rarely contend with
+ * each other, which in turn reduces the number of lookups that need to
+ * bypass the cache because of a busy lock.
+ *
+ * The maximum number of cached queries and the maximum amount of memory are
+ * evenly split across shards, so that the cache as a whole never exceeds
+ * them. Note that a segment is only eligible for caching if its worst-case
+ * cache entry is small compared to the budget of a <b>single</b> shard, so
+ * the number of shards should be kept small relatively to the configured
+ * maximum memory usage.
+ *
+ * This class is thread-safe.
+ *
+ * @see LRUQueryCache
+ * @lucene.experimental
+ */
+public class ShardedLRUQueryCache implements QueryCache, Accountable {
+
+  private final LRUQueryCache[] shards;
+
+  /**
+   * Expert: Create a new instance that will cache at most <code>maxSize</code>
+   * queries with at most <code>maxRamBytesUsed</code> bytes of memory across
+   * <code>numShards</code> shards, only on leaves that satisfy
+   * {@code leavesToCache}.
+   */
+  public ShardedLRUQueryCache(int numShards, int maxSize, long maxRamBytesUsed,
+      Predicate<LeafReaderContext> leavesToCache) {
+    if (numShards < 1) {
+      throw new IllegalArgumentException("numShards must be >= 1, got " + numShards);
+    }
+    if (maxSize < numShards) {
+      throw new IllegalArgumentException("maxSize must be >= numShards, got maxSize=" + maxSize + ", numShards=" + numShards);
+    }
+    shards = new LRUQueryCache[numShards];
+    for (int i = 0; i < numShards; ++i) {
+      // distribute the remainder so that the sum of the shard limits equals the global limits
+      final int shardMaxSize = maxSize / numShards + (i < maxSize % numShards ? 1 : 0);
+      final long shardMaxRamBytesUsed = maxRamBytesUsed / numShards + (i < maxRamBytesUsed % numShards ? 1 : 0);
+      shards[i] = newShard(shardMaxSize, shardMaxRamBytesUsed, leavesToCache);
+    }
+  }
+
+  /**
+   * Create a new instance that will cache at most <code>maxSize</code> queries
+   * with at most <code>maxRamBytesUsed</code> bytes of memory across
+   * <code>numShards</code> shards. Queries will only be cached on leaves that
+   * have more than 10k documents and have more than 3% of the total number of
+   * documents in the index.
+   * @see LRUQueryCache#LRUQueryCache(int, long)
+   */
+  public ShardedLRUQueryCache(int numShards, int maxSize, long maxRamBytesUsed) {
+    this(numShards, maxSize, maxRamBytesUsed, new LRUQueryCache.MinSegmentSizePredicate(10000, .03f));
+  }
+
+  /**
+   * Expert: Create the cache for a single shard. This may be overridden in
+   * order to return a {@link LRUQueryCache} sub-class that overrides
+   * callbacks such as {@link LRUQueryCache#onHit} in order to compute more
+   * fine-grained statistics.
+   * @lucene.experimental
+   */
+  protected LRUQueryCache newShard(int maxSize, long maxRamBytesUsed, Predicate<LeafReaderContext> leavesToCache) {
+    return new LRUQueryCache(maxSize, maxRamBytesUsed, leavesToCache);
+  }
+
+  /** Return the shard that is responsible for caching the given query. */
+  LRUQueryCache shard(Query query) {
+    final int hash = query.hashCode();
+    // mix bits since many query hash codes only differ in their low bits
+    return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+  }
+
+  /** Return the shards of this cache. */
+  public List<LRUQueryCache> getShards() {
+    return Collections.unmodifiableList(Arrays.asList(shards));
+  }
+
+  @Override
+  public Weight doCache(Weight weight, QueryCachingPolicy policy) {
+    return shard(weight.getQuery()).doCache(weight, policy);
+  }
+
+  /**
+   * Remove all cache entries for the given core cache key.
+   */
+  public void clearCoreCacheKey(Object coreKey) {
+    for (LRUQueryCache shard : shards) {
+      shard.clearCoreCacheKey(coreKey);
+    }
+  }
+
+  /**
+   * Remove all cache entries for the given query.
+   */
+  public void clearQuery(Query query) {
+    shard(query).clearQuery(query);
+  }
+
+  /**
+   * Clear the content of this cache.
+   */
+  public void clear() {
+    for (LRUQueryCache shard : shards) {
+      shard.clear();
+    }
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    long ramBytesUsed = 0;
+    for (LRUQueryCache shard : shards) {
+      ramBytesUsed += shard.ramBytesUsed();
+    }
+    return ramBytesUsed;
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    final List<Accountable> resources = new ArrayList<>(shards.length);
+    for (int i = 0; i < shards.length; ++i) {
+      resources.add(Accountables.namedAccountable("shard " + i, shards[i]));
+    }
+    return Collections.unmodifiableList(resources);
+  }
+
+  /**
+   * Sum of {@link LRUQueryCache#getTotalCount()} across shards.
+   */
+  public long getTotalCount() {
+    return getHitCount() + getMissCount();
+  }
+
+  /**
+   * Sum of {@link LRUQueryCache#getHitCount()} across shards.
+   */
+  public long getHitCount() {
+    long hitCount = 0;
+    for (LRUQueryCache shard : shards) {
+      hitCount += shard.getHitCount();
+    }
+    return hitCount;
+  }
+
+  /**
+   * Sum of {@link LRUQueryCache#getMissCount()} across shards.
+   */
+  public long getMissCount() {
+    long missCount = 0;
+    for (LRUQueryCache shard : shards) {
+      missCount += shard.getMissCount();
+    }
+    return missCount;
+  }
+
+  /**
+   * Sum of {@link LRUQueryCache#getCacheSize()} across shards.
+   */
+  public long getCacheSize() {
+    long cacheSize = 0;
+    for (LRUQueryCache shard : shards) {
+      cacheSize += shard.getCacheSize();
+    }
+    return cacheSize;
+  }
+
+  /**
+   * Sum of {@link LRUQueryCache#getCacheCount()} across shards.
+   */
+  public long getCacheCount() {
+    long cacheCount = 0;
+    for (LRUQueryCache shard : shards) {
+      cacheCount += shard.getCacheCount();
+    }
+    return cacheCount;
+  }
+
+  /**
+   * Sum of {@link LRUQueryCache#getEvictionCount()} across shards.
+   */
+  public long getEvictionCount() {
+    return getCacheCount() - getCacheSize();
+  }
+
+  /**
+   * Sum of {@link LRUQueryCache#getLockContentionCount()} across shards.
+   */
+  public long getLockContentionCount() {
+    long lockContentionCount = 0;
+    for (LRUQueryCache shard : shards) {
+      lockContentionCount += shard.getLockContentionCount();
+    }
+    return lockContentionCount;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(numShards=" + shards.length + ")";
+  }
+}
@@ -21,12 +21,17 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.FieldValueHitQueue.Entry;
 import org.apache.lucene.search.TotalHits.Relation;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.FutureObjects;
+import org.apache.lucene.util.NumericUtils;
 
 /**
  * A {@link Collector} that sorts by {@link SortField} using
@@ -44,13 +49,27 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
   // always compare lower than a real hit; this would
   // save having to check queueFull on each insert
 
-  private static abstract class MultiComparatorLeafCollector implements LeafCollector {
+  /** A {@link LeafCollector} that can compare docs with the bottom of the queue on a prefix of the sort. */
+  private interface PrefixLeafCollector extends LeafCollector {
+
+    /**
+     * Return whether the given doc sorts strictly after the bottom of the
+     * queue on the leading sort fields that the segment is sorted on. If so,
+     * all docs that come after it in index order are not competitive either.
+     */
+    boolean isPrefixNonCompetitive(int doc) throws IOException;
+  }
+
+  private static abstract class MultiComparatorLeafCollector implements PrefixLeafCollector {
 
     final LeafFieldComparator comparator;
     final int reverseMul;
+    // compares on the leading sort fields that the segment is sorted on, or null
+    final LeafFieldComparator prefixComparator;
+    final int prefixReverseMul;
     Scorable scorer;
 
-    MultiComparatorLeafCollector(LeafFieldComparator[] comparators, int[] reverseMul) {
+    MultiComparatorLeafCollector(LeafFieldComparator[] comparators, int[] reverseMul, int prefixLength) {
       if (comparators.length == 1) {
         this.reverseMul = reverseMul[0];
         this.comparator = comparators[0];
@@ -58,6 +77,25 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
         this.reverseMul = 1;
         this.comparator = new MultiLeafFieldComparator(comparators, reverseMul);
       }
+      if (prefixLength == 0) {
+        this.prefixReverseMul = 1;
+        this.prefixComparator = null;
+      } else if (prefixLength == comparators.length) {
+        this.prefixReverseMul = this.reverseMul;
+        this.prefixComparator = this.comparator;
+      } else if (prefixLength == 1) {
+        this.prefixReverseMul = reverseMul[0];
+        this.prefixComparator = comparators[0];
+      } else {
+        this.prefixReverseMul = 1;
+        this.prefixComparator = new MultiLeafFieldComparator(
+            Arrays.copyOf(comparators, prefixLength), Arrays.copyOf(reverseMul, prefixLength));
+      }
+    }
+
+    @Override
+    public final boolean isPrefixNonCompetitive(int doc) throws IOException {
+      return prefixComparator != null && prefixReverseMul * prefixComparator.compareBottom(doc) < 0;
     }
 
     @Override
@@ -91,18 +129,98 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     }
   }
 
+  /**
+   * Return whether collecting the top hits by {@code searchSort} may stop
+   * before all matches of a segment that is sorted by {@code indexSort} have
+   * been visited. This is the case when {@code searchSort} starts with the
+   * increasing doc ID order, or when its leading fields are the same as, or
+   * the reverse of, the leading fields of {@code indexSort}. Early termination only happens if the collector's
+   * {@code totalHitsThreshold} is reached, and collecting segments in reverse
+   * order requires the collector to not be wrapped.
+   */
+  public static boolean canSkipNonCompetitiveHits(Sort searchSort, Sort indexSort) {
+    return canEarlyTerminateOnDocId(searchSort)
+        || sortedPrefixLength(searchSort, indexSort) > 0
+        || reverseSortedPrefixLength(searchSort, indexSort) > 0;
+  }
+
+  /**
+   * Return the number of leading fields of {@code searchSort} that are equal
+   * to the leading fields of {@code indexSort}. Once a doc sorts strictly
+   * after the bottom of the queue on these fields, all docs that follow it in
+   * the segment can be skipped.
+   */
+  static int sortedPrefixLength(Sort searchSort, Sort indexSort) {
+    if (indexSort == null) {
+      return 0;
+    }
+    final SortField[] fields1 = searchSort.getSort();
+    final SortField[] fields2 = indexSort.getSort();
+    int i = 0;
+    while (i < fields1.length && i < fields2.length && fields1[i].equals(fields2[i])) {
+      ++i;
+    }
+    return i;
+  }
+
+  /**
+   * Return the number of leading fields of {@code searchSort} that are the
+   * reverse of the leading fields of {@code indexSort}. Such segments are best
+   * collected from their last doc ID to their first one.
+   */
+  static int reverseSortedPrefixLength(Sort searchSort, Sort indexSort) {
+    if (indexSort == null) {
+      return 0;
+    }
+    final SortField[] fields1 = searchSort.getSort();
+    final SortField[] fields2 = indexSort.getSort();
+    int i = 0;
+    while (i < fields1.length && i < fields2.length && isReverseOf(fields1[i], fields2[i])) {
+      ++i;
+    }
+    return i;
+  }
+
+  private static boolean isReverseOf(SortField searchField, SortField indexField) {
+    if (searchField.getClass() != indexField.getClass()
+        || searchField.getReverse() == indexField.getReverse()
+        || Objects.equals(searchField.getField(), indexField.getField()) == false
+        || searchField.getType() != indexField.getType()
+        || Objects.equals(searchField.getMissingValue(), indexField.getMissingValue()) == false) {
+      return false;
+    }
+    if (searchField instanceof SortedNumericSortField) {
+      final SortedNumericSortField field1 = (SortedNumericSortField) searchField;
+      final SortedNumericSortField field2 = (SortedNumericSortField) indexField;
+      return field1.getSelector() == field2.getSelector() && field1.getNumericType() == field2.getNumericType();
+    } else if (searchField instanceof SortedSetSortField) {
+      return ((SortedSetSortField) searchField).getSelector() == ((SortedSetSortField) indexField).getSelector();
+    } else if (searchField.getClass() == SortField.class) {
+      switch (searchField.getType()) {
+        case STRING:
+        case INT:
+        case LONG:
+        case FLOAT:
+        case DOUBLE:
+          return true;
+        default:
+          return false;
+      }
+    } else {
+      return false;
+    }
+  }
+
   /*
    * Implements a TopFieldCollector over one SortField criteria, with tracking
    * document scores and maxScore.
    */
   private static class SimpleFieldCollector extends TopFieldCollector {
 
-    final Sort sort;
     final FieldValueHitQueue<Entry> queue;
 
     public SimpleFieldCollector(Sort sort, FieldValueHitQueue<Entry> queue, int numHits, int totalHitsThreshold) {
-      super(queue, numHits, totalHitsThreshold, sort.needsScores());
-      this.sort = sort;
+      super(sort, queue, numHits, totalHitsThreshold);
       this.queue = queue;
     }
 
@@ -114,8 +232,11 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       final int[] reverseMul = queue.getReverseMul();
       final Sort indexSort = context.reader().getMetaData().getSort();
       final boolean canEarlyTerminate = canEarlyTerminate(sort, indexSort);
+      final boolean collectsInReverse = collectsInReverse(context);
+      final int prefixLength = prefixLength(canEarlyTerminate, collectsInReverse, indexSort);
+      precedingDocsNonCompetitive = false;
 
-      return new MultiComparatorLeafCollector(comparators, reverseMul) {
+      return new MultiComparatorLeafCollector(comparators, reverseMul, prefixLength) {
 
         boolean collectedAllCompetitiveHits = false;
 
@@ -129,12 +250,13 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
         public void collect(int doc) throws IOException {
           ++totalHits;
           if (queueFull) {
-            if (collectedAllCompetitiveHits || reverseMul * comparator.compareBottom(doc) <= 0) {
-              // since docs are visited in doc Id order, if compare is 0, it means
-              // this document is largest than anything else in the queue, and
-              // therefore not competitive.
-              if (canEarlyTerminate) {
-                if (totalHits > totalHitsThreshold) {
+            if (collectedAllCompetitiveHits || isNonCompetitive(reverseMul * comparator.compareBottom(doc), doc)) {
+              if (canEarlyTerminate || isPrefixNonCompetitive(doc)) {
+                if (collectsInReverse) {
+                  // docs that come before this one in the segment are not
+                  // competitive, but docs that come after it might be
+                  precedingDocsNonCompetitive = true;
+                } else if (totalHits > totalHitsThreshold) {
                   totalHitsRelation = Relation.GREATER_THAN_OR_EQUAL_TO;
                   throw new CollectionTerminatedException();
                 } else {
@@ -177,7 +299,6 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
    */
   private final static class PagingFieldCollector extends TopFieldCollector {
 
-    final Sort sort;
     int collectedHits;
     final FieldValueHitQueue<Entry> queue;
     final FieldDoc after;
@@ -185,8 +306,7 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
 
     public PagingFieldCollector(Sort sort, FieldValueHitQueue<Entry> queue, FieldDoc after, int numHits,
                                 int totalHitsThreshold) {
-      super(queue, numHits, totalHitsThreshold, sort.needsScores());
-      this.sort = sort;
+      super(sort, queue, numHits, totalHitsThreshold);
       this.queue = queue;
       this.after = after;
       this.totalHitsThreshold = totalHitsThreshold;
@@ -206,7 +326,10 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       final int afterDoc = after.doc - docBase;
       final Sort indexSort = context.reader().getMetaData().getSort();
       final boolean canEarlyTerminate = canEarlyTerminate(sort, indexSort);
-      return new MultiComparatorLeafCollector(queue.getComparators(context), queue.getReverseMul()) {
+      final boolean collectsInReverse = collectsInReverse(context);
+      final int prefixLength = prefixLength(canEarlyTerminate, collectsInReverse, indexSort);
+      precedingDocsNonCompetitive = false;
+      return new MultiComparatorLeafCollector(queue.getComparators(context), queue.getReverseMul(), prefixLength) {
 
         boolean collectedAllCompetitiveHits = false;
 
@@ -225,12 +348,13 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
           if (queueFull) {
             // Fastmatch: return if this hit is no better than
             // the worst hit currently in the queue:
-            if (collectedAllCompetitiveHits || reverseMul * comparator.compareBottom(doc) <= 0) {
-              // since docs are visited in doc Id order, if compare is 0, it means
-              // this document is largest than anything else in the queue, and
-              // therefore not competitive.
-              if (canEarlyTerminate) {
-                if (totalHits > totalHitsThreshold) {
+            if (collectedAllCompetitiveHits || isNonCompetitive(reverseMul * comparator.compareBottom(doc), doc)) {
+              if (canEarlyTerminate || isPrefixNonCompetitive(doc)) {
+                if (collectsInReverse) {
+                  // docs that come before this one in the segment are not
+                  // competitive, but docs that come after it might be
+                  precedingDocsNonCompetitive = true;
+                } else if (totalHits > totalHitsThreshold) {
                   totalHitsRelation = Relation.GREATER_THAN_OR_EQUAL_TO;
                   throw new CollectionTerminatedException();
                 } else {
@@ -279,8 +403,361 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
 
   }
 
+  /*
+   * Implements a TopFieldCollector over up to 3 sort fields that are numeric,
+   * the score or the doc ID, with or without paging. Instead of going through
+   * a FieldComparator per field and an Entry per hit, sort values are encoded
+   * as longs that compare like the hits they belong to, and the keys of all
+   * hits are stored next to each other in a long[] that is used as a heap.
+   */
+  private static final class PackedFieldCollector extends TopFieldCollector {
+
+    static final int MAX_FIELDS = 3;
+
+    static boolean canCollect(Sort sort, int numHits) {
+      final SortField[] fields = sort.getSort();
+      if (fields.length > MAX_FIELDS || (long) numHits * (fields.length + 1) > ArrayUtil.MAX_ARRAY_LENGTH) {
+        return false;
+      }
+      for (SortField field : fields) {
+        // subclasses may change how values are read or compared
+        if (field.getClass() != SortField.class) {
+          return false;
+        }
+        switch (field.getType()) {
+          case SCORE:
+          case DOC:
+          case INT:
+          case LONG:
+          case FLOAT:
+          case DOUBLE:
+            break;
+          default:
+            return false;
+        }
+      }
+      return true;
+    }
+
+    final int numFields;
+    final SortField.Type[] types;
+    final String[] fieldNames;
+    // -1 for reversed fields, so that keys get reversed with a xor
+    final long[] reverseMasks;
+    // keys of docs that have no value for a numeric field
+    final long[] missingKeys;
+    // number of longs per hit: one key per sort field, then the global doc ID
+    final int stride;
+    // binary heap of hits, the hit that sorts last is at the root
+    final long[] heap;
+    int size;
+    // keys of the hit being collected
+    final long[] scratch;
+    // keys of the hit to collect hits after, or null
+    final long[] afterKeys;
+
+    PackedFieldCollector(Sort sort, int numHits, FieldDoc after, int totalHitsThreshold) {
+      // hits are stored in the heap, the queue only provides the sort fields
+      super(sort, FieldValueHitQueue.create(sort.fields, 0), numHits, totalHitsThreshold);
+      final SortField[] fields = sort.getSort();
+      numFields = fields.length;
+      types = new SortField.Type[numFields];
+      fieldNames = new String[numFields];
+      reverseMasks = new long[numFields];
+      missingKeys = new long[numFields];
+      for (int i = 0; i < numFields; ++i) {
+        types[i] = fields[i].getType();
+        fieldNames[i] = fields[i].getField();
+        reverseMasks[i] = fields[i].getReverse() ? -1L : 0L;
+        final Object missingValue = fields[i].getMissingValue();
+        // comparators default to 0 for missing values, whose key is 0 for all numeric types
+        missingKeys[i] = (missingValue == null ? 0L : toKey(types[i], missingValue)) ^ reverseMasks[i];
+      }
+      stride = numFields + 1;
+      heap = new long[numHits * stride];
+      scratch = new long[stride];
+      if (after == null) {
+        afterKeys = null;
+      } else {
+        afterKeys = new long[stride];
+        for (int i = 0; i < numFields; ++i) {
+          afterKeys[i] = toKey(types[i], after.fields[i]) ^ reverseMasks[i];
+        }
+        afterKeys[numFields] = after.doc;
+      }
+    }
+
+    /** Encode a value as returned by {@link FieldComparator#value(int)} into a key. */
+    private static long toKey(SortField.Type type, Object value) {
+      switch (type) {
+        case SCORE:
+          // higher scores sort first
+          return ~(long) NumericUtils.floatToSortableInt((Float) value);
+        case DOC:
+        case INT:
+          return (Integer) value;
+        case LONG:
+          return (Long) value;
+        case FLOAT:
+          return NumericUtils.floatToSortableInt((Float) value);
+        case DOUBLE:
+          return NumericUtils.doubleToSortableLong((Double) value);
+        default:
+          throw new AssertionError();
+      }
+    }
+
+    /** Decode a key into a value as returned by {@link FieldComparator#value(int)}. */
+    private static Object toValue(SortField.Type type, long key) {
+      switch (type) {
+        case SCORE:
+          return NumericUtils.sortableIntToFloat((int) ~key);
+        case DOC:
+        case INT:
+          return (int) key;
+        case LONG:
+          return key;
+        case FLOAT:
+          return NumericUtils.sortableIntToFloat((int) key);
+        case DOUBLE:
+          return NumericUtils.sortableLongToDouble(key);
+        default:
+          throw new AssertionError();
+      }
+    }
+
+    /** Encode a value as stored in {@link NumericDocValues} into a key. */
+    private static long toKey(SortField.Type type, long value) {
+      switch (type) {
+        case INT:
+          return (int) value;
+        case LONG:
+          return value;
+        case FLOAT:
+          return NumericUtils.floatToSortableInt(Float.intBitsToFloat((int) value));
+        case DOUBLE:
+          return NumericUtils.doubleToSortableLong(Double.longBitsToDouble(value));
+        default:
+          throw new AssertionError();
+      }
+    }
+
+    private int compare(long[] a, int aOffset, long[] b, int bOffset) {
+      for (int i = 0; i < stride; ++i) {
+        final int cmp = Long.compare(a[aOffset + i], b[bOffset + i]);
+        if (cmp != 0) {
+          return cmp;
+        }
+      }
+      return 0;
+    }
+
+    /** Add the hit in {@link #scratch} to the heap. */
+    private void add() {
+      int i = size++;
+      while (i > 0) {
+        final int parent = (i - 1) >>> 1;
+        if (compare(scratch, 0, heap, parent * stride) <= 0) {
+          break;
+        }
+        System.arraycopy(heap, parent * stride, heap, i * stride, stride);
+        i = parent;
+      }
+      System.arraycopy(scratch, 0, heap, i * stride, stride);
+    }
+
+    /** Replace the root of the heap with the hit in {@link #scratch}. */
+    private void replaceTop() {
+      int i = 0;
+      while (true) {
+        int child = 2 * i + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && compare(heap, (child + 1) * stride, heap, child * stride) > 0) {
+          child++;
+        }
+        if (compare(heap, child * stride, scratch, 0) <= 0) {
+          break;
+        }
+        System.arraycopy(heap, child * stride, heap, i * stride, stride);
+        i = child;
+      }
+      System.arraycopy(scratch, 0, heap, i * stride, stride);
+    }
+
+    /** Remove the root of the heap. */
+    private void pop() {
+      --size;
+      System.arraycopy(heap, size * stride, scratch, 0, stride);
+      replaceTop();
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+      docBase = context.docBase;
+      final NumericDocValues[] values = new NumericDocValues[numFields];
+      for (int i = 0; i < numFields; ++i) {
+        if (types[i] != SortField.Type.SCORE && types[i] != SortField.Type.DOC) {
+          values[i] = DocValues.getNumeric(context.reader(), fieldNames[i]);
+        }
+      }
+      final Sort indexSort = context.reader().getMetaData().getSort();
+      final boolean canEarlyTerminate = canEarlyTerminate(sort, indexSort);
+      final boolean collectsInReverse = collectsInReverse(context);
+      final int prefixLength = prefixLength(canEarlyTerminate, collectsInReverse, indexSort);
+      precedingDocsNonCompetitive = false;
+
+      return new PrefixLeafCollector() {
+
+        Scorable scorer;
+        int scoreDoc = -1;
+        float score;
+        boolean collectedAllCompetitiveHits = false;
+
+        @Override
+        public void setScorer(Scorable scorer) throws IOException {
+          this.scorer = scorer;
+          updateMinCompetitiveScore(scorer);
+        }
+
+        private long key(int field, int doc) throws IOException {
+          final long key;
+          switch (types[field]) {
+            case SCORE:
+              if (scoreDoc != doc) {
+                score = scorer.score();
+                assert !Float.isNaN(score);
+                scoreDoc = doc;
+              }
+              key = ~(long) NumericUtils.floatToSortableInt(score);
+              break;
+            case DOC:
+              key = docBase + doc;
+              break;
+            default:
+              if (values[field].advanceExact(doc) == false) {
+                return missingKeys[field];
+              }
+              key = toKey(types[field], values[field].longValue());
+              break;
+          }
+          return key ^ reverseMasks[field];
+        }
+
+        @Override
+        public boolean isPrefixNonCompetitive(int doc) throws IOException {
+          int cmp = 0;
+          for (int i = 0; cmp == 0 && i < prefixLength; ++i) {
+            cmp = Long.compare(key(i, doc), heap[i]);
+          }
+          return cmp > 0;
+        }
+
+        @Override
+        public void collect(int doc) throws IOException {
+          ++totalHits;
+          scratch[numFields] = docBase + doc;
+          // keys are computed lazily, only as far as needed to compare with the bottom
+          int numKeys = 0;
+
+          if (queueFull) {
+            int cmp = 0;
+            boolean prefixNonCompetitive = false;
+            if (collectedAllCompetitiveHits == false) {
+              while (cmp == 0 && numKeys < numFields) {
+                scratch[numKeys] = key(numKeys, doc);
+                cmp = Long.compare(scratch[numKeys], heap[numKeys]);
+                numKeys++;
+              }
+              // whether the doc sorts after the bottom on the leading fields the segment is sorted on
+              prefixNonCompetitive = cmp > 0 && numKeys <= prefixLength;
+              if (cmp == 0) {
+                cmp = Long.compare(scratch[numFields], heap[numFields]);
+              }
+            }
+            if (collectedAllCompetitiveHits || cmp > 0) {
+              if (canEarlyTerminate || prefixNonCompetitive) {
+                if (collectsInReverse) {
+                  // docs that come before this one in the segment are not
+                  // competitive, but docs that come after it might be
+                  precedingDocsNonCompetitive = true;
+                } else if (totalHits > totalHitsThreshold) {
+                  totalHitsRelation = Relation.GREATER_THAN_OR_EQUAL_TO;
+                  throw new CollectionTerminatedException();
+                } else {
+                  collectedAllCompetitiveHits = true;
+                }
+              } else if (totalHitsRelation == Relation.EQUAL_TO) {
+                // we just reached totalHitsThreshold, we can start setting the min
+                // competitive score now
+                updateMinCompetitiveScore(scorer);
+              }
+              return;
+            }
+          }
+
+          for (; numKeys < numFields; ++numKeys) {
+            scratch[numKeys] = key(numKeys, doc);
+          }
+          if (afterKeys != null && compare(scratch, 0, afterKeys, 0) <= 0) {
+            // Already collected on a previous page
+            return;
+          }
+
+          if (queueFull) {
+            replaceTop();
+          } else {
+            add();
+            queueFull = size == numHits;
+          }
+          if (queueFull) {
+            updateMinCompetitiveScore(scorer);
+          }
+        }
+      };
+    }
+
+    @Override
+    protected void updateMinCompetitiveScore(Scorable scorer) throws IOException {
+      if (canSetMinScore && totalHits > totalHitsThreshold && queueFull) {
+        // the score is the leading key of the bottom, and is not reversed
+        scorer.setMinCompetitiveScore(NumericUtils.sortableIntToFloat((int) ~heap[0]));
+        totalHitsRelation = TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO;
+      }
+    }
+
+    @Override
+    protected int topDocsSize() {
+      return size;
+    }
+
+    @Override
+    public TopDocs topDocs(int start, int howMany) {
+      if (start < 0 || start >= size || howMany <= 0) {
+        return newTopDocs(null, start);
+      }
+      howMany = Math.min(size - start, howMany);
+      final ScoreDoc[] results = new ScoreDoc[howMany];
+      // the root of the heap sorts last, discard the hits that come after the requested range
+      for (int i = size - start - howMany; i > 0; i--) {
+        pop();
+      }
+      for (int i = howMany - 1; i >= 0; i--) {
+        final Object[] fields = new Object[numFields];
+        for (int j = 0; j < numFields; ++j) {
+          fields[j] = toValue(types[j], heap[j] ^ reverseMasks[j]);
+        }
+        results[i] = new FieldDoc((int) heap[numFields], Float.NaN, fields);
+        pop();
+      }
+      return newTopDocs(results, start);
+    }
+  }
+
   private static final ScoreDoc[] EMPTY_SCOREDOCS = new ScoreDoc[0];
 
+  final Sort sort;
   final int numHits;
   final int totalHitsThreshold;
   final FieldComparator.RelevanceComparator firstComparator;
@@ -289,6 +766,9 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
   FieldValueHitQueue.Entry bottom = null;
   boolean queueFull;
   int docBase;
+  // set on segments that are collected in reverse order once the docs that
+  // precede the current window of doc IDs are known to not be competitive
+  boolean precedingDocsNonCompetitive;
   final boolean needsScores;
   final ScoreMode scoreMode;
 
@@ -297,9 +777,10 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
   // internal versions. If someone will define a constructor with any other
   // visibility, then anyone will be able to extend the class, which is not what
   // we want.
-  private TopFieldCollector(FieldValueHitQueue<Entry> pq, int numHits, int totalHitsThreshold, boolean needsScores) {
+  private TopFieldCollector(Sort sort, FieldValueHitQueue<Entry> pq, int numHits, int totalHitsThreshold) {
     super(pq);
-    this.needsScores = needsScores;
+    this.sort = sort;
+    this.needsScores = sort.needsScores();
     this.numHits = numHits;
     this.totalHitsThreshold = totalHitsThreshold;
     this.numComparators = pq.getComparators().length;
@@ -323,6 +804,67 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     return scoreMode;
   }
 
+  /**
+   * Return whether the given segment is best collected from its last doc ID
+   * to its first one, which is the case when the sort is the reverse of the
+   * index sort on its leading fields. Hits may be collected in any order:
+   * {@link IndexSearcher} first collects the last window of doc IDs of such
+   * segments, and then the docs that precede it unless
+   * {@link #canSkipDocsBefore} returns {@code true}.
+   */
+  final boolean collectsInReverse(LeafReaderContext context) {
+    return reverseSortedPrefixLength(sort, context.reader().getMetaData().getSort()) > 0;
+  }
+
+  /**
+   * Called after collecting the window of doc IDs of a segment that
+   * {@link #collectsInReverse(LeafReaderContext) is collected in reverse}
+   * and starts at {@code windowMin}. Return whether the docs that precede
+   * this window may be skipped, which is the case if a doc of the window, or
+   * else the doc right before the window, which is the most competitive of
+   * the preceding docs, sorts strictly after the bottom of the queue on the
+   * leading sort fields. The latter check needs its own {@link LeafCollector}
+   * since comparators can only read doc values in order.
+   */
+  final boolean canSkipDocsBefore(LeafReaderContext context, int windowMin) throws IOException {
+    if (queueFull == false || totalHits <= totalHitsThreshold) {
+      return false;
+    }
+    if (precedingDocsNonCompetitive == false) {
+      final PrefixLeafCollector leafCollector;
+      try {
+        leafCollector = (PrefixLeafCollector) getLeafCollector(context);
+      } catch (CollectionTerminatedException e) {
+        // there is no doc of interest in this reader context
+        return true;
+      }
+      if (leafCollector.isPrefixNonCompetitive(windowMin - 1) == false) {
+        return false;
+      }
+    }
+    totalHitsRelation = Relation.GREATER_THAN_OR_EQUAL_TO;
+    return true;
+  }
+
+  final int prefixLength(boolean canEarlyTerminate, boolean collectsInReverse, Sort indexSort) {
+    if (canEarlyTerminate) {
+      return 0; // all non-competitive hits allow to terminate
+    } else if (collectsInReverse) {
+      return reverseSortedPrefixLength(sort, indexSort);
+    } else {
+      return sortedPrefixLength(sort, indexSort);
+    }
+  }
+
+  /**
+   * Return whether a doc that compares with the bottom of the queue as
+   * {@code cmp} may not be added to the queue. Ties are broken by doc ID since
+   * docs of a segment may be collected out of order.
+   */
+  final boolean isNonCompetitive(int cmp, int doc) {
+    return cmp < 0 || (cmp == 0 && docBase + doc > bottom.doc);
+  }
+
   protected void updateMinCompetitiveScore(Scorable scorer) throws IOException {
     if (canSetMinScore && totalHits > totalHitsThreshold && queueFull) {
       assert bottom != null && firstComparator != null;
@@ -397,11 +939,7 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       throw new IllegalArgumentException("totalHitsThreshold must be >= 0, got " + totalHitsThreshold);
     }
 
-    FieldValueHitQueue<Entry> queue = FieldValueHitQueue.create(sort.fields, numHits);
-
-    if (after == null) {
-      return new SimpleFieldCollector(sort, queue, numHits, totalHitsThreshold);
-    } else {
+    if (after != null) {
       if (after.fields == null) {
         throw new IllegalArgumentException("after.fields wasn't set; you must pass fillFields=true for the previous search");
       }
@@ -409,7 +947,17 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       if (after.fields.length != sort.getSort().length) {
         throw new IllegalArgumentException("after.fields has " + after.fields.length + " values but sort has " + sort.getSort().length);
       }
+    }
+
+    if (PackedFieldCollector.canCollect(sort, numHits)) {
+      return new PackedFieldCollector(sort, numHits, after, totalHitsThreshold);
+    }
 
+    FieldValueHitQueue<Entry> queue = FieldValueHitQueue.create(sort.fields, numHits);
+
+    if (after == null) {
+      return new SimpleFieldCollector(sort, queue, numHits, totalHitsThreshold);
+    } else {
       return new PagingFieldCollector(sort, queue, after, numHits, totalHitsThreshold);
     }
   }
@@ -472,6 +472,14 @@ public abstract class BufferedIndexInput extends IndexInput implements RandomAcc
     
     @Override
     protected void seekInternal(long pos) {}
+
+    @Override
+    public void prefetch(long offset, long length) throws IOException {
+      if (offset < 0 || length < 0 || offset + length > this.length) {
+        throw new IllegalArgumentException("prefetch() out of bounds: offset=" + offset + ",length=" + length + ",fileLength=" + this.length + ": " + this);
+      }
+      base.prefetch(fileOffset + offset, length);
+    }
     
     @Override
     public void close() throws IOException {
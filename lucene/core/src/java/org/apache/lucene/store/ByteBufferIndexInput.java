@@ -44,6 +44,21 @@ abstract class ByteBufferIndexInput extends IndexInput implements RandomAccessIn
   protected ByteBuffer curBuf; // redundant for speed: buffers[curBufIndex]
 
   protected boolean isClone = false;
+
+  /** Loads ranges of the underlying file into the OS cache, or null if prefetch hints are ignored. */
+  protected FilePrefetcher prefetcher;
+
+  /** Offset in the underlying file of the first byte of {@code buffers[0]}. */
+  protected long buffersFileOffset;
+
+  /**
+   * Loads ranges of a file into the OS cache. Implementations must not access the mapped buffers, which
+   * may be unmapped at any time by closing the input.
+   */
+  interface FilePrefetcher {
+    /** Starts loading {@code length} bytes of the file from {@code fileOffset}. */
+    void prefetch(long fileOffset, long length);
+  }
   
   public static ByteBufferIndexInput newInstance(String resourceDescription, ByteBuffer[] buffers, long length, int chunkSizePower, ByteBufferGuard guard) {
     if (buffers.length == 1) {
@@ -244,6 +259,26 @@ abstract class ByteBufferIndexInput extends IndexInput implements RandomAccessIn
     return length;
   }
 
+  @Override
+  public final void prefetch(long offset, long length) throws IOException {
+    if (offset < 0 || length < 0 || offset + length > this.length) {
+      throw new IllegalArgumentException("prefetch() out of bounds: offset=" + offset + ",length=" + length + ",fileLength=" + this.length + ": " + this);
+    }
+    final FilePrefetcher prefetcher = this.prefetcher;
+    if (prefetcher == null || length == 0) {
+      return;
+    }
+    if (buffers == null) {
+      throw new AlreadyClosedException("Already closed: " + this);
+    }
+    prefetcher.prefetch(getFileOffset() + offset, length);
+  }
+
+  /** Returns the offset in the underlying file of the first byte of this input. */
+  long getFileOffset() {
+    return buffersFileOffset;
+  }
+
   @Override
   public final ByteBufferIndexInput clone() {
     final ByteBufferIndexInput clone = buildSlice((String) null, 0L, this.length);
@@ -279,6 +314,9 @@ abstract class ByteBufferIndexInput extends IndexInput implements RandomAccessIn
     
     final ByteBufferIndexInput clone = newCloneInstance(getFullSliceDescription(sliceDescription), newBuffers, ofs, length);
     clone.isClone = true;
+    clone.prefetcher = prefetcher;
+    // a single buffer is sliced at the offset, multiple buffers start at the beginning of a chunk
+    clone.buffersFileOffset = buffersFileOffset + (newBuffers.length == 1 ? offset : offset - ofs);
     
     return clone;
   }
@@ -490,5 +528,10 @@ abstract class ByteBufferIndexInput extends IndexInput implements RandomAccessIn
     protected ByteBufferIndexInput buildSlice(String sliceDescription, long ofs, long length) {
       return super.buildSlice(sliceDescription, this.offset + ofs, length);
     }
+
+    @Override
+    long getFileOffset() {
+      return buffersFileOffset + offset;
+    }
   }
 }
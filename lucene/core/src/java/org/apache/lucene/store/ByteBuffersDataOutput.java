@@ -45,6 +45,13 @@ public final class ByteBuffersDataOutput extends DataOutput implements Accountab
 
   public final static IntFunction<ByteBuffer> ALLOCATE_BB_ON_HEAP = ByteBuffer::allocate;
 
+  /**
+   * Allocates blocks in direct memory, out of the Java heap. The memory of a block is
+   * only released once the block is garbage collected, unless its user frees it
+   * explicitly, like {@link NRTCachingDirectory} does.
+   */
+  public final static IntFunction<ByteBuffer> ALLOCATE_BB_OFF_HEAP = ByteBuffer::allocateDirect;
+
   /**
    * A singleton instance of "no-reuse" buffer strategy.
    */
@@ -37,6 +37,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -137,6 +138,9 @@ public abstract class FSDirectory extends BaseDirectory {
   /** Used to generate temp file names in {@link #createTempOutput}. */
   private final AtomicLong nextTempFileCounter = new AtomicLong();
 
+  /** Used to load ranges of files asynchronously in {@link IndexInput#prefetch}, or null. */
+  private volatile Executor prefetchExecutor;
+
   /** Create a new FSDirectory for the named location (ctor for subclasses).
    * The directory is created at the named location if it does not yet exist.
    * 
@@ -323,6 +327,29 @@ public abstract class FSDirectory extends BaseDirectory {
     return directory;
   }
 
+  /**
+   * Sets the {@link Executor} that {@link IndexInput}s opened after this call use in order to
+   * load the ranges that are passed to {@link IndexInput#prefetch(long, long)} asynchronously,
+   * so that the I/O of many ranges can happen concurrently, for instance when a query reads
+   * the postings of many terms on a cold OS cache. By default, or if {@code null}, prefetch
+   * hints are ignored. This is only supported by {@link MMapDirectory} and
+   * {@link NIOFSDirectory}; threads of the executor should never be interrupted as this would
+   * close the underlying file channels of a {@link NIOFSDirectory}.
+   * @lucene.experimental
+   */
+  public void setPrefetchExecutor(Executor prefetchExecutor) {
+    this.prefetchExecutor = prefetchExecutor;
+  }
+
+  /**
+   * Returns the {@link Executor} that is used to prefetch ranges of files, or {@code null} if
+   * prefetch hints are ignored.
+   * @see #setPrefetchExecutor
+   */
+  public Executor getPrefetchExecutor() {
+    return prefetchExecutor;
+  }
+
   @Override
   public String toString() {
     return this.getClass().getSimpleName() + "@" + directory + " lockFactory=" + lockFactory;
@@ -96,6 +96,18 @@ public abstract class IndexInput extends DataInput implements Cloneable,Closeabl
     return (IndexInput) super.clone();
   }
   
+  /**
+   * Optional method: Give a hint to this input that the {@code length} bytes starting at
+   * {@code offset} will be read in the near future. Implementations may use this hint to
+   * load these bytes asynchronously, e.g. from disk into the OS page cache, so that reading
+   * them later doesn't block on I/O. Offsets are relative to the start of this input, like
+   * {@link #seek(long)}. This method doesn't change the {@link #getFilePointer() file pointer}.
+   * <p>
+   * The default implementation is a no-op.
+   * @lucene.experimental
+   */
+  public void prefetch(long offset, long length) throws IOException {}
+
   /**
    * Creates a slice of this index input, with the given description, offset, and length. 
    * The slice is seeked to the beginning.
@@ -32,7 +32,9 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -238,9 +240,14 @@ public class MMapDirectory extends FSDirectory {
     try (FileChannel c = FileChannel.open(path, StandardOpenOption.READ)) {
       final String resourceDescription = "MMapIndexInput(path=\"" + path.toString() + "\")";
       final boolean useUnmap = getUseUnmap();
-      return ByteBufferIndexInput.newInstance(resourceDescription,
+      final ByteBufferIndexInput input = ByteBufferIndexInput.newInstance(resourceDescription,
           map(resourceDescription, c, 0, c.size()), 
           c.size(), chunkSizePower, new ByteBufferGuard(resourceDescription, useUnmap ? CLEANER : null));
+      final Executor prefetchExecutor = getPrefetchExecutor();
+      if (prefetchExecutor != null) {
+        input.prefetcher = new ChannelPrefetcher(path, prefetchExecutor);
+      }
+      return input;
     }
   }
 
@@ -278,6 +285,50 @@ public class MMapDirectory extends FSDirectory {
     return buffers;
   }
   
+  /**
+   * Prefetches ranges of a file with positional reads on a new {@link FileChannel}, which load them into
+   * the OS cache that the mapped buffers share. The mapped buffers themselves are never accessed from the
+   * executor, as they may be unmapped by closing the input while a read is pending, which would crash the
+   * JVM.
+   */
+  private static final class ChannelPrefetcher implements ByteBufferIndexInput.FilePrefetcher {
+    private static final int CHUNK_SIZE = 16384;
+
+    private final Path path;
+    private final Executor executor;
+
+    ChannelPrefetcher(Path path, Executor executor) {
+      this.path = path;
+      this.executor = executor;
+    }
+
+    @Override
+    public void prefetch(long fileOffset, long length) {
+      final long end = fileOffset + length;
+      try {
+        executor.execute(() -> {
+          final ByteBuffer bb = ByteBuffer.allocate((int) Math.min(CHUNK_SIZE, length));
+          try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long pos = fileOffset;
+            while (pos < end) {
+              bb.clear();
+              bb.limit((int) Math.min(bb.capacity(), end - pos));
+              final int i = channel.read(bb, pos);
+              if (i < 0) {
+                break;
+              }
+              pos += i;
+            }
+          } catch (IOException e) {
+            // only a hint: the file may have been deleted in the meantime
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        // only a hint
+      }
+    }
+  }
+
   private IOException convertMapFailedIOException(IOException ioe, String resourceDescription, int bufSize) {
     final String originalMessage;
     final Throwable originalCause;
@@ -334,6 +385,20 @@ public class MMapDirectory extends FSDirectory {
       UNMAP_NOT_SUPPORTED_REASON = hack.toString();
     }
   }
+
+  /**
+   * Releases the memory of a direct buffer that was allocated with {@link ByteBuffer#allocateDirect}
+   * right away, with the same hack as unmapping. The buffer and any of its duplicates or slices must
+   * not be accessed anymore. Returns false, and leaves the buffer to the garbage collector, if
+   * {@link #UNMAP_SUPPORTED} is false.
+   */
+  static boolean freeDirectBuffer(String resourceDescription, ByteBuffer buffer) throws IOException {
+    if (CLEANER == null) {
+      return false;
+    }
+    CLEANER.freeBuffer(resourceDescription, buffer);
+    return true;
+  }
   
   @SuppressForbidden(reason = "Needs access to private APIs in DirectBuffer, sun.misc.Cleaner, and sun.misc.Unsafe to enable hack")
   private static Object unmapHackImpl() {
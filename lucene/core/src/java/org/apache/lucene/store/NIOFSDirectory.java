@@ -23,7 +23,9 @@ import java.nio.channels.ClosedChannelException; // javadoc @link
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future; // javadoc
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * An {@link FSDirectory} implementation that uses java.nio's FileChannel's
@@ -79,7 +81,9 @@ public class NIOFSDirectory extends FSDirectory {
     ensureCanRead(name);
     Path path = getDirectory().resolve(name);
     FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
-    return new NIOFSIndexInput("NIOFSIndexInput(path=\"" + path + "\")", fc, context);
+    NIOFSIndexInput input = new NIOFSIndexInput("NIOFSIndexInput(path=\"" + path + "\")", fc, context);
+    input.prefetchExecutor = getPrefetchExecutor();
+    return input;
   }
   
   /**
@@ -99,6 +103,8 @@ public class NIOFSDirectory extends FSDirectory {
     protected final long off;
     /** end offset (start+length) */
     protected final long end;
+    /** executor that reads prefetched ranges, or null if prefetch hints are ignored */
+    Executor prefetchExecutor;
     
     private ByteBuffer byteBuf; // wraps the buffer for NIO
 
@@ -136,7 +142,45 @@ public class NIOFSDirectory extends FSDirectory {
       if (offset < 0 || length < 0 || offset + length > this.length()) {
         throw new IllegalArgumentException("slice() " + sliceDescription + " out of bounds: offset=" + offset + ",length=" + length + ",fileLength="  + this.length() + ": "  + this);
       }
-      return new NIOFSIndexInput(getFullSliceDescription(sliceDescription), channel, off + offset, length, getBufferSize());
+      NIOFSIndexInput slice = new NIOFSIndexInput(getFullSliceDescription(sliceDescription), channel, off + offset, length, getBufferSize());
+      slice.prefetchExecutor = prefetchExecutor;
+      return slice;
+    }
+
+    @Override
+    public void prefetch(long offset, long length) throws IOException {
+      if (offset < 0 || length < 0 || offset + length > this.length()) {
+        throw new IllegalArgumentException("prefetch() out of bounds: offset=" + offset + ",length=" + length + ",fileLength=" + this.length() + ": " + this);
+      }
+      final Executor executor = prefetchExecutor;
+      if (executor == null || length == 0) {
+        return;
+      }
+      final long start = off + offset;
+      final long end = start + length;
+      try {
+        executor.execute(() -> {
+          // read the range with positional reads, which don't modify the state of this input,
+          // so that it gets loaded into the OS cache
+          final ByteBuffer bb = ByteBuffer.allocate((int) Math.min(CHUNK_SIZE, end - start));
+          try {
+            long pos = start;
+            while (pos < end) {
+              bb.clear();
+              bb.limit((int) Math.min(bb.capacity(), end - pos));
+              final int i = channel.read(bb, pos);
+              if (i < 0) {
+                break;
+              }
+              pos += i;
+            }
+          } catch (IOException e) {
+            // only a hint: the channel may have been closed in the meantime
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        // only a hint
+      }
     }
 
     @Override
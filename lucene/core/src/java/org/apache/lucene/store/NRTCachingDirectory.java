@@ -20,13 +20,22 @@ package org.apache.lucene.store;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.file.NoSuchFileException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
 
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.IOUtils;
@@ -77,14 +86,14 @@ public class NRTCachingDirectory extends FilterDirectory implements Accountable
   /**
    * RAM-resident directory that updates {@link #cacheSize} when files are successfully closed.
    */
-  private final ByteBuffersDirectory cacheDirectory = new ByteBuffersDirectory(
-      new SingleInstanceLockFactory(),
-      ByteBuffersDataOutput::new,
-      (fileName, content) -> {
-        cacheSize.addAndGet(content.size());
-        return ByteBuffersDirectory.OUTPUT_AS_MANY_BUFFERS_LUCENE.apply(fileName, content);
-      }
-  );
+  private final CacheDirectory cacheDirectory;
+
+  /**
+   * Files of {@link #cacheDirectory} that were successfully closed and not deleted yet.
+   */
+  private final Map<String,CachedFile> cachedFiles = new ConcurrentHashMap<>();
+
+  private final BlockPool blockPool;
 
   private final long maxMergeSizeBytes;
   private final long maxCachedBytes;
@@ -97,9 +106,34 @@ public class NRTCachingDirectory extends FilterDirectory implements Accountable
    *  {@code <= maxMergeSizeMB}, and 2) the total cached bytes is 
    *  {@code <= maxCachedMB} */
   public NRTCachingDirectory(Directory delegate, double maxMergeSizeMB, double maxCachedMB) {
+    this(delegate, maxMergeSizeMB, maxCachedMB, ByteBuffersDataOutput.ALLOCATE_BB_ON_HEAP);
+  }
+
+  /**
+   *  Expert: same as {@link #NRTCachingDirectory(Directory, double, double)}, but the
+   *  blocks of cached files are allocated with {@code blockAllocate}.
+   *  <p>
+   *  With {@link ByteBuffersDataOutput#ALLOCATE_BB_OFF_HEAP}, the cache is kept out of
+   *  the Java heap. The blocks of a cached file are released once the file is deleted
+   *  or moved to the delegate, and all the inputs opened on it are closed. Released
+   *  blocks are pooled for new cached files, up to {@code maxCachedMB}, and freed right
+   *  away otherwise. Pooled blocks are freed when this directory is closed. Like with
+   *  any directory, clones and slices of an input must not be used once it is closed. */
+  public NRTCachingDirectory(Directory delegate, double maxMergeSizeMB, double maxCachedMB, IntFunction<ByteBuffer> blockAllocate) {
     super(delegate);
     maxMergeSizeBytes = (long) (maxMergeSizeMB * 1024 * 1024);
     maxCachedBytes = (long) (maxCachedMB * 1024 * 1024);
+    blockPool = new BlockPool(blockAllocate, blockAllocate == ByteBuffersDataOutput.ALLOCATE_BB_OFF_HEAP ? maxCachedBytes : -1);
+    cacheDirectory = new CacheDirectory(new ByteBuffersDirectory(
+        new SingleInstanceLockFactory(),
+        () -> new ByteBuffersDataOutput(ByteBuffersDataOutput.DEFAULT_MIN_BITS_PER_BLOCK,
+            ByteBuffersDataOutput.DEFAULT_MAX_BITS_PER_BLOCK, blockPool::allocate, blockPool::release),
+        (fileName, content) -> {
+          cacheSize.addAndGet(content.size());
+          cachedFiles.put(fileName, new CachedFile(content));
+          return ByteBuffersDirectory.OUTPUT_AS_MANY_BUFFERS_LUCENE.apply(fileName, content);
+        }
+    ));
   }
 
 
@@ -319,4 +353,267 @@ public class NRTCachingDirectory extends FilterDirectory implements Accountable
   public long ramBytesUsed() {
     return cacheSize.get();
   }
+
+  /** Returns the bytes of the released blocks that are pooled for new cached files. */
+  long getPooledBytes() {
+    return blockPool.getPooledBytes();
+  }
+
+  /** The RAM-resident directory, which releases the blocks of cached files once they
+   *  are deleted and all their inputs are closed. */
+  private final class CacheDirectory extends FilterDirectory {
+
+    CacheDirectory(ByteBuffersDirectory in) {
+      super(in);
+    }
+
+    boolean fileExists(String name) {
+      return ((ByteBuffersDirectory) in).fileExists(name);
+    }
+
+    @Override
+    public IndexInput openInput(String name, IOContext context) throws IOException {
+      final CachedFile file = cachedFiles.get(name);
+      if (file == null) {
+        // not cached, or still open for writing
+        return in.openInput(name, context);
+      }
+      if (file.tryIncRef() == false) {
+        throw new NoSuchFileException(name);
+      }
+      boolean success = false;
+      try {
+        final IndexInput input = new CachedFileInput(in.openInput(name, context), file);
+        success = true;
+        return input;
+      } finally {
+        if (success == false) {
+          file.decRef();
+        }
+      }
+    }
+
+    @Override
+    public void deleteFile(String name) throws IOException {
+      in.deleteFile(name);
+      final CachedFile file = cachedFiles.remove(name);
+      if (file != null) {
+        file.decRef();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        in.close();
+      } finally {
+        for (String name : cachedFiles.keySet()) {
+          final CachedFile file = cachedFiles.remove(name);
+          if (file != null) {
+            file.decRef();
+          }
+        }
+        blockPool.close();
+      }
+    }
+  }
+
+  /** The content of a cached file, whose blocks are released when its last reference goes away:
+   *  the cache directory holds one until the file is deleted, and every open input holds one. */
+  private static final class CachedFile {
+    private final ByteBuffersDataOutput content;
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    CachedFile(ByteBuffersDataOutput content) {
+      this.content = content;
+    }
+
+    boolean tryIncRef() {
+      int count;
+      while ((count = refCount.get()) > 0) {
+        if (refCount.compareAndSet(count, count + 1)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void decRef() {
+      final int count = refCount.decrementAndGet();
+      assert count >= 0;
+      if (count == 0) {
+        // hands the blocks to the pool
+        content.reset();
+      }
+    }
+  }
+
+  /** An input on a cached file, which releases its reference to the file when closed. Clones
+   *  and slices are not tracked since they must not be used once this input is closed. */
+  private static final class CachedFileInput extends IndexInput {
+    private final IndexInput in;
+    private final CachedFile file;
+    private boolean closed;
+
+    CachedFileInput(IndexInput in, CachedFile file) {
+      super(in.toString());
+      this.in = in;
+      this.file = file;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed == false) {
+        closed = true;
+        try {
+          in.close();
+        } finally {
+          file.decRef();
+        }
+      }
+    }
+
+    @Override
+    public long getFilePointer() {
+      return in.getFilePointer();
+    }
+
+    @Override
+    public void seek(long pos) throws IOException {
+      in.seek(pos);
+    }
+
+    @Override
+    public long length() {
+      return in.length();
+    }
+
+    @Override
+    public IndexInput slice(String sliceDescription, long offset, long length) throws IOException {
+      return in.slice(sliceDescription, offset, length);
+    }
+
+    @Override
+    public RandomAccessInput randomAccessSlice(long offset, long length) throws IOException {
+      return in.randomAccessSlice(offset, length);
+    }
+
+    @Override
+    public IndexInput clone() {
+      return in.clone();
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+      return in.readByte();
+    }
+
+    @Override
+    public void readBytes(byte[] b, int offset, int len) throws IOException {
+      in.readBytes(b, offset, len);
+    }
+
+    @Override
+    public short readShort() throws IOException {
+      return in.readShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+      return in.readInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+      return in.readLong();
+    }
+
+    @Override
+    public int readVInt() throws IOException {
+      return in.readVInt();
+    }
+
+    @Override
+    public long readVLong() throws IOException {
+      return in.readVLong();
+    }
+
+    @Override
+    public void skipBytes(long numBytes) throws IOException {
+      in.skipBytes(numBytes);
+    }
+  }
+
+  /** Allocates the blocks of cached files. Released off-heap blocks are pooled, up to a maximum
+   *  number of bytes, and freed right away otherwise. Released heap blocks are left to the
+   *  garbage collector. */
+  private static final class BlockPool {
+    private final IntFunction<ByteBuffer> blockAllocate;
+    private final long maxPooledBytes; // -1 if the blocks are not pooled nor freed
+    private final Map<Integer,ArrayDeque<ByteBuffer>> pooledBlocks = new HashMap<>();
+    private long pooledBytes;
+    private boolean closed;
+
+    BlockPool(IntFunction<ByteBuffer> blockAllocate, long maxPooledBytes) {
+      this.blockAllocate = blockAllocate;
+      this.maxPooledBytes = maxPooledBytes;
+    }
+
+    ByteBuffer allocate(int size) {
+      if (maxPooledBytes >= 0) {
+        synchronized (this) {
+          final ArrayDeque<ByteBuffer> blocks = pooledBlocks.get(size);
+          if (blocks != null && blocks.isEmpty() == false) {
+            pooledBytes -= size;
+            final ByteBuffer block = blocks.removeLast();
+            block.clear();
+            return block;
+          }
+        }
+      }
+      return blockAllocate.apply(size);
+    }
+
+    void release(ByteBuffer block) {
+      if (maxPooledBytes < 0) {
+        return;
+      }
+      synchronized (this) {
+        if (closed == false && pooledBytes + block.capacity() <= maxPooledBytes) {
+          pooledBlocks.computeIfAbsent(block.capacity(), size -> new ArrayDeque<>()).addLast(block);
+          pooledBytes += block.capacity();
+          return;
+        }
+      }
+      free(block);
+    }
+
+    synchronized long getPooledBytes() {
+      return pooledBytes;
+    }
+
+    void close() {
+      final List<ByteBuffer> blocks = new ArrayList<>();
+      synchronized (this) {
+        closed = true;
+        for (ArrayDeque<ByteBuffer> pooled : pooledBlocks.values()) {
+          blocks.addAll(pooled);
+        }
+        pooledBlocks.clear();
+        pooledBytes = 0;
+      }
+      for (ByteBuffer block : blocks) {
+        free(block);
+      }
+    }
+
+    private static void free(ByteBuffer block) {
+      try {
+        // left to the garbage collector if this is not supported
+        MMapDirectory.freeDirectBuffer("NRTCachingDirectory block", block);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
 }
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util;
+
+
+/**
+ * Utility methods for computations on float vectors.
+ *
+ * @lucene.internal
+ */
+public final class VectorUtil {
+
+  private VectorUtil() {}
+
+  /**
+   * Returns the vector dot product of the two vectors.
+   *
+   * @throws IllegalArgumentException if the vectors' dimensions differ.
+   */
+  public static float dotProduct(float[] a, float[] b) {
+    if (a.length != b.length) {
+      throw new IllegalArgumentException("vector dimensions differ: " + a.length + "!=" + b.length);
+    }
+    float res = 0f;
+    // unrolled so that the JIT has independent accumulators to work with
+    int i = 0;
+    final int upperBound = a.length & ~3;
+    float acc0 = 0f, acc1 = 0f, acc2 = 0f, acc3 = 0f;
+    for (; i < upperBound; i += 4) {
+      acc0 += a[i] * b[i];
+      acc1 += a[i + 1] * b[i + 1];
+      acc2 += a[i + 2] * b[i + 2];
+      acc3 += a[i + 3] * b[i + 3];
+    }
+    for (; i < a.length; ++i) {
+      res += a[i] * b[i];
+    }
+    return res + acc0 + acc1 + acc2 + acc3;
+  }
+
+  /**
+   * Returns the sum of squared differences of the two vectors.
+   *
+   * @throws IllegalArgumentException if the vectors' dimensions differ.
+   */
+  public static float squareDistance(float[] a, float[] b) {
+    if (a.length != b.length) {
+      throw new IllegalArgumentException("vector dimensions differ: " + a.length + "!=" + b.length);
+    }
+    float squareSum = 0f;
+    int i = 0;
+    final int upperBound = a.length & ~3;
+    float acc0 = 0f, acc1 = 0f, acc2 = 0f, acc3 = 0f;
+    for (; i < upperBound; i += 4) {
+      final float diff0 = a[i] - b[i];
+      final float diff1 = a[i + 1] - b[i + 1];
+      final float diff2 = a[i + 2] - b[i + 2];
+      final float diff3 = a[i + 3] - b[i + 3];
+      acc0 += diff0 * diff0;
+      acc1 += diff1 * diff1;
+      acc2 += diff2 * diff2;
+      acc3 += diff3 * diff3;
+    }
+    for (; i < a.length; ++i) {
+      final float diff = a[i] - b[i];
+      squareSum += diff * diff;
+    }
+    return squareSum + acc0 + acc1 + acc2 + acc3;
+  }
+}
@@ -21,6 +21,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.IntFunction;
 
 import org.apache.lucene.codecs.CodecUtil;
@@ -33,6 +37,7 @@ import org.apache.lucene.store.ChecksumIndexInput;
 import org.apache.lucene.store.DataOutput;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.store.TrackingDirectoryWrapper;
 import org.apache.lucene.util.ArrayUtil;
@@ -44,6 +49,7 @@ import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.MSBRadixSorter;
 import org.apache.lucene.util.NumericUtils;
 import org.apache.lucene.util.PriorityQueue;
+import org.apache.lucene.util.ThreadInterruptedException;
 
 // TODO
 //   - allow variable length byte[] (across docs and dims), but this is quite a bit more hairy
@@ -53,7 +59,8 @@ import org.apache.lucene.util.PriorityQueue;
 //     (monotonic) long[] leafBlockFPs; or we could use MonotonicLongValues ... but then
 //     the index is already plenty small: 60M OSM points --> 1.1 MB with 128 points
 //     per leaf, and you can reduce that by putting more points per leaf
-//   - we could use threads while building; the higher nodes are very parallelizable
+//   - we could use threads while building the tree from a MutablePointValues too, but its
+//     partitioning methods are not thread-safe
 
 /**
  *  Recursively builds a block KD-tree to assign all incoming points in N-dim space to smaller
@@ -195,6 +202,36 @@ public class BKDWriter implements Closeable {
     this.maxMBSortInHeap = maxMBSortInHeap;
   }
 
+  /** Creates a writer that has the same configuration as {@code parent} but its own scratch
+   *  state, so that it can build a sub-tree concurrently with other writers. Points can't be
+   *  added to this writer. */
+  private BKDWriter(BKDWriter parent, int maxPointsSortInHeap) {
+    this.tempDir = new TrackingDirectoryWrapper(parent.tempDir);
+    this.tempFileNamePrefix = parent.tempFileNamePrefix;
+    this.maxPointsInLeafNode = parent.maxPointsInLeafNode;
+    this.numDataDims = parent.numDataDims;
+    this.numIndexDims = parent.numIndexDims;
+    this.bytesPerDim = parent.bytesPerDim;
+    this.totalPointCount = parent.totalPointCount;
+    this.maxDoc = parent.maxDoc;
+    docsSeen = null;
+    packedBytesLength = parent.packedBytesLength;
+    packedIndexBytesLength = parent.packedIndexBytesLength;
+
+    scratchDiff = new byte[bytesPerDim];
+    scratch1 = new byte[packedBytesLength];
+    scratch2 = new byte[packedBytesLength];
+    commonPrefixLengths = new int[numDataDims];
+
+    minPackedValue = new byte[packedIndexBytesLength];
+    maxPackedValue = new byte[packedIndexBytesLength];
+
+    bytesPerDoc = parent.bytesPerDoc;
+    assert maxPointsSortInHeap >= maxPointsInLeafNode;
+    this.maxPointsSortInHeap = maxPointsSortInHeap;
+    this.maxMBSortInHeap = parent.maxMBSortInHeap * maxPointsSortInHeap / parent.maxPointsSortInHeap;
+  }
+
   public static void verifyParams(int numDataDims, int numIndexDims, int maxPointsInLeafNode, double maxMBSortInHeap, long totalPointCount) {
     // We encode dim in a single byte in the splitPackedValues, but we only expose 4 bits for it now, in case we want to use
     // remaining 4 bits for another purpose later
@@ -775,6 +812,20 @@ public class BKDWriter implements Closeable {
 
   /** Writes the BKD tree to the provided {@link IndexOutput} and returns the file offset where index was written. */
   public long finish(IndexOutput out) throws IOException {
+    return finish(out, null, 1);
+  }
+
+  /** Writes the BKD tree to the provided {@link IndexOutput} and returns the file offset where index was written.
+   *  <p>
+   *  If {@code executor} is not null and {@code numThreads} is greater than 1, the top levels of the tree are
+   *  partitioned in the current thread and the sub-trees below them are built concurrently on the given executor,
+   *  each into its own temporary file, then copied to {@code out} in order. The heap that these sub-trees use for
+   *  sorting is split evenly across {@code numThreads}, and on top of this, the current thread keeps partitioning
+   *  the top levels with up to {@code maxMBSortInHeap} of heap while sub-trees are being built.
+   *  <p>
+   *  <b>NOTE</b>: The calling thread blocks until all sub-trees are built, so it must not be a thread of
+   *  {@code executor} if this executor has a bounded number of threads. */
+  public long finish(IndexOutput out, ExecutorService executor, int numThreads) throws IOException {
     // System.out.println("\nBKDTreeWriter.finish pointCount=" + pointCount + " out=" + out + " heapWriter=" + heapPointWriter);
 
     // TODO: specialize the 1D case?  it's much faster at indexing time (no partitioning on recurse...)
@@ -825,6 +876,11 @@ public class BKDWriter implements Closeable {
     //We re-use the selector so we do not need to create an object every time.
     BKDRadixSelector radixSelector = new BKDRadixSelector(numDataDims, bytesPerDim, maxPointsSortInHeap, tempDir, tempFileNamePrefix);
 
+    ConcurrentSubTrees subTrees = null;
+    if (executor != null && numThreads > 1 && numLeaves > 1) {
+      subTrees = new ConcurrentSubTrees(executor, numThreads, numLeaves, splitPackedValues, leafBlockFPs);
+    }
+
     boolean success = false;
     try {
 
@@ -834,9 +890,14 @@ public class BKDWriter implements Closeable {
             minPackedValue, maxPackedValue,
             parentSplits,
             splitPackedValues,
-            leafBlockFPs);
+            leafBlockFPs,
+            subTrees);
       assert Arrays.equals(parentSplits, new int[numIndexDims]);
 
+      if (subTrees != null) {
+        subTrees.finish(out);
+      }
+
       // If no exception, we should have cleaned everything up:
       assert tempDir.getCreatedFiles().isEmpty();
       //long t2 = System.nanoTime();
@@ -845,6 +906,10 @@ public class BKDWriter implements Closeable {
       success = true;
     } finally {
       if (success == false) {
+        if (subTrees != null) {
+          // make sure that no sub-tree is still creating temp files
+          subTrees.cancel();
+        }
         IOUtils.deleteFilesIgnoringExceptions(tempDir, tempDir.getCreatedFiles());
       }
     }
@@ -1435,7 +1500,8 @@ public class BKDWriter implements Closeable {
                      byte[] minPackedValue, byte[] maxPackedValue,
                      int[] parentSplits,
                      byte[] splitPackedValues,
-                     long[] leafBlockFPs) throws IOException {
+                     long[] leafBlockFPs,
+                     ConcurrentSubTrees subTrees) throws IOException {
 
     if (nodeID >= leafNodeOffset) {
 
@@ -1561,15 +1627,21 @@ public class BKDWriter implements Closeable {
       System.arraycopy(splitValue, 0, maxSplitPackedValue, splitDim * bytesPerDim, bytesPerDim);
 
       parentSplits[splitDim]++;
-      // Recurse on left tree:
-      build(2 * nodeID, leafNodeOffset, leftPointWriter,
-          out, radixSelector, minPackedValue, maxSplitPackedValue,
-          parentSplits, splitPackedValues, leafBlockFPs);
-
-      // Recurse on right tree:
-      build(2 * nodeID + 1, leafNodeOffset, rightPointWriter,
-          out, radixSelector, minSplitPackedValue, maxPackedValue
-          , parentSplits, splitPackedValues, leafBlockFPs);
+      if (subTrees != null && 2 * nodeID >= subTrees.numSubTrees) {
+        // Build both sub-trees concurrently:
+        subTrees.fork(2 * nodeID, leftPointWriter, minPackedValue, maxSplitPackedValue, parentSplits);
+        subTrees.fork(2 * nodeID + 1, rightPointWriter, minSplitPackedValue, maxPackedValue, parentSplits);
+      } else {
+        // Recurse on left tree:
+        build(2 * nodeID, leafNodeOffset, leftPointWriter,
+            out, radixSelector, minPackedValue, maxSplitPackedValue,
+            parentSplits, splitPackedValues, leafBlockFPs, subTrees);
+
+        // Recurse on right tree:
+        build(2 * nodeID + 1, leafNodeOffset, rightPointWriter,
+            out, radixSelector, minSplitPackedValue, maxPackedValue
+            , parentSplits, splitPackedValues, leafBlockFPs, subTrees);
+      }
 
       parentSplits[splitDim]--;
     }
@@ -1630,6 +1702,90 @@ public class BKDWriter implements Closeable {
     return true;
   }
 
+  /** Builds the sub-trees below a given level of the tree concurrently. Each sub-tree writes its leaf blocks
+   *  to its own temporary file, which is copied to the final output once all sub-trees are built. */
+  private class ConcurrentSubTrees {
+
+    final ExecutorService executor;
+    /** Number of sub-trees, a power of 2: sub-trees are rooted at nodes {@code numSubTrees} to {@code 2*numSubTrees-1}. */
+    final int numSubTrees;
+    final int leafNodeOffset;
+    final byte[] splitPackedValues;
+    final long[] leafBlockFPs;
+    final int maxPointsSortInHeapPerSubTree;
+    /** Futures that return the name of the temporary file of each sub-tree. */
+    final List<Future<String>> futures;
+
+    ConcurrentSubTrees(ExecutorService executor, int numThreads, int numLeaves, byte[] splitPackedValues, long[] leafBlockFPs) {
+      this.executor = executor;
+      // numLeaves is a power of 2
+      this.numSubTrees = Math.min(numLeaves, Integer.highestOneBit(numThreads - 1) << 1);
+      this.leafNodeOffset = numLeaves;
+      this.splitPackedValues = splitPackedValues;
+      this.leafBlockFPs = leafBlockFPs;
+      this.maxPointsSortInHeapPerSubTree = Math.max(maxPointsInLeafNode, maxPointsSortInHeap / numThreads);
+      this.futures = new ArrayList<>(numSubTrees);
+    }
+
+    void fork(int nodeID, PointWriter points, byte[] minPackedValue, byte[] maxPackedValue, int[] parentSplits) {
+      // nodes are forked from left to right
+      assert nodeID == numSubTrees + futures.size();
+      final int[] subTreeParentSplits = parentSplits.clone();
+      futures.add(executor.submit(() -> {
+        final BKDWriter subTreeWriter = new BKDWriter(BKDWriter.this, maxPointsSortInHeapPerSubTree);
+        final BKDRadixSelector radixSelector = new BKDRadixSelector(numDataDims, bytesPerDim,
+            subTreeWriter.maxPointsSortInHeap, subTreeWriter.tempDir, tempFileNamePrefix);
+        try (IndexOutput out = subTreeWriter.tempDir.createTempOutput(tempFileNamePrefix, "bkd_subtree", IOContext.DEFAULT)) {
+          subTreeWriter.build(nodeID, leafNodeOffset, points, out, radixSelector,
+              minPackedValue, maxPackedValue, subTreeParentSplits, splitPackedValues, leafBlockFPs, null);
+          return out.getName();
+        }
+      }));
+    }
+
+    /** Wait for all sub-trees to be built and append them to {@code out}. */
+    void finish(IndexOutput out) throws IOException {
+      assert futures.size() == numSubTrees;
+      final int leavesPerSubTree = leafNodeOffset / numSubTrees;
+      for (int i = 0; i < numSubTrees; ++i) {
+        final String tempFileName = get(futures.get(i));
+        // leaf block file pointers are relative to the start of the sub-tree's temp file
+        final long offset = out.getFilePointer();
+        for (int leaf = i * leavesPerSubTree; leaf < (i + 1) * leavesPerSubTree; ++leaf) {
+          leafBlockFPs[leaf] += offset;
+        }
+        try (IndexInput in = tempDir.openInput(tempFileName, IOContext.READONCE)) {
+          out.copyBytes(in, in.length());
+        }
+        tempDir.deleteFile(tempFileName);
+      }
+    }
+
+    /** Cancel sub-trees that have not started yet and wait for the other ones to complete. */
+    void cancel() {
+      for (Future<String> future : futures) {
+        future.cancel(false);
+      }
+      for (Future<String> future : futures) {
+        try {
+          future.get();
+        } catch (CancellationException | ExecutionException | InterruptedException e) {
+          // ignore, we are already handling another exception
+        }
+      }
+    }
+
+    private String get(Future<String> future) throws IOException {
+      try {
+        return future.get();
+      } catch (InterruptedException e) {
+        throw new ThreadInterruptedException(e);
+      } catch (ExecutionException e) {
+        throw IOUtils.rethrowAlways(e.getCause());
+      }
+    }
+  }
+
   PointWriter getPointWriter(long count, String desc) throws IOException {
     if (count <= maxPointsSortInHeap) {
       int size = Math.toIntExact(count);
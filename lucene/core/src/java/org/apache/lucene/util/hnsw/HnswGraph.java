@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.hnsw;
+
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.lucene.index.RandomAccessVectorValues;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.SparseFixedBitSet;
+
+/**
+ * Navigable small-world graph of vectors, that can be searched for the approximate nearest
+ * neighbors of a query vector. This is the bottom layer of the Hierarchical Navigable Small World
+ * graph described in <a href="https://arxiv.org/abs/1603.09320">Efficient and robust approximate
+ * nearest neighbor search using Hierarchical Navigable Small World graphs [2018]</a> by Malkov and
+ * Yashunin. Upper layers are not built; instead, searches start from multiple random entry points,
+ * which gives comparable recall for the segment sizes that Lucene deals with.
+ * <p>
+ * Every node has at most {@code maxConn} neighbors, that are selected among the
+ * {@code beamWidth} nearest nodes that a search for the node finds in the graph at the time the
+ * node is added, see {@link HnswGraphBuilder}.
+ * <p>
+ * Note: The graph may be searched by multiple threads concurrently, but updates are not
+ * thread-safe. Also note: there is no notion of deletions. Document searching built on top of this
+ * must do its own deletion-filtering.
+ *
+ * @lucene.experimental
+ */
+public final class HnswGraph extends KnnGraphValues {
+
+  private final int maxConn;
+  // the neighbors of each node, null for nodes that have not been added yet
+  private final NeighborArray[] graph;
+
+  // KnnGraphValues iterator members
+  private int upto;
+  private NeighborArray cur;
+
+  HnswGraph(int size, int maxConn) {
+    this.graph = new NeighborArray[size];
+    this.maxConn = maxConn;
+  }
+
+  /**
+   * Searches the graph for the nearest neighbors of a query vector, starting from {@code numSeed}
+   * random entry points.
+   *
+   * @param query search query vector
+   * @param topK the number of nodes to be returned
+   * @param numSeed the number of random entry points to sample
+   * @param vectors vector values
+   * @param similarityFunction the similarity function to compare vectors
+   * @param graphValues the graph values. May represent the entire graph, or a level in a
+   *     hierarchical graph.
+   * @param acceptOrds {@link Bits} that represents the allowed document ordinals to match, or
+   *     {@code null} if they are all allowed to match.
+   * @param random a source of randomness, used for generating entry points to the graph
+   * @return a min-heap of at most {@code topK} nearest neighbors, the least similar one on top
+   */
+  public static NeighborQueue search(float[] query, int topK, int numSeed,
+      RandomAccessVectorValues vectors, VectorSimilarityFunction similarityFunction,
+      KnnGraphValues graphValues, Bits acceptOrds, Random random) throws IOException {
+    final int size = graphValues.size();
+    final SparseFixedBitSet visited = new SparseFixedBitSet(Math.max(1, size));
+    final int[] seeds;
+    if (size <= numSeed) {
+      seeds = new int[size];
+      for (int i = 0; i < size; ++i) {
+        seeds[i] = i;
+      }
+    } else {
+      seeds = new int[numSeed];
+      for (int i = 0; i < numSeed; ++i) {
+        seeds[i] = random.nextInt(size);
+      }
+    }
+    return search(query, topK, seeds, seeds.length, vectors, similarityFunction, graphValues, acceptOrds, visited);
+  }
+
+  /**
+   * Searches the graph from the first {@code numSeeds} entries of {@code seeds}. Seeds may
+   * contain duplicates, but may not contain nodes that are already marked as visited.
+   */
+  static NeighborQueue search(float[] query, int topK, int[] seeds, int numSeeds,
+      RandomAccessVectorValues vectors, VectorSimilarityFunction similarityFunction,
+      KnnGraphValues graphValues, Bits acceptOrds, SparseFixedBitSet visited) throws IOException {
+    // the most similar candidates first
+    final NeighborQueue candidates = new NeighborQueue(numSeeds, true);
+    // the least similar result on top
+    final NeighborQueue results = new NeighborQueue(topK, false);
+
+    for (int i = 0; i < numSeeds; ++i) {
+      final int seed = seeds[i];
+      if (visited.get(seed)) {
+        continue;
+      }
+      visited.set(seed);
+      final float score = similarityFunction.compare(query, vectors.vectorValue(seed));
+      candidates.add(seed, score);
+      if (acceptOrds == null || acceptOrds.get(seed)) {
+        results.insertWithOverflow(seed, score, topK);
+      }
+    }
+
+    while (candidates.size() > 0) {
+      // the best remaining candidate can't improve the results: we're done
+      if (results.size() >= topK && candidates.topScore() < results.topScore()) {
+        break;
+      }
+      final int candidate = candidates.pop();
+      graphValues.seek(candidate);
+      for (int friend = graphValues.nextNeighbor(); friend != DocIdSetIterator.NO_MORE_DOCS; friend = graphValues.nextNeighbor()) {
+        if (visited.get(friend)) {
+          continue;
+        }
+        visited.set(friend);
+        final float score = similarityFunction.compare(query, vectors.vectorValue(friend));
+        if (results.size() < topK || score > results.topScore()) {
+          candidates.add(friend, score);
+          if (acceptOrds == null || acceptOrds.get(friend)) {
+            results.insertWithOverflow(friend, score, topK);
+          }
+        }
+      }
+    }
+    return results;
+  }
+
+  /** Return the maximum number of neighbors of a node. */
+  public int maxConn() {
+    return maxConn;
+  }
+
+  /**
+   * Returns the {@link NeighborArray} of the given node, or {@code null} if the node has not
+   * been added to the graph yet.
+   */
+  public NeighborArray getNeighbors(int node) {
+    return graph[node];
+  }
+
+  /** Add a node without any neighbor to the graph. */
+  void addNode(int node) {
+    assert graph[node] == null;
+    graph[node] = new NeighborArray(maxConn + 1);
+  }
+
+  /**
+   * Add {@code neighbor} to the neighbors of {@code node}, and remove the least similar
+   * neighbor if {@code node} ends up with more than {@code maxConn} neighbors.
+   */
+  void connect(int node, int neighbor, float score) {
+    final NeighborArray neighbors = graph[node];
+    neighbors.add(neighbor, score);
+    if (neighbors.size() > maxConn) {
+      neighbors.removeLeastCompetitive();
+    }
+  }
+
+  @Override
+  public int size() {
+    return graph.length;
+  }
+
+  @Override
+  public void seek(int targetNode) {
+    cur = graph[targetNode];
+    upto = -1;
+  }
+
+  @Override
+  public int nextNeighbor() {
+    if (cur == null || ++upto >= cur.size()) {
+      return DocIdSetIterator.NO_MORE_DOCS;
+    }
+    return cur.node(upto);
+  }
+}
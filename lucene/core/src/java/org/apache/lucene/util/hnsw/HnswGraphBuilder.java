@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.hnsw;
+
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.lucene.index.RandomAccessVectorValues;
+import org.apache.lucene.index.RandomAccessVectorValuesProducer;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.SparseFixedBitSet;
+
+/**
+ * Builder for {@link HnswGraph}. Nodes are inserted one at a time: the graph built so far is
+ * searched for the {@code beamWidth} nodes that are the most similar to the new node, and the new
+ * node is connected in both directions to the {@code maxConn} best of them. Nodes that end up with
+ * more than {@code maxConn} neighbors drop their least similar neighbor.
+ * <p>
+ * A graph can be pre-populated with an existing graph over a contiguous range of ordinals via
+ * {@link #addGraph(KnnGraphValues, int)}, so that merges only need to insert vectors of the
+ * other segments instead of rebuilding the whole graph.
+ *
+ * @lucene.experimental
+ */
+public final class HnswGraphBuilder {
+
+  /** Default number of maximum connections per node */
+  public static final int DEFAULT_MAX_CONN = 16;
+
+  /**
+   * Default number of the size of the queue maintained while searching the graph during
+   * construction.
+   */
+  public static final int DEFAULT_BEAM_WIDTH = 100;
+
+  /** Default random seed, so that graphs are built the same way for the same vectors */
+  public static final long DEFAULT_RAND_SEED = 42;
+
+  private final int maxConn;
+  private final int beamWidth;
+  private final VectorSimilarityFunction similarityFunction;
+  // two independent accessors since vectors returned by one of them may be overwritten by
+  // subsequent reads: one for the node being inserted, one for the graph search
+  private final RandomAccessVectorValues vectorValues;
+  private final RandomAccessVectorValues buildVectors;
+  private final Random random;
+  private final HnswGraph hnsw;
+
+  // nodes that have been added so far, used to pick entry points
+  private final int[] addedNodes;
+  private int numAdded;
+
+  // scratch space for entry points
+  private final int[] seeds;
+
+  /**
+   * Create a builder of a graph over the vectors of {@code vectors}.
+   *
+   * @param vectors the vectors whose relations are represented by the graph
+   * @param similarityFunction the function to compare vectors
+   * @param maxConn the maximum number of connections for a node
+   * @param beamWidth the size of the beam search to use when finding nearest neighbors
+   * @param seed the seed for a random number generator used during graph construction. Provide
+   *     this to ensure repeatable construction.
+   */
+  public HnswGraphBuilder(RandomAccessVectorValuesProducer vectors, VectorSimilarityFunction similarityFunction,
+      int maxConn, int beamWidth, long seed) {
+    if (maxConn <= 0) {
+      throw new IllegalArgumentException("maxConn must be positive, got " + maxConn);
+    }
+    if (beamWidth <= 0) {
+      throw new IllegalArgumentException("beamWidth must be positive, got " + beamWidth);
+    }
+    this.vectorValues = vectors.randomAccess();
+    this.buildVectors = vectors.randomAccess();
+    this.similarityFunction = similarityFunction;
+    this.maxConn = maxConn;
+    this.beamWidth = beamWidth;
+    this.random = new Random(seed);
+    this.hnsw = new HnswGraph(vectorValues.size(), maxConn);
+    this.addedNodes = new int[vectorValues.size()];
+    this.seeds = new int[beamWidth];
+  }
+
+  /**
+   * Copy an existing graph whose node {@code i} is node {@code ordOffset + i} of the graph being
+   * built. This must be called before any node is added to the graph, and the neighbors of the
+   * copied nodes must be among the copied nodes.
+   */
+  public void addGraph(KnnGraphValues graph, int ordOffset) throws IOException {
+    if (numAdded != 0) {
+      throw new IllegalStateException("graphs can only be copied into an empty graph");
+    }
+    final int size = graph.size();
+    if (ordOffset < 0 || ordOffset + size > hnsw.size()) {
+      throw new IllegalArgumentException("graph of size " + size + " doesn't fit at offset " + ordOffset
+          + " in a graph of size " + hnsw.size());
+    }
+    for (int i = 0; i < size; ++i) {
+      addNewNode(ordOffset + i);
+    }
+    for (int i = 0; i < size; ++i) {
+      final int node = ordOffset + i;
+      final float[] value = buildVectors.vectorValue(node);
+      graph.seek(i);
+      for (int friend = graph.nextNeighbor(); friend != DocIdSetIterator.NO_MORE_DOCS; friend = graph.nextNeighbor()) {
+        final int neighbor = ordOffset + friend;
+        // scores are not stored in the index, compute them again so that pruning works as usual
+        final float score = similarityFunction.compare(value, vectorValues.vectorValue(neighbor));
+        hnsw.connect(node, neighbor, score);
+      }
+    }
+  }
+
+  /**
+   * Add all nodes that have not been added yet in ordinal order, and return the graph.
+   */
+  public HnswGraph build() throws IOException {
+    for (int node = 0; node < hnsw.size(); ++node) {
+      if (hnsw.getNeighbors(node) == null) {
+        addGraphNode(node);
+      }
+    }
+    return hnsw;
+  }
+
+  /** Inserts a node with the given ordinal into the graph. */
+  void addGraphNode(int node) throws IOException {
+    final float[] value = buildVectors.vectorValue(node);
+    if (numAdded > 0) {
+      final int numSeeds = Math.min(numAdded, seeds.length);
+      if (numSeeds == numAdded) {
+        System.arraycopy(addedNodes, 0, seeds, 0, numSeeds);
+      } else {
+        for (int i = 0; i < numSeeds; ++i) {
+          seeds[i] = addedNodes[random.nextInt(numAdded)];
+        }
+      }
+      final SparseFixedBitSet visited = new SparseFixedBitSet(hnsw.size());
+      final NeighborQueue candidates = HnswGraph.search(value, beamWidth, seeds, numSeeds,
+          vectorValues, similarityFunction, hnsw, null, visited);
+      // only keep the maxConn most similar candidates
+      while (candidates.size() > maxConn) {
+        candidates.pop();
+      }
+      addNewNode(node);
+      while (candidates.size() > 0) {
+        final float score = candidates.topScore();
+        final int neighbor = candidates.pop();
+        hnsw.connect(node, neighbor, score);
+        hnsw.connect(neighbor, node, score);
+      }
+    } else {
+      addNewNode(node);
+    }
+  }
+
+  private void addNewNode(int node) {
+    hnsw.addNode(node);
+    addedNodes[numAdded++] = node;
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.hnsw;
+
+
+import org.apache.lucene.util.ArrayUtil;
+
+/**
+ * The neighbors of a node of a graph, along with their scores, in insertion order.
+ *
+ * @lucene.internal
+ */
+public class NeighborArray {
+
+  private int size;
+  int[] node;
+  float[] score;
+
+  /** Create an empty array that can hold up to {@code maxSize} neighbors without growing. */
+  public NeighborArray(int maxSize) {
+    node = new int[maxSize];
+    score = new float[maxSize];
+  }
+
+  /** Add a new neighbor. */
+  public void add(int newNode, float newScore) {
+    if (size == node.length) {
+      node = ArrayUtil.grow(node);
+      score = ArrayUtil.growExact(score, node.length);
+    }
+    node[size] = newNode;
+    score[size] = newScore;
+    ++size;
+  }
+
+  /** Return the number of neighbors. */
+  public int size() {
+    return size;
+  }
+
+  /** Return the node of the neighbor at the given index. */
+  public int node(int index) {
+    return node[index];
+  }
+
+  /** Return the score of the neighbor at the given index. */
+  public float score(int index) {
+    return score[index];
+  }
+
+  /** Remove the neighbor with the lowest score, if any. */
+  public void removeLeastCompetitive() {
+    if (size == 0) {
+      return;
+    }
+    int worst = 0;
+    for (int i = 1; i < size; ++i) {
+      if (score[i] < score[worst] || (score[i] == score[worst] && node[i] > node[worst])) {
+        worst = i;
+      }
+    }
+    // move the last neighbor in the slot of the removed one
+    --size;
+    node[worst] = node[size];
+    score[worst] = score[size];
+  }
+
+  @Override
+  public String toString() {
+    return "NeighborArray[" + size + "]";
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.hnsw;
+
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.NumericUtils;
+
+/**
+ * A heap of (node, score) pairs, backed by a {@code long[]} in which each pair is encoded as a
+ * single long, the score in the high bits and the node in the low bits. Ties on the score are
+ * broken in favor of the lower node, which is considered more competitive. Depending on how it
+ * is created, the top of the heap is either the most competitive neighbor (max-heap), which is
+ * useful to explore candidates in order, or the least competitive one (min-heap), which is useful
+ * to maintain the best neighbors found so far.
+ *
+ * @lucene.internal
+ */
+public class NeighborQueue {
+
+  private final boolean maxHeap;
+  private long[] heap;
+  private int size;
+
+  /**
+   * Create an empty queue.
+   *
+   * @param initialSize the initial capacity of the queue, it grows as needed
+   * @param maxHeap whether the most competitive neighbor should be on top
+   */
+  public NeighborQueue(int initialSize, boolean maxHeap) {
+    this.maxHeap = maxHeap;
+    // the heap is 1-based
+    this.heap = new long[Math.max(1, initialSize) + 1];
+  }
+
+  /** Return the number of neighbors in this queue. */
+  public int size() {
+    return size;
+  }
+
+  /** Add a new neighbor to the queue. */
+  public void add(int node, float score) {
+    if (size + 1 == heap.length) {
+      heap = ArrayUtil.grow(heap, size + 2);
+    }
+    heap[++size] = encode(node, score);
+    upHeap(size);
+  }
+
+  /**
+   * Add a neighbor to a queue that may hold at most {@code maxSize} neighbors. If the queue is
+   * full, the new neighbor replaces the top of the queue if, and only if, it is more competitive.
+   * This only makes sense on a min-heap.
+   *
+   * @return whether the neighbor was added
+   */
+  public boolean insertWithOverflow(int node, float score, int maxSize) {
+    assert maxHeap == false;
+    if (size < maxSize) {
+      add(node, score);
+      return true;
+    }
+    final long encoded = encode(node, score);
+    if (encoded > heap[1]) {
+      heap[1] = encoded;
+      downHeap(1);
+      return true;
+    }
+    return false;
+  }
+
+  /** Remove the top of the queue and return its node. */
+  public int pop() {
+    assert size > 0;
+    final int node = decodeNode(heap[1]);
+    heap[1] = heap[size--];
+    if (size > 0) {
+      downHeap(1);
+    }
+    return node;
+  }
+
+  /** Return the node at the top of the queue. */
+  public int topNode() {
+    assert size > 0;
+    return decodeNode(heap[1]);
+  }
+
+  /** Return the score at the top of the queue. */
+  public float topScore() {
+    assert size > 0;
+    return decodeScore(heap[1]);
+  }
+
+  /** Remove all neighbors from this queue. */
+  public void clear() {
+    size = 0;
+  }
+
+  private static long encode(int node, float score) {
+    return (((long) NumericUtils.floatToSortableInt(score)) << 32) | (0xFFFFFFFFL & ~node);
+  }
+
+  private static int decodeNode(long encoded) {
+    return ~((int) encoded);
+  }
+
+  private static float decodeScore(long encoded) {
+    return NumericUtils.sortableIntToFloat((int) (encoded >> 32));
+  }
+
+  private boolean lessThan(long a, long b) {
+    return maxHeap ? a > b : a < b;
+  }
+
+  private void upHeap(int i) {
+    final long value = heap[i];
+    int j = i >>> 1;
+    while (j > 0 && lessThan(value, heap[j])) {
+      heap[i] = heap[j];
+      i = j;
+      j = j >>> 1;
+    }
+    heap[i] = value;
+  }
+
+  private void downHeap(int i) {
+    final long value = heap[i];
+    int j = i << 1;
+    int k = j + 1;
+    if (k <= size && lessThan(heap[k], heap[j])) {
+      j = k;
+    }
+    while (j <= size && lessThan(heap[j], value)) {
+      heap[i] = heap[j];
+      i = j;
+      j = i << 1;
+      k = j + 1;
+      if (k <= size && lessThan(heap[k], heap[j])) {
+        j = k;
+      }
+    }
+    heap[i] = value;
+  }
+
+  @Override
+  public String toString() {
+    return "Neighbors[" + size + "]";
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.compressing;
+
+
+import java.io.IOException;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.TestUtil;
+
+public class TestLZ4WithPresetDictCompressionMode extends AbstractTestCompressionMode {
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    mode = new LZ4WithPresetDictCompressionMode();
+  }
+
+  public void testCompressWithDictionary() throws IOException {
+    final int iters = atLeast(20);
+    for (int iter = 0; iter < iters; ++iter) {
+      final byte[] dict = randomArray(TestUtil.nextInt(random(), 1, 1 << 12), random().nextInt(4));
+      final byte[] data = randomArray(TestUtil.nextInt(random(), 0, 1 << 14), random().nextInt(4));
+      final byte[] bytes = new byte[dict.length + data.length];
+      System.arraycopy(dict, 0, bytes, 0, dict.length);
+      System.arraycopy(data, 0, bytes, dict.length, data.length);
+
+      final byte[] compressed = new byte[data.length * 2 + 16];
+      final ByteArrayDataOutput out = new ByteArrayDataOutput(compressed);
+      LZ4.compressWithDictionary(bytes, 0, dict.length, data.length, out, new LZ4.HashTable());
+
+      final byte[] restored = new byte[dict.length + data.length + 7];
+      System.arraycopy(dict, 0, restored, 0, dict.length);
+      final int end = LZ4.decompress(new ByteArrayDataInput(compressed, 0, out.getPosition()),
+          dict.length + data.length, restored, dict.length);
+      assertEquals(dict.length + data.length, end);
+      assertArrayEquals(bytes, ArrayUtil.copyOfSubArray(restored, 0, bytes.length));
+    }
+  }
+
+  public void testDictionaryImprovesCompression() throws IOException {
+    // data whose redundancy is only visible through the dictionary
+    final byte[] data = randomArray(1024, 255);
+    final byte[] bytes = new byte[data.length * 2];
+    System.arraycopy(data, 0, bytes, 0, data.length);
+    System.arraycopy(data, 0, bytes, data.length, data.length);
+
+    final byte[] compressed = new byte[bytes.length * 2];
+    ByteArrayDataOutput out = new ByteArrayDataOutput(compressed);
+    LZ4.compress(bytes, data.length, data.length, out, new LZ4.HashTable());
+    final int withoutDict = out.getPosition();
+    out = new ByteArrayDataOutput(compressed);
+    LZ4.compressWithDictionary(bytes, 0, data.length, data.length, out, new LZ4.HashTable());
+    final int withDict = out.getPosition();
+    assertTrue(withDict + " " + withoutDict, withDict < withoutDict / 10);
+  }
+}
@@ -35,11 +35,15 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.Impact;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.store.ByteArrayDataInput;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.TestUtil;
 
 /**
@@ -77,6 +81,42 @@ public class TestBlockPostingsFormat extends BasePostingsFormatTestCase {
     d.close();
   }
 
+  public void testFSTLoadModeAuto() throws Exception {
+    doTestFSTLoadModeAuto(new MMapDirectory(createTempDir()), true);
+    doTestFSTLoadModeAuto(new NIOFSDirectory(createTempDir()), false);
+  }
+
+  private void doTestFSTLoadModeAuto(Directory d, boolean mmap) throws Exception {
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random())).setCodec(getCodec());
+    iwc.setUseCompoundFile(false);
+    iwc.getMergePolicy().setNoCFSRatio(0);
+    IndexWriter w = new IndexWriter(d, iwc);
+    final int numDocs = atLeast(200);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      doc.add(newStringField("id", Integer.toString(i), Field.Store.NO));
+      doc.add(newStringField("body", Integer.toString(i % 10), Field.Store.NO));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+
+    DirectoryReader r = DirectoryReader.open(w);
+    assertEquals(1, r.leaves().size());
+    // primary keys are off-heap if the index is memory-mapped
+    FieldReader id = (FieldReader) r.leaves().get(0).reader().terms("id");
+    assertEquals(mmap, id.isFstOffHeap());
+    FieldReader body = (FieldReader) r.leaves().get(0).reader().terms("body");
+    assertFalse(body.isFstOffHeap());
+    TermsEnum termsEnum = id.iterator();
+    for (int i = 0; i < numDocs; i++) {
+      assertTrue(termsEnum.seekExact(new BytesRef(Integer.toString(i))));
+    }
+    assertFalse(termsEnum.seekExact(new BytesRef("foo")));
+    r.close();
+    w.close();
+    d.close();
+  }
+
   private void shouldFail(int minItemsInBlock, int maxItemsInBlock) {
     expectThrows(IllegalArgumentException.class, () -> {
       new Lucene50PostingsFormat(minItemsInBlock, maxItemsInBlock);
@@ -18,8 +18,8 @@ package org.apache.lucene.codecs.lucene50;
 
 
 import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.lucene80.Lucene80Codec;
 import org.apache.lucene.index.BaseFieldInfoFormatTestCase;
-import org.apache.lucene.util.TestUtil;
 
 /**
  * Tests Lucene60FieldInfoFormat
@@ -28,6 +28,6 @@ public class TestLucene60FieldInfoFormat extends BaseFieldInfoFormatTestCase {
 
   @Override
   protected Codec getCodec() {
-    return TestUtil.getDefaultCodec();
+    return new Lucene80Codec();
   }
 }
@@ -19,6 +19,9 @@ package org.apache.lucene.codecs.lucene60;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.FilterCodec;
@@ -41,15 +44,32 @@ import org.apache.lucene.index.PointValues.IntersectVisitor;
 import org.apache.lucene.index.PointValues.Relation;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.FutureArrays;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.TestUtil;
 import org.apache.lucene.util.bkd.BKDWriter;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 
 /**
  * Tests Lucene60PointsFormat
  */
 public class TestLucene60PointsFormat extends BasePointsFormatTestCase {
+  private static ExecutorService executor;
+
   private final Codec codec;
   private final int maxPointsInLeafNode;
+
+  @BeforeClass
+  public static void beforeClass() {
+    executor = Executors.newFixedThreadPool(2, new NamedThreadFactory("TestLucene60PointsFormat"));
+  }
+
+  @AfterClass
+  public static void afterClass() throws Exception {
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+    executor = null;
+  }
   
   public TestLucene60PointsFormat() {
     // standard issue
@@ -58,8 +78,12 @@ public class TestLucene60PointsFormat extends BasePointsFormatTestCase {
       // randomize parameters
       maxPointsInLeafNode = TestUtil.nextInt(random(), 50, 500);
       double maxMBSortInHeap = 3.0 + (3*random().nextDouble());
+      // sometimes build trees of merged fields concurrently
+      ExecutorService mergeExecutor = random().nextBoolean() ? executor : null;
+      int numMergeThreads = TestUtil.nextInt(random(), 1, 4);
       if (VERBOSE) {
-        System.out.println("TEST: using Lucene60PointsFormat with maxPointsInLeafNode=" + maxPointsInLeafNode + " and maxMBSortInHeap=" + maxMBSortInHeap);
+        System.out.println("TEST: using Lucene60PointsFormat with maxPointsInLeafNode=" + maxPointsInLeafNode + " and maxMBSortInHeap=" + maxMBSortInHeap
+            + " and numMergeThreads=" + (mergeExecutor == null ? 1 : numMergeThreads));
       }
 
       // sneaky impersonation!
@@ -69,7 +93,7 @@ public class TestLucene60PointsFormat extends BasePointsFormatTestCase {
           return new PointsFormat() {
             @Override
             public PointsWriter fieldsWriter(SegmentWriteState writeState) throws IOException {
-              return new Lucene60PointsWriter(writeState, maxPointsInLeafNode, maxMBSortInHeap);
+              return new Lucene60PointsWriter(writeState, maxPointsInLeafNode, maxMBSortInHeap, mergeExecutor, numMergeThreads);
             }
 
             @Override
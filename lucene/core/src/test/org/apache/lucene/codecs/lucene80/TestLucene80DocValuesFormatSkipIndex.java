@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene80;
+
+import java.io.IOException;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.BaseCompressingDocValuesFormatTestCase;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValuesSkipper;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
+
+/**
+ * Tests Lucene80DocValuesFormat with skip indexes enabled
+ */
+public class TestLucene80DocValuesFormatSkipIndex extends BaseCompressingDocValuesFormatTestCase {
+  private final Codec codec = TestUtil.alwaysDocValuesFormat(new Lucene80DocValuesFormat(true));
+
+  @Override
+  protected Codec getCodec() {
+    return codec;
+  }
+
+  public void testSkipperIntervals() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig().setCodec(codec);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    final int numDocs = 10000;
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new NumericDocValuesField("dense", i));
+      if (i % 2 == 0) {
+        doc.add(new SortedNumericDocValuesField("sparse", -i));
+        doc.add(new SortedNumericDocValuesField("sparse", i));
+      }
+      doc.add(new SortedDocValuesField("sorted", new BytesRef("foo")));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    DirectoryReader reader = DirectoryReader.open(w);
+    w.close();
+    LeafReader leafReader = getOnlyLeafReader(reader);
+
+    DocValuesSkipper skipper = leafReader.getDocValuesSkipper("dense");
+    assertNotNull(skipper);
+    assertEquals(0, skipper.globalMinValue());
+    assertEquals(numDocs - 1, skipper.globalMaxValue());
+    assertEquals(numDocs, skipper.globalDocCount());
+    assertEquals(-1, skipper.minDocID());
+    assertEquals(-1, skipper.maxDocID());
+    skipper.advance(0);
+    assertInterval(skipper, 0, 4095, 0, 4095, 4096);
+    skipper.advance(4095);
+    assertInterval(skipper, 0, 4095, 0, 4095, 4096);
+    skipper.advance(5000);
+    assertInterval(skipper, 4096, 8191, 4096, 8191, 4096);
+    skipper.advance(numDocs - 1);
+    assertInterval(skipper, 8192, numDocs - 1, 8192, numDocs - 1, numDocs - 8192);
+    skipper.advance(numDocs);
+    assertEquals(DocIdSetIterator.NO_MORE_DOCS, skipper.minDocID());
+    assertEquals(DocIdSetIterator.NO_MORE_DOCS, skipper.maxDocID());
+
+    skipper = leafReader.getDocValuesSkipper("sparse");
+    assertNotNull(skipper);
+    assertEquals(-(numDocs - 2), skipper.globalMinValue());
+    assertEquals(numDocs - 2, skipper.globalMaxValue());
+    assertEquals(numDocs / 2, skipper.globalDocCount());
+    skipper.advance(8190);
+    assertInterval(skipper, 0, 8190, -8190, 8190, 4096);
+    // 8191 has no value, so the skipper moves to the next interval
+    skipper.advance(8191);
+    assertInterval(skipper, 8192, numDocs - 2, -(numDocs - 2), numDocs - 2, (numDocs - 8192) / 2);
+
+    assertNull(leafReader.getDocValuesSkipper("sorted"));
+    assertNull(leafReader.getDocValuesSkipper("missing"));
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testNoSkipIndex() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig()
+        .setCodec(TestUtil.alwaysDocValuesFormat(new Lucene80DocValuesFormat()));
+    IndexWriter w = new IndexWriter(dir, iwc);
+    Document doc = new Document();
+    doc.add(new NumericDocValuesField("dv", 42));
+    w.addDocument(doc);
+    DirectoryReader reader = DirectoryReader.open(w);
+    w.close();
+    assertNull(getOnlyLeafReader(reader).getDocValuesSkipper("dv"));
+    reader.close();
+    dir.close();
+  }
+
+  private static void assertInterval(DocValuesSkipper skipper, int minDocID, int maxDocID,
+      long minValue, long maxValue, int docCount) {
+    assertEquals(minDocID, skipper.minDocID());
+    assertEquals(maxDocID, skipper.maxDocID());
+    assertEquals(minValue, skipper.minValue());
+    assertEquals(maxValue, skipper.maxValue());
+    assertEquals(docCount, skipper.docCount());
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene90;
+
+import java.util.Collections;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.index.BaseFieldInfoFormatTestCase;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.util.TestUtil;
+
+/**
+ * Tests Lucene90FieldInfosFormat
+ */
+public class TestLucene90FieldInfosFormat extends BaseFieldInfoFormatTestCase {
+
+  @Override
+  protected Codec getCodec() {
+    return TestUtil.getDefaultCodec();
+  }
+
+  /** Test that the vector dimension and similarity function are written and read back */
+  public void testVectorSettings() throws Exception {
+    Directory dir = newDirectory();
+    Codec codec = getCodec();
+    SegmentInfo segmentInfo = newSegmentInfo(dir, "_123");
+    FieldInfo[] fieldInfos = new FieldInfo[VectorSimilarityFunction.values().length + 1];
+    fieldInfos[0] = new FieldInfo("novectors", 0, false, false, false, IndexOptions.DOCS, DocValuesType.NONE, -1,
+        Collections.emptyMap(), 0, 0, 0, 0, VectorSimilarityFunction.EUCLIDEAN, false);
+    for (VectorSimilarityFunction similarity : VectorSimilarityFunction.values()) {
+      int number = similarity.ordinal() + 1;
+      fieldInfos[number] = new FieldInfo("vectors" + number, number, false, false, false, IndexOptions.NONE,
+          DocValuesType.NONE, -1, Collections.emptyMap(), 0, 0, 0, TestUtil.nextInt(random(), 1, 1024), similarity,
+          false);
+    }
+    FieldInfos infos = new FieldInfos(fieldInfos);
+    codec.fieldInfosFormat().write(dir, segmentInfo, "", infos, IOContext.DEFAULT);
+    FieldInfos infos2 = codec.fieldInfosFormat().read(dir, segmentInfo, "", IOContext.DEFAULT);
+    assertEquals(infos.size(), infos2.size());
+    for (FieldInfo expected : infos) {
+      FieldInfo actual = infos2.fieldInfo(expected.name);
+      assertEquals(expected.getVectorDimension(), actual.getVectorDimension());
+      assertEquals(expected.getVectorSimilarityFunction(), actual.getVectorSimilarityFunction());
+    }
+    assertTrue(infos2.hasVectorValues());
+    dir.close();
+  }
+}
@@ -17,9 +17,27 @@
 package org.apache.lucene.index;
 
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.document.VectorField;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.NamedThreadFactory;
+import org.apache.lucene.util.TestUtil;
 import org.junit.Test;
 
 public class TestCheckIndex extends BaseTestCheckIndex {
@@ -56,4 +74,119 @@ public class TestCheckIndex extends BaseTestCheckIndex {
   public void testObtainsLock() throws IOException {
     testObtainsLock(directory);
   }
+
+  @Test
+  public void testConcurrentCheck() throws IOException {
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setMaxBufferedDocs(TestUtil.nextInt(random(), 5, 20));
+    iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+    iwc.setCodec(TestUtil.getDefaultCodec());
+    FieldType withVectors = new FieldType(TextField.TYPE_STORED);
+    withVectors.setStoreTermVectors(true);
+    withVectors.setStoreTermVectorPositions(true);
+    try (IndexWriter writer = new IndexWriter(directory, iwc)) {
+      int numDocs = atLeast(200);
+      for (int i = 0; i < numDocs; i++) {
+        Document doc = new Document();
+        doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+        doc.add(new Field("body", "value" + (i % 7) + " other" + (i % 13), withVectors));
+        doc.add(new NumericDocValuesField("dv", i));
+        doc.add(new SortedSetDocValuesField("ssdv", new BytesRef("value" + (i % 11))));
+        doc.add(new IntPoint("point", i));
+        if (i % 3 != 0) {
+          doc.add(new VectorField("vector", new float[] {i, i % 5}));
+        }
+        writer.addDocument(doc);
+        if (i % 17 == 0) {
+          writer.deleteDocuments(new Term("id", Integer.toString(i / 2)));
+        }
+      }
+    }
+
+    CheckIndex.Status expected;
+    try (CheckIndex checker = new CheckIndex(directory)) {
+      checker.setInfoStream(new PrintStream(new ByteArrayOutputStream(), false, IOUtils.UTF_8));
+      expected = checker.checkIndex();
+    }
+    assertTrue(expected.clean);
+    assertTrue(expected.numSegments > 1);
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(1024);
+    CheckIndex.Status actual;
+    ExecutorService executor = Executors.newFixedThreadPool(TestUtil.nextInt(random(), 2, 4), new NamedThreadFactory("TestCheckIndex"));
+    try (CheckIndex checker = new CheckIndex(directory)) {
+      checker.setInfoStream(new PrintStream(bos, false, IOUtils.UTF_8));
+      actual = checker.checkIndex(null, executor);
+    } finally {
+      executor.shutdown();
+    }
+    String output = bos.toString(IOUtils.UTF_8);
+    assertTrue(output, actual.clean);
+    assertEquals(expected.numSegments, actual.numSegments);
+    assertEquals(expected.segmentInfos.size(), actual.segmentInfos.size());
+    assertEquals(expected.newSegments.size(), actual.newSegments.size());
+    for (int i = 0; i < expected.segmentInfos.size(); i++) {
+      CheckIndex.Status.SegmentInfoStatus e = expected.segmentInfos.get(i);
+      CheckIndex.Status.SegmentInfoStatus a = actual.segmentInfos.get(i);
+      assertEquals(e.name, a.name);
+      assertEquals(e.name, actual.newSegments.info(i).info.name);
+      assertTrue(output.contains("name=" + a.name + " "));
+      assertEquals(e.maxDoc, a.maxDoc);
+      assertEquals(e.liveDocStatus.numDeleted, a.liveDocStatus.numDeleted);
+      assertEquals(e.termIndexStatus.termCount, a.termIndexStatus.termCount);
+      assertEquals(e.termIndexStatus.totFreq, a.termIndexStatus.totFreq);
+      assertEquals(e.termIndexStatus.totPos, a.termIndexStatus.totPos);
+      assertEquals(e.storedFieldStatus.docCount, a.storedFieldStatus.docCount);
+      assertEquals(e.storedFieldStatus.totFields, a.storedFieldStatus.totFields);
+      assertEquals(e.termVectorStatus.totVectors, a.termVectorStatus.totVectors);
+      assertEquals(e.docValuesStatus.totalNumericFields, a.docValuesStatus.totalNumericFields);
+      assertEquals(e.docValuesStatus.totalSortedSetFields, a.docValuesStatus.totalSortedSetFields);
+      assertEquals(e.pointsStatus.totalValuePoints, a.pointsStatus.totalValuePoints);
+      assertEquals(e.vectorValuesStatus.totalVectorValues, a.vectorValuesStatus.totalVectorValues);
+      assertEquals(e.vectorValuesStatus.totalGraphFields, a.vectorValuesStatus.totalGraphFields);
+    }
+    assertTrue(output.contains("[" + actual.segmentInfos.size() + " of " + actual.segmentInfos.size() + " segments checked]"));
+  }
+
+  public void testVectors() throws IOException {
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setCodec(TestUtil.getDefaultCodec());
+    int numDocs = atLeast(100);
+    int numVectors = 0;
+    try (IndexWriter writer = new IndexWriter(directory, iwc)) {
+      for (int i = 0; i < numDocs; i++) {
+        Document doc = new Document();
+        if (random().nextInt(3) != 0) {
+          doc.add(new VectorField("vector", new float[] {random().nextFloat(), random().nextFloat(), random().nextFloat()}));
+          numVectors++;
+        }
+        doc.add(new StringField("id", Integer.toString(i), Field.Store.NO));
+        writer.addDocument(doc);
+      }
+      writer.forceMerge(1);
+    }
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(1024);
+    CheckIndex.Status status;
+    try (CheckIndex checker = new CheckIndex(directory)) {
+      checker.setInfoStream(new PrintStream(bos, false, IOUtils.UTF_8));
+      status = checker.checkIndex();
+    }
+    String output = bos.toString(IOUtils.UTF_8);
+    assertTrue(output, status.clean);
+    assertEquals(1, status.segmentInfos.size());
+    CheckIndex.Status.VectorValuesStatus vectorStatus = status.segmentInfos.get(0).vectorValuesStatus;
+    assertNull(vectorStatus.error);
+    assertEquals(1, vectorStatus.totalVectorFields);
+    assertEquals(numVectors, vectorStatus.totalVectorValues);
+    assertEquals(1, vectorStatus.totalGraphFields);
+    assertTrue(output, output.contains("test: vectors"));
+  }
+
+  public void testThreadCountOption() {
+    CheckIndex.Options opts = CheckIndex.parseOptions(new String[] {"index", "-threadCount", "4"});
+    assertEquals(4, opts.threadCount);
+    expectThrows(IllegalArgumentException.class, () -> CheckIndex.parseOptions(new String[] {"index", "-threadCount", "0"}));
+    expectThrows(IllegalArgumentException.class, () -> CheckIndex.parseOptions(new String[] {"index", "-threadCount"}));
+  }
 }
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+/**
+ * Tests for {@link DocumentsWriterBlockRecycler}
+ */
+public class TestDocumentsWriterBlockRecycler extends LuceneTestCase {
+
+  public void testRecycleAndTake() {
+    IndexWriterConfig config = new IndexWriterConfig(new MockAnalyzer(random()));
+    config.setRAMBufferSizeMB(1);
+    DocumentsWriterBlockRecycler recycler = new DocumentsWriterBlockRecycler(config);
+    assertNull(recycler.takeByteBlock());
+    assertNull(recycler.takeIntBlock());
+
+    byte[][] byteBlocks = new byte[][] {new byte[1024], new byte[1024], new byte[1024]};
+    recycler.recycleByteBlocks(byteBlocks, 1, 3);
+    assertNotNull(byteBlocks[0]);
+    assertNull(byteBlocks[1]);
+    assertNull(byteBlocks[2]);
+    int[][] intBlocks = new int[][] {new int[256]};
+    recycler.recycleIntBlocks(intBlocks, 0, 1);
+    assertNull(intBlocks[0]);
+    assertTrue(recycler.ramBytesUsed() >= 3 * 1024);
+
+    assertNotNull(recycler.takeByteBlock());
+    assertNotNull(recycler.takeByteBlock());
+    assertNull(recycler.takeByteBlock());
+    assertNotNull(recycler.takeIntBlock());
+    assertNull(recycler.takeIntBlock());
+    assertTrue(recycler.ramBytesUsed() < 1024);
+  }
+
+  public void testBoundedByRAMBuffer() {
+    IndexWriterConfig config = new IndexWriterConfig(new MockAnalyzer(random()));
+    config.setRAMBufferSizeMB(1);
+    DocumentsWriterBlockRecycler recycler = new DocumentsWriterBlockRecycler(config);
+    byte[][] blocks = new byte[64][];
+    for (int i = 0; i < blocks.length; i++) {
+      blocks[i] = new byte[32 * 1024];
+    }
+    recycler.recycleByteBlocks(blocks, 0, blocks.length);
+    for (byte[] block : blocks) {
+      assertNull(block);
+    }
+    int recycled = 0;
+    while (recycler.takeByteBlock() != null) {
+      recycled++;
+    }
+    // an eighth of the RAM buffer
+    assertEquals(32 / DocumentsWriterBlockRecycler.MAX_RECYCLED_RAM_BUFFER_DIVISOR, recycled);
+
+    blocks[0] = new byte[32 * 1024];
+    recycler.recycleByteBlocks(blocks, 0, 1);
+    // a smaller RAM buffer drops the blocks that no longer fit
+    config.setMaxBufferedDocs(10);
+    config.setRAMBufferSizeMB(IndexWriterConfig.DISABLE_AUTO_FLUSH);
+    recycler.recycleByteBlocks(new byte[][] {new byte[32 * 1024]}, 0, 1);
+    assertNull(recycler.takeByteBlock());
+
+    recycler.clear();
+    assertNull(recycler.takeByteBlock());
+  }
+
+  public void testIndexWithRecycledBlocks() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig config = newIndexWriterConfig(new MockAnalyzer(random()));
+    config.setRAMBufferSizeMB(TestUtil.nextInt(random(), 1, 4));
+    config.setMaxBufferedDocs(IndexWriterConfig.DISABLE_AUTO_FLUSH);
+    config.setMergePolicy(newLogMergePolicy());
+    config.setRecycleIndexingBlocks(true);
+    FieldType withVectors = new FieldType(TextField.TYPE_NOT_STORED);
+    withVectors.setStoreTermVectors(true);
+    withVectors.setStoreTermVectorPositions(true);
+    IndexWriter writer = new IndexWriter(dir, config);
+    int numDocs = atLeast(500);
+    int numRounds = TestUtil.nextInt(random(), 2, 4);
+    for (int round = 0; round < numRounds; round++) {
+      for (int i = 0; i < numDocs; i++) {
+        Document doc = new Document();
+        doc.add(new StringField("id", round + "_" + i, Field.Store.NO));
+        doc.add(new Field("body", "common value" + (i % 100) + " round" + round + " " + TestUtil.randomSimpleString(random()), withVectors));
+        writer.addDocument(doc);
+      }
+      writer.commit();
+      // the blocks of the flushed segment are kept for the next one
+      assertTrue(writer.ramBytesUsed() > 0);
+    }
+
+    try (DirectoryReader reader = DirectoryReader.open(writer)) {
+      IndexSearcher searcher = newSearcher(reader);
+      assertEquals(numRounds * numDocs, searcher.count(new TermQuery(new Term("body", "common"))));
+      for (int round = 0; round < numRounds; round++) {
+        assertEquals(numDocs, searcher.count(new TermQuery(new Term("body", "round" + round))));
+        assertEquals(1, searcher.count(new TermQuery(new Term("id", round + "_" + random().nextInt(numDocs)))));
+      }
+    }
+    writer.close();
+    dir.close();
+  }
+}
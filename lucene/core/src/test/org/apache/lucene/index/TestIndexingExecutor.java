@@ -0,0 +1,307 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.MockTokenizer;
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
+import org.apache.lucene.util.TestUtil;
+import org.apache.lucene.util.ThreadInterruptedException;
+
+public class TestIndexingExecutor extends LuceneTestCase {
+
+  private static final String[] WORDS = {"a", "b", "c", "d", "e", "lucene", "index", "search", "token"};
+
+  private static final FieldType TEXT_WITH_VECTORS = new FieldType(TextField.TYPE_NOT_STORED);
+  static {
+    TEXT_WITH_VECTORS.setStoreTermVectors(true);
+    TEXT_WITH_VECTORS.setStoreTermVectorPositions(true);
+    TEXT_WITH_VECTORS.setStoreTermVectorOffsets(true);
+    TEXT_WITH_VECTORS.freeze();
+  }
+
+  public void testSameIndexAsWithoutExecutor() throws Exception {
+    List<Document> docs = new ArrayList<>();
+    int numDocs = atLeast(100);
+    for (int i = 0; i < numDocs; i++) {
+      docs.add(randomDocument(i, 0));
+    }
+    Analyzer analyzer = newAnalyzer();
+    Sort indexSort = random().nextBoolean() ? new Sort(new SortField("sort", SortField.Type.LONG)) : null;
+    int maxBufferedDocs = TestUtil.nextInt(random(), 5, 50);
+
+    try (Directory expectedDir = newDirectory(); Directory actualDir = newDirectory()) {
+      List<Integer> expectedFailures = index(expectedDir, analyzer, indexSort, maxBufferedDocs, docs, null);
+      ExecutorService executor = newExecutor();
+      try {
+        List<Integer> actualFailures = index(actualDir, analyzer, indexSort, maxBufferedDocs, docs, executor);
+        assertEquals(expectedFailures, actualFailures);
+      } finally {
+        shutdown(executor);
+      }
+      assertSameIndex(expectedDir, actualDir);
+    }
+    analyzer.close();
+  }
+
+  public void testAnalysisFailures() throws Exception {
+    List<Document> docs = new ArrayList<>();
+    int numDocs = atLeast(100);
+    for (int i = 0; i < numDocs; i++) {
+      // sometimes fail analysis on reset, on a token or on end
+      docs.add(randomDocument(i, random().nextInt(10) == 0 ? TestUtil.nextInt(random(), 1, 3) : 0));
+    }
+    Analyzer analyzer = newAnalyzer();
+    int maxBufferedDocs = TestUtil.nextInt(random(), 5, 50);
+
+    try (Directory expectedDir = newDirectory(); Directory actualDir = newDirectory()) {
+      List<Integer> expectedFailures = index(expectedDir, analyzer, null, maxBufferedDocs, docs, null);
+      assertFalse(expectedFailures.isEmpty());
+      ExecutorService executor = newExecutor();
+      try {
+        List<Integer> actualFailures = index(actualDir, analyzer, null, maxBufferedDocs, docs, executor);
+        assertEquals(expectedFailures, actualFailures);
+      } finally {
+        shutdown(executor);
+      }
+      assertSameIndex(expectedDir, actualDir);
+    }
+    analyzer.close();
+  }
+
+  public void testFieldsAfterFailureAreNotAnalyzed() throws Exception {
+    AtomicInteger analyzedFields = new AtomicInteger();
+    Analyzer analyzer = new Analyzer() {
+      @Override
+      protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer tokenizer = new MockTokenizer(MockTokenizer.WHITESPACE, false);
+        TokenStream counting = new TokenFilter(tokenizer) {
+          @Override
+          public boolean incrementToken() throws IOException {
+            return input.incrementToken();
+          }
+
+          @Override
+          public void reset() throws IOException {
+            super.reset();
+            analyzedFields.incrementAndGet();
+          }
+        };
+        return new TokenStreamComponents(tokenizer, new FailingFilter(counting, fieldName));
+      }
+    };
+    // the only thread of the executor is busy until the document failed
+    ExecutorService executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("TestIndexingExecutor"));
+    CountDownLatch failed = new CountDownLatch(1);
+    executor.execute(() -> {
+      try {
+        failed.await();
+      } catch (InterruptedException e) {
+        throw new ThreadInterruptedException(e);
+      }
+    });
+    try (Directory dir = newDirectory();
+         IndexWriter w = new IndexWriter(dir, new IndexWriterConfig(analyzer).setIndexingExecutor(executor))) {
+      Document doc = new Document();
+      doc.add(new TextField("fail_reset", randomText(), Field.Store.NO));
+      for (int i = 0; i < DefaultIndexingChain.MIN_CONCURRENT_ANALYSIS_FIELDS; i++) {
+        doc.add(new TextField("text" + i, randomText(), Field.Store.NO));
+      }
+      IllegalStateException e = expectThrows(IllegalStateException.class, () -> w.addDocument(doc));
+      assertEquals("fail on reset", e.getMessage());
+      failed.countDown();
+      shutdown(executor);
+      // the indexing thread analyzed the first field, the analysis of the other ones was cancelled
+      assertEquals(1, analyzedFields.get());
+    } finally {
+      failed.countDown();
+      shutdown(executor);
+    }
+    analyzer.close();
+  }
+
+  /** Builds a document with many text fields; failure is 1, 2 or 3 to make the analysis of one of them
+   *  fail on reset, on a token or on end respectively. */
+  private static Document randomDocument(int id, int failure) {
+    Document doc = new Document();
+    doc.add(new StringField("id", Integer.toString(id), Field.Store.YES));
+    doc.add(new NumericDocValuesField("sort", random().nextInt(1000)));
+    doc.add(new IntPoint("point", random().nextInt(1000)));
+    doc.add(new SortedSetDocValuesField("dv", new BytesRef(WORDS[random().nextInt(WORDS.length)])));
+    int numTextFields = random().nextBoolean() ? TestUtil.nextInt(random(), 1, DefaultIndexingChain.MIN_CONCURRENT_ANALYSIS_FIELDS)
+        : TestUtil.nextInt(random(), DefaultIndexingChain.MIN_CONCURRENT_ANALYSIS_FIELDS, 40);
+    for (int i = 0; i < numTextFields; i++) {
+      String name = "text" + random().nextInt(20);
+      String value = randomText();
+      switch (random().nextInt(3)) {
+        case 0:
+          doc.add(new TextField(name, value, Field.Store.NO));
+          break;
+        case 1:
+          doc.add(new TextField(name + "_stored", value, Field.Store.YES));
+          break;
+        default:
+          doc.add(new Field(name + "_vectors", value, TEXT_WITH_VECTORS));
+          break;
+      }
+    }
+    doc.add(new StoredField("stored", randomText()));
+    switch (failure) {
+      case 1:
+        doc.add(new TextField("fail_reset", randomText(), Field.Store.NO));
+        break;
+      case 2:
+        doc.add(new TextField("text0", randomText() + " fail", Field.Store.NO));
+        break;
+      case 3:
+        doc.add(new TextField("fail_end", randomText(), Field.Store.NO));
+        break;
+    }
+    return doc;
+  }
+
+  /** Unlike MockAnalyzer, this analyzer produces the same tokens when a document is indexed twice. */
+  private static Analyzer newAnalyzer() {
+    return new Analyzer() {
+      @Override
+      protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer tokenizer = new MockTokenizer(MockTokenizer.WHITESPACE, false);
+        return new TokenStreamComponents(tokenizer, new FailingFilter(tokenizer, fieldName));
+      }
+    };
+  }
+
+  private static String randomText() {
+    StringBuilder text = new StringBuilder();
+    int numWords = random().nextInt(20);
+    for (int i = 0; i < numWords; i++) {
+      text.append(WORDS[random().nextInt(WORDS.length)]).append(' ');
+    }
+    return text.toString();
+  }
+
+  /** Indexes the documents and returns the ids of those that failed. */
+  private static List<Integer> index(Directory dir, Analyzer analyzer, Sort indexSort, int maxBufferedDocs,
+      List<Document> docs, ExecutorService executor) throws IOException {
+    IndexWriterConfig iwc = new IndexWriterConfig(analyzer)
+        .setMaxBufferedDocs(maxBufferedDocs)
+        .setRAMBufferSizeMB(IndexWriterConfig.DISABLE_AUTO_FLUSH)
+        .setMergePolicy(NoMergePolicy.INSTANCE)
+        .setIndexingExecutor(executor);
+    if (indexSort != null) {
+      iwc.setIndexSort(indexSort);
+    }
+    List<Integer> failures = new ArrayList<>();
+    try (IndexWriter w = new IndexWriter(dir, iwc)) {
+      for (int i = 0; i < docs.size(); i++) {
+        try {
+          w.addDocument(docs.get(i));
+        } catch (IllegalStateException e) {
+          assertTrue(e.getMessage(), e.getMessage().startsWith("fail on "));
+          failures.add(i);
+        }
+      }
+    }
+    return failures;
+  }
+
+  private void assertSameIndex(Directory expectedDir, Directory actualDir) throws IOException {
+    try (DirectoryReader expected = DirectoryReader.open(expectedDir);
+         DirectoryReader actual = DirectoryReader.open(actualDir)) {
+      assertEquals(expected.leaves().size(), actual.leaves().size());
+      for (int i = 0; i < expected.leaves().size(); i++) {
+        assertReaderEquals("segment " + i, expected.leaves().get(i).reader(), actual.leaves().get(i).reader());
+      }
+    }
+    TestUtil.checkIndex(actualDir);
+  }
+
+  private static ExecutorService newExecutor() {
+    return Executors.newFixedThreadPool(TestUtil.nextInt(random(), 1, 4), new NamedThreadFactory("TestIndexingExecutor"));
+  }
+
+  private static void shutdown(ExecutorService executor) throws InterruptedException {
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+  }
+
+  /** Fails the analysis of fields named fail_reset and fail_end, and of tokens equal to "fail". */
+  private static final class FailingFilter extends TokenFilter {
+    private final String fieldName;
+    private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+
+    FailingFilter(TokenStream input, String fieldName) {
+      super(input);
+      this.fieldName = fieldName;
+    }
+
+    @Override
+    public void reset() throws IOException {
+      super.reset();
+      if (fieldName.equals("fail_reset")) {
+        throw new IllegalStateException("fail on reset");
+      }
+    }
+
+    @Override
+    public boolean incrementToken() throws IOException {
+      if (input.incrementToken() == false) {
+        return false;
+      }
+      if (termAtt.toString().equals("fail")) {
+        throw new IllegalStateException("fail on token");
+      }
+      return true;
+    }
+
+    @Override
+    public void end() throws IOException {
+      super.end();
+      if (fieldName.equals("fail_end")) {
+        throw new IllegalStateException("fail on end");
+      }
+    }
+  }
+}
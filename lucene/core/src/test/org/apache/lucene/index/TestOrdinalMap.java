@@ -20,6 +20,9 @@ package org.apache.lucene.index;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.document.Document;
@@ -29,6 +32,7 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LongValues;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.RamUsageTester;
 import org.apache.lucene.util.TestUtil;
 
@@ -49,6 +53,10 @@ public class TestOrdinalMap extends LuceneTestCase {
       if (o == LongValues.IDENTITY) {
         return 0L;
       }
+      if (o instanceof OrdinalMap.SegmentKey) {
+        // core keys and field names are shared
+        return shallowSize;
+      }
       if (o instanceof OrdinalMap) {
         fieldValues = new HashMap<>(fieldValues);
         fieldValues.remove(ORDINAL_MAP_OWNER_FIELD);
@@ -95,4 +103,128 @@ public class TestOrdinalMap extends LuceneTestCase {
     dir.close();
   }
 
+  public void testIncrementalBuild() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig cfg = newIndexWriterConfig(new MockAnalyzer(random())).setMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter iw = new IndexWriter(dir, cfg);
+    final int maxTermLength = TestUtil.nextInt(random(), 1, 4);
+    ExecutorService executor = random().nextBoolean() ? null : Executors.newFixedThreadPool(2, new NamedThreadFactory("TestOrdinalMap"));
+    try {
+      OrdinalMap previousSorted = null, previousSortedSet = null;
+      DirectoryReader r = null;
+      final int iters = atLeast(5);
+      for (int iter = 0; iter < iters; ++iter) {
+        // new segments with random terms, or with terms that sort after all existing terms
+        final String prefix = random().nextBoolean() ? "" : "z" + iter;
+        final int numDocs = TestUtil.nextInt(random(), 1, 100);
+        for (int i = 0; i < numDocs; ++i) {
+          Document d = new Document();
+          d.add(new SortedDocValuesField("sdv", new BytesRef(prefix + TestUtil.randomSimpleString(random(), maxTermLength))));
+          final int numSortedSet = random().nextInt(3);
+          for (int j = 0; j < numSortedSet; ++j) {
+            d.add(new SortedSetDocValuesField("ssdv", new BytesRef(prefix + TestUtil.randomSimpleString(random(), maxTermLength))));
+          }
+          iw.addDocument(d);
+          if (rarely()) {
+            iw.commit();
+          }
+        }
+        if (rarely()) {
+          iw.forceMerge(1);
+        }
+        DirectoryReader newReader = r == null ? DirectoryReader.open(iw) : DirectoryReader.openIfChanged(r, iw);
+        if (newReader == null) {
+          continue;
+        }
+        if (r != null) {
+          r.close();
+        }
+        r = newReader;
+
+        SortedDocValues sdv = MultiDocValues.getSortedValues(r, "sdv", previousSorted, executor);
+        if (sdv instanceof MultiDocValues.MultiSortedDocValues) {
+          OrdinalMap map = ((MultiDocValues.MultiSortedDocValues) sdv).mapping;
+          OrdinalMap expected = ((MultiDocValues.MultiSortedDocValues) MultiDocValues.getSortedValues(r, "sdv")).mapping;
+          assertSameOrdinals(r, "sdv", expected, map);
+          assertEquals(RamUsageTester.sizeOf(map, ORDINAL_MAP_ACCUMULATOR), map.ramBytesUsed());
+          previousSorted = map;
+        }
+        SortedSetDocValues ssdv = MultiDocValues.getSortedSetValues(r, "ssdv", previousSortedSet, executor);
+        if (ssdv instanceof MultiDocValues.MultiSortedSetDocValues) {
+          OrdinalMap map = ((MultiDocValues.MultiSortedSetDocValues) ssdv).mapping;
+          OrdinalMap expected = ((MultiDocValues.MultiSortedSetDocValues) MultiDocValues.getSortedSetValues(r, "ssdv")).mapping;
+          assertSameOrdinals(r, "ssdv", expected, map);
+          previousSortedSet = map;
+        }
+      }
+      if (r != null) {
+        r.close();
+      }
+    } finally {
+      if (executor != null) {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+      }
+    }
+    iw.close();
+    dir.close();
+  }
+
+  public void testReuseSegmentsWithoutNewTerms() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig cfg = newIndexWriterConfig(new MockAnalyzer(random())).setMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter iw = new IndexWriter(dir, cfg);
+    for (int segment = 0; segment < 3; ++segment) {
+      for (int i = 0; i < 10; ++i) {
+        Document d = new Document();
+        d.add(new SortedSetDocValuesField("ssdv", new BytesRef("a" + segment + i)));
+        iw.addDocument(d);
+      }
+      iw.commit();
+    }
+    DirectoryReader r1 = DirectoryReader.open(iw);
+    OrdinalMap previous = ((MultiDocValues.MultiSortedSetDocValues) MultiDocValues.getSortedSetValues(r1, "ssdv")).mapping;
+
+    // the new segment only has terms that sort after existing terms
+    Document d = new Document();
+    d.add(new SortedSetDocValuesField("ssdv", new BytesRef("b")));
+    iw.addDocument(d);
+    DirectoryReader r2 = DirectoryReader.openIfChanged(r1, iw);
+    assertNotNull(r2);
+    assertEquals(4, r2.leaves().size());
+    OrdinalMap map = ((MultiDocValues.MultiSortedSetDocValues) MultiDocValues.getSortedSetValues(r2, "ssdv", previous, null)).mapping;
+    assertEquals(31, map.getValueCount());
+    for (int i = 0; i < 3; ++i) {
+      assertSame(previous.getGlobalOrds(i), map.getGlobalOrds(i));
+    }
+    assertEquals(30, map.getGlobalOrds(3).get(0));
+    OrdinalMap expected = ((MultiDocValues.MultiSortedSetDocValues) MultiDocValues.getSortedSetValues(r2, "ssdv")).mapping;
+    assertSameOrdinals(r2, "ssdv", expected, map);
+
+    r1.close();
+    r2.close();
+    iw.close();
+    dir.close();
+  }
+
+  private static void assertSameOrdinals(IndexReader reader, String field, OrdinalMap expected, OrdinalMap actual) throws IOException {
+    assertEquals(expected.getValueCount(), actual.getValueCount());
+    for (int i = 0; i < reader.leaves().size(); ++i) {
+      SortedSetDocValues values = DocValues.getSortedSet(reader.leaves().get(i).reader(), field);
+      LongValues expectedGlobalOrds = expected.getGlobalOrds(i);
+      LongValues actualGlobalOrds = actual.getGlobalOrds(i);
+      for (long ord = 0; ord < values.getValueCount(); ++ord) {
+        assertEquals(expectedGlobalOrds.get(ord), actualGlobalOrds.get(ord));
+      }
+    }
+    for (long globalOrd = 0; globalOrd < expected.getValueCount(); ++globalOrd) {
+      assertEquals(lookupTerm(reader, field, expected, globalOrd), lookupTerm(reader, field, actual, globalOrd));
+    }
+  }
+
+  private static BytesRef lookupTerm(IndexReader reader, String field, OrdinalMap map, long globalOrd) throws IOException {
+    LeafReader leaf = reader.leaves().get(map.getFirstSegmentNumber(globalOrd)).reader();
+    return BytesRef.deepCopyOf(DocValues.getSortedSet(leaf, field).lookupOrd(map.getFirstSegmentOrd(globalOrd)));
+  }
+
 }
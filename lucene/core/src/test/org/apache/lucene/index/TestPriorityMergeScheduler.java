@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.MergePolicy.OneMerge;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.StringHelper;
+import org.apache.lucene.util.TestUtil;
+import org.apache.lucene.util.Version;
+
+public class TestPriorityMergeScheduler extends LuceneTestCase {
+
+  public void testIllegalArguments() {
+    PriorityMergeScheduler pms = new PriorityMergeScheduler();
+    expectThrows(IllegalArgumentException.class, () -> pms.setMaxSegmentCount(0));
+    expectThrows(IllegalArgumentException.class, () -> pms.setMaxPauseSec(-1));
+    expectThrows(IllegalArgumentException.class, () -> pms.setMaxPauseSec(Double.NaN));
+    expectThrows(IllegalArgumentException.class, () -> pms.setMinBigMergeMB(-1));
+    pms.setMaxSegmentCount(3);
+    assertEquals(3, pms.getMaxSegmentCount());
+    pms.setMaxPauseSec(0.5);
+    assertEquals(0.5, pms.getMaxPauseSec(), 0d);
+    pms.setMinBigMergeMB(2);
+    assertEquals(2, pms.getMinBigMergeMB(), 0d);
+  }
+
+  private static OneMerge newMerge(Directory dir, int numSegments, long estimatedMergeBytes) {
+    SegmentCommitInfo[] infos = new SegmentCommitInfo[numSegments];
+    for (int i = 0; i < numSegments; ++i) {
+      SegmentInfo si = new SegmentInfo(dir, Version.LATEST, Version.LATEST, "_" + i, 10, false, TestUtil.getDefaultCodec(),
+          Collections.emptyMap(), StringHelper.randomId(), Collections.emptyMap(), null);
+      infos[i] = new SegmentCommitInfo(si, 0, 0, -1, -1, -1);
+    }
+    OneMerge merge = new OneMerge(Arrays.asList(infos));
+    merge.estimatedMergeBytes = estimatedMergeBytes;
+    return merge;
+  }
+
+  /** A merge thread that doesn't merge but waits until it gets released. */
+  private static class BlockedMergeThread extends PriorityMergeScheduler.PriorityMergeThread {
+    final CountDownLatch release = new CountDownLatch(1);
+
+    BlockedMergeThread(PriorityMergeScheduler pms, IndexWriter writer, OneMerge merge) {
+      pms.super(writer, merge, pms.getMergePriority(merge));
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    boolean isPaused() {
+      return rateLimiter.getMBPerSec() == 0.0;
+    }
+  }
+
+  private static BlockedMergeThread startMerge(PriorityMergeScheduler pms, IndexWriter writer, OneMerge merge) {
+    BlockedMergeThread thread = new BlockedMergeThread(pms, writer, merge);
+    thread.start();
+    synchronized (pms) {
+      pms.mergeThreads.add(thread);
+    }
+    return thread;
+  }
+
+  private static void releaseMerges(List<BlockedMergeThread> threads) throws InterruptedException {
+    for (BlockedMergeThread thread : threads) {
+      thread.release.countDown();
+      thread.join();
+    }
+  }
+
+  private static void addSegments(IndexWriter writer, int count) throws Exception {
+    for (int i = 0; i < count; ++i) {
+      writer.addDocument(new Document());
+      writer.commit();
+    }
+  }
+
+  private static IndexWriter newWriterWithoutMerges(Directory dir) throws Exception {
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+    return new IndexWriter(dir, iwc);
+  }
+
+  public void testPriorityOrder() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter writer = newWriterWithoutMerges(dir);
+    addSegments(writer, 1);
+
+    PriorityMergeScheduler pms = new PriorityMergeScheduler();
+    pms.setMaxMergesAndThreads(6, 1);
+    pms.setMinBigMergeMB(1);
+    final long mb = 1024 * 1024;
+    List<BlockedMergeThread> threads = new ArrayList<>();
+    BlockedMergeThread low = startMerge(pms, writer, newMerge(dir, 2, 2 * mb));
+    BlockedMergeThread high = startMerge(pms, writer, newMerge(dir, 10, 2 * mb));
+    BlockedMergeThread medium = startMerge(pms, writer, newMerge(dir, 5, 2 * mb));
+    threads.addAll(Arrays.asList(low, high, medium));
+    pms.updateMergeThreads();
+
+    // only the merge with the highest priority runs
+    assertFalse(high.isPaused());
+    assertTrue(medium.isPaused());
+    assertTrue(low.isPaused());
+
+    // then the next one
+    high.release.countDown();
+    high.join();
+    pms.updateMergeThreads();
+    assertFalse(medium.isPaused());
+    assertTrue(low.isPaused());
+
+    releaseMerges(threads);
+    pms.close();
+    writer.close();
+    dir.close();
+  }
+
+  public void testPreemption() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter writer = newWriterWithoutMerges(dir);
+    addSegments(writer, 2);
+
+    PriorityMergeScheduler pms = new PriorityMergeScheduler();
+    pms.setMaxMergesAndThreads(6, 2);
+    pms.setMaxSegmentCount(3);
+    pms.setMinBigMergeMB(1);
+    final long mb = 1024 * 1024;
+    List<BlockedMergeThread> threads = new ArrayList<>();
+    BlockedMergeThread big = startMerge(pms, writer, newMerge(dir, 2, 4 * mb));
+    BlockedMergeThread small = startMerge(pms, writer, newMerge(dir, 2, mb / 2));
+    threads.addAll(Arrays.asList(big, small));
+    pms.updateMergeThreads();
+
+    // the index doesn't have too many segments yet
+    assertFalse(big.isPaused());
+    assertFalse(small.isPaused());
+    assertEquals(0, pms.getPreemptionCount());
+
+    // the segment count is refreshed when merge threads are updated, the big merge gets preempted
+    addSegments(writer, 2);
+    pms.updateMergeThreads();
+    assertTrue(big.isPaused());
+    assertFalse(small.isPaused());
+    assertEquals(1, pms.getPreemptionCount());
+    assertTrue(pms.getRunningMerges().stream().anyMatch(merge -> merge.paused));
+
+    // the big merge resumes when no small merges are left
+    small.release.countDown();
+    small.join();
+    pms.updateMergeThreads();
+    assertFalse(big.isPaused());
+    assertEquals(1, pms.getPreemptionCount());
+
+    releaseMerges(threads);
+    pms.close();
+    writer.close();
+    dir.close();
+  }
+
+  public void testOverdueMergesGetResumed() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter writer = newWriterWithoutMerges(dir);
+    addSegments(writer, 1);
+
+    PriorityMergeScheduler pms = new PriorityMergeScheduler();
+    pms.setMaxMergesAndThreads(6, 1);
+    pms.setMinBigMergeMB(1);
+    pms.setMaxPauseSec(0.05);
+    final long mb = 1024 * 1024;
+    List<BlockedMergeThread> threads = new ArrayList<>();
+    BlockedMergeThread high = startMerge(pms, writer, newMerge(dir, 10, 2 * mb));
+    BlockedMergeThread low = startMerge(pms, writer, newMerge(dir, 2, 2 * mb));
+    threads.addAll(Arrays.asList(high, low));
+    pms.updateMergeThreads();
+    assertTrue(low.isPaused());
+
+    // nothing else updates merge threads, the low priority merge still gets resumed once overdue
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (low.isPaused() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertFalse(low.isPaused());
+
+    releaseMerges(threads);
+    pms.close();
+    writer.close();
+    dir.close();
+  }
+
+  public void testMergePriority() throws Exception {
+    Directory dir = newDirectory();
+    PriorityMergeScheduler pms = new PriorityMergeScheduler();
+    final long mb = 1024 * 1024;
+    // merging 10 segments of 10MB removes more segments per byte than merging 2 segments of 10MB
+    assertTrue(pms.getMergePriority(newMerge(dir, 10, 100 * mb)) > pms.getMergePriority(newMerge(dir, 2, 20 * mb)));
+    // same number of segments, the smaller merge wins
+    assertTrue(pms.getMergePriority(newMerge(dir, 10, 100 * mb)) > pms.getMergePriority(newMerge(dir, 10, 1000 * mb)));
+    // singleton merges count as one segment
+    assertEquals(pms.getMergePriority(newMerge(dir, 2, 100 * mb)), pms.getMergePriority(newMerge(dir, 1, 100 * mb)), 0d);
+    dir.close();
+  }
+
+  public void testIndexing() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    PriorityMergeScheduler pms = new PriorityMergeScheduler();
+    pms.setMaxSegmentCount(TestUtil.nextInt(random(), 1, 10));
+    if (random().nextBoolean()) {
+      pms.setMaxPauseSec(0);
+    }
+    iwc.setMergeScheduler(pms);
+    iwc.setMaxBufferedDocs(TestUtil.nextInt(random(), 2, 10));
+    LogMergePolicy lmp = newLogMergePolicy();
+    lmp.setMergeFactor(TestUtil.nextInt(random(), 2, 5));
+    iwc.setMergePolicy(lmp);
+
+    IndexWriter w = new IndexWriter(dir, iwc);
+    final int numDocs = atLeast(500);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Field.Store.NO));
+      doc.add(new TextField("body", TestUtil.randomSimpleString(random()), Field.Store.NO));
+      w.addDocument(doc);
+      if (random().nextInt(20) == 0) {
+        w.deleteDocuments(new Term("id", Integer.toString(random().nextInt(i + 1))));
+      }
+      if (random().nextInt(50) == 0) {
+        for (PriorityMergeScheduler.RunningMerge merge : pms.getRunningMerges()) {
+          assertTrue(merge.segmentCount >= 1);
+          assertTrue(merge.queuedNS >= 0);
+          assertTrue(merge.getProgress() >= 0 && merge.getProgress() <= 1);
+          assertNotNull(merge.toString());
+        }
+      }
+    }
+    w.forceMerge(1);
+    w.close();
+
+    assertTrue(pms.getCompletedMergeCount() > 0);
+    assertTrue(pms.getTotalQueuedNS() >= 0);
+    assertTrue(pms.getRunningMerges().isEmpty());
+
+    DirectoryReader reader = DirectoryReader.open(dir);
+    assertEquals(1, reader.leaves().size());
+    assertEquals(reader.numDocs(), reader.maxDoc());
+    reader.close();
+    dir.close();
+  }
+}
@@ -17,10 +17,18 @@
 
 package org.apache.lucene.index;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOSupplier;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
 
 public class TestTermStates extends LuceneTestCase {
 
@@ -33,4 +41,85 @@ public class TestTermStates extends LuceneTestCase {
     assertEquals("TermStates\n  state=null\n", states.toString());
     IOUtils.close(r, w, dir);
   }
+
+  public void testPrepareSeekExact() throws Exception {
+    final AtomicInteger hints = new AtomicInteger();
+    try (FSDirectory dir = FSDirectory.open(createTempDir("testPrepareSeekExact"))) {
+      dir.setPrefetchExecutor(task -> {
+        hints.incrementAndGet();
+        task.run();
+      });
+      IndexWriterConfig iwc = newIndexWriterConfig().setCodec(TestUtil.getDefaultCodec());
+      final int numTerms = atLeast(1000);
+      try (IndexWriter w = new IndexWriter(dir, iwc)) {
+        for (int i = 0; i < numTerms; i++) {
+          Document doc = new Document();
+          doc.add(new StringField("id", Integer.toString(i * 2), Field.Store.NO));
+          w.addDocument(doc);
+        }
+        w.forceMerge(1);
+      }
+      try (DirectoryReader reader = DirectoryReader.open(dir)) {
+        Terms terms = reader.leaves().get(0).reader().terms("id");
+        for (int iter = 0; iter < 100; iter++) {
+          // odd ids don't exist
+          BytesRef target = new BytesRef(Integer.toString(random().nextInt(numTerms * 2)));
+          TermsEnum twoPhase = terms.iterator();
+          TermsEnum onePhase = terms.iterator();
+          if (random().nextBoolean()) {
+            // start from a positioned enum
+            BytesRef other = new BytesRef(Integer.toString(random().nextInt(numTerms) * 2));
+            assertTrue(twoPhase.seekExact(other));
+            assertTrue(onePhase.seekExact(other));
+          }
+          int hintsBefore = hints.get();
+          IOSupplier<Boolean> seek = twoPhase.prepareSeekExact(target);
+          int numHints = hints.get() - hintsBefore;
+          assertTrue(numHints <= 1);
+          boolean found = seek.get();
+          assertEquals(onePhase.seekExact(target), found);
+          assertEquals(Integer.parseInt(target.utf8ToString()) % 2 == 0, found);
+          if (found) {
+            // all terms are in blocks that need to be read
+            assertEquals(1, numHints);
+            assertEquals(onePhase.term(), twoPhase.term());
+            assertEquals(onePhase.docFreq(), twoPhase.docFreq());
+          }
+          // both enums are in the same state
+          assertEquals(onePhase.next(), twoPhase.next());
+        }
+      }
+    }
+  }
+
+  public void testBuildHintsAllSegments() throws Exception {
+    final AtomicInteger hints = new AtomicInteger();
+    try (FSDirectory dir = FSDirectory.open(createTempDir("testBuildHintsAllSegments"))) {
+      dir.setPrefetchExecutor(task -> {
+        hints.incrementAndGet();
+        task.run();
+      });
+      IndexWriterConfig iwc = newIndexWriterConfig().setCodec(TestUtil.getDefaultCodec());
+      iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+      final int numSegments = TestUtil.nextInt(random(), 2, 5);
+      try (IndexWriter w = new IndexWriter(dir, iwc)) {
+        for (int i = 0; i < numSegments; i++) {
+          Document doc = new Document();
+          doc.add(new StringField("foo", "bar", Field.Store.NO));
+          w.addDocument(doc);
+          w.commit();
+        }
+      }
+      try (DirectoryReader reader = DirectoryReader.open(dir)) {
+        assertEquals(numSegments, reader.leaves().size());
+        int hintsBefore = hints.get();
+        TermStates states = TermStates.build(reader.getContext(), new Term("foo", "bar"), true);
+        assertEquals(numSegments, hints.get() - hintsBefore);
+        assertEquals(numSegments, states.docFreq());
+        for (LeafReaderContext ctx : reader.leaves()) {
+          assertNotNull(states.get(ctx));
+        }
+      }
+    }
+  }
 }
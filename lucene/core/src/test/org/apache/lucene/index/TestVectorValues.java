@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.VectorField;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+/** Test Indexing/IndexWriter with vectors */
+public class TestVectorValues extends LuceneTestCase {
+
+  private IndexWriterConfig createIndexWriterConfig() {
+    // use a codec that supports vectors
+    return newIndexWriterConfig().setCodec(TestUtil.getDefaultCodec());
+  }
+
+  public void testFieldConstructor() {
+    float[] v = new float[1];
+    VectorField field = new VectorField("f", v);
+    assertEquals(1, field.fieldType().vectorDimension());
+    assertEquals(VectorSimilarityFunction.EUCLIDEAN, field.fieldType().vectorSimilarityFunction());
+    assertSame(v, field.vectorValue());
+  }
+
+  public void testFieldConstructorExceptions() {
+    expectThrows(IllegalArgumentException.class, () -> new VectorField(null, new float[1]));
+    expectThrows(IllegalArgumentException.class, () -> new VectorField("f", null));
+    expectThrows(IllegalArgumentException.class, () -> new VectorField("f", new float[1], (VectorSimilarityFunction) null));
+    expectThrows(IllegalArgumentException.class, () -> new VectorField("f", new float[0]));
+    expectThrows(IllegalArgumentException.class, () -> new VectorField("f", new float[VectorValues.MAX_DIMENSIONS + 1]));
+  }
+
+  public void testFieldSetValue() {
+    VectorField field = new VectorField("f", new float[1]);
+    float[] v1 = new float[1];
+    field.setVectorValue(v1);
+    assertSame(v1, field.vectorValue());
+    expectThrows(IllegalArgumentException.class, () -> field.setVectorValue(new float[2]));
+    expectThrows(IllegalArgumentException.class, () -> field.setVectorValue(null));
+  }
+
+  public void testFieldTypeIsFrozen() {
+    FieldType type = new FieldType(VectorField.createFieldType(3, VectorSimilarityFunction.DOT_PRODUCT));
+    type.freeze();
+    expectThrows(IllegalStateException.class,
+        () -> type.setVectorDimensionsAndSimilarityFunction(4, VectorSimilarityFunction.DOT_PRODUCT));
+  }
+
+  // Illegal schema change tests:
+
+  public void testIllegalDimChangeTwoDocs() throws Exception {
+    try (Directory dir = newDirectory();
+         IndexWriter w = new IndexWriter(dir, createIndexWriterConfig())) {
+      Document doc = new Document();
+      doc.add(new VectorField("f", new float[4], VectorSimilarityFunction.DOT_PRODUCT));
+      w.addDocument(doc);
+      if (random().nextBoolean()) {
+        // sometimes test with two segments
+        w.commit();
+      }
+
+      Document doc2 = new Document();
+      doc2.add(new VectorField("f", new float[3], VectorSimilarityFunction.DOT_PRODUCT));
+      expectThrows(IllegalArgumentException.class, () -> w.addDocument(doc2));
+    }
+  }
+
+  public void testIllegalSimilarityFunctionChange() throws Exception {
+    try (Directory dir = newDirectory();
+         IndexWriter w = new IndexWriter(dir, createIndexWriterConfig())) {
+      Document doc = new Document();
+      doc.add(new VectorField("f", new float[4], VectorSimilarityFunction.DOT_PRODUCT));
+      w.addDocument(doc);
+      if (random().nextBoolean()) {
+        w.commit();
+      }
+
+      Document doc2 = new Document();
+      doc2.add(new VectorField("f", new float[4], VectorSimilarityFunction.EUCLIDEAN));
+      expectThrows(IllegalArgumentException.class, () -> w.addDocument(doc2));
+    }
+  }
+
+  public void testIllegalDimChangeTwoWriters() throws Exception {
+    try (Directory dir = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(dir, createIndexWriterConfig())) {
+        Document doc = new Document();
+        doc.add(new VectorField("f", new float[4], VectorSimilarityFunction.DOT_PRODUCT));
+        w.addDocument(doc);
+      }
+
+      try (IndexWriter w2 = new IndexWriter(dir, createIndexWriterConfig())) {
+        Document doc2 = new Document();
+        doc2.add(new VectorField("f", new float[1], VectorSimilarityFunction.DOT_PRODUCT));
+        expectThrows(IllegalArgumentException.class, () -> w2.addDocument(doc2));
+      }
+    }
+  }
+
+  public void testIllegalMultipleValues() throws Exception {
+    try (Directory dir = newDirectory();
+         IndexWriter w = new IndexWriter(dir, createIndexWriterConfig())) {
+      Document doc = new Document();
+      doc.add(new VectorField("f", new float[4], VectorSimilarityFunction.DOT_PRODUCT));
+      doc.add(new VectorField("f", new float[4], VectorSimilarityFunction.DOT_PRODUCT));
+      expectThrows(IllegalArgumentException.class, () -> w.addDocument(doc));
+    }
+  }
+
+  public void testIllegalDimensionMismatchWithinDocument() throws Exception {
+    try (Directory dir = newDirectory();
+         IndexWriter w = new IndexWriter(dir, createIndexWriterConfig())) {
+      Document doc = new Document();
+      doc.add(new VectorField("f", new float[4], VectorSimilarityFunction.DOT_PRODUCT));
+      doc.add(new VectorField("f", new float[3], VectorSimilarityFunction.DOT_PRODUCT));
+      expectThrows(IllegalArgumentException.class, () -> w.addDocument(doc));
+    }
+  }
+
+  public void testIllegalFieldWithVectorDimensionButNotVectorField() throws Exception {
+    try (Directory dir = newDirectory();
+         IndexWriter w = new IndexWriter(dir, createIndexWriterConfig())) {
+      FieldType type = new FieldType();
+      type.setVectorDimensionsAndSimilarityFunction(2, VectorSimilarityFunction.EUCLIDEAN);
+      type.freeze();
+      Document doc = new Document();
+      doc.add(new Field("f", new byte[0], type));
+      expectThrows(IllegalArgumentException.class, () -> w.addDocument(doc));
+    }
+  }
+
+  public void testFieldInfosRoundTrip() throws Exception {
+    try (Directory dir = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(dir, createIndexWriterConfig())) {
+        Document doc = new Document();
+        doc.add(new VectorField("v1", new float[3], VectorSimilarityFunction.DOT_PRODUCT));
+        doc.add(new VectorField("v2", new float[7], VectorSimilarityFunction.EUCLIDEAN));
+        doc.add(new StringField("id", "0", Field.Store.NO));
+        w.addDocument(doc);
+      }
+      try (IndexReader reader = DirectoryReader.open(dir)) {
+        FieldInfos fieldInfos = reader.leaves().get(0).reader().getFieldInfos();
+        assertTrue(fieldInfos.hasVectorValues());
+        assertEquals(3, fieldInfos.fieldInfo("v1").getVectorDimension());
+        assertEquals(VectorSimilarityFunction.DOT_PRODUCT, fieldInfos.fieldInfo("v1").getVectorSimilarityFunction());
+        assertEquals(7, fieldInfos.fieldInfo("v2").getVectorDimension());
+        assertEquals(VectorSimilarityFunction.EUCLIDEAN, fieldInfos.fieldInfo("v2").getVectorSimilarityFunction());
+        assertEquals(0, fieldInfos.fieldInfo("id").getVectorDimension());
+        assertFalse(fieldInfos.fieldInfo("id").hasVectorValues());
+        assertNull(reader.leaves().get(0).reader().getVectorValues("id"));
+        assertNull(reader.leaves().get(0).reader().getVectorValues("missing"));
+      }
+    }
+  }
+
+  /**
+   * Index random vectors, sometimes skipping documents, sometimes deleting a document, sometimes
+   * merging, sometimes sorting the index, and verify that the expected values can be read back
+   * consistently.
+   */
+  public void testRandom() throws Exception {
+    IndexWriterConfig iwc = createIndexWriterConfig();
+    if (random().nextBoolean()) {
+      iwc.setIndexSort(new Sort(new SortField("sortkey", SortField.Type.INT)));
+    }
+    String fieldName = "field";
+    try (Directory dir = newDirectory();
+         IndexWriter iw = new IndexWriter(dir, iwc)) {
+      int numDoc = atLeast(100);
+      int dimension = atLeast(10);
+      float[][] id2value = new float[numDoc][];
+      for (int i = 0; i < numDoc; i++) {
+        int id = random().nextInt(numDoc);
+        float[] value;
+        if (random().nextInt(7) != 3) {
+          // usually index a vector value for a doc
+          value = randomVector(dimension);
+        } else {
+          value = null;
+        }
+        id2value[id] = value;
+        add(iw, fieldName, id, random().nextInt(100), value);
+        if (random().nextInt(10) == 2) {
+          iw.commit();
+        }
+      }
+      if (random().nextBoolean()) {
+        iw.forceMerge(1);
+      }
+      int numDeletes = random().nextInt(numDoc / 10 + 1);
+      for (int i = 0; i < numDeletes; i++) {
+        int id = random().nextInt(numDoc);
+        iw.deleteDocuments(new Term("id", Integer.toString(id)));
+        id2value[id] = null;
+      }
+      if (random().nextBoolean()) {
+        iw.forceMerge(1);
+      }
+
+      try (IndexReader reader = DirectoryReader.open(iw)) {
+        int valueCount = 0;
+        for (LeafReaderContext ctx : reader.leaves()) {
+          VectorValues vectorValues = ctx.reader().getVectorValues(fieldName);
+          if (vectorValues == null) {
+            continue;
+          }
+          int docId;
+          int lastDocId = -1;
+          while ((docId = vectorValues.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+            assertTrue(docId > lastDocId);
+            lastDocId = docId;
+            if (ctx.reader().getLiveDocs() != null && ctx.reader().getLiveDocs().get(docId) == false) {
+              continue;
+            }
+            float[] v = vectorValues.vectorValue();
+            assertEquals(dimension, v.length);
+            String idString = ctx.reader().document(docId).getField("id").stringValue();
+            int id = Integer.parseInt(idString);
+            assertArrayEquals(idString, id2value[id], v, 0);
+            ++valueCount;
+          }
+        }
+        int expectedCount = 0;
+        for (float[] value : id2value) {
+          if (value != null) {
+            expectedCount++;
+          }
+        }
+        assertEquals(expectedCount, valueCount);
+      }
+    }
+  }
+
+  /** Searching the graph returns the nearest live documents, as per brute-force search. */
+  public void testSearch() throws Exception {
+    try (Directory dir = newDirectory();
+         IndexWriter iw = new IndexWriter(dir, createIndexWriterConfig())) {
+      int numDoc = atLeast(50);
+      int dimension = TestUtil.nextInt(random(), 2, 10);
+      Map<String, float[]> values = new HashMap<>();
+      for (int i = 0; i < numDoc; i++) {
+        float[] value = randomVector(dimension);
+        values.put(Integer.toString(i), value);
+        add(iw, "field", i, i, value);
+        if (random().nextInt(20) == 0) {
+          iw.commit();
+        }
+      }
+      iw.deleteDocuments(new Term("id", "0"));
+      values.remove("0");
+
+      try (IndexReader reader = DirectoryReader.open(iw)) {
+        float[] target = randomVector(dimension);
+        for (LeafReaderContext ctx : reader.leaves()) {
+          VectorValues vectorValues = ctx.reader().getVectorValues("field");
+          if (vectorValues == null) {
+            continue;
+          }
+          // the graph is small enough for the search to be exhaustive
+          TopDocs results = vectorValues.search(target, 5, numDoc, ctx.reader().getLiveDocs());
+          float bestScore = Float.NEGATIVE_INFINITY;
+          VectorValues allValues = ctx.reader().getVectorValues("field");
+          for (int doc = allValues.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = allValues.nextDoc()) {
+            if (ctx.reader().getLiveDocs() == null || ctx.reader().getLiveDocs().get(doc)) {
+              bestScore = Math.max(bestScore, VectorSimilarityFunction.EUCLIDEAN.compare(target, allValues.vectorValue()));
+            }
+          }
+          if (bestScore != Float.NEGATIVE_INFINITY) {
+            assertEquals(bestScore, results.scoreDocs[0].score, 0f);
+          }
+          float lastScore = Float.POSITIVE_INFINITY;
+          for (ScoreDoc scoreDoc : results.scoreDocs) {
+            assertTrue(ctx.reader().getLiveDocs() == null || ctx.reader().getLiveDocs().get(scoreDoc.doc));
+            float[] value = values.get(ctx.reader().document(scoreDoc.doc).get("id"));
+            assertEquals(VectorSimilarityFunction.EUCLIDEAN.compare(target, value), scoreDoc.score, 0f);
+            assertTrue(scoreDoc.score <= lastScore);
+            lastScore = scoreDoc.score;
+          }
+          expectThrows(IllegalArgumentException.class,
+              () -> vectorValues.search(new float[dimension + 1], 5, 10, null));
+        }
+      }
+    }
+  }
+
+  private static void add(IndexWriter iw, String field, int id, int sortkey, float[] vector) throws IOException {
+    Document doc = new Document();
+    if (vector != null) {
+      doc.add(new VectorField(field, vector));
+    }
+    doc.add(new NumericDocValuesField("sortkey", sortkey));
+    String idString = Integer.toString(id);
+    doc.add(new StringField("id", idString, Field.Store.YES));
+    iw.updateDocument(new Term("id", idString), doc);
+  }
+
+  private static float[] randomVector(int dim) {
+    float[] v = new float[dim];
+    for (int i = 0; i < dim; i++) {
+      v[i] = random().nextFloat();
+    }
+    return v;
+  }
+}
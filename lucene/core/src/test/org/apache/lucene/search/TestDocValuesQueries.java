@@ -19,6 +19,7 @@ package org.apache.lucene.search;
 import java.io.IOException;
 import java.util.Arrays;
 
+import org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
@@ -26,6 +27,7 @@ import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
@@ -47,15 +49,49 @@ public class TestDocValuesQueries extends LuceneTestCase {
     doTestDuelPointRangeNumericRangeQuery(false, 1);
   }
 
+  public void testDuelPointRangeSortedNumericRangeQueryWithSkipIndex() throws IOException {
+    doTestDuelPointRangeNumericRangeQuery(true, 1, true);
+  }
+
+  public void testDuelPointRangeMultivaluedSortedNumericRangeQueryWithSkipIndex() throws IOException {
+    doTestDuelPointRangeNumericRangeQuery(true, 3, true);
+  }
+
+  public void testDuelPointRangeNumericRangeQueryWithSkipIndex() throws IOException {
+    doTestDuelPointRangeNumericRangeQuery(false, 1, true);
+  }
+
   private void doTestDuelPointRangeNumericRangeQuery(boolean sortedNumeric, int maxValuesPerDoc) throws IOException {
-    final int iters = atLeast(10);
+    doTestDuelPointRangeNumericRangeQuery(sortedNumeric, maxValuesPerDoc, false);
+  }
+
+  private void doTestDuelPointRangeNumericRangeQuery(boolean sortedNumeric, int maxValuesPerDoc, boolean skipIndex) throws IOException {
+    final int iters = skipIndex ? atLeast(2) : atLeast(10);
     for (int iter = 0; iter < iters; ++iter) {
       Directory dir = newDirectory();
-      RandomIndexWriter iw = new RandomIndexWriter(random(), dir);
-      final int numDocs = atLeast(100);
+      final RandomIndexWriter iw;
+      final int numDocs;
+      final int minValuesPerDoc;
+      if (skipIndex) {
+        // enough docs for several intervals of the skip index
+        IndexWriterConfig iwc = newIndexWriterConfig();
+        iwc.setCodec(TestUtil.alwaysDocValuesFormat(new Lucene80DocValuesFormat(true)));
+        if (random().nextBoolean()) {
+          iwc.setIndexSort(new Sort(sortedNumeric
+              ? new SortedNumericSortField("dv", SortField.Type.LONG)
+              : new SortField("dv", SortField.Type.LONG)));
+        }
+        iw = new RandomIndexWriter(random(), dir, iwc);
+        numDocs = atLeast(10000);
+        minValuesPerDoc = random().nextBoolean() ? 1 : 0;
+      } else {
+        iw = new RandomIndexWriter(random(), dir);
+        numDocs = atLeast(100);
+        minValuesPerDoc = 0;
+      }
       for (int i = 0; i < numDocs; ++i) {
         Document doc = new Document();
-        final int numValues = TestUtil.nextInt(random(), 0, maxValuesPerDoc);
+        final int numValues = TestUtil.nextInt(random(), minValuesPerDoc, maxValuesPerDoc);
         for (int j = 0; j < numValues; ++j) {
           final long value = TestUtil.nextLong(random(), -100, 10000);
           if (sortedNumeric) {
@@ -70,6 +106,9 @@ public class TestDocValuesQueries extends LuceneTestCase {
       if (random().nextBoolean()) {
         iw.deleteDocuments(LongPoint.newRangeQuery("idx", 0L, 10L));
       }
+      if (skipIndex && random().nextBoolean()) {
+        iw.forceMerge(1);
+      }
       final IndexReader reader = iw.getReader();
       final IndexSearcher searcher = newSearcher(reader, false);
       iw.close();
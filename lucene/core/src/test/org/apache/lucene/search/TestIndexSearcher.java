@@ -19,6 +19,7 @@ package org.apache.lucene.search;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -27,9 +28,11 @@ import java.util.concurrent.TimeUnit;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiReader;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
@@ -237,4 +240,89 @@ public class TestIndexSearcher extends LuceneTestCase {
     service.shutdown();
     IOUtils.close(r, dir);
   }
+
+  public void testPartitionedSlices() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    w.addDocument(new Document());
+    w.addDocument(new Document());
+    w.addDocument(new Document());
+    w.forceMerge(1);
+    IndexReader r = w.getReader();
+    w.close();
+
+    IndexSearcher.LeafSlice[] slices = IndexSearcher.partitionedSlices(r.leaves(), 2);
+    assertEquals(2, slices.length);
+    assertEquals(0, slices[0].minDocId);
+    assertEquals(1, slices[0].maxDocId);
+    assertEquals(1, slices[1].minDocId);
+    assertEquals(3, slices[1].maxDocId);
+
+    slices = IndexSearcher.partitionedSlices(r.leaves(), 3);
+    assertEquals(1, slices.length);
+    assertEquals(DocIdSetIterator.NO_MORE_DOCS, slices[0].maxDocId);
+
+    expectThrows(IllegalArgumentException.class, () -> IndexSearcher.partitionedSlices(r.leaves(), 0));
+    IOUtils.close(r, dir);
+  }
+
+  public void testSearchPartitionedSlices() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(200);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      if (random().nextBoolean()) {
+        doc.add(new StringField("foo", "bar", Store.NO));
+      }
+      if (random().nextInt(3) == 0) {
+        doc.add(new StringField("foo", "baz", Store.NO));
+      }
+      doc.add(new NumericDocValuesField("sort", random().nextInt(50)));
+      w.addDocument(doc);
+    }
+    if (random().nextBoolean()) {
+      w.deleteDocuments(new Term("foo", "baz"));
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+
+    ExecutorService service = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS,
+                                   new LinkedBlockingQueue<Runnable>(),
+                                   new NamedThreadFactory("TestIndexSearcher"));
+    final int maxDocsPerPartition = TestUtil.nextInt(random(), 1, 50);
+    IndexSearcher partitioned = new IndexSearcher(reader, service) {
+      @Override
+      protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+        return partitionedSlices(leaves, maxDocsPerPartition);
+      }
+    };
+    IndexSearcher searcher = new IndexSearcher(reader);
+    partitioned.setQueryCache(null);
+    searcher.setQueryCache(null);
+
+    Query[] queries = new Query[] {
+        new MatchAllDocsQuery(),
+        new TermQuery(new Term("foo", "bar")),
+        new BooleanQuery.Builder()
+          .add(new TermQuery(new Term("foo", "bar")), Occur.SHOULD)
+          .add(new TermQuery(new Term("foo", "baz")), Occur.SHOULD)
+          .build()
+    };
+    Sort sort = new Sort(new SortField("sort", SortField.Type.LONG));
+    for (Query query : queries) {
+      assertEquals(searcher.count(query), partitioned.count(query));
+      final int n = TestUtil.nextInt(random(), 1, numDocs);
+      CheckHits.checkEqual(query, searcher.search(query, n).scoreDocs, partitioned.search(query, n).scoreDocs);
+      TopDocs expected = searcher.search(query, n, sort);
+      TopDocs actual = partitioned.search(query, n, sort);
+      assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+      for (int i = 0; i < expected.scoreDocs.length; ++i) {
+        assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+      }
+    }
+
+    TestUtil.shutdownExecutorService(service);
+    IOUtils.close(reader, dir);
+  }
 }
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.io.IOException;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.VectorField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+/** TestKnnVectorQuery tests KnnVectorQuery. */
+public class TestKnnVectorQuery extends LuceneTestCase {
+
+  public void testEquals() {
+    KnnVectorQuery q1 = new KnnVectorQuery("f1", new float[] {0, 1}, 10);
+    Query filter1 = new TermQuery(new Term("id", "id1"));
+
+    assertEquals(q1, new KnnVectorQuery("f1", new float[] {0, 1}, 10));
+    assertEquals(q1.hashCode(), new KnnVectorQuery("f1", new float[] {0, 1}, 10).hashCode());
+    assertNotEquals(null, q1);
+    assertNotEquals(q1, filter1);
+    assertNotEquals(q1, new KnnVectorQuery("f2", new float[] {0, 1}, 10));
+    assertNotEquals(q1, new KnnVectorQuery("f1", new float[] {1, 1}, 10));
+    assertNotEquals(q1, new KnnVectorQuery("f1", new float[] {0, 1}, 2));
+    assertNotEquals(q1, new KnnVectorQuery("f1", new float[] {0, 1}, 10, 3));
+  }
+
+  public void testIllegalArguments() {
+    expectThrows(IllegalArgumentException.class, () -> new KnnVectorQuery("f", new float[] {0, 1}, 0));
+    expectThrows(IllegalArgumentException.class, () -> new KnnVectorQuery("f", new float[] {0, 1}, 10, -1));
+    expectThrows(NullPointerException.class, () -> new KnnVectorQuery("f", null, 10));
+  }
+
+  public void testToString() {
+    KnnVectorQuery query = new KnnVectorQuery("field", new float[] {0, 1}, 10);
+    assertEquals("KnnVectorQuery:field[0.0,...][10]", query.toString("ignored"));
+  }
+
+  /** Tests that a KnnVectorQuery whose topK &gt;= numDocs returns all the documents in score order */
+  public void testFindAll() throws IOException {
+    try (Directory indexStore = getIndexStore("field", new float[] {0, 1}, new float[] {1, 2}, new float[] {0, 0});
+         IndexReader reader = DirectoryReader.open(indexStore)) {
+      IndexSearcher searcher = newSearcher(reader);
+      KnnVectorQuery kvq = new KnnVectorQuery("field", new float[] {0, 0}, 10);
+      assertMatches(searcher, kvq, 3);
+      ScoreDoc[] scoreDocs = searcher.search(kvq, 3).scoreDocs;
+      assertIdMatches(reader, "id2", scoreDocs[0]);
+      assertIdMatches(reader, "id0", scoreDocs[1]);
+      assertIdMatches(reader, "id1", scoreDocs[2]);
+    }
+  }
+
+  public void testEmptyIndex() throws IOException {
+    try (Directory indexStore = getIndexStore("field");
+         IndexReader reader = DirectoryReader.open(indexStore)) {
+      IndexSearcher searcher = newSearcher(reader);
+      KnnVectorQuery kvq = new KnnVectorQuery("field", new float[] {1, 2}, 10);
+      assertMatches(searcher, kvq, 0);
+      assertTrue(kvq.rewrite(reader) instanceof MatchNoDocsQuery);
+    }
+  }
+
+  public void testMissingField() throws IOException {
+    try (Directory indexStore = getIndexStore("field", new float[] {0, 1}, new float[] {1, 2});
+         IndexReader reader = DirectoryReader.open(indexStore)) {
+      IndexSearcher searcher = newSearcher(reader);
+      assertMatches(searcher, new KnnVectorQuery("other", new float[] {1, 2}, 10), 0);
+    }
+  }
+
+  public void testDimensionMismatch() throws IOException {
+    try (Directory indexStore = getIndexStore("field", new float[] {0, 1}, new float[] {1, 2});
+         IndexReader reader = DirectoryReader.open(indexStore)) {
+      IndexSearcher searcher = newSearcher(reader);
+      KnnVectorQuery kvq = new KnnVectorQuery("field", new float[] {0}, 10);
+      expectThrows(IllegalArgumentException.class, () -> searcher.search(kvq, 10));
+    }
+  }
+
+  /** Tests that the top k documents are returned, excluding deleted documents, across segments */
+  public void testDeletes() throws IOException {
+    try (Directory d = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(d, newIndexWriterConfig().setCodec(TestUtil.getDefaultCodec()))) {
+        for (int j = 1; j <= 5; j++) {
+          Document doc = new Document();
+          doc.add(new VectorField("field", new float[] {j, j}));
+          doc.add(new StringField("id", "id" + j, Field.Store.YES));
+          w.addDocument(doc);
+          if (j % 2 == 0) {
+            w.commit();
+          }
+        }
+        w.deleteDocuments(new Term("id", "id1"));
+      }
+      try (IndexReader reader = DirectoryReader.open(d)) {
+        IndexSearcher searcher = newSearcher(reader);
+        KnnVectorQuery query = new KnnVectorQuery("field", new float[] {0, 0}, 2);
+        TopDocs results = searcher.search(query, 5);
+        assertEquals(2, results.scoreDocs.length);
+        assertIdMatches(reader, "id2", results.scoreDocs[0]);
+        assertIdMatches(reader, "id3", results.scoreDocs[1]);
+      }
+    }
+  }
+
+  public void testScoresAndExplain() throws IOException {
+    try (Directory indexStore = getIndexStore("field", new float[] {0, 1}, new float[] {1, 2}, new float[] {0, 0});
+         IndexReader reader = DirectoryReader.open(indexStore)) {
+      IndexSearcher searcher = newSearcher(reader);
+      KnnVectorQuery query = new KnnVectorQuery("field", new float[] {2, 3}, 2);
+      TopDocs topDocs = searcher.search(query, 3);
+      assertEquals(2, topDocs.scoreDocs.length);
+      // id1 is the closest: distance = 2
+      assertIdMatches(reader, "id1", topDocs.scoreDocs[0]);
+      assertEquals(1 / 3f, topDocs.scoreDocs[0].score, 0f);
+      // id0 is next: distance = 8
+      assertIdMatches(reader, "id0", topDocs.scoreDocs[1]);
+      assertEquals(1 / 9f, topDocs.scoreDocs[1].score, 0f);
+
+      Explanation matched = searcher.explain(query, topDocs.scoreDocs[0].doc);
+      assertTrue(matched.isMatch());
+      assertEquals(1 / 3f, matched.getValue().floatValue(), 0f);
+      int nonMatching = 3 - topDocs.scoreDocs[0].doc - topDocs.scoreDocs[1].doc;
+      assertFalse(searcher.explain(query, nonMatching).isMatch());
+    }
+  }
+
+  public void testDifferentReader() throws IOException {
+    try (Directory indexStore = getIndexStore("field", new float[] {0, 1}, new float[] {1, 2}, new float[] {0, 0});
+         IndexReader reader = DirectoryReader.open(indexStore);
+         IndexReader otherReader = DirectoryReader.open(indexStore)) {
+      KnnVectorQuery query = new KnnVectorQuery("field", new float[] {2, 3}, 3);
+      Query rewritten = query.rewrite(reader);
+      IndexSearcher otherSearcher = new IndexSearcher(otherReader);
+      expectThrows(IllegalStateException.class,
+          () -> rewritten.createWeight(otherSearcher, ScoreMode.COMPLETE, 1));
+    }
+  }
+
+  public void testRandom() throws IOException {
+    int numDocs = atLeast(100);
+    int dimension = atLeast(5);
+    try (Directory d = newDirectory()) {
+      IndexWriterConfig iwc = newIndexWriterConfig().setCodec(TestUtil.getDefaultCodec());
+      try (IndexWriter w = new IndexWriter(d, iwc)) {
+        for (int i = 0; i < numDocs; i++) {
+          Document doc = new Document();
+          if (random().nextBoolean()) {
+            doc.add(new VectorField("field", randomVector(dimension), VectorSimilarityFunction.EUCLIDEAN));
+          }
+          w.addDocument(doc);
+          if (random().nextInt(30) == 0) {
+            w.commit();
+          }
+        }
+      }
+      try (IndexReader reader = DirectoryReader.open(d)) {
+        IndexSearcher searcher = newSearcher(reader);
+        for (int i = 0; i < 5; i++) {
+          int k = TestUtil.nextInt(random(), 1, 10);
+          KnnVectorQuery query = new KnnVectorQuery("field", randomVector(dimension), k);
+          TopDocs results = searcher.search(query, 10);
+          assertTrue(results.scoreDocs.length <= k);
+          float last = Float.POSITIVE_INFINITY;
+          for (ScoreDoc scoreDoc : results.scoreDocs) {
+            assertTrue(scoreDoc.score <= last);
+            last = scoreDoc.score;
+          }
+        }
+      }
+    }
+  }
+
+  private Directory getIndexStore(String field, float[]... contents) throws IOException {
+    Directory indexStore = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig().setCodec(TestUtil.getDefaultCodec());
+    try (IndexWriter writer = new IndexWriter(indexStore, iwc)) {
+      for (int i = 0; i < contents.length; ++i) {
+        Document doc = new Document();
+        doc.add(new VectorField(field, contents[i]));
+        doc.add(new StringField("id", "id" + i, Field.Store.YES));
+        writer.addDocument(doc);
+      }
+      // merge into a single segment so that doc IDs match insertion order
+      writer.forceMerge(1);
+    }
+    return indexStore;
+  }
+
+  private void assertMatches(IndexSearcher searcher, Query q, int expectedMatches) throws IOException {
+    ScoreDoc[] result = searcher.search(q, 1000).scoreDocs;
+    assertEquals(expectedMatches, result.length);
+  }
+
+  private void assertIdMatches(IndexReader reader, String expectedId, ScoreDoc scoreDoc) throws IOException {
+    String actualId = reader.document(scoreDoc.doc).get("id");
+    assertEquals(expectedId, actualId);
+  }
+
+  private static float[] randomVector(int dim) {
+    float[] v = new float[dim];
+    for (int i = 0; i < dim; i++) {
+      v[i] = random().nextFloat();
+    }
+    return v;
+  }
+}
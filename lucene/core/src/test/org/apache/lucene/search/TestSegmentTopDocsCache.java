@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestSegmentTopDocsCache extends LuceneTestCase {
+
+  private static void addDocuments(IndexWriter w, int numDocs) throws IOException {
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("color", random().nextBoolean() ? "red" : "blue", Store.NO));
+      doc.add(new NumericDocValuesField("price", random().nextInt(1000)));
+      w.addDocument(doc);
+    }
+  }
+
+  private static void assertSameHits(TopFieldDocs expected, TopFieldDocs actual) {
+    assertEquals(expected.totalHits, actual.totalHits);
+    assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+    for (int i = 0; i < expected.scoreDocs.length; ++i) {
+      FieldDoc expectedHit = (FieldDoc) expected.scoreDocs[i];
+      FieldDoc actualHit = (FieldDoc) actual.scoreDocs[i];
+      assertEquals(expectedHit.doc, actualHit.doc);
+      assertArrayEquals(expectedHit.fields, actualHit.fields);
+    }
+  }
+
+  public void testIllegalArguments() throws IOException {
+    expectThrows(IllegalArgumentException.class, () -> new SegmentTopDocsCache(0));
+
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    addDocuments(w, 10);
+    DirectoryReader reader = DirectoryReader.open(w);
+    SegmentTopDocsCache cache = new SegmentTopDocsCache(10);
+    expectThrows(IllegalArgumentException.class,
+        () -> cache.search(newSearcher(reader), new MatchAllDocsQuery(), 10, Sort.RELEVANCE, 1000));
+    reader.close();
+    w.close();
+    dir.close();
+  }
+
+  public void testReopen() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    final SegmentTopDocsCache cache = new SegmentTopDocsCache(1000);
+    final Sort sort = new Sort(new SortField("price", SortField.Type.LONG));
+    final Query query = new TermQuery(new Term("color", "red"));
+    final int n = TestUtil.nextInt(random(), 1, 20);
+
+    DirectoryReader reader = null;
+    Set<IndexReader.CacheKey> searchedReaderKeys = new HashSet<>();
+    long expectedHitCount = 0;
+    long expectedMissCount = 0;
+    final int numIters = atLeast(5);
+    for (int iter = 0; iter < numIters; ++iter) {
+      addDocuments(w, TestUtil.nextInt(random(), 1, 100));
+      if (random().nextInt(4) == 0) {
+        w.deleteDocuments(new Term("color", "blue"));
+      }
+      DirectoryReader newReader = reader == null ? DirectoryReader.open(w) : DirectoryReader.openIfChanged(reader, w);
+      assertNotNull(newReader);
+      if (reader != null) {
+        reader.close();
+      }
+      reader = newReader;
+
+      IndexSearcher searcher = new IndexSearcher(reader);
+      IndexSearcher cachingSearcher = new IndexSearcher(reader);
+      cachingSearcher.setTopDocsCache(cache);
+      // segments that were searched before and didn't get new deletions are reused
+      for (LeafReaderContext context : reader.leaves()) {
+        if (searchedReaderKeys.add(context.reader().getReaderCacheHelper().getKey())) {
+          expectedMissCount++;
+        } else {
+          expectedHitCount++;
+        }
+      }
+      assertSameHits(searcher.search(query, n, sort), cachingSearcher.search(query, n, sort));
+      assertEquals(expectedHitCount, cache.getHitCount());
+      assertEquals(expectedMissCount, cache.getMissCount());
+      assertTrue(cache.getCacheSize() >= reader.leaves().size());
+
+      // searching again only hits the cache
+      assertSameHits(searcher.search(query, n, sort), cachingSearcher.search(query, n, sort));
+      expectedHitCount += reader.leaves().size();
+      assertEquals(expectedHitCount, cache.getHitCount());
+      assertEquals(expectedMissCount, cache.getMissCount());
+    }
+
+    reader.close();
+    w.close();
+    assertEquals(0, cache.getCacheSize());
+    dir.close();
+  }
+
+  public void testMaxSize() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    addDocuments(w, 100);
+    w.forceMerge(1);
+    DirectoryReader reader = DirectoryReader.open(w);
+    w.close();
+
+    final int maxSize = TestUtil.nextInt(random(), 1, 5);
+    final SegmentTopDocsCache cache = new SegmentTopDocsCache(maxSize);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setTopDocsCache(cache);
+    final Sort sort = new Sort(new SortField("price", SortField.Type.LONG, true));
+    for (int i = 1; i <= 10; ++i) {
+      searcher.search(new MatchAllDocsQuery(), i, sort);
+      assertEquals(Math.min(i, maxSize), cache.getCacheSize());
+    }
+    assertEquals(10, cache.getMissCount());
+    // the most recently used entry is still cached
+    searcher.search(new MatchAllDocsQuery(), 10, sort);
+    assertEquals(1, cache.getHitCount());
+
+    cache.clear();
+    assertEquals(0, cache.getCacheSize());
+    reader.close();
+    dir.close();
+  }
+}
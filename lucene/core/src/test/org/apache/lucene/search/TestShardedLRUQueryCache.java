@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestShardedLRUQueryCache extends LuceneTestCase {
+
+  private static final QueryCachingPolicy ALWAYS_CACHE = new QueryCachingPolicy() {
+
+    @Override
+    public void onUse(Query query) {}
+
+    @Override
+    public boolean shouldCache(Query query) throws IOException {
+      return true;
+    }
+
+  };
+
+  public void testIllegalArguments() {
+    expectThrows(IllegalArgumentException.class, () -> new ShardedLRUQueryCache(0, 10, 10000));
+    expectThrows(IllegalArgumentException.class, () -> new ShardedLRUQueryCache(4, 3, 10000));
+  }
+
+  public void testLimitsAreSplitAcrossShards() {
+    final int numShards = TestUtil.nextInt(random(), 1, 16);
+    final int maxSize = TestUtil.nextInt(random(), numShards, 1000);
+    final long maxRamBytesUsed = TestUtil.nextLong(random(), 0, 100000000);
+    final List<Integer> shardMaxSizes = new ArrayList<>();
+    final List<Long> shardMaxRamBytesUsed = new ArrayList<>();
+    final ShardedLRUQueryCache queryCache = new ShardedLRUQueryCache(numShards, maxSize, maxRamBytesUsed, context -> true) {
+      @Override
+      protected LRUQueryCache newShard(int maxSize, long maxRamBytesUsed, Predicate<LeafReaderContext> leavesToCache) {
+        shardMaxSizes.add(maxSize);
+        shardMaxRamBytesUsed.add(maxRamBytesUsed);
+        return super.newShard(maxSize, maxRamBytesUsed, leavesToCache);
+      }
+    };
+    assertEquals(numShards, queryCache.getShards().size());
+    assertEquals(numShards, queryCache.getChildResources().size());
+    assertEquals(numShards, shardMaxSizes.size());
+    assertEquals(numShards, shardMaxRamBytesUsed.size());
+
+    // the shard limits add up to the configured limits, and differ by at most one across shards
+    int sumMaxSize = 0;
+    for (int shardMaxSize : shardMaxSizes) {
+      assertTrue(shardMaxSize >= 1);
+      assertTrue(shardMaxSize - maxSize / numShards <= 1);
+      sumMaxSize += shardMaxSize;
+    }
+    assertEquals(maxSize, sumMaxSize);
+    long sumMaxRamBytesUsed = 0;
+    for (long shardMaxRam : shardMaxRamBytesUsed) {
+      assertTrue(shardMaxRam - maxRamBytesUsed / numShards <= 1);
+      sumMaxRamBytesUsed += shardMaxRam;
+    }
+    assertEquals(maxRamBytesUsed, sumMaxRamBytesUsed);
+  }
+
+  public void testSameQueryAlwaysUsesSameShard() {
+    final ShardedLRUQueryCache queryCache = new ShardedLRUQueryCache(TestUtil.nextInt(random(), 1, 16), 100, 100000);
+    for (int i = 0; i < 100; ++i) {
+      final String value = TestUtil.randomSimpleString(random());
+      assertSame(queryCache.shard(new TermQuery(new Term("f", value))),
+          queryCache.shard(new TermQuery(new Term("f", value))));
+    }
+  }
+
+  public void testCachingAndStats() throws IOException {
+    Directory dir = newDirectory();
+    final RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(50);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i % 20), Store.NO));
+      w.addDocument(doc);
+    }
+    final DirectoryReader reader = w.getReader();
+    w.close();
+
+    final int numShards = TestUtil.nextInt(random(), 1, 8);
+    final ShardedLRUQueryCache queryCache = new ShardedLRUQueryCache(numShards, 1000, 10000000, context -> true);
+    final IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(queryCache);
+    searcher.setQueryCachingPolicy(ALWAYS_CACHE);
+    final IndexSearcher uncachedSearcher = new IndexSearcher(reader);
+    uncachedSearcher.setQueryCache(null);
+
+    final int segmentCount = reader.leaves().size();
+    for (int iter = 0; iter < 2; ++iter) {
+      for (int i = 0; i < 20; ++i) {
+        final Query query = new ConstantScoreQuery(new TermQuery(new Term("id", Integer.toString(i))));
+        final TotalHitCountCollector expected = new TotalHitCountCollector();
+        uncachedSearcher.search(query, expected);
+        final TotalHitCountCollector actual = new TotalHitCountCollector();
+        searcher.search(query, actual);
+        assertEquals(expected.getTotalHits(), actual.getTotalHits());
+      }
+    }
+    assertEquals(40 * segmentCount, queryCache.getTotalCount());
+    assertEquals(20 * segmentCount, queryCache.getHitCount());
+    assertEquals(20 * segmentCount, queryCache.getMissCount());
+    assertEquals(20 * segmentCount, queryCache.getCacheCount());
+    assertEquals(20 * segmentCount, queryCache.getCacheSize());
+    assertEquals(0, queryCache.getEvictionCount());
+    assertEquals(0, queryCache.getLockContentionCount());
+    for (LRUQueryCache shard : queryCache.getShards()) {
+      shard.assertConsistent();
+    }
+
+    long ramBytesUsed = 0;
+    for (LRUQueryCache shard : queryCache.getShards()) {
+      ramBytesUsed += shard.ramBytesUsed();
+    }
+    assertEquals(ramBytesUsed, queryCache.ramBytesUsed());
+
+    final Query query = new TermQuery(new Term("id", "0"));
+    queryCache.clearQuery(query);
+    assertEquals(19 * segmentCount, queryCache.getCacheSize());
+
+    reader.close();
+    assertEquals(0, queryCache.getCacheSize());
+    dir.close();
+  }
+
+  public void testMaxSize() throws IOException {
+    Directory dir = newDirectory();
+    final RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    for (int i = 0; i < 20; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Store.NO));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    final DirectoryReader reader = w.getReader();
+    w.close();
+
+    final int maxSize = TestUtil.nextInt(random(), 4, 10);
+    final ShardedLRUQueryCache queryCache = new ShardedLRUQueryCache(4, maxSize, 10000000, context -> true);
+    final IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(queryCache);
+    searcher.setQueryCachingPolicy(ALWAYS_CACHE);
+    for (int i = 0; i < 20; ++i) {
+      searcher.search(new TermQuery(new Term("id", Integer.toString(i))), new TotalHitCountCollector());
+      assertTrue(queryCache.getCacheSize() <= maxSize);
+    }
+    queryCache.clear();
+    assertEquals(0, queryCache.getCacheSize());
+    reader.close();
+    dir.close();
+  }
+}
@@ -162,6 +162,67 @@ public class TestSynonymQuery extends LuceneTestCase {
         mergedImpacts.getImpacts());
   }
 
+  public void testMergeWeightedImpacts() throws IOException {
+    DummyImpactsEnum impacts1 = new DummyImpactsEnum();
+    impacts1.reset(42,
+        new Impact[][] {
+          new Impact[] { new Impact(3, 10), new Impact(5, 12), new Impact(8, 13) },
+          new Impact[] { new Impact(5, 11), new Impact(8, 13),  new Impact(12, 14) }
+        },
+        new int[] {
+            110,
+            945
+        });
+    DummyImpactsEnum impacts2 = new DummyImpactsEnum();
+    impacts2.reset(45,
+        new Impact[][] {
+          new Impact[] { new Impact(2, 10), new Impact(6, 13) },
+          new Impact[] { new Impact(3, 9), new Impact(5, 11), new Impact(7, 13) }
+        },
+        new int[] {
+            90,
+            1000
+        });
+
+    ImpactsSource mergedImpacts = new MergedImpactsSource(new ImpactsEnum[] { impacts1, impacts2 }, new float[] { 2f, 1.5f });
+    assertEquals(
+        new Impact[][] {
+          new Impact[] { new Impact(9, 10), new Impact(13, 12), new Impact(25, 13) },
+          new Impact[] { new Impact(Integer.MAX_VALUE, 1) }
+        },
+        new int[] {
+            90,
+            1000
+        },
+        mergedImpacts.getImpacts());
+
+    // docID is > the first doIdUpTo of impacts1, weights still apply to single lists
+    impacts2.reset(112,
+        new Impact[][] {
+          new Impact[] { new Impact(2, 10), new Impact(6, 13) },
+          new Impact[] { new Impact(3, 9), new Impact(5, 11), new Impact(7, 13) }
+        },
+        new int[] {
+            150,
+            1000
+        });
+    assertEquals(
+        new Impact[][] {
+          new Impact[] { new Impact(6, 10), new Impact(10, 12), new Impact(16, 13) },
+          new Impact[] { new Impact(5, 9), new Impact(18, 11), new Impact(27, 13), new Impact(35, 14) }
+        },
+        new int[] {
+            110,
+            945
+        },
+        mergedImpacts.getImpacts());
+
+    expectThrows(IllegalArgumentException.class,
+        () -> new MergedImpactsSource(new ImpactsEnum[] { impacts1, impacts2 }, new float[] { 0.5f, 1f }));
+    expectThrows(IllegalArgumentException.class,
+        () -> new MergedImpactsSource(new ImpactsEnum[] { impacts1, impacts2 }, new float[] { 1f }));
+  }
+
   private static void assertEquals(Impact[][] impacts, int[] docIdUpTo, Impacts actual) {
     assertEquals(impacts.length, actual.numLevels());
     for (int i = 0; i < impacts.length; ++i) {
@@ -20,9 +20,12 @@ package org.apache.lucene.search;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Locale;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleDocValuesField;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.FloatDocValuesField;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
@@ -459,4 +462,107 @@ public class TestTopFieldCollector extends LuceneTestCase {
     dir.close();
   }
 
+  public void testNumericSortsMatchComparators() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(500);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("text", random().nextBoolean() ? "foo" : "bar", Store.NO));
+      if (random().nextInt(5) != 0) {
+        doc.add(new NumericDocValuesField("int", random().nextInt(20) - 10));
+      }
+      if (random().nextInt(5) != 0) {
+        doc.add(new NumericDocValuesField("long", random().nextBoolean() ? random().nextLong() : random().nextInt(20) - 10));
+      }
+      if (random().nextInt(5) != 0) {
+        doc.add(new FloatDocValuesField("float", random().nextInt(20) - 10 + random().nextInt(3) / 2f));
+      }
+      if (random().nextInt(5) != 0) {
+        doc.add(new DoubleDocValuesField("double", random().nextBoolean() ? random().nextDouble() : random().nextInt(20) - 10));
+      }
+      w.addDocument(doc);
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+    // two distinct scores, so that there are ties
+    Query query = new BooleanQuery.Builder()
+        .add(new BoostQuery(new TermQuery(new Term("text", "foo")), 2), Occur.SHOULD)
+        .add(new TermQuery(new Term("text", "bar")), Occur.SHOULD)
+        .build();
+
+    final SortField.Type[] types = new SortField.Type[] {
+        SortField.Type.SCORE, SortField.Type.DOC, SortField.Type.INT, SortField.Type.LONG, SortField.Type.FLOAT, SortField.Type.DOUBLE };
+    final int iters = atLeast(20);
+    for (int iter = 0; iter < iters; ++iter) {
+      final int numFields = TestUtil.nextInt(random(), 1, 3);
+      final SortField[] packedFields = new SortField[numFields];
+      final SortField[] comparatorFields = new SortField[numFields];
+      for (int i = 0; i < numFields; ++i) {
+        final SortField.Type type = types[random().nextInt(types.length)];
+        final String field = type == SortField.Type.SCORE || type == SortField.Type.DOC
+            ? null : type.name().toLowerCase(Locale.ROOT);
+        final boolean reverse = random().nextBoolean();
+        packedFields[i] = new SortField(field, type, reverse);
+        // subclasses are sorted with comparators
+        comparatorFields[i] = new SortField(field, type, reverse) {};
+        if (field != null && random().nextBoolean()) {
+          final Object missingValue;
+          switch (type) {
+            case INT:
+              missingValue = random().nextInt(20) - 10;
+              break;
+            case LONG:
+              missingValue = random().nextBoolean() ? Long.MIN_VALUE : Long.MAX_VALUE;
+              break;
+            case FLOAT:
+              missingValue = random().nextBoolean() ? Float.NEGATIVE_INFINITY : 0.5f;
+              break;
+            default:
+              missingValue = random().nextDouble();
+              break;
+          }
+          packedFields[i].setMissingValue(missingValue);
+          comparatorFields[i].setMissingValue(missingValue);
+        }
+      }
+      final int numHits = TestUtil.nextInt(random(), 1, numDocs + 10);
+      final int totalHitsThreshold = random().nextBoolean() ? Integer.MAX_VALUE : random().nextInt(numDocs);
+
+      TopFieldCollector packedCollector = TopFieldCollector.create(new Sort(packedFields), numHits, totalHitsThreshold);
+      TopFieldCollector comparatorCollector = TopFieldCollector.create(new Sort(comparatorFields), numHits, totalHitsThreshold);
+      searcher.search(query, packedCollector);
+      searcher.search(query, comparatorCollector);
+      TopFieldDocs expected = comparatorCollector.topDocs();
+      assertTopDocsEquals(expected, packedCollector.topDocs(), totalHitsThreshold == Integer.MAX_VALUE);
+
+      if (expected.scoreDocs.length > 0) {
+        final FieldDoc after = (FieldDoc) expected.scoreDocs[random().nextInt(expected.scoreDocs.length)];
+        packedCollector = TopFieldCollector.create(new Sort(packedFields), numHits, after, totalHitsThreshold);
+        comparatorCollector = TopFieldCollector.create(new Sort(comparatorFields), numHits, after, totalHitsThreshold);
+        searcher.search(query, packedCollector);
+        searcher.search(query, comparatorCollector);
+        final int start = random().nextInt(numHits);
+        assertTopDocsEquals(comparatorCollector.topDocs(start), packedCollector.topDocs(start), totalHitsThreshold == Integer.MAX_VALUE);
+      }
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  private static void assertTopDocsEquals(TopDocs expected, TopDocs actual, boolean exactHitCount) {
+    if (exactHitCount) {
+      assertEquals(expected.totalHits, actual.totalHits);
+    }
+    assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+    for (int i = 0; i < expected.scoreDocs.length; ++i) {
+      final FieldDoc expectedDoc = (FieldDoc) expected.scoreDocs[i];
+      final FieldDoc actualDoc = (FieldDoc) actual.scoreDocs[i];
+      assertEquals(expectedDoc.doc, actualDoc.doc);
+      assertArrayEquals(expectedDoc.fields, actualDoc.fields);
+    }
+  }
+
 }
@@ -109,14 +109,30 @@ public class TestTopFieldCollectorEarlyTermination extends LuceneTestCase {
   }
 
   public void testEarlyTermination() throws IOException {
-    doTestEarlyTermination(false);
+    doTestEarlyTermination(sort, false);
   }
 
   public void testEarlyTerminationWhenPaging() throws IOException {
-    doTestEarlyTermination(true);
+    doTestEarlyTermination(sort, true);
   }
 
-  private void doTestEarlyTermination(boolean paging) throws IOException {
+  public void testEarlyTerminationOnPartialPrefix() throws IOException {
+    final Sort searchSort = new Sort(new SortField("ndv1", SortField.Type.LONG), new SortField("ndv2", SortField.Type.LONG));
+    doTestEarlyTermination(searchSort, random().nextBoolean());
+  }
+
+  public void testEarlyTerminationInReverse() throws IOException {
+    final Sort searchSort;
+    if (random().nextBoolean()) {
+      searchSort = new Sort(new SortField("ndv1", SortField.Type.LONG, true));
+    } else {
+      searchSort = new Sort(new SortField("ndv1", SortField.Type.LONG, true), new SortField("ndv2", SortField.Type.LONG));
+    }
+    doTestEarlyTermination(searchSort, random().nextBoolean());
+  }
+
+  private void doTestEarlyTermination(Sort searchSort, boolean paging) throws IOException {
+    final boolean canEarlyTerminate = TopFieldCollector.canEarlyTerminate(searchSort, sort);
     final int iters = atLeast(8);
     for (int i = 0; i < iters; ++i) {
       createRandomIndex(false);
@@ -125,18 +141,19 @@ public class TestTopFieldCollectorEarlyTermination extends LuceneTestCase {
         maxSegmentSize = Math.max(ctx.reader().numDocs(), maxSegmentSize);
       }
       for (int j = 0; j < iters; ++j) {
-        final IndexSearcher searcher = newSearcher(reader);
+        // the asserting searcher hides the collector, which prevents collecting in reverse
+        final IndexSearcher searcher = random().nextBoolean() ? newSearcher(reader) : newSearcher(reader, true, false);
         final int numHits = TestUtil.nextInt(random(), 1, numDocs);
         FieldDoc after;
         if (paging) {
           assert searcher.getIndexReader().numDocs() > 0;
-          TopFieldDocs td = searcher.search(new MatchAllDocsQuery(), 10, sort);
+          TopFieldDocs td = searcher.search(new MatchAllDocsQuery(), 10, searchSort);
           after = (FieldDoc) td.scoreDocs[td.scoreDocs.length - 1];
         } else {
           after = null;
         }
-        final TopFieldCollector collector1 = TopFieldCollector.create(sort, numHits, after, Integer.MAX_VALUE);
-        final TopFieldCollector collector2 = TopFieldCollector.create(sort, numHits, after, 1);
+        final TopFieldCollector collector1 = TopFieldCollector.create(searchSort, numHits, after, Integer.MAX_VALUE);
+        final TopFieldCollector collector2 = TopFieldCollector.create(searchSort, numHits, after, 1);
 
         final Query query;
         if (random().nextBoolean()) {
@@ -144,13 +161,14 @@ public class TestTopFieldCollectorEarlyTermination extends LuceneTestCase {
         } else {
           query = new MatchAllDocsQuery();
         }
-        searcher.search(query, collector1);
+        // wrapping makes docs get collected in order
+        searcher.search(query, MultiCollector.wrap(collector1, new TotalHitCountCollector()));
         searcher.search(query, collector2);
         TopDocs td1 = collector1.topDocs();
         TopDocs td2 = collector2.topDocs();
 
         assertFalse(collector1.isEarlyTerminated());
-        if (paging == false && maxSegmentSize > numHits && query instanceof MatchAllDocsQuery) {
+        if (paging == false && canEarlyTerminate && maxSegmentSize > numHits && query instanceof MatchAllDocsQuery) {
           // Make sure that we sometimes early terminate
           assertTrue(collector2.isEarlyTerminated());
         }
@@ -166,6 +184,177 @@ public class TestTopFieldCollectorEarlyTermination extends LuceneTestCase {
     }
   }
   
+  public void testEarlyTerminationInReverseOnLargeSegment() throws IOException {
+    dir = newDirectory();
+    final IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setIndexSort(sort);
+    iw = new RandomIndexWriter(random(), dir, iwc);
+    iw.setDoRandomForceMerge(false);
+    numDocs = atLeast(10000);
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      doc.add(new NumericDocValuesField("ndv1", random().nextInt(1000)));
+      doc.add(new StringField("s", i % 100 == 0 ? "sparse" : "dense", Store.NO));
+      iw.addDocument(doc);
+    }
+    iw.forceMerge(1);
+    reader = iw.getReader();
+
+    final Sort searchSort = new Sort(new SortField("ndv1", SortField.Type.LONG, true));
+    final IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(null); // so that bulk scorers can be counted
+    final int numHits = TestUtil.nextInt(random(), 1, 100);
+    for (Query query : new Query[] {new MatchAllDocsQuery(), new TermQuery(new Term("s", "sparse"))}) {
+      final TopFieldCollector collector1 = TopFieldCollector.create(searchSort, numHits, Integer.MAX_VALUE);
+      final TopFieldCollector collector2 = TopFieldCollector.create(searchSort, numHits, 1);
+      final CountingBulkScorersQuery countingQuery = new CountingBulkScorersQuery(query);
+      searcher.search(query, collector1);
+      searcher.search(countingQuery, collector2);
+      final TopDocs td1 = collector1.topDocs();
+      final TopDocs td2 = collector2.topDocs();
+      assertFalse(collector1.isEarlyTerminated());
+      if (query instanceof MatchAllDocsQuery) {
+        assertEquals(numDocs, td1.totalHits.value);
+        assertTrue(collector2.isEarlyTerminated());
+        assertTrue(td2.totalHits.value < numDocs);
+      }
+      assertTopDocsEquals(td1.scoreDocs, td2.scoreDocs);
+      // the last window and the docs that precede it at most
+      assertTrue(countingQuery.bulkScorerCount <= 2);
+    }
+
+    // sorting by decreasing doc ID doesn't collect in reverse
+    final TopFieldCollector collector = TopFieldCollector.create(new Sort(new SortField(null, SortField.Type.DOC, true)), numHits, 1);
+    searcher.search(new MatchAllDocsQuery(), collector);
+    assertFalse(collector.isEarlyTerminated());
+    assertEquals(numDocs, collector.topDocs().totalHits.value);
+    closeIndex();
+  }
+
+  /** Counts the bulk scorers that its weight creates. */
+  private static class CountingBulkScorersQuery extends Query {
+    private final Query in;
+    int bulkScorerCount;
+
+    CountingBulkScorersQuery(Query in) {
+      this.in = in;
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+      return new FilterWeight(this, in.createWeight(searcher, scoreMode, boost)) {
+        @Override
+        public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
+          bulkScorerCount++;
+          return in.bulkScorer(context);
+        }
+      };
+    }
+
+    @Override
+    public String toString(String field) {
+      return "counting(" + in.toString(field) + ")";
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return sameClassAs(other) && in.equals(((CountingBulkScorersQuery) other).in);
+    }
+
+    @Override
+    public int hashCode() {
+      return classHash() ^ in.hashCode();
+    }
+  }
+
+  public void testSortedPrefixLength() {
+    assertEquals(0, TopFieldCollector.sortedPrefixLength(
+        new Sort(new SortField("a", SortField.Type.LONG)),
+        null));
+
+    assertEquals(1, TopFieldCollector.sortedPrefixLength(
+        new Sort(new SortField("a", SortField.Type.LONG), new SortField("b", SortField.Type.STRING)),
+        new Sort(new SortField("a", SortField.Type.LONG))));
+
+    assertEquals(1, TopFieldCollector.sortedPrefixLength(
+        new Sort(new SortField("a", SortField.Type.LONG), new SortField("b", SortField.Type.STRING)),
+        new Sort(new SortField("a", SortField.Type.LONG), new SortField("c", SortField.Type.STRING))));
+
+    assertEquals(0, TopFieldCollector.sortedPrefixLength(
+        new Sort(new SortField("a", SortField.Type.LONG, true)),
+        new Sort(new SortField("a", SortField.Type.LONG))));
+  }
+
+  public void testReverseSortedPrefixLength() {
+    assertEquals(0, TopFieldCollector.reverseSortedPrefixLength(
+        new Sort(new SortField(null, SortField.Type.DOC, true)),
+        null));
+
+    assertEquals(0, TopFieldCollector.reverseSortedPrefixLength(
+        new Sort(new SortField(null, SortField.Type.DOC, true)),
+        new Sort(new SortField("a", SortField.Type.LONG))));
+
+    assertEquals(0, TopFieldCollector.reverseSortedPrefixLength(
+        new Sort(SortField.FIELD_DOC),
+        null));
+
+    assertEquals(0, TopFieldCollector.reverseSortedPrefixLength(
+        new Sort(new SortField("a", SortField.Type.LONG, true)),
+        null));
+
+    assertEquals(1, TopFieldCollector.reverseSortedPrefixLength(
+        new Sort(new SortField("a", SortField.Type.LONG, true)),
+        new Sort(new SortField("a", SortField.Type.LONG))));
+
+    assertEquals(2, TopFieldCollector.reverseSortedPrefixLength(
+        new Sort(new SortField("a", SortField.Type.LONG, true), new SortField("b", SortField.Type.STRING)),
+        new Sort(new SortField("a", SortField.Type.LONG), new SortField("b", SortField.Type.STRING, true))));
+
+    assertEquals(1, TopFieldCollector.reverseSortedPrefixLength(
+        new Sort(new SortField("a", SortField.Type.LONG, true), new SortField("b", SortField.Type.STRING)),
+        new Sort(new SortField("a", SortField.Type.LONG), new SortField("b", SortField.Type.STRING))));
+
+    assertEquals(0, TopFieldCollector.reverseSortedPrefixLength(
+        new Sort(new SortField("a", SortField.Type.LONG, true)),
+        new Sort(new SortField("a", SortField.Type.INT))));
+
+    SortField missingFirst = new SortField("a", SortField.Type.LONG);
+    missingFirst.setMissingValue(Long.MIN_VALUE);
+    assertEquals(0, TopFieldCollector.reverseSortedPrefixLength(
+        new Sort(new SortField("a", SortField.Type.LONG, true)),
+        new Sort(missingFirst)));
+
+    assertEquals(1, TopFieldCollector.reverseSortedPrefixLength(
+        new Sort(new SortedNumericSortField("a", SortField.Type.LONG, true, SortedNumericSelector.Type.MAX)),
+        new Sort(new SortedNumericSortField("a", SortField.Type.LONG, false, SortedNumericSelector.Type.MAX))));
+
+    assertEquals(0, TopFieldCollector.reverseSortedPrefixLength(
+        new Sort(new SortedNumericSortField("a", SortField.Type.LONG, true, SortedNumericSelector.Type.MAX)),
+        new Sort(new SortedNumericSortField("a", SortField.Type.LONG, false, SortedNumericSelector.Type.MIN))));
+  }
+
+  public void testCanSkipNonCompetitiveHits() {
+    assertFalse(TopFieldCollector.canSkipNonCompetitiveHits(
+        new Sort(new SortField(null, SortField.Type.DOC, true)),
+        null));
+
+    assertFalse(TopFieldCollector.canSkipNonCompetitiveHits(
+        new Sort(new SortField("a", SortField.Type.LONG)),
+        null));
+
+    assertTrue(TopFieldCollector.canSkipNonCompetitiveHits(
+        new Sort(new SortField("a", SortField.Type.LONG, true), new SortField("b", SortField.Type.STRING)),
+        new Sort(new SortField("a", SortField.Type.LONG))));
+
+    assertTrue(TopFieldCollector.canSkipNonCompetitiveHits(
+        new Sort(new SortField("a", SortField.Type.LONG), new SortField("b", SortField.Type.STRING)),
+        new Sort(new SortField("a", SortField.Type.LONG))));
+
+    assertFalse(TopFieldCollector.canSkipNonCompetitiveHits(
+        new Sort(new SortField("b", SortField.Type.STRING), new SortField("a", SortField.Type.LONG)),
+        new Sort(new SortField("a", SortField.Type.LONG))));
+  }
+
   public void testCanEarlyTerminateOnDocId() {
     assertTrue(TopFieldCollector.canEarlyTerminate(
         new Sort(SortField.FIELD_DOC),
@@ -19,6 +19,8 @@ package org.apache.lucene.store;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 
@@ -43,6 +45,27 @@ public class TestMmapDirectory extends BaseDirectoryTestCase {
     assumeTrue(MMapDirectory.UNMAP_NOT_SUPPORTED_REASON, MMapDirectory.UNMAP_SUPPORTED);
   }
   
+  public void testPrefetchAfterClose() throws Exception {
+    final List<Runnable> pending = new ArrayList<>();
+    try (MMapDirectory dir = new MMapDirectory(createTempDir("testPrefetchAfterClose"))) {
+      dir.setPrefetchExecutor(pending::add);
+      try (IndexOutput out = dir.createOutput("test", IOContext.DEFAULT)) {
+        for (int i = 0; i < 100000; i++) {
+          out.writeInt(i);
+        }
+      }
+      IndexInput in = dir.openInput("test", IOContext.DEFAULT);
+      in.prefetch(0, in.length());
+      in.slice("slice", 1000, 20000).prefetch(500, 10000);
+      in.close();
+      assertEquals(2, pending.size());
+      // the reads happen after the buffers have been unmapped, which must not crash the JVM
+      for (Runnable task : pending) {
+        task.run();
+      }
+    }
+  }
+
   @Ignore("This test is for JVM testing purposes. There are no guarantees that it may not fail with SIGSEGV!")
   public void testAceWithThreads() throws Exception {
     for (int iter = 0; iter < 10; iter++) {
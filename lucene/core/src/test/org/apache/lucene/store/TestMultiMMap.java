@@ -19,6 +19,8 @@ package org.apache.lucene.store;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import org.apache.lucene.analysis.MockAnalyzer;
@@ -49,6 +51,43 @@ public class TestMultiMMap extends BaseDirectoryTestCase {
     assumeTrue(MMapDirectory.UNMAP_NOT_SUPPORTED_REASON, MMapDirectory.UNMAP_SUPPORTED);
   }
   
+  public void testPrefetchFileOffsets() throws Exception {
+    for (int iter = 0; iter < 10; iter++) {
+      try (MMapDirectory dir = new MMapDirectory(createTempDir("testPrefetchFileOffsets"), 1 << TestUtil.nextInt(random(), 4, 10))) {
+        final int num = TestUtil.nextInt(random(), 1, 10000);
+        try (IndexOutput output = dir.createOutput("bytes", newIOContext(random()))) {
+          for (int i = 0; i < num; i++) {
+            output.writeByte((byte) i);
+          }
+        }
+        final List<long[]> ranges = new ArrayList<>();
+        try (IndexInput input = dir.openInput("bytes", IOContext.DEFAULT)) {
+          ((ByteBufferIndexInput) input).prefetcher = (fileOffset, length) -> ranges.add(new long[] {fileOffset, length});
+          IndexInput in = input;
+          long inOffset = 0;
+          for (int depth = 0; depth < 3; depth++) {
+            if (random().nextBoolean()) {
+              in = in.clone();
+            } else {
+              final long offset = TestUtil.nextLong(random(), 0, in.length());
+              in = in.slice("slice", offset, in.length() - offset - TestUtil.nextLong(random(), 0, in.length() - offset));
+              inOffset += offset;
+            }
+            if (in.length() == 0) {
+              break;
+            }
+            final long offset = TestUtil.nextLong(random(), 0, in.length() - 1);
+            final long length = TestUtil.nextLong(random(), 1, in.length() - offset);
+            in.prefetch(offset, length);
+            final long[] range = ranges.get(ranges.size() - 1);
+            assertEquals(inOffset + offset, range[0]);
+            assertEquals(length, range[1]);
+          }
+        }
+      }
+    }
+  }
+
   public void testCloneSafety() throws Exception {
     MMapDirectory mmapDir = new MMapDirectory(createTempDir("testCloneSafety"));
     IndexOutput io = mmapDir.createOutput("bytes", newIOContext(random()));
@@ -20,6 +20,7 @@ package org.apache.lucene.store;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -46,7 +47,8 @@ public class TestNRTCachingDirectory extends BaseDirectoryTestCase {
   protected Directory getDirectory(Path path) throws IOException {
     return new NRTCachingDirectory(new ByteBuffersDirectory(),
                                    .1 + 2.0*random().nextDouble(),
-                                   .1 + 5.0*random().nextDouble());
+                                   .1 + 5.0*random().nextDouble(),
+                                   random().nextBoolean() ? ByteBuffersDataOutput.ALLOCATE_BB_ON_HEAP : ByteBuffersDataOutput.ALLOCATE_BB_OFF_HEAP);
   }
 
   public void testNRTAndCommit() throws Exception {
@@ -136,4 +138,50 @@ public class TestNRTCachingDirectory extends BaseDirectoryTestCase {
     nrtDir.close();
     fsDir.close();
   }
+
+  public void testOffHeapBlocksAreReleased() throws Exception {
+    Directory ramDir = new ByteBuffersDirectory();
+    NRTCachingDirectory nrtDir = new NRTCachingDirectory(ramDir, 2.0, 25.0, ByteBuffersDataOutput.ALLOCATE_BB_OFF_HEAP);
+    byte[] bytes = new byte[TestUtil.nextInt(random(), 10000, 100000)];
+    random().nextBytes(bytes);
+    try (IndexOutput out = nrtDir.createOutput("a", IOContext.DEFAULT)) {
+      out.writeBytes(bytes, bytes.length);
+    }
+    assertEquals(1, nrtDir.listCachedFiles().length);
+
+    IndexInput in = nrtDir.openInput("a", IOContext.DEFAULT);
+    nrtDir.deleteFile("a");
+    // the open input still uses the blocks
+    assertEquals(0, nrtDir.getPooledBytes());
+    IndexInput clone = in.clone();
+    byte[] read = new byte[bytes.length];
+    clone.readBytes(read, 0, read.length);
+    assertArrayEquals(bytes, read);
+    in.close();
+    final long pooledBytes = nrtDir.getPooledBytes();
+    assertTrue(pooledBytes >= bytes.length);
+
+    // new cached files take pooled blocks
+    try (IndexOutput out = nrtDir.createOutput("b", IOContext.DEFAULT)) {
+      out.writeBytes(bytes, bytes.length);
+    }
+    assertTrue(nrtDir.getPooledBytes() < pooledBytes);
+    try (IndexInput in2 = nrtDir.openInput("b", IOContext.DEFAULT)) {
+      in2.readBytes(read, 0, read.length);
+      assertArrayEquals(bytes, read);
+    }
+
+    // moving a file to the delegate releases its blocks too
+    final long pooledBeforeSync = nrtDir.getPooledBytes();
+    nrtDir.sync(Collections.singleton("b"));
+    assertEquals(0, nrtDir.listCachedFiles().length);
+    assertTrue(nrtDir.getPooledBytes() > pooledBeforeSync);
+    try (IndexInput in2 = nrtDir.openInput("b", IOContext.DEFAULT)) {
+      in2.readBytes(read, 0, read.length);
+      assertArrayEquals(bytes, read);
+    }
+
+    nrtDir.close();
+    assertEquals(0, nrtDir.getPooledBytes());
+  }
 }
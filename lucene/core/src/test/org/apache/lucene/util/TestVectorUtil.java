@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util;
+
+
+public class TestVectorUtil extends LuceneTestCase {
+
+  public void testBasic() {
+    float[] a = new float[] {1, 2, 3};
+    float[] b = new float[] {-1, 0, 2};
+    assertEquals(5, VectorUtil.dotProduct(a, b), 0f);
+    assertEquals(14, VectorUtil.dotProduct(a, a), 0f);
+    assertEquals(9, VectorUtil.squareDistance(a, b), 0f);
+    assertEquals(0, VectorUtil.squareDistance(a, a), 0f);
+  }
+
+  public void testRandom() {
+    int iters = atLeast(100);
+    for (int iter = 0; iter < iters; iter++) {
+      int dim = TestUtil.nextInt(random(), 1, 100);
+      float[] a = new float[dim];
+      float[] b = new float[dim];
+      double expectedDot = 0;
+      double expectedDistance = 0;
+      for (int i = 0; i < dim; i++) {
+        a[i] = random().nextFloat() * 2 - 1;
+        b[i] = random().nextFloat() * 2 - 1;
+        expectedDot += a[i] * b[i];
+        expectedDistance += (a[i] - b[i]) * (a[i] - b[i]);
+      }
+      assertEquals(expectedDot, VectorUtil.dotProduct(a, b), 1e-4);
+      assertEquals(expectedDistance, VectorUtil.squareDistance(a, b), 1e-4);
+    }
+  }
+
+  public void testDimensionMismatch() {
+    expectThrows(IllegalArgumentException.class, () -> VectorUtil.dotProduct(new float[2], new float[3]));
+    expectThrows(IllegalArgumentException.class, () -> VectorUtil.squareDistance(new float[2], new float[3]));
+  }
+}
@@ -23,6 +23,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.MergeState;
@@ -41,6 +44,7 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.FutureArrays;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.NumericUtils;
 import org.apache.lucene.util.TestUtil;
 
@@ -1087,6 +1091,115 @@ public class TestBKD extends LuceneTestCase {
     }
   }
 
+  public void testConcurrentFinish() throws Exception {
+    int numDocs = atLeast(10000);
+    int numDims = TestUtil.nextInt(random(), 1, 3);
+    int numIndexDims = TestUtil.nextInt(random(), 1, numDims);
+    int maxPointsInLeafNode = TestUtil.nextInt(random(), 20, 100);
+    // small enough to have the top levels of the tree partitioned offline
+    double maxMB = 0.05 + 0.5 * random().nextDouble();
+    int numThreads = TestUtil.nextInt(random(), 2, 8);
+    ExecutorService executor = Executors.newFixedThreadPool(TestUtil.nextInt(random(), 1, 4), new NamedThreadFactory("TestBKD"));
+    try (Directory dir = getDirectory(numDocs)) {
+      BKDWriter w1 = new BKDWriter(numDocs, dir, "tmp", numDims, numIndexDims, Integer.BYTES, maxPointsInLeafNode, maxMB, numDocs);
+      BKDWriter w2 = new BKDWriter(numDocs, dir, "tmp", numDims, numIndexDims, Integer.BYTES, maxPointsInLeafNode, maxMB, numDocs);
+      byte[] buffer = new byte[numDims * Integer.BYTES];
+      for (int docID = 0; docID < numDocs; docID++) {
+        random().nextBytes(buffer);
+        if (random().nextInt(10) == 0) {
+          // some duplicate values
+          Arrays.fill(buffer, 0, Integer.BYTES, (byte) 0);
+        }
+        w1.add(buffer, docID);
+        w2.add(buffer, docID);
+      }
+
+      long indexFP1, indexFP2;
+      try (IndexOutput out = dir.createOutput("bkd1", IOContext.DEFAULT)) {
+        indexFP1 = w1.finish(out);
+      }
+      try (IndexOutput out = dir.createOutput("bkd2", IOContext.DEFAULT)) {
+        indexFP2 = w2.finish(out, executor, numThreads);
+      }
+      w1.close();
+      w2.close();
+
+      try (IndexInput in1 = dir.openInput("bkd1", IOContext.DEFAULT);
+           IndexInput in2 = dir.openInput("bkd2", IOContext.DEFAULT)) {
+        in1.seek(indexFP1);
+        BKDReader r1 = new BKDReader(in1);
+        in2.seek(indexFP2);
+        BKDReader r2 = new BKDReader(in2);
+        assertEquals(r1.size(), r2.size());
+        assertEquals(r1.getDocCount(), r2.getDocCount());
+        assertArrayEquals(r1.getMinPackedValue(), r2.getMinPackedValue());
+        assertArrayEquals(r1.getMaxPackedValue(), r2.getMaxPackedValue());
+
+        int iters = atLeast(20);
+        for (int iter = 0; iter < iters; iter++) {
+          byte[] queryMin = new byte[numIndexDims * Integer.BYTES];
+          byte[] queryMax = new byte[numIndexDims * Integer.BYTES];
+          for (int dim = 0; dim < numIndexDims; dim++) {
+            byte[] a = new byte[Integer.BYTES];
+            byte[] b = new byte[Integer.BYTES];
+            random().nextBytes(a);
+            random().nextBytes(b);
+            if (FutureArrays.compareUnsigned(a, 0, Integer.BYTES, b, 0, Integer.BYTES) > 0) {
+              byte[] tmp = a;
+              a = b;
+              b = tmp;
+            }
+            System.arraycopy(a, 0, queryMin, dim * Integer.BYTES, Integer.BYTES);
+            System.arraycopy(b, 0, queryMax, dim * Integer.BYTES, Integer.BYTES);
+          }
+          assertEquals(intersect(r1, numIndexDims, queryMin, queryMax), intersect(r2, numIndexDims, queryMin, queryMax));
+        }
+      }
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+  }
+
+  private static BitSet intersect(BKDReader r, int numIndexDims, byte[] queryMin, byte[] queryMax) throws IOException {
+    final BitSet hits = new BitSet();
+    r.intersect(new IntersectVisitor() {
+      @Override
+      public void visit(int docID) {
+        hits.set(docID);
+      }
+
+      @Override
+      public void visit(int docID, byte[] packedValue) {
+        for (int dim = 0; dim < numIndexDims; dim++) {
+          int from = dim * Integer.BYTES, to = from + Integer.BYTES;
+          if (FutureArrays.compareUnsigned(packedValue, from, to, queryMin, from, to) < 0
+              || FutureArrays.compareUnsigned(packedValue, from, to, queryMax, from, to) > 0) {
+            return;
+          }
+        }
+        hits.set(docID);
+      }
+
+      @Override
+      public Relation compare(byte[] minPacked, byte[] maxPacked) {
+        boolean crosses = false;
+        for (int dim = 0; dim < numIndexDims; dim++) {
+          int from = dim * Integer.BYTES, to = from + Integer.BYTES;
+          if (FutureArrays.compareUnsigned(maxPacked, from, to, queryMin, from, to) < 0
+              || FutureArrays.compareUnsigned(minPacked, from, to, queryMax, from, to) > 0) {
+            return Relation.CELL_OUTSIDE_QUERY;
+          } else if (FutureArrays.compareUnsigned(minPacked, from, to, queryMin, from, to) < 0
+              || FutureArrays.compareUnsigned(maxPacked, from, to, queryMax, from, to) > 0) {
+            crosses = true;
+          }
+        }
+        return crosses ? Relation.CELL_CROSSES_QUERY : Relation.CELL_INSIDE_QUERY;
+      }
+    });
+    return hits;
+  }
+
   // Claims 16 bytes per dim, but only use the bottom N 1-3 bytes; this would happen e.g. if a user indexes what are actually just short
   // values as a LongPoint:
   public void testWastedLeadingBytes() throws Exception {
@@ -1195,6 +1195,66 @@ public class TestFSTs extends LuceneTestCase {
     final FST<Long> fst2 = new FST<>(in, outputs);
     checkStopNodes(fst2, outputs);
     in.close();
+
+    in = dir.openInput("fst", IOContext.DEFAULT);
+    final FST<Long> fst3 = new FST<>(in, outputs, true);
+    checkStopNodes(fst3, outputs);
+    in.close();
+    dir.close();
+  }
+
+  public void testOffHeap() throws Exception {
+    final PositiveIntOutputs outputs = PositiveIntOutputs.getSingleton();
+    final Builder<Long> builder = new Builder<>(FST.INPUT_TYPE.BYTE1, outputs);
+    final Set<BytesRef> termsSet = new HashSet<>();
+    final int numTerms = atLeast(1000);
+    while (termsSet.size() < numTerms) {
+      termsSet.add(new BytesRef(TestUtil.randomUnicodeString(random())));
+    }
+    final List<BytesRef> terms = new ArrayList<>(termsSet);
+    Collections.sort(terms);
+    final IntsRefBuilder scratch = new IntsRefBuilder();
+    for (int i = 0; i < terms.size(); ++i) {
+      builder.add(Util.toIntsRef(terms.get(i), scratch), (long) i);
+    }
+    final FST<Long> fst = builder.finish();
+
+    Directory dir = newDirectory();
+    try (IndexOutput out = dir.createOutput("fst", IOContext.DEFAULT)) {
+      // make sure the FST doesn't start at offset 0
+      out.writeInt(42);
+      fst.save(out);
+      out.writeInt(43);
+    }
+
+    try (IndexInput in = dir.openInput("fst", IOContext.DEFAULT)) {
+      assertEquals(42, in.readInt());
+      final FST<Long> offHeapFST = new FST<>(in, outputs, true);
+      assertTrue(offHeapFST.isOffHeap());
+      assertFalse(fst.isOffHeap());
+      // the input is positioned after the FST
+      assertEquals(43, in.readInt());
+      assertTrue(offHeapFST.ramBytesUsed() < fst.ramBytesUsed());
+
+      for (int i = 0; i < terms.size(); ++i) {
+        assertEquals(Long.valueOf(i), Util.get(offHeapFST, terms.get(i)));
+      }
+      for (int i = 0; i < 100; ++i) {
+        final BytesRef term = new BytesRef(TestUtil.randomUnicodeString(random()));
+        assertEquals(Util.get(fst, term), Util.get(offHeapFST, term));
+      }
+
+      // off-heap FSTs can be saved too
+      try (IndexOutput out = dir.createOutput("fst2", IOContext.DEFAULT)) {
+        offHeapFST.save(out);
+      }
+      try (IndexInput in2 = dir.openInput("fst2", IOContext.DEFAULT)) {
+        final FST<Long> fst2 = new FST<>(in2, outputs);
+        for (int i = 0; i < terms.size(); ++i) {
+          assertEquals(Long.valueOf(i), Util.get(fst2, terms.get(i)));
+        }
+      }
+    }
     dir.close();
   }
 
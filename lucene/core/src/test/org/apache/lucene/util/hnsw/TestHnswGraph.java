@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.hnsw;
+
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.lucene.index.RandomAccessVectorValues;
+import org.apache.lucene.index.RandomAccessVectorValuesProducer;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+/** Tests HNSW KNN graphs */
+public class TestHnswGraph extends LuceneTestCase {
+
+  public void testRecall() throws IOException {
+    int size = atLeast(500);
+    int dim = TestUtil.nextInt(random(), 2, 16);
+    VectorSimilarityFunction similarityFunction = VectorSimilarityFunction.values()[random().nextInt(VectorSimilarityFunction.values().length)];
+    RandomVectorValues vectors = new RandomVectorValues(size, dim, random());
+    HnswGraph hnsw = new HnswGraphBuilder(vectors, similarityFunction, 16, 100, random().nextLong()).build();
+    assertEquals(size, hnsw.size());
+
+    int topK = 10;
+    int numQueries = 20;
+    int totalMatches = 0;
+    for (int i = 0; i < numQueries; i++) {
+      float[] query = randomVector(random(), dim);
+      NeighborQueue actual = HnswGraph.search(query, 100, 100, vectors, similarityFunction, hnsw, null, random());
+      while (actual.size() > topK) {
+        actual.pop();
+      }
+      Set<Integer> expected = bruteForce(query, topK, vectors, similarityFunction, null);
+      while (actual.size() > 0) {
+        if (expected.contains(actual.pop())) {
+          totalMatches++;
+        }
+      }
+    }
+    double recall = totalMatches / (double) (numQueries * topK);
+    assertTrue("recall=" + recall, recall >= 0.9);
+  }
+
+  public void testAcceptOrds() throws IOException {
+    int size = atLeast(200);
+    int dim = TestUtil.nextInt(random(), 2, 8);
+    RandomVectorValues vectors = new RandomVectorValues(size, dim, random());
+    HnswGraph hnsw = new HnswGraphBuilder(vectors, VectorSimilarityFunction.EUCLIDEAN, 16, 100, random().nextLong()).build();
+    FixedBitSet acceptOrds = new FixedBitSet(size);
+    for (int i = 0; i < size; i += 2) {
+      acceptOrds.set(i);
+    }
+    NeighborQueue results = HnswGraph.search(randomVector(random(), dim), 10, 10, vectors,
+        VectorSimilarityFunction.EUCLIDEAN, hnsw, acceptOrds, random());
+    assertEquals(10, results.size());
+    while (results.size() > 0) {
+      assertEquals(0, results.pop() % 2);
+    }
+  }
+
+  public void testMaxConn() throws IOException {
+    int size = atLeast(100);
+    int maxConn = TestUtil.nextInt(random(), 1, 10);
+    RandomVectorValues vectors = new RandomVectorValues(size, 4, random());
+    HnswGraph hnsw = new HnswGraphBuilder(vectors, VectorSimilarityFunction.DOT_PRODUCT, maxConn, 20, random().nextLong()).build();
+    assertEquals(maxConn, hnsw.maxConn());
+    for (int node = 0; node < size; node++) {
+      NeighborArray neighbors = hnsw.getNeighbors(node);
+      assertNotNull(neighbors);
+      assertTrue(neighbors.size() <= maxConn);
+      for (int i = 0; i < neighbors.size(); i++) {
+        assertNotEquals(node, neighbors.node(i));
+      }
+    }
+  }
+
+  public void testAddGraph() throws IOException {
+    int size = atLeast(100);
+    int dim = TestUtil.nextInt(random(), 2, 8);
+    RandomVectorValues vectors = new RandomVectorValues(size, dim, random());
+    long seed = random().nextLong();
+    HnswGraph hnsw = new HnswGraphBuilder(vectors, VectorSimilarityFunction.EUCLIDEAN, 8, 50, seed).build();
+
+    // copying a full graph does not change it
+    HnswGraphBuilder builder = new HnswGraphBuilder(vectors, VectorSimilarityFunction.EUCLIDEAN, 8, 50, seed);
+    builder.addGraph(hnsw, 0);
+    HnswGraph copy = builder.build();
+    for (int node = 0; node < size; node++) {
+      assertEquals(neighbors(hnsw, node), neighbors(copy, node));
+    }
+    expectThrows(IllegalStateException.class, () -> builder.addGraph(hnsw, 0));
+
+    // copying a graph at an offset keeps its nodes connected
+    RandomVectorValues moreVectors = new RandomVectorValues(size * 2, dim, random());
+    System.arraycopy(vectors.values, 0, moreVectors.values, size, size);
+    HnswGraphBuilder offsetBuilder = new HnswGraphBuilder(moreVectors, VectorSimilarityFunction.EUCLIDEAN, 8, 50, seed);
+    expectThrows(IllegalArgumentException.class, () -> offsetBuilder.addGraph(hnsw, size + 1));
+    offsetBuilder.addGraph(hnsw, size);
+    HnswGraph merged = offsetBuilder.build();
+    for (int node = 0; node < merged.size(); node++) {
+      assertNotNull(merged.getNeighbors(node));
+      assertTrue(merged.getNeighbors(node).size() <= 8);
+    }
+  }
+
+  public void testNeighborQueue() {
+    NeighborQueue minHeap = new NeighborQueue(2, false);
+    NeighborQueue maxHeap = new NeighborQueue(2, true);
+    float[] scores = new float[atLeast(50)];
+    for (int i = 0; i < scores.length; i++) {
+      scores[i] = random().nextFloat();
+      minHeap.add(i, scores[i]);
+      maxHeap.add(i, scores[i]);
+    }
+    float[] sorted = scores.clone();
+    Arrays.sort(sorted);
+    for (int i = 0; i < scores.length; i++) {
+      assertEquals(sorted[i], minHeap.topScore(), 0f);
+      assertEquals(sorted[i], scores[minHeap.pop()], 0f);
+      assertEquals(sorted[scores.length - 1 - i], maxHeap.topScore(), 0f);
+      assertEquals(sorted[scores.length - 1 - i], scores[maxHeap.pop()], 0f);
+    }
+    assertEquals(0, minHeap.size());
+    assertEquals(0, maxHeap.size());
+  }
+
+  public void testNeighborQueueInsertWithOverflow() {
+    NeighborQueue queue = new NeighborQueue(3, false);
+    assertTrue(queue.insertWithOverflow(1, 0.5f, 3));
+    assertTrue(queue.insertWithOverflow(2, 0.2f, 3));
+    assertTrue(queue.insertWithOverflow(3, 0.8f, 3));
+    assertFalse(queue.insertWithOverflow(4, 0.1f, 3));
+    assertTrue(queue.insertWithOverflow(5, 0.9f, 3));
+    assertEquals(3, queue.size());
+    assertEquals(1, queue.pop());
+    assertEquals(3, queue.pop());
+    assertEquals(5, queue.pop());
+  }
+
+  private static Set<Integer> neighbors(HnswGraph graph, int node) {
+    Set<Integer> neighbors = new HashSet<>();
+    graph.seek(node);
+    for (int n = graph.nextNeighbor(); n != DocIdSetIterator.NO_MORE_DOCS; n = graph.nextNeighbor()) {
+      neighbors.add(n);
+    }
+    return neighbors;
+  }
+
+  private static Set<Integer> bruteForce(float[] query, int topK, RandomAccessVectorValues vectors,
+      VectorSimilarityFunction similarityFunction, FixedBitSet acceptOrds) throws IOException {
+    NeighborQueue queue = new NeighborQueue(topK, false);
+    for (int i = 0; i < vectors.size(); i++) {
+      if (acceptOrds == null || acceptOrds.get(i)) {
+        queue.insertWithOverflow(i, similarityFunction.compare(query, vectors.vectorValue(i)), topK);
+      }
+    }
+    Set<Integer> result = new HashSet<>();
+    while (queue.size() > 0) {
+      result.add(queue.pop());
+    }
+    return result;
+  }
+
+  private static float[] randomVector(Random random, int dim) {
+    float[] vec = new float[dim];
+    float squareSum = 0;
+    for (int i = 0; i < dim; i++) {
+      vec[i] = random.nextFloat() * 2 - 1;
+      squareSum += vec[i] * vec[i];
+    }
+    // unit vectors so that dot products are meaningful similarities
+    float norm = (float) Math.sqrt(squareSum);
+    for (int i = 0; i < dim; i++) {
+      vec[i] /= norm;
+    }
+    return vec;
+  }
+
+  /** Random-access vector values held in memory */
+  private static class RandomVectorValues implements RandomAccessVectorValues, RandomAccessVectorValuesProducer {
+
+    private final int dimension;
+    private final float[][] values;
+
+    RandomVectorValues(int size, int dimension, Random random) {
+      this.dimension = dimension;
+      values = new float[size][];
+      for (int i = 0; i < size; i++) {
+        values[i] = randomVector(random, dimension);
+      }
+    }
+
+    @Override
+    public int size() {
+      return values.length;
+    }
+
+    @Override
+    public int dimension() {
+      return dimension;
+    }
+
+    @Override
+    public float[] vectorValue(int targetOrd) {
+      return values[targetOrd];
+    }
+
+    @Override
+    public RandomAccessVectorValues randomAccess() {
+      return this;
+    }
+  }
+}
@@ -21,6 +21,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.lucene.facet.FacetsConfig;
 import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState.OrdRange;
@@ -54,6 +55,10 @@ public class DefaultSortedSetDocValuesReaderState extends SortedSetDocValuesRead
 
   private final Map<String,OrdRange> prefixToOrdRange = new HashMap<>();
 
+  // used to build the ordinal map incrementally, cleared once the map is built
+  private OrdinalMap previousOrdinalMap;
+  private ExecutorService executor;
+
   /** Creates this, pulling doc values from the default {@link
    *  FacetsConfig#DEFAULT_INDEX_FIELD_NAME}. */ 
   public DefaultSortedSetDocValuesReaderState(IndexReader reader) throws IOException {
@@ -63,8 +68,25 @@ public class DefaultSortedSetDocValuesReaderState extends SortedSetDocValuesRead
   /** Creates this, pulling doc values from the specified
    *  field. */
   public DefaultSortedSetDocValuesReaderState(IndexReader reader, String field) throws IOException {
+    this(reader, field, null, null);
+  }
+
+  /** Creates this, pulling doc values from the specified field, and reusing the
+   *  ordinal map of {@code previous} if not null, typically the state of the same
+   *  field on a reader that {@code reader} was reopened from. This makes creating
+   *  the state much cheaper when only a few segments were added since then.
+   *  @param executor executor to compute per-segment ordinals concurrently, or null
+   *  @see MultiDocValues#getSortedSetValues(IndexReader, String, OrdinalMap, ExecutorService) */
+  public DefaultSortedSetDocValuesReaderState(IndexReader reader, String field,
+      DefaultSortedSetDocValuesReaderState previous, ExecutorService executor) throws IOException {
     this.field = field;
     this.reader = reader;
+    if (previous != null && field.equals(previous.field)) {
+      synchronized (previous.cachedOrdMaps) {
+        this.previousOrdinalMap = previous.cachedOrdMaps.get(field);
+      }
+    }
+    this.executor = executor;
 
     // We need this to create thread-safe MultiSortedSetDV
     // per collector:
@@ -151,7 +173,9 @@ public class DefaultSortedSetDocValuesReaderState extends SortedSetDocValuesRead
       map = cachedOrdMaps.get(field);
       if (map == null) {
         // uncached, or not a multi dv
-        SortedSetDocValues dv = MultiDocValues.getSortedSetValues(reader, field);
+        SortedSetDocValues dv = MultiDocValues.getSortedSetValues(reader, field, previousOrdinalMap, executor);
+        previousOrdinalMap = null;
+        executor = null;
         if (dv instanceof MultiDocValues.MultiSortedSetDocValues) {
           map = ((MultiDocValues.MultiSortedSetDocValues)dv).mapping;
           IndexReader.CacheHelper cacheHelper = reader.getReaderCacheHelper();
@@ -101,6 +101,47 @@ public class TestSortedSetDocValuesFacets extends FacetTestCase {
     IOUtils.close(searcher.getIndexReader(), dir);
   }
 
+  public void testReusePreviousState() throws Exception {
+    Directory dir = newDirectory();
+
+    FacetsConfig config = new FacetsConfig();
+    config.setMultiValued("a", true);
+    RandomIndexWriter writer = new RandomIndexWriter(random(), dir);
+
+    Document doc = new Document();
+    doc.add(new SortedSetDocValuesFacetField("a", "foo"));
+    doc.add(new SortedSetDocValuesFacetField("b", "baz"));
+    writer.addDocument(config.build(doc));
+    writer.commit();
+
+    doc = new Document();
+    doc.add(new SortedSetDocValuesFacetField("a", "bar"));
+    writer.addDocument(config.build(doc));
+
+    IndexReader r1 = writer.getReader();
+    DefaultSortedSetDocValuesReaderState state1 = new DefaultSortedSetDocValuesReaderState(r1);
+
+    doc = new Document();
+    doc.add(new SortedSetDocValuesFacetField("a", "foo"));
+    doc.add(new SortedSetDocValuesFacetField("a", "zoo"));
+    writer.addDocument(config.build(doc));
+
+    IndexReader r2 = writer.getReader();
+    ExecutorService exec = randomExecutorServiceOrNull();
+    SortedSetDocValuesReaderState state2 = new DefaultSortedSetDocValuesReaderState(r2, FacetsConfig.DEFAULT_INDEX_FIELD_NAME, state1, exec);
+
+    IndexSearcher searcher = newSearcher(r2, false);
+    Facets facets = getAllFacets(searcher, state2, exec);
+    assertEquals("dim=a path=[] value=4 childCount=3\n  foo (2)\n  bar (1)\n  zoo (1)\n", facets.getTopChildren(10, "a").toString());
+    assertEquals("dim=b path=[] value=1 childCount=1\n  baz (1)\n", facets.getTopChildren(10, "b").toString());
+
+    if (exec != null) {
+      exec.shutdownNow();
+    }
+    writer.close();
+    IOUtils.close(r1, r2, dir);
+  }
+
   // LUCENE-5090
   @SuppressWarnings("unused")
   public void testStaleState() throws Exception {
@@ -27,9 +27,13 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.ImpactsEnum;
+import org.apache.lucene.index.ImpactsSource;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SlowImpactsEnum;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermState;
 import org.apache.lucene.index.TermStates;
@@ -241,6 +245,7 @@ public final class BM25FQuery extends Query {
 
   class BM25FWeight extends Weight {
     private final IndexSearcher searcher;
+    private final ScoreMode scoreMode;
     private final TermStates termStates[];
     private final Similarity.SimScorer simWeight;
 
@@ -248,6 +253,7 @@ public final class BM25FQuery extends Query {
       super(query);
       assert scoreMode.needsScores();
       this.searcher = searcher;
+      this.scoreMode = scoreMode;
       long docFreq = 0;
       long totalTermFreq = 0;
       termStates = new TermStates[fieldTerms.length];
@@ -327,14 +333,22 @@ public final class BM25FQuery extends Query {
     @Override
     public Scorer scorer(LeafReaderContext context) throws IOException {
       List<PostingsEnum> iterators = new ArrayList<>();
+      List<ImpactsEnum> impacts = new ArrayList<>();
       List<FieldAndWeight> fields = new ArrayList<>();
       for (int i = 0; i < fieldTerms.length; i++) {
         TermState state = termStates[i].get(context);
         if (state != null) {
           TermsEnum termsEnum = context.reader().terms(fieldTerms[i].field()).iterator();
           termsEnum.seekExact(fieldTerms[i].bytes(), state);
-          PostingsEnum postingsEnum = termsEnum.postings(null, PostingsEnum.FREQS);
-          iterators.add(postingsEnum);
+          if (scoreMode == ScoreMode.TOP_SCORES) {
+            ImpactsEnum impactsEnum = termsEnum.impacts(PostingsEnum.FREQS);
+            iterators.add(impactsEnum);
+            impacts.add(impactsEnum);
+          } else {
+            PostingsEnum postingsEnum = termsEnum.postings(null, PostingsEnum.FREQS);
+            iterators.add(postingsEnum);
+            impacts.add(new SlowImpactsEnum(postingsEnum));
+          }
           fields.add(fieldAndWeights.get(fieldTerms[i].field()));
         }
       }
@@ -347,7 +361,11 @@ public final class BM25FQuery extends Query {
       if (iterators.size() == 1) {
         final LeafSimScorer scoringSimScorer =
             new LeafSimScorer(simWeight, context.reader(), fields.get(0).field, true);
-        return new TermScorer(this, iterators.get(0), scoringSimScorer);
+        if (scoreMode == ScoreMode.TOP_SCORES) {
+          return new TermScorer(this, impacts.get(0), scoringSimScorer);
+        } else {
+          return new TermScorer(this, iterators.get(0), scoringSimScorer);
+        }
       }
       final MultiNormsLeafSimScorer scoringSimScorer =
           new MultiNormsLeafSimScorer(simWeight, context.reader(), fields, true);
@@ -361,7 +379,37 @@ public final class BM25FQuery extends Query {
       // Even though it is called approximation, it is accurate since none of
       // the sub iterators are two-phase iterators.
       DocIdSetIterator iterator = new DisjunctionDISIApproximation(queue);
-      return new BM25FScorer(this, queue, iterator, scoringSimScorer);
+
+      ImpactsDISI impactsDisi = null;
+      if (scoreMode == ScoreMode.TOP_SCORES && hasConsistentNorms(context, fields)) {
+        final float[] weights = new float[fields.size()];
+        for (int i = 0; i < weights.length; ++i) {
+          weights[i] = fields.get(i).weight;
+        }
+        ImpactsSource impactsSource = new MergedImpactsSource(impacts.toArray(new ImpactsEnum[0]), weights);
+        impactsDisi = new ImpactsDISI(iterator, impactsSource, simWeight);
+        iterator = impactsDisi;
+      }
+
+      return new BM25FScorer(this, queue, iterator, impactsDisi, scoringSimScorer);
+    }
+
+    /**
+     * Merged impacts are only a valid upper bound of the scores if the pseudo
+     * norm of a document is greater than or equal to the norm it has in any of
+     * the matching fields. This holds if all fields have norms, since field
+     * weights are greater than or equal to 1, or if none of them do, since all
+     * norms are then equal to 1.
+     */
+    private boolean hasConsistentNorms(LeafReaderContext context, List<FieldAndWeight> fields) {
+      int numFieldsWithNorms = 0;
+      for (FieldAndWeight field : fields) {
+        FieldInfo info = context.reader().getFieldInfos().fieldInfo(field.field);
+        if (info != null && info.hasNorms()) {
+          numFieldsWithNorms++;
+        }
+      }
+      return numFieldsWithNorms == 0 || numFieldsWithNorms == fields.size();
     }
 
     @Override
@@ -386,12 +434,16 @@ public final class BM25FQuery extends Query {
   private static class BM25FScorer extends Scorer {
     private final DisiPriorityQueue queue;
     private final DocIdSetIterator iterator;
+    // null if impacts can't be used to compute max scores
+    private final ImpactsDISI impactsDisi;
     private final MultiNormsLeafSimScorer simScorer;
 
-    BM25FScorer(Weight weight, DisiPriorityQueue queue, DocIdSetIterator iterator, MultiNormsLeafSimScorer simScorer) {
+    BM25FScorer(Weight weight, DisiPriorityQueue queue, DocIdSetIterator iterator,
+        ImpactsDISI impactsDisi, MultiNormsLeafSimScorer simScorer) {
       super(weight);
       this.queue = queue;
       this.iterator = iterator;
+      this.impactsDisi = impactsDisi;
       this.simScorer = simScorer;
     }
 
@@ -424,7 +476,25 @@ public final class BM25FQuery extends Query {
 
     @Override
     public float getMaxScore(int upTo) throws IOException {
-      return Float.POSITIVE_INFINITY;
+      if (impactsDisi == null) {
+        return Float.POSITIVE_INFINITY;
+      }
+      return impactsDisi.getMaxScore(upTo);
+    }
+
+    @Override
+    public int advanceShallow(int target) throws IOException {
+      if (impactsDisi == null) {
+        return super.advanceShallow(target);
+      }
+      return impactsDisi.advanceShallow(target);
+    }
+
+    @Override
+    public void setMinCompetitiveScore(float minScore) {
+      if (impactsDisi != null) {
+        impactsDisi.setMinCompetitiveScore(minScore);
+      }
     }
   }
 }
\ No newline at end of file
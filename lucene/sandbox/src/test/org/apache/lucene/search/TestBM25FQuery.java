@@ -24,6 +24,7 @@ import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.MultiReader;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
@@ -31,6 +32,7 @@ import org.apache.lucene.search.similarities.BM25Similarity;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
 
 public class TestBM25FQuery extends LuceneTestCase {
   public void testInvalid() {
@@ -164,4 +166,50 @@ public class TestBM25FQuery extends LuceneTestCase {
     w.close();
     dir.close();
   }
+
+  public void testTopScores() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setSimilarity(new BM25Similarity());
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir, iwc);
+    String[] vocabulary = new String[] { "foo", "bar", "baz", "quux" };
+    int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      for (String field : new String[] { "a", "b" }) {
+        StringBuilder text = new StringBuilder();
+        int length = random().nextInt(10);
+        for (int j = 0; j < length; j++) {
+          text.append(vocabulary[random().nextInt(vocabulary.length)]).append(' ');
+        }
+        doc.add(new TextField(field, text.toString(), Store.NO));
+      }
+      w.addDocument(doc);
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+    searcher.setSimilarity(new BM25Similarity());
+
+    for (int iter = 0; iter < 10; iter++) {
+      BM25FQuery.Builder builder = new BM25FQuery.Builder()
+          .addField("a", 1 + random().nextInt(3))
+          .addField("b", 1 + random().nextInt(3))
+          .addTerm(new BytesRef(vocabulary[random().nextInt(vocabulary.length)]));
+      if (random().nextBoolean()) {
+        builder.addTerm(new BytesRef(vocabulary[random().nextInt(vocabulary.length)]));
+      }
+      BM25FQuery query = builder.build();
+
+      int numHits = TestUtil.nextInt(random(), 1, 20);
+      TopScoreDocCollector completeCollector = TopScoreDocCollector.create(numHits, null, Integer.MAX_VALUE);
+      TopScoreDocCollector topScoresCollector = TopScoreDocCollector.create(numHits, null, 1);
+      searcher.search(query, completeCollector);
+      searcher.search(query, topScoresCollector);
+      CheckHits.checkEqual(query, completeCollector.topDocs().scoreDocs, topScoresCollector.topDocs().scoreDocs);
+    }
+
+    reader.close();
+    dir.close();
+  }
 }
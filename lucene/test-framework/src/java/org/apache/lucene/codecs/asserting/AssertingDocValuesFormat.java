@@ -24,6 +24,7 @@ import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.codecs.DocValuesProducer;
 import org.apache.lucene.index.AssertingLeafReader;
 import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.NumericDocValues;
@@ -269,6 +270,16 @@ public class AssertingDocValuesFormat extends DocValuesFormat {
       return new AssertingLeafReader.AssertingSortedSetDocValues(values, maxDoc);
     }
     
+    @Override
+    public DocValuesSkipper getSkipper(FieldInfo field) throws IOException {
+      DocValuesSkipper skipper = in.getSkipper(field);
+      if (skipper == null) {
+        return null;
+      }
+      assert field.getDocValuesType() == DocValuesType.NUMERIC || field.getDocValuesType() == DocValuesType.SORTED_NUMERIC;
+      return new AssertingLeafReader.AssertingDocValuesSkipper(skipper, maxDoc);
+    }
+
     @Override
     public void close() throws IOException {
       in.close();
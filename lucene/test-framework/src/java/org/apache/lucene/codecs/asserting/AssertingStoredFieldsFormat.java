@@ -73,6 +73,12 @@ public class AssertingStoredFieldsFormat extends StoredFieldsFormat {
       in.visitDocument(n, visitor);
     }
 
+    @Override
+    public void prefetch(int n) throws IOException {
+      assert n >= 0 && n < maxDoc;
+      in.prefetch(n);
+    }
+
     @Override
     public StoredFieldsReader clone() {
       return new AssertingStoredFieldsReader(in.clone(), maxDoc);
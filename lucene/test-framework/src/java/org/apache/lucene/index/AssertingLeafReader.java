@@ -44,6 +44,16 @@ public class AssertingLeafReader extends FilterLeafReader {
     }
   }
 
+  private static void assertBulkDocs(int count, int[] docs, int currentDocID, int maxDoc) {
+    assert count >= 0 && count <= docs.length;
+    int previous = currentDocID - 1;
+    for (int i = 0; i < count; ++i) {
+      assert docs[i] > previous : "doc IDs must be increasing and >= the current doc ID";
+      assert docs[i] < maxDoc;
+      previous = docs[i];
+    }
+  }
+
   public AssertingLeafReader(LeafReader in) {
     super(in);
     // check some basic reader sanity
@@ -631,6 +641,18 @@ public class AssertingLeafReader extends FilterLeafReader {
       return in.longValue();
     }    
 
+    @Override
+    public void longValues(int count, int[] docs, long[] values, long missingValue) throws IOException {
+      assertThread("Numeric doc values", creationThread);
+      assertBulkDocs(count, docs, in.docID(), maxDoc);
+      in.longValues(count, docs, values, missingValue);
+      if (count > 0) {
+        assert in.docID() == docs[count - 1];
+        lastDocID = docs[count - 1];
+      }
+      exists = false;
+    }
+
     @Override
     public String toString() {
       return "AssertingNumericDocValues(" + in + ")";
@@ -792,6 +814,21 @@ public class AssertingLeafReader extends FilterLeafReader {
       return ord;
     }
 
+    @Override
+    public void ordValues(int count, int[] docs, int[] ords) throws IOException {
+      assertThread("Sorted doc values", creationThread);
+      assertBulkDocs(count, docs, in.docID(), maxDoc);
+      in.ordValues(count, docs, ords);
+      for (int i = 0; i < count; ++i) {
+        assert ords[i] >= -1 && ords[i] < valueCount;
+      }
+      if (count > 0) {
+        assert in.docID() == docs[count - 1];
+        lastDocID = docs[count - 1];
+      }
+      exists = false;
+    }
+
     @Override
     public BytesRef lookupOrd(int ord) throws IOException {
       assertThread("Sorted doc values", creationThread);
@@ -1026,6 +1063,86 @@ public class AssertingLeafReader extends FilterLeafReader {
     }
   }
 
+  /** Wraps a DocValuesSkipper but with additional asserts */
+  public static class AssertingDocValuesSkipper extends DocValuesSkipper {
+    private final DocValuesSkipper in;
+    private final int maxDoc;
+    private int lastTarget = -1;
+
+    /** Sole constructor. */
+    public AssertingDocValuesSkipper(DocValuesSkipper in, int maxDoc) {
+      this.in = in;
+      this.maxDoc = maxDoc;
+      assert in.minDocID() == -1;
+      assert in.maxDocID() == -1;
+      assert in.globalDocCount() >= 0 && in.globalDocCount() <= maxDoc;
+      assert in.globalDocCount() == 0 || in.globalMinValue() <= in.globalMaxValue();
+    }
+
+    @Override
+    public void advance(int target) throws IOException {
+      assert target >= lastTarget : "target=" + target + " lastTarget=" + lastTarget;
+      final int previousMaxDocID = in.maxDocID();
+      in.advance(target);
+      lastTarget = target;
+      final int minDocID = in.minDocID();
+      final int maxDocID = in.maxDocID();
+      assert maxDocID >= target;
+      assert maxDocID >= previousMaxDocID;
+      if (maxDocID == DocIdSetIterator.NO_MORE_DOCS) {
+        assert minDocID == DocIdSetIterator.NO_MORE_DOCS;
+      } else {
+        assert minDocID >= 0 && minDocID <= maxDocID && maxDocID < maxDoc;
+        assert in.docCount() > 0 && in.docCount() <= maxDocID - minDocID + 1;
+        assert in.minValue() <= in.maxValue();
+        assert in.minValue() >= in.globalMinValue() && in.maxValue() <= in.globalMaxValue();
+      }
+    }
+
+    @Override
+    public int minDocID() {
+      return in.minDocID();
+    }
+
+    @Override
+    public int maxDocID() {
+      return in.maxDocID();
+    }
+
+    @Override
+    public long minValue() {
+      assert in.maxDocID() != -1 && in.maxDocID() != DocIdSetIterator.NO_MORE_DOCS;
+      return in.minValue();
+    }
+
+    @Override
+    public long maxValue() {
+      assert in.maxDocID() != -1 && in.maxDocID() != DocIdSetIterator.NO_MORE_DOCS;
+      return in.maxValue();
+    }
+
+    @Override
+    public int docCount() {
+      assert in.maxDocID() != -1 && in.maxDocID() != DocIdSetIterator.NO_MORE_DOCS;
+      return in.docCount();
+    }
+
+    @Override
+    public long globalMinValue() {
+      return in.globalMinValue();
+    }
+
+    @Override
+    public long globalMaxValue() {
+      return in.globalMaxValue();
+    }
+
+    @Override
+    public int globalDocCount() {
+      return in.globalDocCount();
+    }
+  }
+
   /** Wraps a SortedSetDocValues but with additional asserts */
   public static class AssertingPointValues extends PointValues {
 
@@ -1250,6 +1367,18 @@ public class AssertingLeafReader extends FilterLeafReader {
     }
   }
 
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    DocValuesSkipper skipper = super.getDocValuesSkipper(field);
+    if (skipper != null) {
+      FieldInfo fi = getFieldInfos().fieldInfo(field);
+      assert fi != null;
+      assert fi.getDocValuesType() == DocValuesType.NUMERIC || fi.getDocValuesType() == DocValuesType.SORTED_NUMERIC;
+      return new AssertingDocValuesSkipper(skipper, maxDoc());
+    }
+    return null;
+  }
+
   @Override
   public NumericDocValues getNormValues(String field) throws IOException {
     NumericDocValues dv = super.getNormValues(field);
@@ -1274,10 +1274,70 @@ public abstract class BaseDocValuesFormatTestCase extends BaseIndexFileFormatTes
         }
       }
       assertEquals(DocIdSetIterator.NO_MORE_DOCS, docValues.docID());
+      assertNumericBulk(r);
     }
     ir.close();
   }
 
+  // Asserts that reading numeric doc values in bulk returns the same values as reading them one doc at a time
+  private void assertNumericBulk(LeafReader r) throws IOException {
+    final NumericDocValues bulk = DocValues.getNumeric(r, "dv");
+    final NumericDocValues single = DocValues.getNumeric(r, "dv");
+    final int[] docs = new int[TestUtil.nextInt(random(), 1, 300)];
+    final long[] values = new long[docs.length];
+    final long missingValue = random().nextLong();
+    final int maxGap = random().nextBoolean() ? 1 : TestUtil.nextInt(random(), 2, 100);
+    int doc = -1;
+    while (true) {
+      int count = 0;
+      while (count < docs.length) {
+        doc += TestUtil.nextInt(random(), 1, maxGap);
+        if (doc >= r.maxDoc()) {
+          break;
+        }
+        docs[count++] = doc;
+      }
+      if (count == 0) {
+        break;
+      }
+      bulk.longValues(count, docs, values, missingValue);
+      assertEquals(docs[count - 1], bulk.docID());
+      for (int i = 0; i < count; ++i) {
+        final long expected = single.advanceExact(docs[i]) ? single.longValue() : missingValue;
+        assertEquals(expected, values[i]);
+      }
+    }
+  }
+
+  // Asserts that reading sorted doc values in bulk returns the same ords as reading them one doc at a time
+  private void assertSortedBulk(LeafReader r) throws IOException {
+    final SortedDocValues bulk = DocValues.getSorted(r, "dv");
+    final SortedDocValues single = DocValues.getSorted(r, "dv");
+    final int[] docs = new int[TestUtil.nextInt(random(), 1, 300)];
+    final int[] ords = new int[docs.length];
+    final int maxGap = random().nextBoolean() ? 1 : TestUtil.nextInt(random(), 2, 100);
+    int doc = -1;
+    while (true) {
+      int count = 0;
+      while (count < docs.length) {
+        doc += TestUtil.nextInt(random(), 1, maxGap);
+        if (doc >= r.maxDoc()) {
+          break;
+        }
+        docs[count++] = doc;
+      }
+      if (count == 0) {
+        break;
+      }
+      bulk.ordValues(count, docs, ords);
+      assertEquals(docs[count - 1], bulk.docID());
+      for (int i = 0; i < count; ++i) {
+        final int expected = single.advanceExact(docs[i]) ? single.ordValue() : -1;
+        assertEquals(expected, ords[i]);
+      }
+    }
+  }
+
   private void doTestSortedNumericsVsStoredFields(LongSupplier counts, LongSupplier values) throws Exception {
     Directory dir = newDirectory();
     IndexWriterConfig conf = newIndexWriterConfig(new MockAnalyzer(random()));
@@ -1615,6 +1675,7 @@ public abstract class BaseDocValuesFormatTestCase extends BaseIndexFileFormatTes
         }
       }
       assertEquals(DocIdSetIterator.NO_MORE_DOCS, docValues.docID());
+      assertSortedBulk(r);
     }
     ir.close();
     writer.close();
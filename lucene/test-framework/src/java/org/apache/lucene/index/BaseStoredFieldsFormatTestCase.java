@@ -155,6 +155,10 @@ public abstract class BaseStoredFieldsFormatTestCase extends BaseIndexFileFormat
           }
           TopDocs hits = s.search(new TermQuery(new Term("id", testID)), 1);
           assertEquals(1, hits.totalHits.value);
+          if (random().nextBoolean()) {
+            // hints must not change what gets read
+            r.prefetchDocument(hits.scoreDocs[0].doc);
+          }
           Document doc = r.document(hits.scoreDocs[0].doc);
           Document docExp = docs.get(testID);
           for(int i=0;i<fieldCount;i++) {
@@ -747,6 +751,63 @@ public abstract class BaseStoredFieldsFormatTestCase extends BaseIndexFileFormat
     dir.close();
   }
 
+  public void testBytesRefVisitor() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwConf = newIndexWriterConfig(new MockAnalyzer(random()));
+    RandomIndexWriter iw = new RandomIndexWriter(random(), dir, iwConf);
+
+    final int numDocs = atLeast(50);
+    final List<List<BytesRef>> expected = new ArrayList<>();
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      final List<BytesRef> values = new ArrayList<>();
+      final int numValues = random().nextInt(5);
+      for (int j = 0; j < numValues; ++j) {
+        // mostly small values, sometimes values that are larger than a chunk
+        final int length = random().nextInt(20) == 0 ? RandomNumbers.randomIntBetween(random(), 1 << 16, 1 << 18) : random().nextInt(100);
+        if (random().nextBoolean()) {
+          final String value = RandomStrings.randomUnicodeOfLength(random(), length);
+          doc.add(new StoredField("string", value));
+          values.add(new BytesRef(value));
+        } else {
+          final byte[] value = randomByteArray(length, 256);
+          doc.add(new StoredField("binary", value));
+          values.add(new BytesRef(value));
+        }
+      }
+      iw.addDocument(doc);
+      expected.add(values);
+    }
+    iw.forceMerge(1);
+    final DirectoryReader rd = iw.getReader();
+    iw.close();
+
+    for (int i = 0; i < numDocs; ++i) {
+      final List<BytesRef> actual = new ArrayList<>();
+      rd.document(i, new StoredFieldVisitor() {
+        @Override
+        public void binaryField(FieldInfo fieldInfo, BytesRef value) throws IOException {
+          assertEquals("binary", fieldInfo.name);
+          actual.add(BytesRef.deepCopyOf(value));
+        }
+
+        @Override
+        public void stringField(FieldInfo fieldInfo, BytesRef value) throws IOException {
+          assertEquals("string", fieldInfo.name);
+          actual.add(BytesRef.deepCopyOf(value));
+        }
+
+        @Override
+        public Status needsField(FieldInfo fieldInfo) throws IOException {
+          return Status.YES;
+        }
+      });
+      assertEquals(expected.get(i), actual);
+    }
+    rd.close();
+    dir.close();
+  }
+
   public void testBulkMergeWithDeletes() throws IOException {
     final int numDocs = atLeast(200);
     Directory dir = newDirectory();
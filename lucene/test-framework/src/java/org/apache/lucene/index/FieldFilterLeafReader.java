@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Set;
 
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.FilterIterator;
 
 /**
@@ -75,11 +76,21 @@ public final class FieldFilterLeafReader extends FilterLeafReader {
         visitor.binaryField(fieldInfo, value);
       }
 
+      @Override
+      public void binaryField(FieldInfo fieldInfo, BytesRef value) throws IOException {
+        visitor.binaryField(fieldInfo, value);
+      }
+
       @Override
       public void stringField(FieldInfo fieldInfo, byte[] value) throws IOException {
         visitor.stringField(fieldInfo, value);
       }
 
+      @Override
+      public void stringField(FieldInfo fieldInfo, BytesRef value) throws IOException {
+        visitor.stringField(fieldInfo, value);
+      }
+
       @Override
       public void intField(FieldInfo fieldInfo, int value) throws IOException {
         visitor.intField(fieldInfo, value);
@@ -22,6 +22,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
+import org.apache.lucene.util.BytesRef;
+
 /**
  * Shuffles field numbers around to try to trip bugs where field numbers
  * are assumed to always be consistent across segments.
@@ -79,6 +81,8 @@ public class MismatchedLeafReader extends FilterLeafReader {
                                         oldInfo.getPointDataDimensionCount(),      // data dimension count
                                         oldInfo.getPointIndexDimensionCount(),      // index dimension count
                                         oldInfo.getPointNumBytes(),  // dimension numBytes
+                                        oldInfo.getVectorDimension(), // vector dimension
+                                        oldInfo.getVectorSimilarityFunction(), // vector similarity function
                                         oldInfo.isSoftDeletesField()); // used as soft-deletes field
       shuffled.set(i, newInfo);
     }
@@ -104,11 +108,21 @@ public class MismatchedLeafReader extends FilterLeafReader {
       in.binaryField(renumber(fieldInfo), value);
     }
 
+    @Override
+    public void binaryField(FieldInfo fieldInfo, BytesRef value) throws IOException {
+      in.binaryField(renumber(fieldInfo), value);
+    }
+
     @Override
     public void stringField(FieldInfo fieldInfo, byte[] value) throws IOException {
       in.stringField(renumber(fieldInfo), value);
     }
 
+    @Override
+    public void stringField(FieldInfo fieldInfo, BytesRef value) throws IOException {
+      in.stringField(renumber(fieldInfo), value);
+    }
+
     @Override
     public void intField(FieldInfo fieldInfo, int value) throws IOException {
       in.intField(renumber(fieldInfo), value);
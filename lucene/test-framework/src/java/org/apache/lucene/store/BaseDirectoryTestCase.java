@@ -969,6 +969,48 @@ public abstract class BaseDirectoryTestCase extends LuceneTestCase {
     }
   }
   
+  public void testPrefetch() throws Exception {
+    try (Directory dir = getDirectory(createTempDir("testPrefetch"))) {
+      if (dir instanceof FSDirectory) {
+        // run prefetching in the calling thread so that failures surface in this test
+        ((FSDirectory) dir).setPrefetchExecutor(Runnable::run);
+      }
+      final int num = TestUtil.nextInt(random(), 1, 100000);
+      byte bytes[] = new byte[num];
+      random().nextBytes(bytes);
+      try (IndexOutput output = dir.createOutput("bytes", newIOContext(random()))) {
+        output.writeBytes(bytes, 0, num);
+      }
+
+      try (IndexInput input = dir.openInput("bytes", newIOContext(random()))) {
+        IndexInput in = input;
+        long sliceOffset = 0;
+        if (random().nextBoolean()) {
+          sliceOffset = TestUtil.nextLong(random(), 0, num);
+          in = input.slice("slice", sliceOffset, num - sliceOffset);
+        }
+        final long length = in.length();
+        final long fp = TestUtil.nextLong(random(), 0, length);
+        in.seek(fp);
+        for (int iter = 0; iter < 20; ++iter) {
+          final long offset = TestUtil.nextLong(random(), 0, length);
+          final long len = TestUtil.nextLong(random(), 0, length - offset);
+          in.prefetch(offset, len);
+          assertEquals(fp, in.getFilePointer());
+        }
+        if (dir instanceof MMapDirectory || dir instanceof NIOFSDirectory) {
+          final IndexInput finalIn = in;
+          expectThrows(IllegalArgumentException.class, () -> finalIn.prefetch(-1, 1));
+          expectThrows(IllegalArgumentException.class, () -> finalIn.prefetch(0, length + 1));
+        }
+
+        byte data[] = new byte[(int) (length - fp)];
+        in.readBytes(data, 0, data.length);
+        assertArrayEquals(Arrays.copyOfRange(bytes, (int) (sliceOffset + fp), num), data);
+      }
+    }
+  }
+
   /** 
    * This test that writes larger than the size of the buffer output
    * will correctly increment the file pointer.
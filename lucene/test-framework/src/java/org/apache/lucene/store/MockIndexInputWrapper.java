@@ -134,6 +134,17 @@ public class MockIndexInputWrapper extends IndexInput {
     return delegate.length();
   }
 
+  @Override
+  public void prefetch(long offset, long length) throws IOException {
+    ensureOpen();
+    if (offset < 0 || length < 0 || offset + length > delegate.length()) {
+      throw new IllegalArgumentException("prefetch() out of bounds: offset=" + offset + ",length=" + length + ",fileLength=" + delegate.length() + ": " + this);
+    }
+    final long fp = delegate.getFilePointer();
+    delegate.prefetch(offset, length);
+    assert delegate.getFilePointer() == fp : "prefetch() must not move the file pointer";
+  }
+
   @Override
   public byte readByte() throws IOException {
     ensureOpen();
@@ -1002,6 +1002,10 @@ public abstract class LuceneTestCase extends Assert {
     if (rarely(r)) {
       c.setCheckPendingFlushUpdate(false);
     }
+    // drawn last so that the settings above stay the same for a given seed
+    if (rarely(r)) {
+      c.setRecycleIndexingBlocks(true);
+    }
     return c;
   }
 
@@ -52,6 +52,10 @@ public class QuerySenderListener extends AbstractSolrEventListener {
     if (allLists == null) return;
     boolean createNewReqInfo = SolrRequestInfo.getRequestInfo() == null;
     for (NamedList nlst : allLists) {
+      if (newSearcher.isWarmingStopped()) {
+        log.info("QuerySenderListener stopped, warming of " + newSearcher + " exceeded its time budget");
+        break;
+      }
       SolrQueryRequest req = null;
       try {
         // bind the request to a particular searcher (the newSearcher)
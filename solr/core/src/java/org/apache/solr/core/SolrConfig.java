@@ -286,6 +286,10 @@ public class SolrConfig extends XmlConfigFile implements MapSerializable {
     httpCachingConfig = new HttpCachingConfig(this);
 
     maxWarmingSearchers = getInt("query/maxWarmingSearchers", 1);
+    warmingThreads = getInt("query/warmingThreads", 1);
+    maxWarmingTimeMillis = getInt("query/maxWarmingTimeMillis", -1);
+    segmentFilterCacheSize = getInt("query/segmentFilterCache/@size", 0);
+    segmentFilterCacheMaxRamMB = getInt("query/segmentFilterCache/@maxRamMB", 256);
     slowQueryThresholdMillis = getInt("query/slowQueryThresholdMillis", -1);
     for (SolrPluginInfo plugin : plugins) loadPluginInfo(plugin);
 
@@ -579,6 +583,10 @@ public class SolrConfig extends XmlConfigFile implements MapSerializable {
   private Map<String, List<PluginInfo>> pluginStore = new LinkedHashMap<>();
 
   public final int maxWarmingSearchers;
+  public final int warmingThreads;  // number of threads that warm caches and run newSearcher listeners concurrently
+  public final int maxWarmingTimeMillis;  // time after which a warming searcher gets registered, -1 to disable
+  public final int segmentFilterCacheSize;  // max number of filters cached per segment across searchers, 0 to disable
+  public final int segmentFilterCacheMaxRamMB;  // max memory used by the per-segment filter cache
   public final boolean useColdSearcher;
   public final Version luceneMatchVersion;
   protected String dataDir;
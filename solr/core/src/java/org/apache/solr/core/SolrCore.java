@@ -53,6 +53,8 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
@@ -70,6 +72,7 @@ import org.apache.lucene.index.IndexDeletionPolicy;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.LRUQueryCache;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
@@ -107,6 +110,7 @@ import org.apache.solr.handler.SolrConfigHandler;
 import org.apache.solr.handler.component.HighlightComponent;
 import org.apache.solr.handler.component.SearchComponent;
 import org.apache.solr.logging.MDCLoggingContext;
+import org.apache.solr.metrics.MetricsMap;
 import org.apache.solr.metrics.SolrCoreMetricManager;
 import org.apache.solr.metrics.SolrMetricManager;
 import org.apache.solr.metrics.SolrMetricProducer;
@@ -291,6 +295,32 @@ public final class SolrCore implements SolrInfoBean, SolrMetricProducer, Closeab
     return solrConfig;
   }
 
+  /**
+   * Gets the cache of per-segment filter DocIdSets that is shared by the searchers of this core,
+   * or null if <code>query/segmentFilterCache</code> is not configured.
+   */
+  public LRUQueryCache getSegmentFilterCache() {
+    return segmentFilterCache;
+  }
+
+  /**
+   * Gets the executor that remaps the ordinals of unchanged segments when the searchers of this core build
+   * ordinal maps from the ones of the previous searcher. Tasks of this executor must not build ordinal maps.
+   * @lucene.experimental
+   */
+  public ExecutorService getOrdinalMapExecutor() {
+    return ordinalMapExecutor;
+  }
+
+  private static ExecutorService newOrdinalMapExecutor() {
+    final int threads = Runtime.getRuntime().availableProcessors();
+    final ThreadPoolExecutor executor = new ExecutorUtil.MDCAwareThreadPoolExecutor(threads, threads,
+        60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new DefaultSolrThreadFactory("ordinalMapBuilder"));
+    // maps are only built after reopens, don't keep idle threads around in between
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
   /**
    * Gets the schema resource name used by this core instance.
    * @since solr 1.3
@@ -907,6 +937,7 @@ public final class SolrCore implements SolrInfoBean, SolrMetricProducer, Closeab
       IndexDeletionPolicyWrapper delPolicy, SolrCore prev, boolean reload) {
 
     assert ObjectReleaseTracker.track(searcherExecutor); // ensure that in unclean shutdown tests we still close this
+    assert ObjectReleaseTracker.track(ordinalMapExecutor);
 
     this.coreContainer = coreContainer;
 
@@ -960,6 +991,29 @@ public final class SolrCore implements SolrInfoBean, SolrMetricProducer, Closeab
       initSchema(config, schema);
 
       this.maxWarmingSearchers = config.maxWarmingSearchers;
+      if (config.warmingThreads > 1 || config.maxWarmingTimeMillis >= 0) {
+        this.searcherWarmingExecutor = ExecutorUtil.newMDCAwareFixedThreadPool(Math.max(1, config.warmingThreads),
+            new DefaultSolrThreadFactory("searcherWarming"));
+        assert ObjectReleaseTracker.track(searcherWarmingExecutor);
+      } else {
+        this.searcherWarmingExecutor = null;
+      }
+      if (config.segmentFilterCacheSize > 0) {
+        // shared by all the searchers of this core, entries are dropped when their segment gets closed
+        final LRUQueryCache cache = new LRUQueryCache(config.segmentFilterCacheSize,
+            config.segmentFilterCacheMaxRamMB * 1024L * 1024L, leaf -> true);
+        metricManager.registerGauge(this, coreMetricManager.getRegistryName(), new MetricsMap((detailed, map) -> {
+          map.put("lookups", cache.getTotalCount());
+          map.put("hits", cache.getHitCount());
+          map.put("inserts", cache.getCacheCount());
+          map.put("evictions", cache.getEvictionCount());
+          map.put("size", cache.getCacheSize());
+          map.put("ramBytesUsed", cache.ramBytesUsed());
+        }), metricTag, true, "segmentFilterCache", Category.CACHE.toString(), "searcher");
+        this.segmentFilterCache = cache;
+      } else {
+        this.segmentFilterCache = null;
+      }
       this.slowQueryThresholdMillis = config.slowQueryThresholdMillis;
 
       initListeners();
@@ -1616,6 +1670,28 @@ public final class SolrCore implements SolrInfoBean, SolrMetricProducer, Closeab
     }
     assert ObjectReleaseTracker.release(searcherExecutor);
 
+    if (searcherWarmingExecutor != null) {
+      try {
+        ExecutorUtil.shutdownAndAwaitTermination(searcherWarmingExecutor);
+      } catch (Throwable e) {
+        SolrException.log(log, e);
+        if (e instanceof Error) {
+          throw (Error) e;
+        }
+      }
+      assert ObjectReleaseTracker.release(searcherWarmingExecutor);
+    }
+
+    try {
+      ExecutorUtil.shutdownAndAwaitTermination(ordinalMapExecutor);
+    } catch (Throwable e) {
+      SolrException.log(log, e);
+      if (e instanceof Error) {
+        throw (Error) e;
+      }
+    }
+    assert ObjectReleaseTracker.release(ordinalMapExecutor);
+
     try {
       // Since we waited for the searcherExecutor to shut down,
       // there should be no more searchers warming in the background
@@ -1631,6 +1707,10 @@ public final class SolrCore implements SolrInfoBean, SolrMetricProducer, Closeab
         throw (Error) e;
       }
     }
+
+    if (segmentFilterCache != null) {
+      segmentFilterCache.clear();
+    }
     
     if (coreStateClosed) {
       try {
@@ -1848,6 +1928,13 @@ public final class SolrCore implements SolrInfoBean, SolrMetricProducer, Closeab
   // Lock ordering: one can acquire the openSearcherLock and then the searcherLock, but not vice-versa.
   private Object searcherLock = new Object();  // the sync object for the searcher
   private ReentrantLock openSearcherLock = new ReentrantLock(true);     // used to serialize opens/reopens for absolute ordering
+  // warms caches and runs newSearcher listeners concurrently, null if warming happens on the searcherExecutor
+  private final ExecutorService searcherWarmingExecutor;
+  // per-segment filter DocIdSets that survive reopens, null if disabled
+  private final LRUQueryCache segmentFilterCache;
+  // remaps segment ordinals when ordinal maps are built from those of the previous searcher; this can't be the
+  // searcherWarmingExecutor since building a map, which warming does, waits for the tasks that it submits
+  private final ExecutorService ordinalMapExecutor = newOrdinalMapExecutor();
   private final int maxWarmingSearchers;  // max number of on-deck searchers allowed
   private final int slowQueryThresholdMillis;  // threshold above which a query is considered slow
 
@@ -2305,9 +2392,40 @@ public final class SolrCore implements SolrInfoBean, SolrMetricProducer, Closeab
       // if the underlying searcher has not changed, no warming is needed
       if (newSearcher != currSearcher) {
 
+        if (currSearcher != null && searcherWarmingExecutor != null) {
+          // warm the caches and run the newSearcher listeners concurrently, and give up
+          // after maxWarmingTimeMillis so that the new searcher gets registered in time:
+          // listeners that didn't start yet are cancelled, running ones should check
+          // SolrIndexSearcher.isWarmingStopped()
+          future = searcherExecutor.submit(() -> {
+            Timer.Context warmupContext = newSearcherWarmupTimer.time();
+            try {
+              List<Callable<Void>> listenerTasks = new ArrayList<>();
+              for (SolrEventListener listener : newSearcherListeners) {
+                listenerTasks.add(() -> {
+                  listener.newSearcher(newSearcher, currSearcher);
+                  return null;
+                });
+              }
+              if (!newSearcher.warm(currSearcher, searcherWarmingExecutor, listenerTasks, solrConfig.maxWarmingTimeMillis)) {
+                log.warn("{}Warming of {} exceeded maxWarmingTimeMillis={}, registering it partially warmed",
+                    logid, newSearcher, solrConfig.maxWarmingTimeMillis);
+              }
+            } catch (Throwable e) {
+              SolrException.log(log, e);
+              if (e instanceof Error) {
+                throw (Error) e;
+              }
+            } finally {
+              warmupContext.close();
+            }
+            return null;
+          });
+        }
+
         // warm the new searcher based on the current searcher.
         // should this go before the other event handlers or after?
-        if (currSearcher != null) {
+        if (currSearcher != null && searcherWarmingExecutor == null) {
           future = searcherExecutor.submit(() -> {
             Timer.Context warmupContext = newSearcherWarmupTimer.time();
             try {
@@ -2340,7 +2458,7 @@ public final class SolrCore implements SolrInfoBean, SolrMetricProducer, Closeab
           });
         }
 
-        if (currSearcher != null) {
+        if (currSearcher != null && searcherWarmingExecutor == null) {
           future = searcherExecutor.submit(() -> {
             try {
               for (SolrEventListener listener : newSearcherListeners) {
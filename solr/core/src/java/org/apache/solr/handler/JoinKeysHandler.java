@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.codecs.bloom.FuzzySet;
+import org.apache.lucene.search.Query;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.Base64;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.search.DocSet;
+import org.apache.solr.search.QParser;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.search.join.JoinKeys;
+import org.apache.solr.security.AuthorizationContext;
+import org.apache.solr.security.PermissionNameProvider;
+
+/**
+ * Returns the join keys of this core for a cross-collection join: the sorted unique values of a field over the
+ * documents that match <code>q</code> and <code>fq</code>, front coded into a single byte array. It is never
+ * distributed, the "to" side sends a request to a replica of every shard of the "from" collection.
+ * <p>
+ * If <code>ifIndexVersion</code> is the version of the current searcher, only <code>notModified</code> is
+ * returned. If <code>bloomFilter</code> is given, values that are not in it are left out without reading
+ * their postings.
+ *
+ * @see org.apache.solr.search.join.CrossCollectionJoinQParser
+ */
+public class JoinKeysHandler extends RequestHandlerBase implements PermissionNameProvider {
+
+  public static final String FIELD = "field";
+  public static final String BLOOM_FILTER = "bloomFilter";
+  public static final String IF_INDEX_VERSION = "ifIndexVersion";
+
+  public static final String INDEX_VERSION = "indexVersion";
+  public static final String NOT_MODIFIED = "notModified";
+  public static final String NUM_KEYS = "numKeys";
+  public static final String KEYS = "keys";
+
+  @Override
+  public void handleRequestBody(SolrQueryRequest req, SolrQueryResponse rsp) throws Exception {
+    SolrParams params = req.getParams();
+    SchemaField field = req.getSchema().getField(params.required().get(FIELD));
+    SolrIndexSearcher searcher = req.getSearcher();
+
+    String indexVersion = getIndexVersion(searcher);
+    rsp.add(INDEX_VERSION, indexVersion);
+    if (indexVersion.equals(params.get(IF_INDEX_VERSION))) {
+      rsp.add(NOT_MODIFIED, true);
+      return;
+    }
+
+    List<Query> queries = new ArrayList<>();
+    queries.add(QParser.getParser(params.get(CommonParams.Q, "*:*"), req).getQuery());
+    String[] fqs = params.getParams(CommonParams.FQ);
+    if (fqs != null) {
+      for (String fq : fqs) {
+        if (fq != null && fq.trim().length() > 0) {
+          queries.add(QParser.getParser(fq, req).getQuery());
+        }
+      }
+    }
+    DocSet docs = searcher.getDocSet(queries);
+
+    String bloomFilter = params.get(BLOOM_FILTER);
+    FuzzySet filter = bloomFilter == null ? null : JoinKeys.deserialize(Base64.base64ToByteArray(bloomFilter));
+    byte[] keys = JoinKeys.collect(searcher, field, docs, filter);
+    rsp.add(NUM_KEYS, JoinKeys.size(keys));
+    rsp.add(KEYS, keys);
+  }
+
+  /** Identifies the replica and the state of its index, the keys of a replica don't change as long as it is the same. */
+  public static String getIndexVersion(SolrIndexSearcher searcher) {
+    return searcher.getCore().getName() + ':' + searcher.getIndexReader().getVersion();
+  }
+
+  @Override
+  public String getDescription() {
+    return "Returns the join keys of a cross-collection join";
+  }
+
+  @Override
+  public Name getPermissionName(AuthorizationContext request) {
+    return Name.READ_PERM;
+  }
+}
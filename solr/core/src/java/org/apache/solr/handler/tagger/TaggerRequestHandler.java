@@ -62,9 +62,9 @@ import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.SolrQueryResponse;
 import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.SchemaField;
-import org.apache.solr.search.BitDocSet;
 import org.apache.solr.search.DocList;
 import org.apache.solr.search.DocSet;
+import org.apache.solr.search.DocSetUtil;
 import org.apache.solr.search.DocSlice;
 import org.apache.solr.search.QParser;
 import org.apache.solr.search.SolrIndexSearcher;
@@ -325,8 +325,9 @@ public class TaggerRequestHandler extends RequestHandlerBase {
 
       final DocSet docSet = searcher.getDocSet(filterQueries);//hopefully in the cache
       //note: before Solr 4.7 we could call docSet.getBits() but no longer.
-      if (docSet instanceof BitDocSet) {
-        docBits = ((BitDocSet)docSet).getBits();
+      final Bits bits = DocSetUtil.getBits(docSet);
+      if (bits != null) {
+        docBits = bits;
       } else {
         docBits = new Bits() {
 
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.lucene.index.*;
 import org.apache.lucene.index.MultiDocValues.MultiSortedDocValues;
@@ -59,6 +60,11 @@ public final class SlowCompositeReaderWrapper extends LeafReader {
   // but do we really need to optimize slow-wrapper any more?
   final Map<String,OrdinalMap> cachedOrdMaps = new HashMap<>();
 
+  // ordinal maps of a reader that this one was reopened from, which ordinal maps can be built from incrementally
+  private Map<String,OrdinalMap> previousOrdMaps = new HashMap<>();
+  // remaps the ordinals of the segments that previous ordinal maps share with this reader, null to remap on the caller
+  private ExecutorService ordMapExecutor;
+
   /** This method is sugar for getting an {@link LeafReader} from
    * an {@link IndexReader} of any kind. If the reader is already atomic,
    * it is returned unchanged, otherwise wrapped by this class.
@@ -98,6 +104,30 @@ public final class SlowCompositeReaderWrapper extends LeafReader {
     return "SlowCompositeReaderWrapper(" + in + ")";
   }
 
+  /**
+   * Make ordinal maps that are not built yet reuse the ones of {@code previous}, typically the wrapper
+   * of a reader that this reader was reopened from, so that only the terms of new segments need to be merged.
+   * A previous map is held until its field is first requested from this reader, or until this reader is itself
+   * passed as {@code previous} on the next reopen. Only the maps that {@code previous} built and cached are
+   * reused, not the ones that it was given and never used, so at most one generation of maps is retained.
+   * @param executor remaps the ordinals of the segments that are shared with a previous map, or null to do it
+   *                 on the calling thread. It must not run tasks that build ordinal maps, since building a map
+   *                 waits for the tasks that it submits.
+   * @see OrdinalMap#build(IndexReader.CacheKey, java.util.List, String, SortedSetDocValues[], OrdinalMap, ExecutorService, float)
+   */
+  public void setPreviousOrdinalMaps(SlowCompositeReaderWrapper previous, ExecutorService executor) {
+    final Map<String,OrdinalMap> previousOrdMaps;
+    synchronized (previous.cachedOrdMaps) {
+      previousOrdMaps = new HashMap<>(previous.cachedOrdMaps);
+      // the maps that previous didn't reuse yet are superseded by its own ones, or were not needed
+      previous.previousOrdMaps = new HashMap<>();
+    }
+    synchronized (cachedOrdMaps) {
+      this.previousOrdMaps = previousOrdMaps;
+      this.ordMapExecutor = executor;
+    }
+  }
+
   @Override
   public CacheHelper getReaderCacheHelper() {
     return in.getReaderCacheHelper();
@@ -156,7 +186,7 @@ public final class SlowCompositeReaderWrapper extends LeafReader {
       map = cachedOrdMaps.get(field);
       if (map == null) {
         // uncached, or not a multi dv
-        SortedDocValues dv = MultiDocValues.getSortedValues(in, field);
+        SortedDocValues dv = MultiDocValues.getSortedValues(in, field, previousOrdMaps.remove(field), ordMapExecutor);
         if (dv instanceof MultiSortedDocValues) {
           map = ((MultiSortedDocValues)dv).mapping;
           IndexReader.CacheHelper cacheHelper = getReaderCacheHelper();
@@ -198,7 +228,7 @@ public final class SlowCompositeReaderWrapper extends LeafReader {
       map = cachedOrdMaps.get(field);
       if (map == null) {
         // uncached, or not a multi dv
-        SortedSetDocValues dv = MultiDocValues.getSortedSetValues(in, field);
+        SortedSetDocValues dv = MultiDocValues.getSortedSetValues(in, field, previousOrdMaps.remove(field), ordMapExecutor);
         if (dv instanceof MultiDocValues.MultiSortedSetDocValues) {
           map = ((MultiDocValues.MultiSortedSetDocValues)dv).mapping;
           IndexReader.CacheHelper cacheHelper = getReaderCacheHelper();
@@ -276,6 +306,12 @@ public final class SlowCompositeReaderWrapper extends LeafReader {
     return null; // because not supported.  Throw UOE?
   }
 
+  @Override
+  public VectorValues getVectorValues(String field) {
+    ensureOpen();
+    return null; // because not supported.  Throw UOE?
+  }
+
   @Override
   public FieldInfos getFieldInfos() {
     return fieldInfos;
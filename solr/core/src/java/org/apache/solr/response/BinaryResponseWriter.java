@@ -22,25 +22,34 @@ import java.io.OutputStream;
 import java.io.Writer;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.StoredFieldVisitor;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
 import org.apache.solr.client.solrj.impl.BinaryResponseParser;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.util.ByteArrayUtf8CharSequence;
 import org.apache.solr.common.util.JavaBinCodec;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.Utf8CharSequence;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.SchemaField;
+import org.apache.solr.search.DocIterator;
 import org.apache.solr.search.DocList;
 import org.apache.solr.search.ReturnFields;
+import org.apache.solr.search.SolrDocumentFetcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -146,6 +155,17 @@ public class BinaryResponseWriter implements BinaryQueryResponseWriter {
 
     protected void writeResultsBody( ResultContext res, JavaBinCodec codec ) throws IOException {
       codec.writeTag(JavaBinCodec.ARR, res.getDocList().size());
+      if (res.canStreamStoredFields()) {
+        // fast path: write stored UTF-8 values straight from the stored fields, without creating SolrDocuments.
+        // Documents that are in the documentCache are written from there, but streamed documents are not added to it.
+        SolrDocumentFetcher docFetcher = res.getSearcher().getDocFetcher();
+        StoredFieldsStreamer streamer = new StoredFieldsStreamer(codec, res.getSearcher().getSchema(), res.getReturnFields());
+        DocIterator docIterator = res.getDocList().iterator();
+        while (docIterator.hasNext()) {
+          streamer.writeDocument(docFetcher, docIterator.nextDoc());
+        }
+        return;
+      }
       Iterator<SolrDocument> docStreamer = res.getProcessedDocuments();
       while (docStreamer.hasNext()) {
         SolrDocument doc = docStreamer.next();
@@ -201,6 +221,138 @@ public class BinaryResponseWriter implements BinaryQueryResponseWriter {
     }
   }
 
+  /**
+   * Writes documents whose fields are all stored UTF-8 fields from a {@link StoredFieldVisitor}.
+   * Values are appended to a buffer that is reused across documents, so that writing a
+   * document does not create any String, Field or SolrDocument. The whole document needs
+   * to be buffered since the javabin format needs the number of fields upfront.
+   * <p>
+   * Documents are fetched with {@link SolrDocumentFetcher#doc(int, StoredFieldVisitor)}, which visits
+   * the cached document if it is in the <code>documentCache</code>. Documents that are not cached are
+   * read from the index and are not added to the cache, since no {@link org.apache.lucene.document.Document}
+   * is created for them.
+   *
+   * @see ResultContext#canStreamStoredFields()
+   */
+  static class StoredFieldsStreamer extends StoredFieldVisitor {
+    private final JavaBinCodec codec;
+    private final IndexSchema schema;
+    private final ReturnFields returnFields;
+    private final Set<String> fieldNamesNeeded;
+    private final ByteArrayUtf8CharSequence utf8 = new ByteArrayUtf8CharSequence(BytesRef.EMPTY_BYTES, 0, 0);
+
+    // distinct fields of the current document, in the order in which they were first seen
+    private final List<FieldInfo> fields = new ArrayList<>();
+    // for each field number, its index in fields or -1
+    private int[] fieldSlots = new int[0];
+    private int[] firstValue = new int[0], lastValue = new int[0], valueCount = new int[0];
+
+    // the values of the current document, linked together per field
+    private byte[] buffer = BytesRef.EMPTY_BYTES;
+    private int bufferLength;
+    private int[] valueOffsets = new int[0], valueLengths = new int[0], nextValue = new int[0];
+    private int numValues;
+
+    StoredFieldsStreamer(JavaBinCodec codec, IndexSchema schema, ReturnFields returnFields) {
+      this.codec = codec;
+      this.schema = schema;
+      this.returnFields = returnFields;
+      this.fieldNamesNeeded = returnFields.getLuceneFieldNames();
+    }
+
+    void writeDocument(SolrDocumentFetcher docFetcher, int docId) throws IOException {
+      for (FieldInfo fieldInfo : fields) {
+        fieldSlots[fieldInfo.number] = -1;
+      }
+      fields.clear();
+      bufferLength = 0;
+      numValues = 0;
+
+      docFetcher.doc(docId, this);
+
+      codec.writeTag(JavaBinCodec.SOLRDOC);
+      codec.writeTag(JavaBinCodec.ORDERED_MAP, fields.size());
+      for (int slot = 0; slot < fields.size(); slot++) {
+        String name = fields.get(slot).name;
+        codec.writeExternString(name);
+        SchemaField sf = schema.getFieldOrNull(name);
+        // same as DocsStreamer.convertLuceneDocToSolrDoc: multi-valued fields are always written as lists
+        if ((sf != null && sf.multiValued()) || valueCount[slot] > 1) {
+          codec.writeTag(JavaBinCodec.ARR, valueCount[slot]);
+        }
+        for (int value = firstValue[slot]; value != -1; value = nextValue[value]) {
+          utf8.reset(buffer, valueOffsets[value], valueLengths[value], null);
+          codec.writeUTF8Str(utf8);
+        }
+      }
+    }
+
+    @Override
+    public Status needsField(FieldInfo fieldInfo) throws IOException {
+      final String name = fieldInfo.name;
+      if (fieldNamesNeeded != null && fieldNamesNeeded.contains(name) == false) {
+        return Status.NO;
+      }
+      return returnFields.wantsField(name) ? Status.YES : Status.NO;
+    }
+
+    @Override
+    public void stringField(FieldInfo fieldInfo, byte[] value) throws IOException {
+      // values of a document from the documentCache
+      stringField(fieldInfo, new BytesRef(value));
+    }
+
+    @Override
+    public void stringField(FieldInfo fieldInfo, BytesRef value) throws IOException {
+      if (fieldInfo.number >= fieldSlots.length) {
+        int oldLength = fieldSlots.length;
+        fieldSlots = ArrayUtil.grow(fieldSlots, fieldInfo.number + 1);
+        Arrays.fill(fieldSlots, oldLength, fieldSlots.length, -1);
+      }
+      int slot = fieldSlots[fieldInfo.number];
+      if (slot == -1) {
+        slot = fields.size();
+        fields.add(fieldInfo);
+        fieldSlots[fieldInfo.number] = slot;
+        firstValue = ArrayUtil.grow(firstValue, slot + 1);
+        lastValue = ArrayUtil.grow(lastValue, slot + 1);
+        valueCount = ArrayUtil.grow(valueCount, slot + 1);
+        firstValue[slot] = -1;
+        valueCount[slot] = 0;
+      }
+
+      final int valueIndex = numValues++;
+      valueOffsets = ArrayUtil.grow(valueOffsets, numValues);
+      valueLengths = ArrayUtil.grow(valueLengths, numValues);
+      nextValue = ArrayUtil.grow(nextValue, numValues);
+      buffer = ArrayUtil.grow(buffer, bufferLength + value.length);
+      System.arraycopy(value.bytes, value.offset, buffer, bufferLength, value.length);
+      valueOffsets[valueIndex] = bufferLength;
+      valueLengths[valueIndex] = value.length;
+      nextValue[valueIndex] = -1;
+      bufferLength += value.length;
+
+      if (firstValue[slot] == -1) {
+        firstValue[slot] = valueIndex;
+      } else {
+        nextValue[lastValue[slot]] = valueIndex;
+      }
+      lastValue[slot] = valueIndex;
+      valueCount[slot]++;
+    }
+
+    @Override
+    public void stringField(FieldInfo fieldInfo, byte[] value) throws IOException {
+      // called for documents that are served from the document cache
+      stringField(fieldInfo, new BytesRef(value));
+    }
+
+    @Override
+    public void binaryField(FieldInfo fieldInfo, BytesRef value) {
+      throw new IllegalStateException("Field " + fieldInfo.name + " is not a UTF-8 field and can't be streamed");
+    }
+  }
+
   static class MaskCharSeqSolrDocument extends SolrDocument {
     /**
      * Get the value or collection of values for a given field.
@@ -78,6 +78,12 @@ public class DocsStreamer implements Iterator<SolrDocument> {
     docFetcher = rctx.getSearcher().getDocFetcher();
     solrReturnFields = (SolrReturnFields)rctx.getReturnFields();
 
+    try {
+      docFetcher.prefetch(docs);
+    } catch (IOException e) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Error prefetching documents", e);
+    }
+
     if (transformer != null) transformer.setContext(rctx);
   }
 
@@ -24,7 +24,9 @@ import org.apache.solr.common.SolrDocument;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.search.DocList;
 import org.apache.solr.search.ReturnFields;
+import org.apache.solr.search.SolrDocumentFetcher;
 import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.search.SolrReturnFields;
 
 /**
  * A class to hold the QueryResult and the Query
@@ -55,6 +57,19 @@ public abstract class ResultContext {
   public Iterator<SolrDocument> getProcessedDocuments() {
     return new DocsStreamer(this);
   }
+
+  /**
+   * Whether the documents of {@link #getDocList()} may be written straight from their stored fields
+   * rather than through {@link #getProcessedDocuments()}.
+   * Implementations that override {@link #getProcessedDocuments()} should return false.
+   *
+   * @see SolrDocumentFetcher#canStreamStoredFields(SolrReturnFields)
+   */
+  public boolean canStreamStoredFields() {
+    return getDocList() != null && getSearcher() != null && getReturnFields() instanceof SolrReturnFields
+        && getSearcher().getDocFetcher().canStreamStoredFields((SolrReturnFields) getReturnFields());
+  }
+
   public static final ThreadLocal<Predicate<String>>  READASBYTES = new ThreadLocal<>();
 }
 
@@ -430,6 +430,8 @@ public class CollapsingQParserPlugin extends QParserPlugin {
               fieldInfo.getPointDataDimensionCount(),
               fieldInfo.getPointIndexDimensionCount(),
               fieldInfo.getPointNumBytes(),
+              fieldInfo.getVectorDimension(),
+              fieldInfo.getVectorSimilarityFunction(),
               fieldInfo.isSoftDeletesField());
           newInfos.add(f);
         } else {
@@ -43,7 +43,7 @@ import org.apache.solr.common.SolrException;
 /** @lucene.experimental */
 public class DocSetUtil {
 
-  /** The cut-off point for small sets (SortedIntDocSet) vs large sets (BitDocSet) */
+  /** The cut-off point for small sets (SortedIntDocSet) vs large sets (RoaringDocSet or BitDocSet) */
   public static int smallSetSize(int maxDoc) {
     return (maxDoc>>6)+5;  // The +5 is for better test coverage for small sets
   }
@@ -241,7 +241,69 @@ public class DocSetUtil {
       return smallSet;
     }
 
-    return docSet;
+    return toCompactSet(docSet);
+  }
+
+  /**
+   * Returns a {@link RoaringDocSet} with the same documents as the given set if it takes less than half
+   * of the memory of the bit set, or the given set otherwise. Only sets that have less than one document
+   * out of 16 on average are considered, since denser blocks would be stored as bit sets anyway.
+   * The capacity of the bit set should be maxDoc.
+   * @lucene.experimental
+   */
+  public static DocSet toCompactSet(BitDocSet bitSet) {
+    final FixedBitSet bits = bitSet.getBits();
+    if (bitSet.size() > (bits.length() >>> 4)) {
+      return bitSet;
+    }
+    final RoaringDocSet roaringSet = RoaringDocSet.fromBits(bits);
+    if (roaringSet.ramBytesUsed() > (bitSet.ramBytesUsed() >>> 1)) {
+      return bitSet;
+    }
+    return roaringSet;
+  }
+
+  /**
+   * Returns random access to the documents of the given set if it supports it efficiently, that is the bits
+   * of a {@link BitDocSet} or a view of a {@link RoaringDocSet}, or null otherwise.
+   * The returned bits should not be modified.
+   * @lucene.experimental
+   */
+  public static Bits getBits(DocSet docSet) {
+    if (docSet instanceof BitDocSet) {
+      return ((BitDocSet) docSet).getBits();
+    } else if (docSet instanceof RoaringDocSet) {
+      final RoaringDocSet roaringSet = (RoaringDocSet) docSet;
+      return new Bits() {
+        @Override
+        public boolean get(int index) {
+          return roaringSet.exists(index);
+        }
+
+        @Override
+        public int length() {
+          return roaringSet.maxDoc;
+        }
+      };
+    }
+    return null;
+  }
+
+  /**
+   * Returns a new bit set of length maxDoc with the documents of the given set, which the caller may modify.
+   * @lucene.experimental
+   */
+  public static FixedBitSet copyBits(DocSet docSet, int maxDoc) {
+    if (docSet instanceof BitDocSet) {
+      return FixedBitSet.ensureCapacity(((BitDocSet) docSet).getBits().clone(), maxDoc);
+    } else if (docSet instanceof RoaringDocSet && ((RoaringDocSet) docSet).maxDoc == maxDoc) {
+      return ((RoaringDocSet) docSet).getBits();
+    }
+    FixedBitSet bits = new FixedBitSet(maxDoc);
+    for (DocIterator iter = docSet.iterator(); iter.hasNext();) {
+      bits.set(iter.nextDoc());
+    }
+    return bits;
   }
 
   public static DocSet toSmallSet(BitDocSet bitSet) {
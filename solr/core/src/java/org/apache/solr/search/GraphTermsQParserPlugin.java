@@ -334,7 +334,9 @@ public class GraphTermsQParserPlugin extends QParserPlugin {
 
         @Override
         public boolean isCacheable(LeafReaderContext ctx) {
-          return true;
+          // terms are filtered by their docFreq in the whole index, so the matches of a segment depend on the
+          // other segments
+          return false;
         }
 
       };
@@ -555,10 +557,10 @@ abstract class PointSetQuery extends Query implements DocSetProducer {
       return ((SolrIndexSearcher) searcher).getLiveDocSet().getBits();
     } else {
       // TODO Does this ever happen?  In Solr should always be SolrIndexSearcher?
-      //smallSetSize==0 thus will always produce a BitDocSet (FixedBitSet)
+      //smallSetSize==0 thus will always produce a large set (BitDocSet or RoaringDocSet)
       DocSetCollector docSetCollector = new DocSetCollector(0, searcher.getIndexReader().maxDoc());
       searcher.search(new MatchAllDocsQuery(), docSetCollector);
-      return ((BitDocSet) docSetCollector.getDocSet()).getBits();
+      return DocSetBase.toBitSet(docSetCollector.getDocSet());
     }
   }
 
@@ -54,16 +54,28 @@ import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.request.SolrRequestInfo;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.schema.TrieField;
+import org.apache.solr.search.join.CrossCollectionJoinQParser;
 import org.apache.solr.search.join.GraphPointsCollector;
 import org.apache.solr.search.join.ScoreJoinQParserPlugin;
+import org.apache.solr.util.ConcurrentTinyLFUCache;
 import org.apache.solr.util.RTimer;
 import org.apache.solr.util.RefCounted;
 
 public class JoinQParserPlugin extends QParserPlugin {
   public static final String NAME = "join";
+  /** Choose the join implementation, eg. {@value CrossCollectionJoinQParser#METHOD} */
+  public static final String METHOD = "method";
+
+  // join keys of the shards of the "from" collections of cross-collection joins
+  private static final long KEYS_CACHE_MAX_RAM_BYTES = 64L * 1024 * 1024;
+  private final ConcurrentTinyLFUCache<String, CrossCollectionJoinQParser.ShardKeys> keysCache =
+      new ConcurrentTinyLFUCache<>(KEYS_CACHE_MAX_RAM_BYTES, 16, Runnable::run);
 
   @Override
   public QParser createParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req) {
+    if (localParams != null && CrossCollectionJoinQParser.METHOD.equals(localParams.get(METHOD))) {
+      return new CrossCollectionJoinQParser(qstr, localParams, params, req, keysCache);
+    }
     return new QParser(qstr, localParams, params, req) {
       
       @Override
@@ -459,8 +471,8 @@ class JoinQuery extends Query {
               if (resultBits != null) {
                 toTermSet.addAllTo(new BitDocSet(resultBits));
               } else {
-                if (toTermSet instanceof BitDocSet) {
-                  resultBits = ((BitDocSet)toTermSet).bits.clone();
+                if (DocSetUtil.getBits(toTermSet) != null) {
+                  resultBits = DocSetUtil.copyBits(toTermSet, toSearcher.maxDoc());
                 } else {
                   resultList.add(toTermSet);
                 }
@@ -0,0 +1,833 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * <code>RoaringDocSet</code> represents an immutable set of Lucene Document Ids
+ * that is compressed in the same way as Lucene's <code>RoaringDocIdSet</code>:
+ * doc ids are split in blocks of 2<sup>16</sup> documents, and each block that
+ * has at most {@value #MAX_ARRAY_LENGTH} documents is stored as a sorted array of
+ * 16-bit doc ids, while denser blocks are stored as bit sets.
+ * <p>
+ * This takes much less memory than a {@link BitDocSet} for sets that are sparse
+ * but too large for a {@link SortedIntDocSet}. Intersections, unions and
+ * differences with other <code>RoaringDocSet</code>s and with {@link BitDocSet}s
+ * are computed block by block without decompressing the set.
+ *
+ * @see DocSetUtil#toCompactSet(BitDocSet)
+ * @lucene.experimental
+ */
+public class RoaringDocSet extends DocSetBase {
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(RoaringDocSet.class);
+
+  static final int BLOCK_BITS = 16;
+  static final int BLOCK_MASK = (1 << BLOCK_BITS) - 1;
+  static final int BITMAP_WORDS = 1 << (BLOCK_BITS - 6);
+  /** Blocks that have up to this number of documents are stored as arrays. */
+  public static final int MAX_ARRAY_LENGTH = 1 << 12;
+
+  final int maxDoc;
+  final char[][] arrays;   // per block, non-null if the block is stored as an array of doc ids
+  final long[][] bitmaps;  // per block, non-null if the block is stored as a bit set
+  final int size;
+
+  RoaringDocSet(int maxDoc, char[][] arrays, long[][] bitmaps, int size) {
+    assert arrays.length == bitmaps.length;
+    this.maxDoc = maxDoc;
+    this.arrays = arrays;
+    this.bitmaps = bitmaps;
+    this.size = size;
+  }
+
+  static int numBlocks(int maxDoc) {
+    return (maxDoc + BLOCK_MASK) >>> BLOCK_BITS;
+  }
+
+  /**
+   * Create a RoaringDocSet that holds the same documents as the given bit set.
+   * Its capacity is the length of the bit set, which should be maxDoc.
+   */
+  public static RoaringDocSet fromBits(FixedBitSet bits) {
+    final int maxDoc = bits.length();
+    final long[] words = bits.getBits();
+    final int numWords = FixedBitSet.bits2words(maxDoc);
+    final Blocks blocks = new Blocks(numBlocks(maxDoc));
+    for (int block = 0; block < blocks.arrays.length; block++) {
+      final int from = block << (BLOCK_BITS - 6);
+      final int to = Math.min(from + BITMAP_WORDS, numWords);
+      int count = 0;
+      for (int i = from; i < to; i++) {
+        count += Long.bitCount(words[i]);
+      }
+      if (count > MAX_ARRAY_LENGTH) {
+        blocks.bitmap(block, Arrays.copyOfRange(words, from, from + BITMAP_WORDS), count);
+      } else if (count > 0) {
+        char[] array = new char[count];
+        int k = 0;
+        for (int i = from; i < to; i++) {
+          for (long word = words[i]; word != 0; word &= word - 1) {
+            array[k++] = (char) (((i - from) << 6) | Long.numberOfTrailingZeros(word));
+          }
+        }
+        blocks.array(block, array, count);
+      }
+    }
+    return blocks.build(maxDoc);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean exists(int doc) {
+    final int block = doc >>> BLOCK_BITS;
+    if (block >= arrays.length) {
+      return false;
+    }
+    final char[] array = arrays[block];
+    if (array != null) {
+      return Arrays.binarySearch(array, (char) doc) >= 0;
+    }
+    final long[] bitmap = bitmaps[block];
+    return bitmap != null && (bitmap[(doc & BLOCK_MASK) >>> 6] & (1L << doc)) != 0;
+  }
+
+  @Override
+  public DocIterator iterator() {
+    return new DocIterator() {
+      private final Cursor cursor = new Cursor();
+      private int next = cursor.nextDoc();
+
+      @Override
+      public boolean hasNext() {
+        return next != DocIdSetIterator.NO_MORE_DOCS;
+      }
+
+      @Override
+      public Integer next() {
+        return nextDoc();
+      }
+
+      @Override
+      public int nextDoc() {
+        int doc = next;
+        next = cursor.nextDoc();
+        return doc;
+      }
+
+      @Override
+      public float score() {
+        return 0.0f;
+      }
+    };
+  }
+
+  @Override
+  protected FixedBitSet getBits() {
+    FixedBitSet bits = new FixedBitSet(maxDoc);
+    or(bits.getBits());
+    return bits;
+  }
+
+  /** Set the bits of the docs of this set in the given words. */
+  private void or(long[] words) {
+    for (int block = 0; block < arrays.length; block++) {
+      final int base = block << BLOCK_BITS;
+      final char[] array = arrays[block];
+      final long[] bitmap = bitmaps[block];
+      if (array != null) {
+        for (char c : array) {
+          final int doc = base | c;
+          words[doc >>> 6] |= 1L << doc;
+        }
+      } else if (bitmap != null) {
+        final int offset = block << (BLOCK_BITS - 6);
+        final int length = Math.min(BITMAP_WORDS, words.length - offset);
+        for (int i = 0; i < length; i++) {
+          words[offset + i] |= bitmap[i];
+        }
+      }
+    }
+  }
+
+  @Override
+  public void addAllTo(DocSet target) {
+    if (target instanceof BitDocSet) {
+      BitDocSet bitDocSet = (BitDocSet) target;
+      or(bitDocSet.getBits().getBits());
+      bitDocSet.invalidateSize();
+    } else {
+      super.addAllTo(target);
+    }
+  }
+
+  @Override
+  public int intersectionSize(DocSet other) {
+    if (other instanceof RoaringDocSet) {
+      final RoaringDocSet o = (RoaringDocSet) other;
+      int count = 0;
+      for (int block = 0, numBlocks = Math.min(arrays.length, o.arrays.length); block < numBlocks; block++) {
+        count += intersectionCount(block, o);
+      }
+      return count;
+    } else if (other instanceof BitDocSet) {
+      final long[] words = ((BitDocSet) other).getBits().getBits();
+      int count = 0;
+      for (int block = 0; block < arrays.length; block++) {
+        count += intersectionCount(block, words);
+      }
+      return count;
+    } else {
+      // small sets probe this one
+      return other.intersectionSize(this);
+    }
+  }
+
+  @Override
+  public boolean intersects(DocSet other) {
+    if (other instanceof RoaringDocSet) {
+      final RoaringDocSet o = (RoaringDocSet) other;
+      for (int block = 0, numBlocks = Math.min(arrays.length, o.arrays.length); block < numBlocks; block++) {
+        if (intersectionCount(block, o) > 0) {
+          return true;
+        }
+      }
+      return false;
+    } else if (other instanceof BitDocSet) {
+      final long[] words = ((BitDocSet) other).getBits().getBits();
+      for (int block = 0; block < arrays.length; block++) {
+        if (intersectionCount(block, words) > 0) {
+          return true;
+        }
+      }
+      return false;
+    } else {
+      return other.intersects(this);
+    }
+  }
+
+  private int intersectionCount(int block, RoaringDocSet o) {
+    final char[] array = arrays[block], otherArray = o.arrays[block];
+    final long[] bitmap = bitmaps[block], otherBitmap = o.bitmaps[block];
+    if (array != null) {
+      if (otherArray != null) {
+        return intersectionCount(array, otherArray);
+      } else if (otherBitmap != null) {
+        return countIn(array, otherBitmap, 0, BITMAP_WORDS, true);
+      }
+    } else if (bitmap != null) {
+      if (otherArray != null) {
+        return countIn(otherArray, bitmap, 0, BITMAP_WORDS, true);
+      } else if (otherBitmap != null) {
+        return intersectionCount(bitmap, otherBitmap, 0, BITMAP_WORDS);
+      }
+    }
+    return 0;
+  }
+
+  private int intersectionCount(int block, long[] words) {
+    final int offset = block << (BLOCK_BITS - 6);
+    final int length = Math.max(0, Math.min(BITMAP_WORDS, words.length - offset));
+    if (arrays[block] != null) {
+      return countIn(arrays[block], words, offset, length, true);
+    } else if (bitmaps[block] != null) {
+      return intersectionCount(bitmaps[block], words, offset, length);
+    }
+    return 0;
+  }
+
+  @Override
+  public DocSet intersection(DocSet other) {
+    if (other instanceof RoaringDocSet) {
+      final RoaringDocSet o = (RoaringDocSet) other;
+      final Blocks result = new Blocks(Math.min(arrays.length, o.arrays.length));
+      for (int block = 0; block < result.arrays.length; block++) {
+        final char[] array = arrays[block], otherArray = o.arrays[block];
+        final long[] bitmap = bitmaps[block], otherBitmap = o.bitmaps[block];
+        if (array != null) {
+          if (otherArray != null) {
+            intersection(result, block, array, otherArray);
+          } else if (otherBitmap != null) {
+            filter(result, block, array, otherBitmap, 0, BITMAP_WORDS, true);
+          }
+        } else if (bitmap != null) {
+          if (otherArray != null) {
+            filter(result, block, otherArray, bitmap, 0, BITMAP_WORDS, true);
+          } else if (otherBitmap != null) {
+            long[] and = bitmap.clone();
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+              and[i] &= otherBitmap[i];
+            }
+            result.bitmap(block, and);
+          }
+        }
+      }
+      return result.build(Math.min(maxDoc, o.maxDoc));
+    } else if (other instanceof BitDocSet) {
+      final long[] words = ((BitDocSet) other).getBits().getBits();
+      final Blocks result = new Blocks(arrays.length);
+      for (int block = 0; block < arrays.length; block++) {
+        final int offset = block << (BLOCK_BITS - 6);
+        final int length = Math.max(0, Math.min(BITMAP_WORDS, words.length - offset));
+        if (arrays[block] != null) {
+          filter(result, block, arrays[block], words, offset, length, true);
+        } else if (bitmaps[block] != null) {
+          long[] and = new long[BITMAP_WORDS];
+          for (int i = 0; i < length; i++) {
+            and[i] = bitmaps[block][i] & words[offset + i];
+          }
+          result.bitmap(block, and);
+        }
+      }
+      return result.build(maxDoc);
+    } else {
+      // small sets probe this one
+      return other.intersection(this);
+    }
+  }
+
+  @Override
+  public DocSet andNot(DocSet other) {
+    if (other instanceof RoaringDocSet) {
+      final RoaringDocSet o = (RoaringDocSet) other;
+      final Blocks result = new Blocks(arrays.length);
+      for (int block = 0; block < arrays.length; block++) {
+        final char[] array = arrays[block];
+        final long[] bitmap = bitmaps[block];
+        final char[] otherArray = block < o.arrays.length ? o.arrays[block] : null;
+        final long[] otherBitmap = block < o.bitmaps.length ? o.bitmaps[block] : null;
+        if (array != null) {
+          if (otherArray != null) {
+            difference(result, block, array, otherArray);
+          } else if (otherBitmap != null) {
+            filter(result, block, array, otherBitmap, 0, BITMAP_WORDS, false);
+          } else {
+            result.array(block, array, array.length);
+          }
+        } else if (bitmap != null) {
+          if (otherArray != null) {
+            long[] andNot = bitmap.clone();
+            for (char c : otherArray) {
+              andNot[c >>> 6] &= ~(1L << c);
+            }
+            result.bitmap(block, andNot);
+          } else if (otherBitmap != null) {
+            long[] andNot = bitmap.clone();
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+              andNot[i] &= ~otherBitmap[i];
+            }
+            result.bitmap(block, andNot);
+          } else {
+            result.bitmap(block, bitmap);
+          }
+        }
+      }
+      return result.build(maxDoc);
+    } else if (other instanceof BitDocSet) {
+      final long[] words = ((BitDocSet) other).getBits().getBits();
+      final Blocks result = new Blocks(arrays.length);
+      for (int block = 0; block < arrays.length; block++) {
+        final int offset = block << (BLOCK_BITS - 6);
+        final int length = Math.max(0, Math.min(BITMAP_WORDS, words.length - offset));
+        if (arrays[block] != null) {
+          filter(result, block, arrays[block], words, offset, length, false);
+        } else if (bitmaps[block] != null) {
+          long[] andNot = bitmaps[block].clone();
+          for (int i = 0; i < length; i++) {
+            andNot[i] &= ~words[offset + i];
+          }
+          result.bitmap(block, andNot);
+        }
+      }
+      return result.build(maxDoc);
+    } else {
+      if (other.size() == 0) {
+        return this;
+      }
+      final Builder builder = new Builder(maxDoc);
+      for (DocIterator it = iterator(); it.hasNext(); ) {
+        final int doc = it.nextDoc();
+        if (other.exists(doc) == false) {
+          builder.add(doc);
+        }
+      }
+      return builder.build();
+    }
+  }
+
+  @Override
+  public DocSet union(DocSet other) {
+    if (other instanceof RoaringDocSet) {
+      final RoaringDocSet o = (RoaringDocSet) other;
+      final Blocks result = new Blocks(Math.max(arrays.length, o.arrays.length));
+      for (int block = 0; block < result.arrays.length; block++) {
+        final char[] array = block < arrays.length ? arrays[block] : null;
+        final long[] bitmap = block < bitmaps.length ? bitmaps[block] : null;
+        final char[] otherArray = block < o.arrays.length ? o.arrays[block] : null;
+        final long[] otherBitmap = block < o.bitmaps.length ? o.bitmaps[block] : null;
+        if (bitmap != null || otherBitmap != null) {
+          long[] or;
+          if (bitmap != null && otherBitmap != null) {
+            or = bitmap.clone();
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+              or[i] |= otherBitmap[i];
+            }
+          } else {
+            or = (bitmap != null ? bitmap : otherBitmap).clone();
+            final char[] toAdd = bitmap != null ? otherArray : array;
+            if (toAdd != null) {
+              for (char c : toAdd) {
+                or[c >>> 6] |= 1L << c;
+              }
+            }
+          }
+          result.bitmap(block, or);
+        } else if (array != null && otherArray != null) {
+          union(result, block, array, otherArray);
+        } else if (array != null) {
+          result.array(block, array, array.length);
+        } else if (otherArray != null) {
+          result.array(block, otherArray, otherArray.length);
+        }
+      }
+      return result.build(Math.max(maxDoc, o.maxDoc));
+    } else {
+      return super.union(other);
+    }
+  }
+
+  @Override
+  public RoaringDocSet clone() {
+    // containers are never modified
+    return new RoaringDocSet(maxDoc, arrays, bitmaps, size);
+  }
+
+  @Override
+  public Filter getTopFilter() {
+    return new Filter() {
+      final RoaringDocSet set = RoaringDocSet.this;
+
+      @Override
+      public DocIdSet getDocIdSet(final LeafReaderContext context, final Bits acceptDocs) {
+        // all Solr DocSets that are used as filters only include live docs
+        final Bits acceptDocs2 = acceptDocs == null ? null : (context.reader().getLiveDocs() == acceptDocs ? null : acceptDocs);
+
+        final int base = context.docBase;
+        final int max = base + context.reader().maxDoc();   // one past the max doc in this segment.
+
+        return BitsFilteredDocIdSet.wrap(new DocIdSet() {
+          @Override
+          public DocIdSetIterator iterator() {
+            return new DocIdSetIterator() {
+              final Cursor cursor = new Cursor();
+              int adjustedDoc = -1;
+
+              @Override
+              public int docID() {
+                return adjustedDoc;
+              }
+
+              @Override
+              public int nextDoc() {
+                if (adjustedDoc == -1) {
+                  return advance(0);
+                } else if (adjustedDoc == NO_MORE_DOCS) {
+                  return NO_MORE_DOCS;
+                }
+                final int doc = cursor.nextDoc();
+                return adjustedDoc = doc < max ? doc - base : NO_MORE_DOCS;
+              }
+
+              @Override
+              public int advance(int target) {
+                if (target >= max - base) {
+                  return adjustedDoc = NO_MORE_DOCS;
+                }
+                final int doc = cursor.advance(target + base);
+                return adjustedDoc = doc < max ? doc - base : NO_MORE_DOCS;
+              }
+
+              @Override
+              public long cost() {
+                // pro-rated for the segment
+                return maxDoc == 0 ? 0 : (long) size * (max - base) / maxDoc;
+              }
+            };
+          }
+
+          @Override
+          public long ramBytesUsed() {
+            return set.ramBytesUsed();
+          }
+
+          @Override
+          public Bits bits() {
+            return new Bits() {
+              @Override
+              public boolean get(int index) {
+                return set.exists(index + base);
+              }
+
+              @Override
+              public int length() {
+                return max - base;
+              }
+            };
+          }
+
+        }, acceptDocs2);
+      }
+
+      @Override
+      public String toString(String field) {
+        return "RoaringDocSetTopFilter";
+      }
+
+      @Override
+      public boolean equals(Object other) {
+        return sameClassAs(other) && set == getClass().cast(other).set;
+      }
+
+      @Override
+      public int hashCode() {
+        return classHash() * 31 + System.identityHashCode(set);
+      }
+    };
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    long ramBytesUsed = BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(arrays) + RamUsageEstimator.shallowSizeOf(bitmaps);
+    for (int block = 0; block < arrays.length; block++) {
+      if (arrays[block] != null) {
+        ramBytesUsed += RamUsageEstimator.sizeOf(arrays[block]);
+      } else if (bitmaps[block] != null) {
+        ramBytesUsed += RamUsageEstimator.sizeOf(bitmaps[block]);
+      }
+    }
+    return ramBytesUsed;
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public String toString() {
+    return "RoaringDocSet(size=" + size + ",maxDoc=" + maxDoc + ")";
+  }
+
+  //
+  // per-block operations
+  //
+
+  private static int intersectionCount(char[] a, char[] b) {
+    int count = 0;
+    for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        count++;
+        i++;
+        j++;
+      }
+    }
+    return count;
+  }
+
+  private static int intersectionCount(long[] bitmap, long[] words, int offset, int length) {
+    int count = 0;
+    for (int i = 0; i < length; i++) {
+      count += Long.bitCount(bitmap[i] & words[offset + i]);
+    }
+    return count;
+  }
+
+  /** Count the docs of the array that are (or are not, if <code>in</code> is false) in the words. */
+  private static int countIn(char[] array, long[] words, int offset, int length, boolean in) {
+    int count = 0;
+    for (char c : array) {
+      if (get(words, offset, length, c) == in) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static boolean get(long[] words, int offset, int length, int index) {
+    final int word = index >>> 6;
+    return word < length && (words[offset + word] & (1L << index)) != 0;
+  }
+
+  private static void intersection(Blocks result, int block, char[] a, char[] b) {
+    final char[] and = new char[Math.min(a.length, b.length)];
+    int k = 0;
+    for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+      if (a[i] < b[j]) {
+        i++;
+      } else if (a[i] > b[j]) {
+        j++;
+      } else {
+        and[k++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    result.array(block, and, k);
+  }
+
+  private static void difference(Blocks result, int block, char[] a, char[] b) {
+    final char[] andNot = new char[a.length];
+    int k = 0;
+    int j = 0;
+    for (char c : a) {
+      while (j < b.length && b[j] < c) {
+        j++;
+      }
+      if (j == b.length || b[j] != c) {
+        andNot[k++] = c;
+      }
+    }
+    result.array(block, andNot, k);
+  }
+
+  private static void union(Blocks result, int block, char[] a, char[] b) {
+    final char[] or = new char[a.length + b.length];
+    int k = 0;
+    int i = 0, j = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] < b[j]) {
+        or[k++] = a[i++];
+      } else if (a[i] > b[j]) {
+        or[k++] = b[j++];
+      } else {
+        or[k++] = a[i++];
+        j++;
+      }
+    }
+    while (i < a.length) {
+      or[k++] = a[i++];
+    }
+    while (j < b.length) {
+      or[k++] = b[j++];
+    }
+    if (k > MAX_ARRAY_LENGTH) {
+      long[] bitmap = new long[BITMAP_WORDS];
+      for (int l = 0; l < k; l++) {
+        bitmap[or[l] >>> 6] |= 1L << or[l];
+      }
+      result.bitmap(block, bitmap, k);
+    } else {
+      result.array(block, or, k);
+    }
+  }
+
+  /** Keep the docs of the array that are (or are not, if <code>in</code> is false) in the words. */
+  private static void filter(Blocks result, int block, char[] array, long[] words, int offset, int length, boolean in) {
+    final char[] filtered = new char[array.length];
+    int k = 0;
+    for (char c : array) {
+      if (get(words, offset, length, c) == in) {
+        filtered[k++] = c;
+      }
+    }
+    result.array(block, filtered, k);
+  }
+
+  /** Accumulates the containers of a new set, and picks the most compact representation for bit sets. */
+  private static final class Blocks {
+    final char[][] arrays;
+    final long[][] bitmaps;
+    int size;
+
+    Blocks(int numBlocks) {
+      arrays = new char[numBlocks][];
+      bitmaps = new long[numBlocks][];
+    }
+
+    void array(int block, char[] array, int length) {
+      assert length <= MAX_ARRAY_LENGTH;
+      if (length > 0) {
+        arrays[block] = length == array.length ? array : ArrayUtil.copyOfSubArray(array, 0, length);
+        size += length;
+      }
+    }
+
+    void bitmap(int block, long[] bitmap) {
+      int count = 0;
+      for (long word : bitmap) {
+        count += Long.bitCount(word);
+      }
+      bitmap(block, bitmap, count);
+    }
+
+    void bitmap(int block, long[] bitmap, int count) {
+      if (count > MAX_ARRAY_LENGTH) {
+        bitmaps[block] = bitmap;
+        size += count;
+      } else if (count > 0) {
+        char[] array = new char[count];
+        int k = 0;
+        for (int i = 0; i < BITMAP_WORDS; i++) {
+          for (long word = bitmap[i]; word != 0; word &= word - 1) {
+            array[k++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+          }
+        }
+        array(block, array, count);
+      }
+    }
+
+    RoaringDocSet build(int maxDoc) {
+      return new RoaringDocSet(maxDoc, arrays, bitmaps, size);
+    }
+  }
+
+  /** Builds a RoaringDocSet from doc ids that are added in increasing order. */
+  static final class Builder {
+    private final int maxDoc;
+    private final Blocks blocks;
+    private int currentBlock = -1;
+    private char[] buffer = new char[16];
+    private int bufferLength;
+    private long[] bitmap;
+    private int bitmapCount;
+
+    Builder(int maxDoc) {
+      this.maxDoc = maxDoc;
+      this.blocks = new Blocks(numBlocks(maxDoc));
+    }
+
+    void add(int doc) {
+      final int block = doc >>> BLOCK_BITS;
+      if (block != currentBlock) {
+        assert block > currentBlock : "docs must be added in order";
+        flush();
+        currentBlock = block;
+      }
+      if (bitmap != null) {
+        bitmap[(doc & BLOCK_MASK) >>> 6] |= 1L << doc;
+        bitmapCount++;
+      } else if (bufferLength == MAX_ARRAY_LENGTH) {
+        bitmap = new long[BITMAP_WORDS];
+        for (int i = 0; i < bufferLength; i++) {
+          bitmap[buffer[i] >>> 6] |= 1L << buffer[i];
+        }
+        bitmap[(doc & BLOCK_MASK) >>> 6] |= 1L << doc;
+        bitmapCount = bufferLength + 1;
+        bufferLength = 0;
+      } else {
+        buffer = ArrayUtil.grow(buffer, bufferLength + 1);
+        buffer[bufferLength++] = (char) doc;
+      }
+    }
+
+    private void flush() {
+      if (bitmap != null) {
+        blocks.bitmap(currentBlock, bitmap, bitmapCount);
+        bitmap = null;
+      } else if (bufferLength > 0) {
+        blocks.array(currentBlock, ArrayUtil.copyOfSubArray(buffer, 0, bufferLength), bufferLength);
+      }
+      bufferLength = 0;
+    }
+
+    RoaringDocSet build() {
+      flush();
+      return blocks.build(maxDoc);
+    }
+  }
+
+  /** Iterates over the docs of this set, and supports skipping. */
+  private final class Cursor {
+    private int block = -1;
+    private int index; // index in the array of the current block, if it is stored as an array
+    private int doc = -1;
+
+    int nextDoc() {
+      if (doc == DocIdSetIterator.NO_MORE_DOCS) {
+        return doc;
+      }
+      if (block >= 0 && arrays[block] != null && index + 1 < arrays[block].length) {
+        return doc = (block << BLOCK_BITS) | arrays[block][++index];
+      }
+      return advance(doc + 1);
+    }
+
+    /** Move to the first doc that is greater than or equal to the target. */
+    int advance(int target) {
+      int low = target & BLOCK_MASK;
+      for (int b = target >>> BLOCK_BITS; b < arrays.length; b++, low = 0) {
+        final char[] array = arrays[b];
+        if (array != null) {
+          int i = lowerBound(array, b == block ? index : 0, low);
+          if (i < array.length) {
+            block = b;
+            index = i;
+            return doc = (b << BLOCK_BITS) | array[i];
+          }
+        } else if (bitmaps[b] != null) {
+          final long[] bitmap = bitmaps[b];
+          int w = low >>> 6;
+          long word = bitmap[w] & (-1L << low);
+          while (true) {
+            if (word != 0) {
+              block = b;
+              return doc = (b << BLOCK_BITS) | (w << 6) | Long.numberOfTrailingZeros(word);
+            }
+            if (++w == BITMAP_WORDS) {
+              break;
+            }
+            word = bitmap[w];
+          }
+        }
+      }
+      block = arrays.length;
+      return doc = DocIdSetIterator.NO_MORE_DOCS;
+    }
+
+    private int lowerBound(char[] array, int from, int target) {
+      int lo = from, hi = array.length - 1;
+      while (lo <= hi) {
+        final int mid = (lo + hi) >>> 1;
+        if (array[mid] < target) {
+          lo = mid + 1;
+        } else {
+          hi = mid - 1;
+        }
+      }
+      return lo;
+    }
+  }
+}
@@ -105,6 +105,8 @@ public class SolrDocumentFetcher {
 
   private final Set<String> largeFields;
 
+  private final boolean allStoredAreUtf8; // whether every stored field in the index is a known UTF-8 field
+
   private Collection<String> storedHighlightFieldNames; // lazy populated; use getter
 
   SolrDocumentFetcher(SolrIndexSearcher searcher, SolrConfig solrConfig, boolean cachingEnabled) {
@@ -122,10 +124,12 @@ public class SolrDocumentFetcher {
     final Set<String> storedLargeFields = new HashSet<>();
     final Set<String> dvsCanSubstituteStored = new HashSet<>();
     final Set<String> allStoreds = new HashSet<>();
+    boolean allStoredAreUtf8 = true;
 
     for (FieldInfo fieldInfo : searcher.getFieldInfos()) { // can find materialized dynamic fields, unlike using the Solr IndexSchema.
       final SchemaField schemaField = searcher.getSchema().getFieldOrNull(fieldInfo.name);
       if (schemaField == null) {
+        allStoredAreUtf8 = false;
         continue;
       }
       if (canSubstituteDvForStored(fieldInfo, schemaField)) {
@@ -133,6 +137,7 @@ public class SolrDocumentFetcher {
       }
       if (schemaField.stored()) {
         allStoreds.add(fieldInfo.name);
+        allStoredAreUtf8 &= schemaField.getType().isUtf8Field();
       }
       if (!schemaField.stored() && schemaField.hasDocValues()) {
         if (schemaField.useDocValuesAsStored()) {
@@ -154,6 +159,7 @@ public class SolrDocumentFetcher {
     this.largeFields = Collections.unmodifiableSet(storedLargeFields);
     this.dvsCanSubstituteStored = Collections.unmodifiableSet(dvsCanSubstituteStored);
     this.allStored = Collections.unmodifiableSet(allStoreds);
+    this.allStoredAreUtf8 = allStoredAreUtf8;
   }
 
   // Does this field have both stored=true and docValues=true and is otherwise
@@ -241,6 +247,19 @@ public class SolrDocumentFetcher {
     return d;
   }
 
+  /**
+   * Hints the index that the stored fields of all documents of the given list are about to be loaded, so
+   * that they may be read concurrently rather than one page fault at a time on a cold cache.
+   *
+   * @see IndexReader#prefetchDocument(int)
+   */
+  public void prefetch(DocList docs) throws IOException {
+    final DirectoryReader reader = searcher.getIndexReader();
+    for (DocIterator it = docs.iterator(); it.hasNext(); ) {
+      reader.prefetchDocument(it.nextDoc());
+    }
+  }
+
   /**
    * This is an optimized version for populating a SolrDocument that:
    *
@@ -278,6 +297,24 @@ public class SolrDocumentFetcher {
     return solrReturnFields.getFetchOptimizer(rfoSupplier).getSolrDoc(luceneDocId);
   }
 
+  /**
+   * Returns whether the documents to return for the given fields can be streamed straight from the
+   * stored fields via {@link #doc(int, StoredFieldVisitor)}, rather than being materialized with
+   * {@link #solrDoc(int, SolrReturnFields)}. This is the case when there is no transformer and all
+   * fields to return are stored UTF-8 fields (see {@link org.apache.solr.schema.FieldType#isUtf8Field()}),
+   * so that their values may be written as-is from the bytes of the stored fields.
+   * <p>
+   * Callers that stream documents are responsible for filtering fields with
+   * {@link ReturnFields#getLuceneFieldNames()} and grouping values of multi-valued fields.
+   */
+  public boolean canStreamStoredFields(SolrReturnFields solrReturnFields) {
+    if (solrReturnFields.getTransformer() != null) {
+      return false;
+    }
+    Supplier<RetrieveFieldsOptimizer> rfoSupplier = () -> new RetrieveFieldsOptimizer(solrReturnFields);
+    return solrReturnFields.getFetchOptimizer(rfoSupplier).canStreamStoredFields();
+  }
+
   /** {@link StoredFieldVisitor} which loads the specified fields eagerly (or all if null).
    * If {@link #enableLazyFieldLoading} then the rest get special lazy field entries.  Designated "large"
    * fields will always get a special field entry. */
@@ -703,6 +740,22 @@ public class SolrDocumentFetcher {
       return CollectionUtils.isNotEmpty(dvFields);
     }
 
+    private boolean canStreamStoredFields() {
+      if (returnStoredFields() == false || returnDVFields()) {
+        return false;
+      }
+      if (storedFields == null) {
+        return allStoredAreUtf8;
+      }
+      for (String name : storedFields) {
+        final SchemaField schemaField = searcher.getSchema().getFieldOrNull(name);
+        if (schemaField == null || schemaField.stored() == false || schemaField.getType().isUtf8Field() == false) {
+          return false;
+        }
+      }
+      return true;
+    }
+
     private Set<String> getStoredFields() {
       return storedFields;
     }
@@ -29,8 +29,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -108,6 +113,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
   private final long openNanoTime = System.nanoTime();
   private Date registerTime;
   private long warmupTime = 0;
+  private volatile boolean warmingStopped = false;
   private final DirectoryReader reader;
   private final boolean closeReader;
 
@@ -117,6 +123,8 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
 
   private final boolean cachingEnabled;
   private final SolrCache<Query,DocSet> filterCache;
+  // per-segment DocIdSets of cached filters, shared with the other searchers of the core
+  private final LRUQueryCache segmentFilterCache;
   private final SolrCache<QueryResultKey,DocList> queryResultCache;
   private final SolrCache<String,UnInvertedField> fieldValueCache;
 
@@ -173,12 +181,14 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       final int cmdLen = cmd.getLen();
       final Sort mergeSort = core.getSolrCoreState().getMergePolicySort();
 
-      if (cmdSort == null || cmdLen <= 0 || mergeSort == null ||
-          !EarlyTerminatingSortingCollector.canEarlyTerminate(cmdSort, mergeSort)) {
+      if (cmdSort == null || cmdLen <= 0 || mergeSort == null) {
         log.warn("unsupported combination: segmentTerminateEarly=true cmdSort={} cmdLen={} mergeSort={}", cmdSort, cmdLen, mergeSort);
-      } else {
+      } else if (EarlyTerminatingSortingCollector.canEarlyTerminate(cmdSort, mergeSort)) {
         collector = earlyTerminatingSortingCollector = new EarlyTerminatingSortingCollector(collector, cmdSort, cmd.getLen());
+      } else if (!TopFieldCollector.canSkipNonCompetitiveHits(cmdSort, mergeSort)) {
+        log.warn("unsupported combination: segmentTerminateEarly=true cmdSort={} cmdLen={} mergeSort={}", cmdSort, cmdLen, mergeSort);
       }
+      // else the TopFieldCollector skips non-competitive hits itself, see canTopDocsCollectorTerminateEarly
     }
 
     final boolean terminateEarly = cmd.getTerminateEarly();
@@ -291,8 +301,10 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       }
 
       cacheList = clist.toArray(new SolrCache[clist.size()]);
+      segmentFilterCache = core.getSegmentFilterCache();
     } else {
       this.filterCache = null;
+      this.segmentFilterCache = null;
       this.queryResultCache = null;
       this.fieldValueCache = null;
       this.cacheMap = NO_GENERIC_CACHES;
@@ -507,6 +519,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
         @Override
         public boolean regenerateItem(SolrIndexSearcher newSearcher, SolrCache newCache, SolrCache oldCache,
             Object oldKey, Object oldVal) throws IOException {
+          if (newSearcher.isWarmingStopped()) {
+            return false;
+          }
           if (oldVal instanceof UnInvertedField) {
             UnInvertedField.getUnInvertedField((String) oldKey, newSearcher);
           }
@@ -520,6 +535,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
         @Override
         public boolean regenerateItem(SolrIndexSearcher newSearcher, SolrCache newCache, SolrCache oldCache,
             Object oldKey, Object oldVal) throws IOException {
+          if (newSearcher.isWarmingStopped()) {
+            return false;
+          }
           newSearcher.cacheDocSet((Query) oldKey, null, false);
           return true;
         }
@@ -532,6 +550,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
         @Override
         public boolean regenerateItem(SolrIndexSearcher newSearcher, SolrCache newCache, SolrCache oldCache,
             Object oldKey, Object oldVal) throws IOException {
+          if (newSearcher.isWarmingStopped()) {
+            return false;
+          }
           QueryResultKey key = (QueryResultKey) oldKey;
           int nDocs = 1;
           // request 1 doc and let caching round up to the next window size...
@@ -758,7 +779,8 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       return (BitDocSet) answer;
     }
     BitDocSet answerBits = makeBitDocSet(answer);
-    if (filterCache != null) {
+    // a RoaringDocSet was cached on purpose to save memory, don't replace it with the bit set
+    if (filterCache != null && !(answer instanceof RoaringDocSet)) {
       filterCache.put(q, answerBits);
     }
     return answerBits;
@@ -796,7 +818,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       }
     }
 
-    DocSet absAnswer = getDocSetNC(absQ, null);
+    DocSet absAnswer = getCacheableDocSetNC(absQ);
     DocSet answer = positive ? absAnswer : getLiveDocSet().andNot(absAnswer);
 
     if (filterCache != null) {
@@ -814,7 +836,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       answer = filterCache.get(q);
       if (answer != null) return answer;
     }
-    answer = getDocSetNC(q, null);
+    answer = getCacheableDocSetNC(q);
     if (filterCache != null) filterCache.put(q, answer);
     return answer;
   }
@@ -1012,7 +1034,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
         }
       }
 
-      if (filterCache == null) {
+      if (filterCache == null && segmentFilterCache == null) {
         // there is no cache: don't pull bitsets
         if (notCached == null) notCached = new ArrayList<>(sets.length - end);
         WrappedQuery uncached = new WrappedQuery(q);
@@ -1177,6 +1199,33 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     return DocSetUtil.createDocSet(this, query, filter);
   }
 
+  /**
+   * Computes the DocSet of a positive query that may be cached. If the core has a segment filter cache, the
+   * DocIdSets of the segments that did not change since a previous searcher are taken from it, so that only the
+   * new segments are computed after a reopen.
+   */
+  private DocSet getCacheableDocSetNC(Query query) throws IOException {
+    if (segmentFilterCache == null || query instanceof DocSetProducer || query instanceof MatchAllDocsQuery) {
+      // DocSetProducers can only compute top-level sets, and matching all docs is cheap
+      return getDocSetNC(query, null);
+    }
+    DocSetCollector collector = new DocSetCollector(maxDoc());
+    Weight weight = createWeight(rewrite(query), collector.scoreMode(), 1f);
+    search(leafContexts, segmentFilterCache.doCache(weight, CACHE_ALL_FILTERS), collector);
+    return DocSetUtil.getDocSet(collector, this);
+  }
+
+  // what is worth caching is decided by the callers of getCacheableDocSetNC
+  private static final QueryCachingPolicy CACHE_ALL_FILTERS = new QueryCachingPolicy() {
+    @Override
+    public void onUse(Query query) {}
+
+    @Override
+    public boolean shouldCache(Query query) {
+      return true;
+    }
+  };
+
   /**
    * Returns the set of document ids matching both the query and the filter. This method is cache-aware and attempts to
    * retrieve the answer from the cache if possible. If the answer was not cached, it may have been inserted into the
@@ -1209,12 +1258,17 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     if (filterCache != null) {
       first = filterCache.get(absQ);
       if (first == null) {
-        first = getDocSetNC(absQ, null);
+        first = getCacheableDocSetNC(absQ);
         filterCache.put(absQ, first);
       }
       return positive ? first.intersection(filter) : filter.andNot(first);
     }
 
+    if (segmentFilterCache != null) {
+      first = getCacheableDocSetNC(absQ);
+      return positive ? first.intersection(filter) : filter.andNot(first);
+    }
+
     // If there isn't a cache, then do a single filtered query if positive.
     return positive ? getDocSetNC(absQ, filter) : filter.andNot(getPositiveDocSet(absQ));
   }
@@ -1502,6 +1556,20 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
    *          The Command whose properties should determine the type of TopDocsCollector to use.
    */
   private TopDocsCollector buildTopDocsCollector(int len, QueryCommand cmd) throws IOException {
+    return buildTopDocsCollector(len, cmd, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Helper method for inspecting QueryCommand and creating the appropriate {@link TopDocsCollector}
+   *
+   * @param len
+   *          the number of docs to return
+   * @param cmd
+   *          The Command whose properties should determine the type of TopDocsCollector to use.
+   * @param totalHitsThreshold
+   *          the number of hits to count accurately when sorting by field, see {@link TopFieldCollector#create}
+   */
+  private TopDocsCollector buildTopDocsCollector(int len, QueryCommand cmd, int totalHitsThreshold) throws IOException {
 
     Query q = cmd.getQuery();
     if (q instanceof RankQuery) {
@@ -1518,10 +1586,29 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       final CursorMark cursor = cmd.getCursorMark();
 
       final FieldDoc searchAfter = (null != cursor ? cursor.getSearchAfterFieldDoc() : null);
-      return TopFieldCollector.create(weightedSort, len, searchAfter, Integer.MAX_VALUE);
+      return TopFieldCollector.create(weightedSort, len, searchAfter, totalHitsThreshold);
     }
   }
 
+  /**
+   * Returns true if segmentTerminateEarly was requested and the sort allows the {@link TopFieldCollector} to skip
+   * non-competitive hits of segments that are sorted by the merge policy sort, although not in the way that
+   * {@link EarlyTerminatingSortingCollector} does. This is the case when the leading fields of the sort are the
+   * reverse of the merge policy sort, e.g. to get the newest docs first from a time-sorted index, or when only some
+   * leading fields of the sort are the same as the merge policy sort.
+   */
+  private boolean canTopDocsCollectorTerminateEarly(QueryCommand cmd) {
+    final Sort cmdSort = cmd.getSort();
+    final Sort mergeSort = core.getSolrCoreState().getMergePolicySort();
+    return cmd.getSegmentTerminateEarly()
+        && cmdSort != null
+        && cmd.getLen() > 0
+        && mergeSort != null
+        && cmd.getQuery() instanceof RankQuery == false
+        && EarlyTerminatingSortingCollector.canEarlyTerminate(cmdSort, mergeSort) == false
+        && TopFieldCollector.canSkipNonCompetitiveHits(cmdSort, mergeSort);
+  }
+
   private void getDocListNC(QueryResult qr, QueryCommand cmd) throws IOException {
     int len = cmd.getSupersetMaxDoc();
     int last = len;
@@ -1594,7 +1681,10 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       // no docs on this page, so cursor doesn't change
       qr.setNextCursorMark(cmd.getCursorMark());
     } else {
-      final TopDocsCollector topCollector = buildTopDocsCollector(len, cmd);
+      // only count hits accurately if the top docs collector may not terminate early
+      final boolean topDocsCollectorTerminatesEarly = canTopDocsCollectorTerminateEarly(cmd);
+      final TopDocsCollector topCollector = buildTopDocsCollector(len, cmd,
+          topDocsCollectorTerminatesEarly ? len : Integer.MAX_VALUE);
       MaxScoreCollector maxScoreCollector = null;
       Collector collector = topCollector;
       if ((cmd.getFlags() & GET_SCORES) != 0) {
@@ -1602,6 +1692,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
         collector = MultiCollector.wrap(topCollector, maxScoreCollector);
       }
       buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter);
+      if (topDocsCollectorTerminatesEarly) {
+        qr.setSegmentTerminatedEarly(((TopFieldCollector) topCollector).isEarlyTerminated());
+      }
 
       totalHits = topCollector.getTotalHits();
       TopDocs topDocs = topCollector.topDocs(0, len);
@@ -2139,44 +2232,127 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
    * Warm this searcher based on an old one (primarily for auto-cache warming).
    */
   public void warm(SolrIndexSearcher old) {
+    reuseOrdinalMaps(old);
     // Make sure this is first! filters can help queryResults execute!
     long warmingStartTime = System.nanoTime();
     // warm the caches in order...
-    ModifiableSolrParams params = new ModifiableSolrParams();
-    params.add("warming", "true");
-    for (int i = 0; i < cacheList.length; i++) {
-      if (log.isDebugEnabled()) {
-        log.debug("autowarming [{}] from [{}]\n\t{}", this, old, old.cacheList[i]);
+    for (int i = 0; i < cacheList.length && warmingStopped == false; i++) {
+      warmCache(old, i);
+    }
+    warmupTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - warmingStartTime, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Warm the caches of this searcher based on an old one concurrently on the given executor, and run the given
+   * additional tasks, such as newSearcher listeners, alongside. If warming doesn't complete within
+   * <code>maxWarmingTimeMillis</code>, this method stops waiting and flags warming as stopped, see
+   * {@link #isWarmingStopped()}, so that tasks which are still running give up as soon as possible. Tasks that
+   * didn't start yet are cancelled, while running tasks are not interrupted since interrupting IO may close the
+   * underlying files of the index.
+   *
+   * @param maxWarmingTimeMillis the time budget for warming, or a negative value to wait for warming to complete
+   * @return true if warming completed within the time budget
+   * @lucene.experimental
+   */
+  public boolean warm(SolrIndexSearcher old, ExecutorService executor, List<Callable<Void>> tasks,
+                      long maxWarmingTimeMillis) throws InterruptedException {
+    long warmingStartTime = System.nanoTime();
+    List<Future<Void>> futures = new ArrayList<>();
+    if (old != null) {
+      reuseOrdinalMaps(old);
+      for (int i = 0; i < cacheList.length; i++) {
+        final int slot = i;
+        futures.add(executor.submit(() -> {
+          warmCache(old, slot);
+          return null;
+        }));
       }
+    }
+    for (Callable<Void> task : tasks) {
+      futures.add(executor.submit(task));
+    }
 
-      final SolrQueryRequest req = new LocalSolrQueryRequest(core, params) {
-        @Override
-        public SolrIndexSearcher getSearcher() {
-          return SolrIndexSearcher.this;
+    final long deadline = warmingStartTime + TimeUnit.MILLISECONDS.toNanos(maxWarmingTimeMillis);
+    boolean complete = true;
+    try {
+      for (Future<Void> future : futures) {
+        try {
+          if (maxWarmingTimeMillis < 0) {
+            future.get();
+          } else {
+            future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+          }
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
+          }
+          SolrException.log(log, "Error while warming " + this, e.getCause());
+        } catch (TimeoutException e) {
+          complete = false;
+          break;
         }
+      }
+    } finally {
+      warmingStopped = true;
+      // abandoned tasks that are still queued don't run at all
+      for (Future<Void> future : futures) {
+        future.cancel(false);
+      }
+    }
+    warmupTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - warmingStartTime, TimeUnit.NANOSECONDS);
+    return complete;
+  }
 
-        @Override
-        public void close() {}
-      };
+  /**
+   * Whether warming of this searcher has been stopped because it exceeded its time budget, or because this searcher
+   * is done warming. Regenerators and warming listeners should check this flag between items and give up when it is
+   * set.
+   */
+  public boolean isWarmingStopped() {
+    return warmingStopped;
+  }
 
-      final SolrQueryResponse rsp = new SolrQueryResponse();
-      SolrRequestInfo.clearRequestInfo();
-      SolrRequestInfo.setRequestInfo(new SolrRequestInfo(req, rsp));
+  private void reuseOrdinalMaps(SolrIndexSearcher old) {
+    if (leafReader instanceof SlowCompositeReaderWrapper && old.leafReader instanceof SlowCompositeReaderWrapper) {
+      // global ordinals of unchanged segments can be reused, until each field is first used or the next reopen
+      ((SlowCompositeReaderWrapper) leafReader).setPreviousOrdinalMaps((SlowCompositeReaderWrapper) old.leafReader,
+          core.getOrdinalMapExecutor());
+    }
+  }
+
+  private void warmCache(SolrIndexSearcher old, int slot) {
+    if (log.isDebugEnabled()) {
+      log.debug("autowarming [{}] from [{}]\n\t{}", this, old, old.cacheList[slot]);
+    }
+
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.add("warming", "true");
+    final SolrQueryRequest req = new LocalSolrQueryRequest(core, params) {
+      @Override
+      public SolrIndexSearcher getSearcher() {
+        return SolrIndexSearcher.this;
+      }
+
+      @Override
+      public void close() {}
+    };
+
+    final SolrQueryResponse rsp = new SolrQueryResponse();
+    SolrRequestInfo.clearRequestInfo();
+    SolrRequestInfo.setRequestInfo(new SolrRequestInfo(req, rsp));
+    try {
+      cacheList[slot].warm(this, old.cacheList[slot]);
+    } finally {
       try {
-        cacheList[i].warm(this, old.cacheList[i]);
+        req.close();
       } finally {
-        try {
-          req.close();
-        } finally {
-          SolrRequestInfo.clearRequestInfo();
-        }
+        SolrRequestInfo.clearRequestInfo();
       }
+    }
 
-      if (log.isDebugEnabled()) {
-        log.debug("autowarming result for [{}]\n\t{}", this, cacheList[i]);
-      }
+    if (log.isDebugEnabled()) {
+      log.debug("autowarming result for [{}]\n\t{}", this, cacheList[slot]);
     }
-    warmupTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - warmingStartTime, TimeUnit.NANOSECONDS);
   }
 
   /**
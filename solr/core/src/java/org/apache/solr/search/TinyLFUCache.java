@@ -0,0 +1,307 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.metrics.MetricsMap;
+import org.apache.solr.metrics.SolrMetricManager;
+import org.apache.solr.util.ConcurrentTinyLFUCache;
+import org.apache.solr.util.DefaultSolrThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SolrCache based on ConcurrentTinyLFUCache implementation.
+ * <p>
+ * Entries are admitted and evicted according to the W-TinyLFU policy, which takes both the recency
+ * and the frequency of accesses into account, so that entries that are used only once, such as the
+ * filters of a scan, don't flush entries that are used often. Evictions are performed
+ * asynchronously on the common fork join pool, unless <code>async</code> is false, in which case
+ * the calling threads perform them.
+ * <p>
+ * Autowarming regenerates the hottest entries of the old cache using up to
+ * <code>warmThreads</code> threads, which defaults to half the number of available processors.
+ *
+ * @see org.apache.solr.util.ConcurrentTinyLFUCache
+ * @see org.apache.solr.search.SolrCache
+ */
+public class TinyLFUCache<K, V> extends SolrCacheBase implements SolrCache<K,V> {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  // contains the statistics objects for all open caches of the same type
+  private List<ConcurrentTinyLFUCache.Stats> statsList;
+
+  private long warmupTime = 0;
+
+  private String description = "Concurrent TinyLFU Cache";
+  private ConcurrentTinyLFUCache<K,V> cache;
+  private int showItems = 0;
+  private int warmThreads;
+
+  private MetricsMap cacheMap;
+  private Set<String> metricNames = ConcurrentHashMap.newKeySet();
+  private MetricRegistry registry;
+  private SolrMetricManager metricManager;
+  private String registryName;
+
+  @Override
+  public Object init(Map args, Object persistence, CacheRegenerator regenerator) {
+    super.init(args, regenerator);
+    String str = (String) args.get("size");
+    final int limit = str == null ? 1024 : Integer.parseInt(str);
+    if (limit <= 0) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "size must be > 0, got " + limit);
+    }
+
+    str = (String) args.get("initialSize");
+    final int initialSize = Math.min(str == null ? 1024 : Integer.parseInt(str), limit);
+
+    str = (String) args.get("showItems");
+    showItems = str == null ? 0 : Integer.parseInt(str);
+
+    str = (String) args.get("async");
+    final boolean async = str == null ? true : Boolean.parseBoolean(str);
+
+    str = (String) args.get("warmThreads");
+    warmThreads = str == null ? Math.max(1, Runtime.getRuntime().availableProcessors() / 2) : Integer.parseInt(str);
+    if (warmThreads <= 0) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "warmThreads must be > 0, got " + warmThreads);
+    }
+
+    final Executor executor = async ? ForkJoinPool.commonPool() : Runnable::run;
+    str = (String) args.get("maxRamMB");
+    if (str != null) {
+      long maxRamBytes = (long) (Double.parseDouble(str) * 1024L * 1024L);
+      description = generateDescription("maxRamBytes=" + maxRamBytes, async);
+      cache = new ConcurrentTinyLFUCache<>(maxRamBytes, initialSize, executor);
+    } else {
+      description = generateDescription("maxSize=" + limit + ", initialSize=" + initialSize, async);
+      cache = new ConcurrentTinyLFUCache<>(limit, initialSize, executor);
+    }
+
+    cache.setAlive(false);
+
+    statsList = (List<ConcurrentTinyLFUCache.Stats>) persistence;
+    if (statsList == null) {
+      // must be the first time a cache of this type is being created
+      // Use a CopyOnWriteArrayList since puts are very rare and iteration may be a frequent operation
+      // because it is used in getStatistics()
+      statsList = new CopyOnWriteArrayList<>();
+
+      // the first entry will be for cumulative stats of caches that have been closed.
+      statsList.add(new ConcurrentTinyLFUCache.Stats());
+    }
+    statsList.add(cache.getStats());
+    return statsList;
+  }
+
+  /**
+   * @return Returns the description of this Cache.
+   */
+  protected String generateDescription(String bounds, boolean async) {
+    String description = "Concurrent TinyLFU Cache(" + bounds + ", async=" + async + ", warmThreads=" + warmThreads;
+    if (isAutowarmingOn()) {
+      description += ", " + getAutowarmDescription();
+    }
+    description += ')';
+    return description;
+  }
+
+  @Override
+  public int size() {
+    return cache.size();
+  }
+
+  @Override
+  public V put(K key, V value) {
+    return cache.put(key, value);
+  }
+
+  @Override
+  public V get(K key) {
+    return cache.get(key);
+  }
+
+  @Override
+  public void clear() {
+    cache.clear();
+  }
+
+  @Override
+  public void setState(State state) {
+    super.setState(state);
+    cache.setAlive(state == State.LIVE);
+  }
+
+  @Override
+  public void warm(SolrIndexSearcher searcher, SolrCache old) {
+    if (regenerator == null) return;
+    long warmingStartTime = System.nanoTime();
+    TinyLFUCache other = (TinyLFUCache) old;
+    // warm entries
+    if (isAutowarmingOn()) {
+      int sz = autowarm.getWarmCount(other.size());
+      Map items = other.cache.getHottestItems(sz);
+      List<Map.Entry> itemsList = new ArrayList<>(items.entrySet());
+      if (itemsList.isEmpty() == false) {
+        final AtomicBoolean continueRegen = new AtomicBoolean(true);
+        final int numThreads = Math.min(warmThreads, itemsList.size());
+        if (numThreads == 1) {
+          for (Map.Entry entry : itemsList) {
+            if (regenerate(searcher, old, entry) == false) break;
+          }
+        } else {
+          ExecutorService executor = ExecutorUtil.newMDCAwareFixedThreadPool(numThreads,
+              new DefaultSolrThreadFactory("tinyLFUCacheWarming"));
+          try {
+            for (Map.Entry entry : itemsList) {
+              executor.execute(() -> {
+                if (continueRegen.get() && regenerate(searcher, old, entry) == false) {
+                  continueRegen.set(false);
+                }
+              });
+            }
+          } finally {
+            ExecutorUtil.shutdownAndAwaitTermination(executor);
+          }
+        }
+      }
+    }
+    warmupTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - warmingStartTime, TimeUnit.NANOSECONDS);
+  }
+
+  private boolean regenerate(SolrIndexSearcher searcher, SolrCache old, Map.Entry entry) {
+    try {
+      return regenerator.regenerateItem(searcher, this, old, entry.getKey(), entry.getValue());
+    } catch (Exception e) {
+      SolrException.log(log, "Error during auto-warming of key:" + entry.getKey(), e);
+      return true;
+    }
+  }
+
+  @Override
+  public void close() {
+    // add the stats to the cumulative stats object (the first in the statsList)
+    statsList.get(0).add(cache.getStats());
+    statsList.remove(cache.getStats());
+    cache.destroy();
+  }
+
+  //////////////////////// SolrInfoMBeans methods //////////////////////
+  @Override
+  public String getName() {
+    return TinyLFUCache.class.getName();
+  }
+
+  @Override
+  public String getDescription() {
+    return description;
+  }
+
+  @Override
+  public Set<String> getMetricNames() {
+    return metricNames;
+  }
+
+  @Override
+  public void initializeMetrics(SolrMetricManager manager, String registryName, String tag, String scope) {
+    this.metricManager = manager;
+    this.registryName = registryName;
+    registry = manager.registry(registryName);
+    cacheMap = new MetricsMap((detailed, map) -> {
+      if (cache != null) {
+        ConcurrentTinyLFUCache.Stats stats = cache.getStats();
+        long lookups = stats.getCumulativeLookups();
+        long hits = stats.getCumulativeHits();
+        long inserts = stats.getCumulativePuts();
+        long evictions = stats.getCumulativeEvictions();
+        long size = stats.getCurrentSize();
+        long clookups = 0;
+        long chits = 0;
+        long cinserts = 0;
+        long cevictions = 0;
+
+        // NOTE: It is safe to iterate on a CopyOnWriteArrayList
+        for (ConcurrentTinyLFUCache.Stats statistics : statsList) {
+          clookups += statistics.getCumulativeLookups();
+          chits += statistics.getCumulativeHits();
+          cinserts += statistics.getCumulativePuts();
+          cevictions += statistics.getCumulativeEvictions();
+        }
+
+        map.put("lookups", lookups);
+        map.put("hits", hits);
+        map.put("hitratio", calcHitRatio(lookups, hits));
+        map.put("inserts", inserts);
+        map.put("evictions", evictions);
+        map.put("size", size);
+        map.put("ramBytesUsed", cache.ramBytesUsed());
+
+        map.put("warmupTime", warmupTime);
+        map.put("cumulative_lookups", clookups);
+        map.put("cumulative_hits", chits);
+        map.put("cumulative_hitratio", calcHitRatio(clookups, chits));
+        map.put("cumulative_inserts", cinserts);
+        map.put("cumulative_evictions", cevictions);
+
+        if (detailed && showItems != 0) {
+          Map items = cache.getHottestItems(showItems == -1 ? Integer.MAX_VALUE : showItems);
+          for (Map.Entry e : (Set <Map.Entry>)items.entrySet()) {
+            map.put("item_" + e.getKey(), e.getValue().toString());
+          }
+        }
+      }
+    });
+    manager.registerGauge(this, registryName, cacheMap, tag, true, scope, getCategory().toString());
+  }
+
+  // for unit tests only
+  MetricsMap getMetricsMap() {
+    return cacheMap;
+  }
+
+  // for unit tests only
+  ConcurrentTinyLFUCache<K,V> getCache() {
+    return cache;
+  }
+
+  @Override
+  public MetricRegistry getMetricRegistry() {
+    return registry;
+  }
+
+  @Override
+  public String toString() {
+    return name() + (cacheMap != null ? cacheMap.getValue().toString() : "");
+  }
+
+}
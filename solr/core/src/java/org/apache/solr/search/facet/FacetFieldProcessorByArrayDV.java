@@ -42,6 +42,9 @@ import org.apache.solr.uninverting.FieldCacheImpl;
 class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
   static boolean unwrap_singleValued_multiDv = true;  // only set to false for test coverage
 
+  // number of docs whose ords are read at once from single-valued doc values
+  private static final int BULK_SIZE = 256;
+
   boolean multiValuedField;
   SortedSetDocValues si;  // only used for term lookups (for both single and multi-valued)
   OrdinalMap ordinalMap = null; // maps per-segment ords to global ords
@@ -205,9 +208,13 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
         counts[fc.getOrd(doc) + 1]++;
       }
     } else {
-      while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-        if (singleDv.advanceExact(doc)) {
-          counts[singleDv.ordValue() + 1]++;
+      final int[] docs = new int[BULK_SIZE];
+      final int[] ords = new int[BULK_SIZE];
+      int count;
+      while ((count = nextDocs(disi, docs)) > 0) {
+        singleDv.ordValues(count, docs, ords);
+        for (int i = 0; i < count; i++) {
+          counts[ords[i] + 1]++;  // docs without a value go to counts[0]
         }
       }
     }
@@ -258,12 +265,27 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
     return reuse;
   }
 
-  private void collectDocs(SortedDocValues singleDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
+  /** Fill {@code docs} with the next doc IDs of {@code disi} and return how many were read. */
+  private static int nextDocs(DocIdSetIterator disi, int[] docs) throws IOException {
+    int count = 0;
     int doc;
-    while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-      if (singleDv.advanceExact(doc)) {
-        int segOrd = singleDv.ordValue();
-        collect(doc, segOrd, toGlobal);
+    while (count < docs.length && (doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+      docs[count++] = doc;
+    }
+    return count;
+  }
+
+  private void collectDocs(SortedDocValues singleDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
+    final int[] docs = new int[BULK_SIZE];
+    final int[] ords = new int[BULK_SIZE];
+    int count;
+    while ((count = nextDocs(disi, docs)) > 0) {
+      singleDv.ordValues(count, docs, ords);
+      for (int i = 0; i < count; i++) {
+        int segOrd = ords[i];
+        if (segOrd >= 0) {
+          collect(docs[i], segOrd, toGlobal);
+        }
       }
     }
   }
@@ -282,11 +304,17 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
 
     } else {
 
-      while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-        if (singleDv.advanceExact(doc)) {
-          int segOrd = singleDv.ordValue();
-          int ord = (int) toGlobal.get(segOrd);
-          countAcc.incrementCount(ord, 1);
+      final int[] docs = new int[BULK_SIZE];
+      final int[] ords = new int[BULK_SIZE];
+      int count;
+      while ((count = nextDocs(disi, docs)) > 0) {
+        singleDv.ordValues(count, docs, ords);
+        for (int i = 0; i < count; i++) {
+          int segOrd = ords[i];
+          if (segOrd >= 0) {
+            int ord = (int) toGlobal.get(segOrd);
+            countAcc.incrementCount(ord, 1);
+          }
         }
       }
 
@@ -42,6 +42,7 @@ import org.apache.solr.schema.TrieField;
 import org.apache.solr.search.BitDocSet;
 import org.apache.solr.search.DocIterator;
 import org.apache.solr.search.DocSet;
+import org.apache.solr.search.DocSetUtil;
 import org.apache.solr.search.SolrCache;
 import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.search.facet.SlotAcc.SlotContext;
@@ -326,10 +327,10 @@ public class UnInvertedField extends DocTermOrds {
 
     final int[] index = this.index;
 
-    boolean doNegative = baseSize > maxDoc >> 1 && termInstances > 0 && docs instanceof BitDocSet;
+    boolean doNegative = baseSize > maxDoc >> 1 && termInstances > 0 && DocSetUtil.getBits(docs) != null;
 
     if (doNegative) {
-      FixedBitSet bs = ((BitDocSet) docs).getBits().clone();
+      FixedBitSet bs = DocSetUtil.copyBits(docs, maxDoc);
       bs.flip(0, maxDoc);
       // TODO: when iterator across negative elements is available, use that
       // instead of creating a new bitset and inverting.
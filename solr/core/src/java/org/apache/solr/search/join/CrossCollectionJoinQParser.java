@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.join;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.codecs.bloom.FuzzySet;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.cloud.ZkController;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.cloud.ClusterState;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.Slice;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.Base64;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.CoreContainer;
+import org.apache.solr.handler.JoinKeysHandler;
+import org.apache.solr.handler.component.ShardHandler;
+import org.apache.solr.handler.component.ShardRequest;
+import org.apache.solr.handler.component.ShardResponse;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.search.QParser;
+import org.apache.solr.search.SyntaxError;
+import org.apache.solr.util.ConcurrentTinyLFUCache;
+
+/**
+ * Parses <code>{!join method=crossCollection fromIndex=&lt;collection&gt; from=.. to=..}</code>, a join from a
+ * collection with any number of shards that doesn't need to have replicas on the nodes of this collection.
+ * <p>
+ * The join keys are computed by the {@link JoinKeysHandler} of a replica of every shard of the "from" collection,
+ * which returns the unique values of the "from" field as a compact sorted byte array, and are matched against the
+ * "to" field with {@link org.apache.solr.schema.FieldType#getSetQuery}, which is a <code>TermInSetQuery</code> or
+ * a points set query. The keys of every shard are cached with the version of the index of the replica that returned
+ * them, so that later requests are conditional and only the shards that changed return their keys again.
+ * The parsed query includes these versions, which makes it a valid key for the filter and query result caches.
+ * <p>
+ * With <code>bloomFilter=true</code>, a bloom filter of the values of the "to" field is sent along, so that
+ * the "from" shards only return the keys that may match. The keys then also depend on the "to" searcher, which
+ * is why it is off by default.
+ *
+ * @lucene.experimental
+ */
+public class CrossCollectionJoinQParser extends QParser {
+
+  public static final String METHOD = "crossCollection";
+  public static final String BLOOM_FILTER = "bloomFilter";
+
+  static final String JOIN_KEYS_PATH = "/joinkeys";
+
+  private final ConcurrentTinyLFUCache<String, ShardKeys> keysCache;
+
+  public CrossCollectionJoinQParser(String qstr, SolrParams localParams, SolrParams params, SolrQueryRequest req,
+                                    ConcurrentTinyLFUCache<String, ShardKeys> keysCache) {
+    super(qstr, localParams, params, req);
+    this.keysCache = keysCache;
+  }
+
+  @Override
+  public Query parse() throws SyntaxError {
+    final String fromField = getParam("from");
+    final String fromIndex = getParam("fromIndex");
+    final String toField = getParam("to");
+    final String v = localParams.get("v");
+    if (fromField == null || fromIndex == null || toField == null) {
+      throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+          "Cross-collection join requires the from, to and fromIndex parameters");
+    }
+
+    CoreContainer container = req.getCore().getCoreContainer();
+    if (!container.isZooKeeperAware()) {
+      throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "Cross-collection join requires SolrCloud");
+    }
+    ZkController zkController = container.getZkController();
+    String collection = ScoreJoinQParserPlugin.resolveAlias(fromIndex, zkController);
+    ClusterState clusterState = zkController.getClusterState();
+    DocCollection docCollection = clusterState.getCollectionOrNull(collection);
+    if (docCollection == null) {
+      throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+          "SolrCloud join: Collection '" + fromIndex + "' not found!");
+    }
+
+    SchemaField toSchemaField = req.getSchema().getField(toField);
+    FuzzySet bloomFilter = null;
+    String toVersion = null;
+    if (localParams.getBool(BLOOM_FILTER, false)) {
+      try {
+        bloomFilter = JoinKeys.getBloomFilter(req.getSearcher(), toSchemaField);
+      } catch (IOException e) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
+      }
+      if (bloomFilter != null) {
+        toVersion = JoinKeysHandler.getIndexVersion(req.getSearcher());
+      }
+    }
+
+    List<Slice> slices = new ArrayList<>(docCollection.getActiveSlices());
+    slices.sort(Comparator.comparing(Slice::getName));
+    ShardKeys[] shardKeys = fetchKeys(container, clusterState, collection, slices, fromField, v, bloomFilter, toVersion);
+
+    Set<String> values = new HashSet<>();
+    String[] versions = new String[shardKeys.length];
+    for (int i = 0; i < shardKeys.length; i++) {
+      values.addAll(JoinKeys.decode(shardKeys[i].keys));
+      versions[i] = shardKeys[i].indexVersion;
+    }
+    Query setQuery = values.isEmpty() ? new MatchNoDocsQuery()
+        : toSchemaField.getType().getSetQuery(this, toSchemaField, values);
+    return new CrossCollectionJoinQuery(collection, fromField, toField, v, toVersion, versions, setQuery);
+  }
+
+  private ShardKeys[] fetchKeys(CoreContainer container, ClusterState clusterState, String collection, List<Slice> slices,
+                                String fromField, String fromQuery, FuzzySet bloomFilter, String toVersion) {
+    String bloomFilterParam = null;
+    if (bloomFilter != null) {
+      try {
+        byte[] bytes = JoinKeys.serialize(bloomFilter);
+        bloomFilterParam = Base64.byteArrayToBase64(bytes, 0, bytes.length);
+      } catch (IOException e) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
+      }
+    }
+
+    ShardHandler shardHandler = container.getShardHandlerFactory().getShardHandler();
+    String nodeName = container.getZkController().getNodeName();
+    int numShards = slices.size();
+    String[] cacheKeys = new String[numShards];
+    ShardKeys[] cached = new ShardKeys[numShards];
+    Map<ShardRequest, Integer> requests = new HashMap<>();
+    for (int i = 0; i < numShards; i++) {
+      Slice slice = slices.get(i);
+      String shard = getShardUrls(clusterState, slice, nodeName);
+      if (shard.isEmpty()) {
+        throw new SolrException(SolrException.ErrorCode.SERVICE_UNAVAILABLE,
+            "Cross-collection join: no active replicas for shard " + slice.getName() + " of " + collection);
+      }
+      // the keys depend on the "to" searcher if a bloom filter is used
+      cacheKeys[i] = collection + '/' + slice.getName() + '/' + fromField + '/' + toVersion + '/' + fromQuery;
+      cached[i] = keysCache.get(cacheKeys[i]);
+
+      ModifiableSolrParams params = new ModifiableSolrParams();
+      params.set(CommonParams.QT, JOIN_KEYS_PATH);
+      params.set(CommonParams.DISTRIB, false);
+      params.set(CommonParams.Q, fromQuery);
+      params.set(JoinKeysHandler.FIELD, fromField);
+      if (bloomFilterParam != null) {
+        params.set(JoinKeysHandler.BLOOM_FILTER, bloomFilterParam);
+      }
+      if (cached[i] != null) {
+        params.set(JoinKeysHandler.IF_INDEX_VERSION, cached[i].indexVersion);
+      }
+
+      ShardRequest sreq = new ShardRequest();
+      sreq.purpose = ShardRequest.PURPOSE_PRIVATE;
+      sreq.shards = new String[] {shard};
+      sreq.actualShards = sreq.shards;
+      sreq.params = params;
+      requests.put(sreq, i);
+      shardHandler.submit(sreq, shard, params);
+    }
+
+    ShardKeys[] shardKeys = new ShardKeys[numShards];
+    ShardResponse srsp;
+    while ((srsp = shardHandler.takeCompletedOrError()) != null) {
+      if (srsp.getException() != null) {
+        shardHandler.cancelAll();
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+            "Cross-collection join: failed to fetch the join keys of " + collection + " from " + srsp.getShard(),
+            srsp.getException());
+      }
+      int i = requests.get(srsp.getShardRequest());
+      NamedList<Object> rsp = srsp.getSolrResponse().getResponse();
+      String indexVersion = String.valueOf(rsp.get(JoinKeysHandler.INDEX_VERSION));
+      if (cached[i] != null && Boolean.TRUE.equals(rsp.get(JoinKeysHandler.NOT_MODIFIED))) {
+        shardKeys[i] = cached[i];
+      } else {
+        shardKeys[i] = new ShardKeys(indexVersion, (byte[]) rsp.get(JoinKeysHandler.KEYS));
+        keysCache.put(cacheKeys[i], shardKeys[i]);
+      }
+    }
+    return shardKeys;
+  }
+
+  /**
+   * Returns the URLs of the active replicas of a slice separated by '|', the replica on this node first and then by
+   * core name, so that requests keep going to the same replica and its keys can be reused.
+   */
+  private static String getShardUrls(ClusterState clusterState, Slice slice, String nodeName) {
+    List<Replica> replicas = new ArrayList<>();
+    for (Replica replica : slice.getReplicas()) {
+      if (replica.isActive(clusterState.getLiveNodes())) {
+        replicas.add(replica);
+      }
+    }
+    replicas.sort(Comparator.comparing((Replica r) -> !r.getNodeName().equals(nodeName))
+        .thenComparing(Replica::getCoreName));
+    StringBuilder urls = new StringBuilder();
+    for (Replica replica : replicas) {
+      if (urls.length() > 0) urls.append('|');
+      urls.append(replica.getCoreUrl());
+    }
+    return urls.toString();
+  }
+
+  /** The join keys of a shard of the "from" collection, and the version of the index they were computed on. */
+  public static final class ShardKeys implements Accountable {
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(ShardKeys.class);
+
+    final String indexVersion;
+    final byte[] keys;
+
+    ShardKeys(String indexVersion, byte[] keys) {
+      this.indexVersion = indexVersion;
+      this.keys = keys;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(indexVersion.toCharArray()) + RamUsageEstimator.sizeOf(keys);
+    }
+  }
+}
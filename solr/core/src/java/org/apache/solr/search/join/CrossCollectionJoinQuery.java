@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.join;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.Query;
+
+/**
+ * A join whose keys have already been fetched from the shards of the "from" collection, see
+ * {@link CrossCollectionJoinQParser}. Two queries are equal if they join the same fields with the same query on
+ * the same versions of the indexes of the "from" shards, which means that they match the same documents.
+ */
+class CrossCollectionJoinQuery extends Query {
+
+  private final String fromIndex;
+  private final String fromField;
+  private final String toField;
+  private final String fromQuery;
+  private final String toVersion; // the "to" searcher the bloom filter was built on, if any
+  private final String[] versions;
+  private final Query setQuery;
+
+  CrossCollectionJoinQuery(String fromIndex, String fromField, String toField, String fromQuery, String toVersion,
+                           String[] versions, Query setQuery) {
+    this.fromIndex = fromIndex;
+    this.fromField = fromField;
+    this.toField = toField;
+    this.fromQuery = fromQuery;
+    this.toVersion = toVersion;
+    this.versions = versions;
+    this.setQuery = setQuery;
+  }
+
+  @Override
+  public Query rewrite(IndexReader reader) throws IOException {
+    return new ConstantScoreQuery(setQuery);
+  }
+
+  @Override
+  public String toString(String field) {
+    return "{!join method=" + CrossCollectionJoinQParser.METHOD + " from=" + fromField + " to=" + toField
+        + " fromIndex=" + fromIndex + (toVersion != null ? " bloomFilter=true" : "") + "}" + fromQuery;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return sameClassAs(other) &&
+           equalsTo(getClass().cast(other));
+  }
+
+  private boolean equalsTo(CrossCollectionJoinQuery other) {
+    return fromIndex.equals(other.fromIndex)
+        && fromField.equals(other.fromField)
+        && toField.equals(other.toField)
+        && Objects.equals(fromQuery, other.fromQuery)
+        && Objects.equals(toVersion, other.toVersion)
+        && Arrays.equals(versions, other.versions);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = classHash();
+    h = h * 31 + fromIndex.hashCode();
+    h = h * 31 + fromField.hashCode();
+    h = h * 31 + toField.hashCode();
+    h = h * 31 + Objects.hashCode(fromQuery);
+    h = h * 31 + Objects.hashCode(toVersion);
+    h = h * 31 + Arrays.hashCode(versions);
+    return h;
+  }
+}
@@ -279,7 +279,8 @@ public class GraphQuery extends Query {
 
     @Override
     public boolean isCacheable(LeafReaderContext ctx) {
-      return true;
+      // the traversal runs on the whole index, so the matches of a segment depend on the other segments
+      return false;
     }
 
     @Override
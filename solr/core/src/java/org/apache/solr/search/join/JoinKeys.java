@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search.join;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.collect.MapMaker;
+import org.apache.lucene.codecs.bloom.FuzzySet;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteBuffersDataOutput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefHash;
+import org.apache.lucene.util.CharsRefBuilder;
+import org.apache.lucene.util.LongBitSet;
+import org.apache.lucene.util.NumericUtils;
+import org.apache.lucene.util.StringHelper;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.schema.FieldType;
+import org.apache.solr.schema.NumberType;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.schema.TrieField;
+import org.apache.solr.search.DocSet;
+import org.apache.solr.search.Filter;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.util.LongIterator;
+import org.apache.solr.util.LongSet;
+
+/**
+ * Helpers for the join keys of a cross-collection join: the sorted unique readable values of a field over a set
+ * of documents, front coded into a single byte array, and the bloom filter of the values of the "to" field that
+ * lets the "from" side skip values that can't match.
+ *
+ * @see org.apache.solr.handler.JoinKeysHandler
+ * @see CrossCollectionJoinQParser
+ * @lucene.internal
+ */
+public final class JoinKeys {
+
+  /** Target ratio of set bits of the bloom filters, which is about their false positive rate. */
+  static final float BLOOM_FILTER_SATURATION = 0.1f;
+  /** Bloom filters that would be larger are not built, the "from" side then returns all its values. */
+  static final int MAX_BLOOM_FILTER_BYTES = 1 << 20;
+
+  // bloom filters of the "to" fields, by reader and field; dropped when the reader is closed
+  private static final Map<IndexReader.CacheKey, Map<String, Optional<FuzzySet>>> bloomFilters = new MapMaker().weakKeys().makeMap();
+
+  private JoinKeys() {}
+
+  /**
+   * Collects the readable values of <code>field</code> over <code>docs</code> and returns them sorted and front
+   * coded. Values for which <code>bloomFilter</code> returns NO are left out.
+   * Point fields need docValues; other fields use their docValues if they have some, else their terms.
+   */
+  public static byte[] collect(SolrIndexSearcher searcher, SchemaField field, DocSet docs, FuzzySet bloomFilter) throws IOException {
+    BytesRefHash values = new BytesRefHash();
+    if (docs.size() > 0) {
+      FieldType ft = field.getType();
+      if (ft.isPointField()) {
+        if (!field.hasDocValues()) {
+          throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+              "join from field " + field + " should have docValues to join with points");
+        }
+        collectNumericDocValues(searcher, field, docs, bloomFilter, values);
+      } else if (field.hasDocValues() && ft.getNumberType() == null) {
+        collectSortedDocValues(searcher, field, docs, bloomFilter, values);
+      } else {
+        collectTerms(searcher, field, docs, bloomFilter, values);
+      }
+    }
+    return encode(values);
+  }
+
+  private static DocIdSetIterator leafDocs(Filter filter, LeafReaderContext ctx) throws IOException {
+    DocIdSet set = filter.getDocIdSet(ctx, null);
+    return set == null ? null : set.iterator();
+  }
+
+  private static void addValue(BytesRef value, FuzzySet bloomFilter, BytesRefHash values) {
+    if (bloomFilter == null || bloomFilter.contains(value) != FuzzySet.ContainsResult.NO) {
+      values.add(value);
+    }
+  }
+
+  private static void collectNumericDocValues(SolrIndexSearcher searcher, SchemaField field, DocSet docs,
+                                              FuzzySet bloomFilter, BytesRefHash values) throws IOException {
+    LongSet set = new LongSet(256);
+    Filter filter = docs.getTopFilter();
+    for (LeafReaderContext ctx : searcher.getTopReaderContext().leaves()) {
+      DocIdSetIterator it = leafDocs(filter, ctx);
+      if (it == null) continue;
+      SortedNumericDocValues dv = DocValues.getSortedNumeric(ctx.reader(), field.getName());
+      for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+        if (dv.advanceExact(doc)) {
+          for (int i = 0, count = dv.docValueCount(); i < count; i++) {
+            set.add(dv.nextValue());
+          }
+        }
+      }
+    }
+
+    // single valued float and double fields keep the raw bits, see GraphPointsCollector
+    NumberType ntype = field.getType().getNumberType();
+    boolean multiValued = field.multiValued();
+    for (LongIterator iter = set.iterator(); iter.hasNext(); ) {
+      long bits = iter.next();
+      String value;
+      switch (ntype) {
+        case INTEGER:
+          value = Integer.toString((int) bits);
+          break;
+        case LONG:
+          value = Long.toString(bits);
+          break;
+        case FLOAT:
+          value = Float.toString(multiValued ? NumericUtils.sortableIntToFloat((int) bits) : Float.intBitsToFloat((int) bits));
+          break;
+        case DOUBLE:
+          value = Double.toString(multiValued ? NumericUtils.sortableLongToDouble(bits) : Double.longBitsToDouble(bits));
+          break;
+        case DATE:
+          value = Instant.ofEpochMilli(bits).toString();
+          break;
+        default:
+          throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "Unsupported join field type: " + field);
+      }
+      addValue(new BytesRef(value), bloomFilter, values);
+    }
+  }
+
+  private static void collectSortedDocValues(SolrIndexSearcher searcher, SchemaField field, DocSet docs,
+                                             FuzzySet bloomFilter, BytesRefHash values) throws IOException {
+    FieldType ft = field.getType();
+    CharsRefBuilder readable = new CharsRefBuilder();
+    Filter filter = docs.getTopFilter();
+    for (LeafReaderContext ctx : searcher.getTopReaderContext().leaves()) {
+      DocIdSetIterator it = leafDocs(filter, ctx);
+      if (it == null) continue;
+      SortedSetDocValues dv = DocValues.getSortedSet(ctx.reader(), field.getName());
+      if (dv.getValueCount() == 0) continue;
+      LongBitSet ords = new LongBitSet(dv.getValueCount());
+      for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+        if (dv.advanceExact(doc)) {
+          for (long ord = dv.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = dv.nextOrd()) {
+            ords.set(ord);
+          }
+        }
+      }
+      for (long ord = ords.nextSetBit(0); ord >= 0; ord = ord + 1 < ords.length() ? ords.nextSetBit(ord + 1) : -1) {
+        ft.indexedToReadable(dv.lookupOrd(ord), readable);
+        addValue(new BytesRef(readable.get()), bloomFilter, values);
+      }
+    }
+  }
+
+  private static void collectTerms(SolrIndexSearcher searcher, SchemaField field, DocSet docs,
+                                   FuzzySet bloomFilter, BytesRefHash values) throws IOException {
+    FieldType ft = field.getType();
+    String prefixStr = TrieField.getMainValuePrefix(ft);
+    BytesRef prefix = prefixStr == null ? null : new BytesRef(prefixStr);
+    CharsRefBuilder readable = new CharsRefBuilder();
+    PostingsEnum postings = null;
+    for (LeafReaderContext ctx : searcher.getTopReaderContext().leaves()) {
+      Terms terms = ctx.reader().terms(field.getName());
+      if (terms == null) continue;
+      TermsEnum termsEnum = terms.iterator();
+      BytesRef term;
+      if (prefix == null) {
+        term = termsEnum.next();
+      } else {
+        term = termsEnum.seekCeil(prefix) == TermsEnum.SeekStatus.END ? null : termsEnum.term();
+      }
+      int base = ctx.docBase;
+      for (; term != null; term = termsEnum.next()) {
+        if (prefix != null && !StringHelper.startsWith(term, prefix)) break;
+        BytesRef value = new BytesRef(ft.indexedToReadable(term, readable));
+        // check the cheap conditions before reading postings
+        if (values.find(value) >= 0) continue;
+        if (bloomFilter != null && bloomFilter.contains(value) == FuzzySet.ContainsResult.NO) continue;
+        // docs only contains live docs
+        postings = termsEnum.postings(postings, PostingsEnum.NONE);
+        for (int doc = postings.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = postings.nextDoc()) {
+          if (docs.exists(base + doc)) {
+            values.add(value);
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  /** Front codes sorted unique values: their count, then for each value the length of the prefix it shares with the previous value, the length of the suffix and the suffix. */
+  static byte[] encode(BytesRefHash values) throws IOException {
+    int[] ids = values.sort();
+    int count = values.size();
+    ByteBuffersDataOutput out = new ByteBuffersDataOutput();
+    out.writeVInt(count);
+    BytesRef previous = new BytesRef();
+    BytesRef current = new BytesRef();
+    for (int i = 0; i < count; i++) {
+      values.get(ids[i], current);
+      int prefix = 0;
+      int max = Math.min(previous.length, current.length);
+      while (prefix < max && previous.bytes[previous.offset + prefix] == current.bytes[current.offset + prefix]) {
+        prefix++;
+      }
+      out.writeVInt(prefix);
+      out.writeVInt(current.length - prefix);
+      out.writeBytes(current.bytes, current.offset + prefix, current.length - prefix);
+      BytesRef tmp = previous;
+      previous = current;
+      current = tmp;
+    }
+    return out.toArrayCopy();
+  }
+
+  /** Returns the number of values of front coded join keys. */
+  public static int size(byte[] keys) {
+    return new ByteArrayDataInput(keys).readVInt();
+  }
+
+  /** Decodes front coded join keys, in sorted order. */
+  public static List<String> decode(byte[] keys) {
+    ByteArrayDataInput in = new ByteArrayDataInput(keys);
+    int count = in.readVInt();
+    List<String> values = new ArrayList<>(count);
+    byte[] buffer = new byte[16];
+    for (int i = 0; i < count; i++) {
+      int prefix = in.readVInt();
+      int suffix = in.readVInt();
+      if (prefix + suffix > buffer.length) {
+        byte[] newBuffer = new byte[Math.max(prefix + suffix, buffer.length * 2)];
+        System.arraycopy(buffer, 0, newBuffer, 0, prefix);
+        buffer = newBuffer;
+      }
+      in.readBytes(buffer, prefix, suffix);
+      values.add(new BytesRef(buffer, 0, prefix + suffix).utf8ToString());
+    }
+    return values;
+  }
+
+  /**
+   * Returns the bloom filter of the readable values of the indexed terms of <code>field</code>, or null if the field
+   * has no terms or if the filter would be too large to be sent to the "from" side. Bloom filters are cached for as
+   * long as the reader of the searcher is open.
+   */
+  public static FuzzySet getBloomFilter(SolrIndexSearcher searcher, SchemaField field) throws IOException {
+    if (field.getType().isPointField() || !field.indexed()) {
+      return null;
+    }
+    IndexReader.CacheHelper cacheHelper = searcher.getIndexReader().getReaderCacheHelper();
+    if (cacheHelper == null) {
+      return buildBloomFilter(searcher, field);
+    }
+    Map<String, Optional<FuzzySet>> filters = bloomFilters.computeIfAbsent(cacheHelper.getKey(), k -> new ConcurrentHashMap<>());
+    Optional<FuzzySet> filter = filters.get(field.getName());
+    if (filter == null) {
+      // also remember filters that can't be built, there's no need to try again for this reader
+      filter = Optional.ofNullable(buildBloomFilter(searcher, field));
+      filters.put(field.getName(), filter);
+    }
+    return filter.orElse(null);
+  }
+
+  private static FuzzySet buildBloomFilter(SolrIndexSearcher searcher, SchemaField field) throws IOException {
+    Terms terms = searcher.getSlowAtomicReader().terms(field.getName());
+    if (terms == null) {
+      return null;
+    }
+    long numTerms = terms.size();
+    if (numTerms < 0) {
+      numTerms = searcher.maxDoc();
+    }
+    if (numTerms == 0 || numTerms > Integer.MAX_VALUE
+        || FuzzySet.getNearestSetSize((int) numTerms, BLOOM_FILTER_SATURATION) < 0) {
+      return null;
+    }
+    FuzzySet filter = FuzzySet.createSetBasedOnQuality((int) numTerms, BLOOM_FILTER_SATURATION);
+
+    FieldType ft = field.getType();
+    String prefixStr = TrieField.getMainValuePrefix(ft);
+    BytesRef prefix = prefixStr == null ? null : new BytesRef(prefixStr);
+    CharsRefBuilder readable = new CharsRefBuilder();
+    TermsEnum termsEnum = terms.iterator();
+    BytesRef term;
+    if (prefix == null) {
+      term = termsEnum.next();
+    } else {
+      term = termsEnum.seekCeil(prefix) == TermsEnum.SeekStatus.END ? null : termsEnum.term();
+    }
+    for (; term != null; term = termsEnum.next()) {
+      if (prefix != null && !StringHelper.startsWith(term, prefix)) break;
+      filter.addValue(new BytesRef(ft.indexedToReadable(term, readable)));
+    }
+
+    FuzzySet downsized = filter.downsize(BLOOM_FILTER_SATURATION);
+    if (downsized != null) {
+      filter = downsized;
+    }
+    return filter.ramBytesUsed() > MAX_BLOOM_FILTER_BYTES ? null : filter;
+  }
+
+  /** Serializes a bloom filter so that it can be sent as a request parameter. */
+  public static byte[] serialize(FuzzySet filter) throws IOException {
+    ByteBuffersDataOutput out = new ByteBuffersDataOutput();
+    filter.serialize(out);
+    return out.toArrayCopy();
+  }
+
+  public static FuzzySet deserialize(byte[] bytes) throws IOException {
+    return FuzzySet.deserialize(new ByteArrayDataInput(bytes));
+  }
+}
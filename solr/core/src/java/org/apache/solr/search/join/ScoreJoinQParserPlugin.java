@@ -286,7 +286,7 @@ public class ScoreJoinQParserPlugin extends QParserPlugin {
     return fromIndex;
   }
 
-  private static String resolveAlias(String fromIndex, ZkController zkController) {
+  static String resolveAlias(String fromIndex, ZkController zkController) {
     final Aliases aliases = zkController.getZkStateReader().getAliases();
     List<String> collections = aliases.resolveAliases(fromIndex); // if not an alias, returns input
     if (collections.size() != 1) {
@@ -0,0 +1,646 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.util;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.common.util.Cache;
+import org.apache.solr.search.LRUCache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A cache implementation based upon ConcurrentHashMap that uses the W-TinyLFU eviction policy.
+ * <p>
+ * New entries are first added to a small LRU admission window. Entries that overflow the window
+ * are only admitted into the main space, a segmented LRU with a probation and a protected segment,
+ * if they have been accessed more frequently than the entry that would be evicted in their place.
+ * Access frequencies are approximated by a count-min sketch of 4-bit counters which are halved
+ * periodically so that the history of accesses ages. This protects frequently used entries from
+ * being flushed by scans, such as a burst of filters that are used only once.
+ * <p>
+ * Reads and writes don't update the eviction policy directly. They are recorded in buffers that
+ * get applied, together with evictions, under a lock by a maintenance task which runs on the
+ * provided executor, so that readers and writers never wait for evictions. The read buffer is
+ * lossy: under heavy load, some accesses may not be taken into account by the policy. Writers only
+ * perform maintenance themselves if the executor falls too far behind.
+ * <p>
+ * The cache is bounded either by its number of entries or by the RAM usage of its entries.
+ *
+ * @see <a href="https://arxiv.org/abs/1512.00727">TinyLFU: A Highly Efficient Cache Admission Policy</a>
+ */
+public class ConcurrentTinyLFUCache<K,V> implements Cache<K,V>, Accountable {
+
+  static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(ConcurrentTinyLFUCache.class);
+
+  // percentage of the maximum weight that is used for the admission window
+  static final double WINDOW_RATIO = 0.01;
+  // percentage of the main space that is used for the protected segment
+  static final double PROTECTED_RATIO = 0.8;
+
+  static final int READ_BUFFER_SIZE = 128; // must be a power of 2
+  // number of reads after which maintenance is scheduled
+  static final int READ_DRAIN_THRESHOLD = 32; // must be a power of 2
+  // number of pending writes after which writers perform maintenance themselves
+  static final int WRITE_BUFFER_MAX = 1024;
+
+  private static final int IDLE = 0, REQUIRED = 1, PROCESSING = 2;
+
+  private final ConcurrentHashMap<K, Node<K,V>> map;
+  private final boolean ramBounded;
+  private final long maximum, maxWindow, maxProtected;
+  private final Executor executor;
+  private final Runnable drainTask = this::maintenance;
+  private volatile boolean islive = true;
+  private final Stats stats = new Stats();
+
+  private final AtomicReferenceArray<Node<K,V>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+  private final AtomicLong readCounter = new AtomicLong();
+  private final ConcurrentLinkedQueue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pendingWrites = new AtomicInteger();
+  private final AtomicInteger drainStatus = new AtomicInteger(IDLE);
+
+  // the below fields are only accessed under the eviction lock
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final FrequencySketch sketch = new FrequencySketch();
+  private final AccessOrderDeque<K,V> window = new AccessOrderDeque<>();
+  private final AccessOrderDeque<K,V> probation = new AccessOrderDeque<>();
+  private final AccessOrderDeque<K,V> protectedSegment = new AccessOrderDeque<>();
+  private long windowWeight, protectedWeight, totalWeight;
+  private final AtomicLong ramBytes = new AtomicLong();
+
+  /**
+   * Create a cache that holds at most {@code maxSize} entries.
+   * @param executor the executor to run maintenance on, eg. {@link ForkJoinPool#commonPool()}
+   */
+  public ConcurrentTinyLFUCache(int maxSize, int initialSize, Executor executor) {
+    this(false, maxSize, initialSize, executor);
+  }
+
+  /**
+   * Create a cache whose entries use at most {@code maxRamBytes} bytes of RAM.
+   * @param executor the executor to run maintenance on, eg. {@link ForkJoinPool#commonPool()}
+   */
+  public ConcurrentTinyLFUCache(long maxRamBytes, int initialSize, Executor executor) {
+    this(true, maxRamBytes, initialSize, executor);
+  }
+
+  private ConcurrentTinyLFUCache(boolean ramBounded, long maximum, int initialSize, Executor executor) {
+    if (maximum < 1) throw new IllegalArgumentException("maximum must be > 0");
+    this.ramBounded = ramBounded;
+    this.maximum = maximum;
+    this.maxWindow = Math.max(1, (long) (maximum * WINDOW_RATIO));
+    this.maxProtected = (long) ((maximum - maxWindow) * PROTECTED_RATIO);
+    this.map = new ConcurrentHashMap<>(initialSize);
+    this.executor = executor;
+    sketch.ensureCapacity(ramBounded ? initialSize : maximum);
+  }
+
+  public void setAlive(boolean live) {
+    islive = live;
+  }
+
+  @Override
+  public V get(K key) {
+    Node<K,V> node = map.get(key);
+    if (node == null) {
+      if (islive) stats.missCounter.increment();
+      return null;
+    }
+    if (islive) {
+      stats.hitCounter.increment();
+      afterRead(node);
+    }
+    return node.value;
+  }
+
+  @Override
+  public V put(K key, V val) {
+    if (val == null) return null;
+    final Node<K,V> node = new Node<>(key, val, spread(key.hashCode()));
+    final Node<K,V> prior = map.put(key, node);
+    if (prior != null) {
+      afterWrite(() -> onRemove(prior));
+    } else {
+      stats.size.incrementAndGet();
+    }
+    if (islive) {
+      stats.putCounter.increment();
+    } else {
+      stats.nonLivePutCounter.increment();
+    }
+    afterWrite(() -> onAdd(node));
+    return prior == null ? null : prior.value;
+  }
+
+  @Override
+  public V remove(K key) {
+    final Node<K,V> node = map.remove(key);
+    if (node == null) {
+      return null;
+    }
+    stats.size.decrementAndGet();
+    afterWrite(() -> onRemove(node));
+    return node.value;
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      drainWriteBuffer();
+      for (Node<K,V> node : map.values()) {
+        if (map.remove(node.key, node)) {
+          stats.size.decrementAndGet();
+          onRemove(node);
+        }
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  public int size() {
+    return stats.size.get();
+  }
+
+  public void destroy() {
+    islive = false;
+    clear();
+  }
+
+  /**
+   * Returns up to {@code n} entries of this cache, the ones that are most likely to be used again
+   * first: entries of the protected segment, then of the admission window, then of the probation
+   * segment, each from the most to the least recently used.
+   */
+  public Map<K,V> getHottestItems(int n) {
+    final Map<K,V> result = new LinkedHashMap<>();
+    if (n <= 0) {
+      return result;
+    }
+    evictionLock.lock();
+    try {
+      drainBuffers();
+      for (AccessOrderDeque<K,V> deque : Arrays.asList(protectedSegment, window, probation)) {
+        for (Node<K,V> node = deque.last(); node != null && result.size() < n; node = node.prev) {
+          result.put(node.key, node.value);
+        }
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+    return result;
+  }
+
+  /** Apply all pending reads, writes and evictions. Only useful for tests. */
+  public void cleanUp() {
+    maintenance();
+  }
+
+  private void afterRead(Node<K,V> node) {
+    final long count = readCounter.getAndIncrement();
+    readBuffer.lazySet((int) (count & (READ_BUFFER_SIZE - 1)), node);
+    if ((count & (READ_DRAIN_THRESHOLD - 1)) == READ_DRAIN_THRESHOLD - 1) {
+      scheduleDrain();
+    }
+  }
+
+  private void afterWrite(Runnable task) {
+    writeBuffer.add(task);
+    if (pendingWrites.incrementAndGet() > WRITE_BUFFER_MAX) {
+      // the executor can't keep up, apply back pressure
+      maintenance();
+    } else {
+      scheduleDrain();
+    }
+  }
+
+  private void scheduleDrain() {
+    if (drainStatus.getAndSet(REQUIRED) == IDLE) {
+      try {
+        executor.execute(drainTask);
+      } catch (RejectedExecutionException e) {
+        maintenance();
+      }
+    }
+  }
+
+  private void maintenance() {
+    evictionLock.lock();
+    try {
+      do {
+        drainStatus.set(PROCESSING);
+        drainBuffers();
+      } while (drainStatus.compareAndSet(PROCESSING, IDLE) == false);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /* Must be called under the eviction lock */
+  private void drainBuffers() {
+    drainReadBuffer();
+    drainWriteBuffer();
+    evict();
+  }
+
+  private void drainReadBuffer() {
+    for (int i = 0; i < READ_BUFFER_SIZE; ++i) {
+      final Node<K,V> node = readBuffer.getAndSet(i, null);
+      if (node != null) {
+        onAccess(node);
+      }
+    }
+  }
+
+  private void drainWriteBuffer() {
+    Runnable task;
+    while ((task = writeBuffer.poll()) != null) {
+      pendingWrites.decrementAndGet();
+      task.run();
+    }
+  }
+
+  private void onAdd(Node<K,V> node) {
+    if (node.queue != Node.NEW) {
+      // removed before it got added to the policy
+      return;
+    }
+    node.ramBytes = node.ramBytesUsed() + LRUCache.HASHTABLE_RAM_BYTES_PER_ENTRY;
+    node.weight = ramBounded ? node.ramBytes : 1;
+    ramBytes.addAndGet(node.ramBytes);
+    sketch.ensureCapacity(map.size());
+    sketch.increment(node.hash);
+    node.queue = Node.WINDOW;
+    window.addLast(node);
+    windowWeight += node.weight;
+    totalWeight += node.weight;
+  }
+
+  private void onAccess(Node<K,V> node) {
+    sketch.increment(node.hash);
+    switch (node.queue) {
+      case Node.WINDOW:
+        window.moveToLast(node);
+        break;
+      case Node.PROBATION:
+        // promote
+        probation.remove(node);
+        node.queue = Node.PROTECTED;
+        protectedSegment.addLast(node);
+        protectedWeight += node.weight;
+        // demote the least recently used entries of the protected segment if it overflows
+        while (protectedWeight > maxProtected && protectedSegment.first() != node) {
+          final Node<K,V> demoted = protectedSegment.first();
+          protectedSegment.remove(demoted);
+          protectedWeight -= demoted.weight;
+          demoted.queue = Node.PROBATION;
+          probation.addLast(demoted);
+        }
+        break;
+      case Node.PROTECTED:
+        protectedSegment.moveToLast(node);
+        break;
+      default:
+        // not added yet, or removed
+        break;
+    }
+  }
+
+  private void onRemove(Node<K,V> node) {
+    switch (node.queue) {
+      case Node.WINDOW:
+        window.remove(node);
+        windowWeight -= node.weight;
+        break;
+      case Node.PROBATION:
+        probation.remove(node);
+        break;
+      case Node.PROTECTED:
+        protectedSegment.remove(node);
+        protectedWeight -= node.weight;
+        break;
+      default:
+        node.queue = Node.DEAD;
+        return;
+    }
+    node.queue = Node.DEAD;
+    totalWeight -= node.weight;
+    ramBytes.addAndGet(-node.ramBytes);
+  }
+
+  /**
+   * Move entries that overflow the admission window to the probation segment, and then evict
+   * entries until the cache is within bounds. Each entry that came from the window competes with
+   * the least recently used entry of the probation segment, and the least frequently used of both
+   * gets evicted.
+   */
+  private void evict() {
+    int candidates = 0;
+    while (windowWeight > maxWindow && window.first() != null) {
+      final Node<K,V> node = window.first();
+      window.remove(node);
+      windowWeight -= node.weight;
+      node.queue = Node.PROBATION;
+      probation.addLast(node);
+      candidates++;
+    }
+
+    while (totalWeight > maximum) {
+      Node<K,V> victim = probation.first();
+      if (victim == null) {
+        victim = protectedSegment.first() != null ? protectedSegment.first() : window.first();
+      }
+      final Node<K,V> candidate = candidates > 0 ? probation.last() : null;
+      final Node<K,V> evicted;
+      if (candidate == null || candidate == victim) {
+        evicted = victim;
+      } else if (sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+        evicted = victim;
+      } else {
+        evicted = candidate;
+      }
+      if (evicted == candidate) {
+        candidates--;
+      }
+      evictEntry(evicted);
+    }
+  }
+
+  private void evictEntry(Node<K,V> node) {
+    onRemove(node);
+    if (map.remove(node.key, node)) {
+      stats.size.decrementAndGet();
+      stats.evictionCounter.increment();
+    }
+  }
+
+  /** Spread the bits of a hash code, as the sketch relies on its low bits. */
+  static int spread(int x) {
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+
+  public Map<K, Node<K,V>> getMap() {
+    return map;
+  }
+
+  public static final class Node<K,V> implements Accountable {
+    static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Node.class);
+
+    static final byte NEW = 0, WINDOW = 1, PROBATION = 2, PROTECTED = 3, DEAD = 4;
+
+    final K key;
+    final V value;
+    final int hash;
+    // the below fields are only accessed under the eviction lock
+    long weight;
+    long ramBytes;
+    byte queue = NEW;
+    Node<K,V> prev, next;
+
+    Node(K key, V value, int hash) {
+      this.key = key;
+      this.value = value;
+      this.hash = hash;
+    }
+
+    public K getKey() {
+      return key;
+    }
+
+    public V getValue() {
+      return value;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      long ramBytes = BASE_RAM_BYTES_USED;
+      if (key instanceof Accountable) {
+        ramBytes += ((Accountable) key).ramBytesUsed();
+      } else {
+        ramBytes += LRUCache.DEFAULT_RAM_BYTES_USED;
+      }
+      if (value instanceof Accountable) {
+        ramBytes += ((Accountable) value).ramBytesUsed();
+      } else {
+        ramBytes += LRUCache.DEFAULT_RAM_BYTES_USED;
+      }
+      return ramBytes;
+    }
+
+    @Override
+    public String toString() {
+      return "key: " + key + " value: " + value;
+    }
+  }
+
+  /** A doubly-linked list of nodes, from the least to the most recently used. */
+  static final class AccessOrderDeque<K,V> {
+    private Node<K,V> first, last;
+
+    Node<K,V> first() {
+      return first;
+    }
+
+    Node<K,V> last() {
+      return last;
+    }
+
+    void addLast(Node<K,V> node) {
+      node.prev = last;
+      node.next = null;
+      if (last == null) {
+        first = node;
+      } else {
+        last.next = node;
+      }
+      last = node;
+    }
+
+    void remove(Node<K,V> node) {
+      if (node.prev == null) {
+        first = node.next;
+      } else {
+        node.prev.next = node.next;
+      }
+      if (node.next == null) {
+        last = node.prev;
+      } else {
+        node.next.prev = node.prev;
+      }
+      node.prev = node.next = null;
+    }
+
+    void moveToLast(Node<K,V> node) {
+      if (node != last) {
+        remove(node);
+        addLast(node);
+      }
+    }
+  }
+
+  /**
+   * A count-min sketch of 4-bit counters that estimates how often keys have been accessed. Each
+   * long of the table holds 16 counters, and a key maps to 4 counters of a single long. Once the
+   * number of increments reaches 10 times the capacity, all counters are halved so that old
+   * accesses weigh less than recent ones.
+   */
+  static final class FrequencySketch {
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAX_TABLE_LENGTH = 1 << 30;
+
+    private long[] table = new long[0];
+    private int tableMask;
+    private int sampleSize;
+    private int additions;
+
+    /** Grow the sketch so that it can accurately track {@code maximumSize} keys. */
+    void ensureCapacity(long maximumSize) {
+      final int length = (int) Math.min(Math.max(Long.highestOneBit(Math.max(maximumSize, 1) - 1) << 1, 16), MAX_TABLE_LENGTH);
+      if (length <= table.length) {
+        return;
+      }
+      table = new long[length];
+      tableMask = length - 1;
+      sampleSize = (int) Math.min(10L * length, Integer.MAX_VALUE);
+      additions = 0;
+    }
+
+    int frequency(int hash) {
+      final int start = (hash & 3) << 2;
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < 4; i++) {
+        final int index = indexOf(hash, i);
+        final int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+        frequency = Math.min(frequency, count);
+      }
+      return frequency;
+    }
+
+    void increment(int hash) {
+      final int start = (hash & 3) << 2;
+      boolean added = false;
+      for (int i = 0; i < 4; i++) {
+        final int index = indexOf(hash, i);
+        final int offset = (start + i) << 2;
+        final long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+          table[index] += 1L << offset;
+          added = true;
+        }
+      }
+      if (added && ++additions == sampleSize) {
+        reset();
+      }
+    }
+
+    private void reset() {
+      int count = 0;
+      for (int i = 0; i < table.length; i++) {
+        count += Long.bitCount(table[i] & ONE_MASK);
+        table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      additions = (additions >>> 1) - (count >>> 2);
+    }
+
+    private int indexOf(int hash, int i) {
+      long h = (hash + SEEDS[i]) * SEEDS[i];
+      h += h >>> 32;
+      return ((int) h) & tableMask;
+    }
+  }
+
+  public Stats getStats() {
+    return stats;
+  }
+
+  public static class Stats {
+    private final LongAdder hitCounter = new LongAdder();
+    private final LongAdder putCounter = new LongAdder();
+    private final LongAdder nonLivePutCounter = new LongAdder();
+    private final LongAdder missCounter = new LongAdder();
+    private final LongAdder evictionCounter = new LongAdder();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public long getCumulativeLookups() {
+      return hitCounter.longValue() + missCounter.longValue();
+    }
+
+    public long getCumulativeHits() {
+      return hitCounter.longValue();
+    }
+
+    public long getCumulativePuts() {
+      return putCounter.longValue();
+    }
+
+    public long getCumulativeEvictions() {
+      return evictionCounter.longValue();
+    }
+
+    public int getCurrentSize() {
+      return size.get();
+    }
+
+    public long getCumulativeNonLivePuts() {
+      return nonLivePutCounter.longValue();
+    }
+
+    public long getCumulativeMisses() {
+      return missCounter.longValue();
+    }
+
+    public void add(Stats other) {
+      hitCounter.add(other.hitCounter.longValue());
+      putCounter.add(other.putCounter.longValue());
+      nonLivePutCounter.add(other.nonLivePutCounter.longValue());
+      missCounter.add(other.missCounter.longValue());
+      evictionCounter.add(other.evictionCounter.longValue());
+      size.set(Math.max(size.get(), other.size.get()));
+    }
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return BASE_RAM_BYTES_USED + ramBytes.get();
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    return Collections.emptyList();
+  }
+}
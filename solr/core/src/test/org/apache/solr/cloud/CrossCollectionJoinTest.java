@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.cloud;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.handler.JoinKeysHandler;
+import org.apache.solr.search.join.JoinKeys;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests <code>{!join method=crossCollection}</code> from a collection with several shards.
+ */
+public class CrossCollectionJoinTest extends SolrCloudTestCase {
+
+  private static final String TO_COLL = "to_2x1";
+  private static final String FROM_COLL = "from_3x1";
+
+  @BeforeClass
+  public static void setupCluster() throws Exception {
+    final Path configDir = Paths.get(TEST_HOME(), "collection1", "conf");
+    String configName = "solrCloudCollectionConfig";
+    configureCluster(3)
+        .addConfig(configName, configDir)
+        .configure();
+
+    Map<String, String> collectionProperties = new HashMap<>();
+    collectionProperties.put("config", "solrconfig-tlog.xml");
+    collectionProperties.put("schema", "schema.xml");
+    CollectionAdminRequest.createCollection(TO_COLL, configName, 2, 1)
+        .setProperties(collectionProperties)
+        .process(cluster.getSolrClient());
+    CollectionAdminRequest.createCollection(FROM_COLL, configName, 3, 1)
+        .setProperties(collectionProperties)
+        .process(cluster.getSolrClient());
+    cluster.waitForActiveCollection(TO_COLL, 2, 2);
+    cluster.waitForActiveCollection(FROM_COLL, 3, 3);
+
+    UpdateRequest to = new UpdateRequest();
+    for (int i = 0; i < 5; i++) {
+      to.add(doc("id", "t" + i, "join_s", String.valueOf((char) ('a' + i)), "join_i_p", Integer.toString(i)));
+    }
+    to.commit(cluster.getSolrClient(), TO_COLL);
+
+    UpdateRequest from = new UpdateRequest();
+    for (int i = 0; i < 12; i++) {
+      // values a, b, d and e match "x", values g to l don't exist in the "to" collection
+      String value = String.valueOf((char) ('a' + i));
+      from.add(doc("id", "f" + i, "join_s", value, "join_i_p", Integer.toString(i), "match_s", i == 2 ? "y" : "x"));
+    }
+    from.commit(cluster.getSolrClient(), FROM_COLL);
+  }
+
+  private static SolrInputDocument doc(String... fields) {
+    SolrInputDocument doc = new SolrInputDocument();
+    for (int i = 0; i < fields.length; i += 2) {
+      doc.addField(fields[i], fields[i + 1]);
+    }
+    return doc;
+  }
+
+  private static Set<String> join(String localParams, String fromQuery) throws Exception {
+    QueryRequest qr = new QueryRequest(params("q", "{!join method=crossCollection fromIndex=" + FROM_COLL + " "
+        + localParams + "}" + fromQuery, "fl", "id", "rows", "100"));
+    QueryResponse rsp = qr.process(cluster.getSolrClient(), TO_COLL);
+    Set<String> ids = new HashSet<>();
+    for (SolrDocument doc : rsp.getResults()) {
+      ids.add((String) doc.getFirstValue("id"));
+    }
+    return ids;
+  }
+
+  private static Set<String> ids(String... ids) {
+    return new HashSet<>(Arrays.asList(ids));
+  }
+
+  @Test
+  public void testJoin() throws Exception {
+    assertEquals(ids("t0", "t1", "t3", "t4"), join("from=join_s to=join_s", "match_s:x"));
+    assertEquals(ids("t2"), join("from=join_s to=join_s", "match_s:y"));
+    assertEquals(ids(), join("from=join_s to=join_s", "match_s:z"));
+    // points, which are collected from docValues
+    assertEquals(ids("t0", "t1", "t3", "t4"), join("from=join_i_p to=join_i_p", "match_s:x"));
+    // the bloom filter doesn't change the results
+    assertEquals(ids("t0", "t1", "t3", "t4"), join("from=join_s to=join_s bloomFilter=true", "match_s:x"));
+    assertEquals(ids("t2"), join("from=join_s to=join_s bloomFilter=true", "match_s:y"));
+  }
+
+  @Test
+  public void testFromCollectionChanges() throws Exception {
+    assertEquals(ids("t2"), join("from=join_s to=join_s", "id:(f2 OR f100)"));
+    new UpdateRequest().add(doc("id", "f100", "join_s", "a", "join_i_p", "0", "match_s", "z"))
+        .commit(cluster.getSolrClient(), FROM_COLL);
+    // the cached keys of the shard that changed are not used anymore
+    assertEquals(ids("t0", "t2"), join("from=join_s to=join_s", "id:(f2 OR f100)"));
+    new UpdateRequest().deleteById("f100").commit(cluster.getSolrClient(), FROM_COLL);
+    assertEquals(ids("t2"), join("from=join_s to=join_s", "id:(f2 OR f100)"));
+  }
+
+  @Test
+  public void testJoinKeysHandler() throws Exception {
+    Replica replica = getCollectionState(FROM_COLL).getSlices().iterator().next().getReplicas().iterator().next();
+    try (SolrClient client = getHttpSolrClient(replica.getCoreUrl())) {
+      QueryRequest req = new QueryRequest(params("qt", "/joinkeys", "q", "*:*", "field", "join_s"));
+      NamedList<Object> rsp = client.request(req);
+      String indexVersion = (String) rsp.get(JoinKeysHandler.INDEX_VERSION);
+      assertNotNull(indexVersion);
+      byte[] keys = (byte[]) rsp.get(JoinKeysHandler.KEYS);
+      List<String> values = JoinKeys.decode(keys);
+      assertEquals(((Number) rsp.get(JoinKeysHandler.NUM_KEYS)).intValue(), values.size());
+      for (int i = 1; i < values.size(); i++) {
+        assertTrue(values.get(i - 1).compareTo(values.get(i)) < 0);
+      }
+
+      // the keys are only returned again if the index changed
+      req = new QueryRequest(params("qt", "/joinkeys", "q", "*:*", "field", "join_s",
+          JoinKeysHandler.IF_INDEX_VERSION, indexVersion));
+      rsp = client.request(req);
+      assertEquals(Boolean.TRUE, rsp.get(JoinKeysHandler.NOT_MODIFIED));
+      assertNull(rsp.get(JoinKeysHandler.KEYS));
+    }
+  }
+}
@@ -249,7 +249,7 @@ class SegmentTerminateEarlyTestState {
     TestSegmentSorting.assertTrue("numDocs="+numDocs+" is not even", (numDocs%2)==0);
     final Long oddFieldValue = (long) (minTimestampDocKeys.iterator().next().intValue() % 2);
     final SolrQuery query = new SolrQuery(ODD_FIELD +":"+oddFieldValue);
-    query.setSort(TIMESTAMP_FIELD, SolrQuery.ORDER.asc); // a sort order that is _not_ compatible with the merge sort order
+    query.setSort(TIMESTAMP_FIELD, SolrQuery.ORDER.asc); // the reverse of the merge sort order
     query.setFields(KEY_FIELD, ODD_FIELD, TIMESTAMP_FIELD);
     query.setRows(1);
     query.set(CommonParams.SEGMENT_TERMINATE_EARLY, true);
@@ -268,7 +268,8 @@ class SegmentTerminateEarlyTestState {
     // check segmentTerminatedEarly flag
     TestSegmentSorting.assertNotNull("responseHeader.segmentTerminatedEarly missing in "+rsp.getResponseHeader(),
         rsp.getResponseHeader().get(SolrQueryResponse.RESPONSE_HEADER_SEGMENT_TERMINATED_EARLY_KEY));
-    // segmentTerminateEarly cannot be used with incompatible sort orders
+    // segments are collected in reverse from their last window of 1024 docs at least, which covers
+    // the small segments of this test entirely, so they don't terminate early
     TestSegmentSorting.assertTrue("responseHeader.segmentTerminatedEarly missing/true in "+rsp.getResponseHeader(),
         Boolean.FALSE.equals(rsp.getResponseHeader().get(SolrQueryResponse.RESPONSE_HEADER_SEGMENT_TERMINATED_EARLY_KEY)));
   }
@@ -113,7 +113,7 @@ public class TestSegmentSorting extends SolrCloudTestCase {
     
     // CommonParams.SEGMENT_TERMINATE_EARLY parameter present but it won't be used
     tstes.queryTimestampDescendingSegmentTerminateEarlyYesGrouped(cloudSolrClient);
-    tstes.queryTimestampAscendingSegmentTerminateEarlyYes(cloudSolrClient); // uses a sort order that is _not_ compatible with the merge sort order
+    tstes.queryTimestampAscendingSegmentTerminateEarlyYes(cloudSolrClient); // uses the reverse of the merge sort order
     
   }
 
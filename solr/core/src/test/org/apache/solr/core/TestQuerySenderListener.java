@@ -18,6 +18,7 @@ package org.apache.solr.core;
 
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.params.EventParams;
+import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -36,10 +37,23 @@ public class TestQuerySenderListener extends SolrTestCaseJ4 {
     // in the same VM
     preInitMockListenerCount = MockEventListener.getCreateCount();
 
+    // randomly warm new searchers with the parallel warming mode, with a budget that is large enough
+    // for listeners to complete
+    if (random().nextBoolean()) {
+      System.setProperty("tests.solr.warmingThreads", String.valueOf(random().nextInt(4) + 1));
+      System.setProperty("tests.solr.maxWarmingTimeMillis", random().nextBoolean() ? "-1" : "600000");
+    }
+
     initCore("solrconfig-querysender.xml","schema.xml");
 
   }
 
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty("tests.solr.warmingThreads");
+    System.clearProperty("tests.solr.maxWarmingTimeMillis");
+  }
+
   public void testListenerCreationCounts() {
     h.getCore();
 
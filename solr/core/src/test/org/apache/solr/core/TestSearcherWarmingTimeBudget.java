@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.core;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests that a new searcher gets registered once its warming exceeds <code>maxWarmingTimeMillis</code>, and that
+ * abandoned warming tasks stop.
+ */
+public class TestSearcherWarmingTimeBudget extends SolrTestCaseJ4 {
+
+  private static final long MAX_WARMING_TIME_MILLIS = 500;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // a single warming thread, so that the second slow listener is still queued when warming gets abandoned
+    System.setProperty("tests.solr.warmingThreads", "1");
+    System.setProperty("tests.solr.maxWarmingTimeMillis", String.valueOf(MAX_WARMING_TIME_MILLIS));
+    initCore("solrconfig-querysender.xml", "schema.xml");
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty("tests.solr.warmingThreads");
+    System.clearProperty("tests.solr.maxWarmingTimeMillis");
+  }
+
+  /** A newSearcher listener that keeps warming until it is told to stop. */
+  private static class SlowListener implements SolrEventListener {
+    final CountDownLatch done = new CountDownLatch(1);
+    volatile SolrIndexSearcher searcher;
+    volatile boolean started;
+    volatile boolean stopped;
+
+    @Override
+    public void init(NamedList args) {}
+
+    @Override
+    public void postCommit() {}
+
+    @Override
+    public void postSoftCommit() {}
+
+    @Override
+    public void newSearcher(SolrIndexSearcher newSearcher, SolrIndexSearcher currentSearcher) {
+      searcher = newSearcher;
+      started = true;
+      try {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (newSearcher.isWarmingStopped() == false && System.nanoTime() < deadline) {
+          Thread.sleep(10);
+        }
+        stopped = newSearcher.isWarmingStopped();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        done.countDown();
+      }
+    }
+  }
+
+  @Test
+  public void testSlowListenerIsAbandoned() throws Exception {
+    SolrCore core = h.getCore();
+    SlowListener slow = new SlowListener();
+    SlowListener queued = new SlowListener();
+    core.registerNewSearcherListener(slow);
+    core.registerNewSearcherListener(queued);
+
+    final long start = System.nanoTime();
+    assertU(adoc("id", "1"));
+    assertU(commit());
+    final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    // the commit waits for the new searcher, which got registered once its warming budget was exceeded
+    assertTrue("took " + elapsedMillis + "ms", elapsedMillis >= MAX_WARMING_TIME_MILLIS);
+    assertTrue(slow.started);
+    core.withSearcher(searcher -> {
+      assertSame(slow.searcher, searcher);
+      assertTrue(searcher.isWarmingStopped());
+      return null;
+    });
+    assertQ(req("q", "id:1"), "//result[@numFound='1']");
+
+    // the running listener noticed that warming stopped, and the queued one never ran
+    assertTrue(slow.done.await(60, TimeUnit.SECONDS));
+    assertTrue(slow.stopped);
+    assertFalse(queued.started);
+  }
+}
@@ -20,12 +20,15 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 
+import org.apache.lucene.document.Document;
 import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.util.BytesRef;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.SolrDocument;
@@ -37,6 +40,7 @@ import org.apache.solr.common.util.JavaBinCodec;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.request.LocalSolrQueryRequest;
 import org.apache.solr.response.BinaryResponseWriter.Resolver;
+import org.apache.solr.search.SolrCache;
 import org.apache.solr.search.SolrReturnFields;
 import org.apache.solr.util.SimplePostTool;
 import org.junit.BeforeClass;
@@ -117,6 +121,87 @@ public class TestBinaryResponseWriter extends SolrTestCaseJ4 {
     req.close();
   }
 
+  /**
+   * Tests that documents whose returned fields are all stored UTF-8 fields, which are streamed
+   * from the stored fields, are written like any other document
+   */
+  public void testStreamedStoredFields() throws Exception {
+    assertU(adoc("id", "201", "name_s", "ประเทศไทย", "name_s", "second", "desc_t", "मंदिर", "count_i", "3"));
+    assertU(adoc("id", "202", "desc_t", ""));
+    assertU(commit());
+
+    for (String fl : new String[] {"id,name_s,desc_t", "id,name*", "id,desc_t,count_i", "id,desc_t,score"}) {
+      LocalSolrQueryRequest req = lrf.makeRequest("q", "id:(201 OR 202)", "sort", "id asc", "fl", fl);
+      SolrQueryResponse rsp = h.queryAndResponse(req.getParams().get(CommonParams.QT), req);
+      BinaryQueryResponseWriter writer = (BinaryQueryResponseWriter) h.getCore().getQueryResponseWriter("javabin");
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      writer.write(baos, req, rsp);
+      NamedList res;
+      try (JavaBinCodec jbc = new JavaBinCodec()) {
+        res = (NamedList) jbc.unmarshal(new ByteArrayInputStream(baos.toByteArray()));
+      }
+      SolrDocumentList docs = (SolrDocumentList) res.get("response");
+      assertEquals(fl, 2, docs.size());
+      SolrDocument first = docs.get(0);
+      assertEquals(fl, "201", first.getFieldValue("id"));
+      if (fl.contains("name")) {
+        assertEquals(fl, Arrays.asList("ประเทศไทย", "second"), first.getFieldValue("name_s"));
+      } else {
+        assertNull(fl, first.getFieldValue("name_s"));
+      }
+      if (fl.contains("desc_t")) {
+        assertEquals(fl, "मंदिर", first.getFieldValue("desc_t"));
+        assertEquals(fl, "", docs.get(1).getFieldValue("desc_t"));
+      }
+      if (fl.contains("count_i")) {
+        assertEquals(fl, 3, first.getFieldValue("count_i"));
+      }
+      assertEquals(fl.contains("score"), first.getFieldValue("score") != null);
+      req.close();
+    }
+  }
+
+  /**
+   * Tests that streamed documents are written from the documentCache when they are cached, and
+   * that streaming doesn't add them to the cache
+   */
+  public void testStreamedStoredFieldsAndDocumentCache() throws Exception {
+    assertU(adoc("id", "301", "name_s", "cached", "name_s", "twice", "desc_t", "a cached document"));
+    assertU(commit());
+
+    final int docId = h.getCore().withSearcher(searcher -> searcher.getFirstMatch(new Term("id", "301")));
+    assertTrue(docId >= 0);
+    final SolrCache<Integer,Document> documentCache = h.getCore().withSearcher(searcher -> searcher.getDocFetcher().getDocumentCache());
+    assertNotNull(documentCache);
+
+    for (boolean cached : new boolean[] {false, true}) {
+      if (cached) {
+        h.getCore().withSearcher(searcher -> searcher.doc(docId));
+        assertNotNull(documentCache.get(docId));
+      }
+      LocalSolrQueryRequest req = lrf.makeRequest("q", "id:301", "fl", "id,name_s,desc_t");
+      SolrQueryResponse rsp = h.queryAndResponse(req.getParams().get(CommonParams.QT), req);
+      assertTrue(((ResultContext) rsp.getResponse()).canStreamStoredFields());
+      BinaryQueryResponseWriter writer = (BinaryQueryResponseWriter) h.getCore().getQueryResponseWriter("javabin");
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      writer.write(baos, req, rsp);
+      NamedList res;
+      try (JavaBinCodec jbc = new JavaBinCodec()) {
+        res = (NamedList) jbc.unmarshal(new ByteArrayInputStream(baos.toByteArray()));
+      }
+      SolrDocumentList docs = (SolrDocumentList) res.get("response");
+      assertEquals(1, docs.size());
+      SolrDocument doc = docs.get(0);
+      assertEquals("301", doc.getFieldValue("id"));
+      assertEquals(Arrays.asList("cached", "twice"), doc.getFieldValue("name_s"));
+      assertEquals("a cached document", doc.getFieldValue("desc_t"));
+      if (cached == false) {
+        assertNull(documentCache.get(docId));
+      }
+      req.close();
+    }
+  }
+
   public void testResolverSolrDocumentPartialFields() throws Exception {
     LocalSolrQueryRequest req = lrf.makeRequest("q", "*:*",
                                                 "fl", "id,xxx,ddd_s"); 
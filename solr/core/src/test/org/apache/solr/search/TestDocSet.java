@@ -37,12 +37,14 @@ import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.StoredFieldVisitor;
 import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.VectorValues;
 import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
 import org.apache.lucene.util.Version;
 
 /**
@@ -111,6 +113,10 @@ public class TestDocSet extends LuceneTestCase {
     return new BitDocSet(bs);
   }
 
+  public DocSet getRoaringDocSet(FixedBitSet bs) {
+    return RoaringDocSet.fromBits(bs);
+  }
+
   public DocSet getDocSlice(FixedBitSet bs) {
     int len = bs.cardinality();
     int[] arr = new int[len+5];
@@ -129,7 +135,7 @@ public class TestDocSet extends LuceneTestCase {
 
 
   public DocSet getDocSet(FixedBitSet bs) {
-    switch(rand.nextInt(10)) {
+    switch(rand.nextInt(11)) {
       case 0: return getHashDocSet(bs);
 
       case 1: return getBitDocSet(bs);
@@ -143,6 +149,8 @@ public class TestDocSet extends LuceneTestCase {
       case 8: return getIntDocSet(bs);
 
       case 9: return getDocSlice(bs);
+
+      case 10: return getRoaringDocSet(bs);
     }
     return null;
   }
@@ -212,6 +220,90 @@ public class TestDocSet extends LuceneTestCase {
     }
   }
 
+  public void testRoaringDocSet() {
+    // large enough for several blocks, with blocks stored as arrays and as bit sets
+    for (int iter = 0; iter < 20; iter++) {
+      int maxDoc = TestUtil.nextInt(rand, 1, 300000);
+      FixedBitSet bs1 = getClusteredSet(maxDoc);
+      FixedBitSet bs2 = getClusteredSet(maxDoc);
+      DocSet a = getRoaringDocSet(bs1);
+      checkEqual(bs1, a);
+      iter(new BitDocSet(bs1), a);
+      assertEquals(bs1, DocSetBase.toBitSet(a));
+
+      for (DocSet b : new DocSet[] {getRoaringDocSet(bs2), getBitDocSet(bs2), getIntDocSet(bs2), getHashDocSet(bs2)}) {
+        FixedBitSet a_and = bs1.clone(); a_and.and(bs2);
+        FixedBitSet a_or = bs1.clone(); a_or.or(bs2);
+        FixedBitSet a_andn = bs1.clone(); a_andn.andNot(bs2);
+        FixedBitSet b_andn = bs2.clone(); b_andn.andNot(bs1);
+
+        checkEqual(a_and, a.intersection(b));
+        checkEqual(a_and, b.intersection(a));
+        checkEqual(a_or, a.union(b));
+        checkEqual(a_andn, a.andNot(b));
+        checkEqual(b_andn, b.andNot(a));
+
+        assertEquals(a_and.cardinality(), a.intersectionSize(b));
+        assertEquals(a_and.cardinality(), b.intersectionSize(a));
+        assertEquals(a_and.cardinality() > 0, a.intersects(b));
+        assertEquals(a_or.cardinality(), a.unionSize(b));
+        assertEquals(a_andn.cardinality(), a.andNotSize(b));
+      }
+    }
+  }
+
+  public void testToCompactSet() {
+    int maxDoc = 1 << 20;
+    FixedBitSet sparse = getRandomSet(maxDoc, maxDoc >> 6);
+    DocSet compact = DocSetUtil.toCompactSet(new BitDocSet(sparse));
+    assertTrue(compact instanceof RoaringDocSet);
+    assertTrue(compact.ramBytesUsed() < new BitDocSet(sparse).ramBytesUsed() / 2);
+    checkEqual(sparse, compact);
+
+    FixedBitSet dense = getRandomSet(maxDoc, maxDoc >> 2);
+    assertTrue(DocSetUtil.toCompactSet(new BitDocSet(dense)) instanceof BitDocSet);
+  }
+
+  public void testGetBits() {
+    int maxDoc = TestUtil.nextInt(rand, 1, 300000);
+    FixedBitSet bs = getClusteredSet(maxDoc);
+    for (DocSet set : new DocSet[] {getRoaringDocSet(bs), getBitDocSet(bs)}) {
+      Bits bits = DocSetUtil.getBits(set);
+      assertNotNull(bits);
+      for (int i = 0; i < maxDoc; i++) {
+        assertEquals(bs.get(i), bits.get(i));
+      }
+    }
+    assertNull(DocSetUtil.getBits(getIntDocSet(bs)));
+
+    for (DocSet set : new DocSet[] {getRoaringDocSet(bs), getBitDocSet(bs), getIntDocSet(bs)}) {
+      FixedBitSet copy = DocSetUtil.copyBits(set, maxDoc);
+      assertEquals(bs, copy);
+      // the copy may be modified without changing the set
+      copy.flip(0, maxDoc);
+      checkEqual(bs, set);
+    }
+  }
+
+  // blocks of 2^16 docs that are either empty, sparse or dense
+  private FixedBitSet getClusteredSet(int maxDoc) {
+    FixedBitSet bs = new FixedBitSet(maxDoc);
+    for (int from = 0; from < maxDoc; from += 1 << 16) {
+      int to = Math.min(maxDoc, from + (1 << 16));
+      int n;
+      switch (rand.nextInt(4)) {
+        case 0: n = 0; break;
+        case 1: n = rand.nextInt(100); break;
+        case 2: n = RoaringDocSet.MAX_ARRAY_LENGTH + rand.nextInt(100) - 50; break;
+        default: n = rand.nextInt(to - from); break;
+      }
+      for (int i = 0; i < n; i++) {
+        bs.set(from + rand.nextInt(to - from));
+      }
+    }
+    return bs;
+  }
+
   public void testRandomDocSets() {
     // Make the size big enough to go over certain limits (such as one set
     // being 8 times the size of another in the int set, or going over 2 times
@@ -443,6 +535,11 @@ public class TestDocSet extends LuceneTestCase {
         return null;
       }
 
+      @Override
+      public VectorValues getVectorValues(String field) {
+        return null;
+      }
+
       @Override
       protected void doClose() {
       }
@@ -525,7 +622,7 @@ public class TestDocSet extends LuceneTestCase {
     IndexReaderContext topLevelContext = reader.getContext();
     FixedBitSet bs = getRandomSet(reader.maxDoc(), rand.nextInt(reader.maxDoc()+1));
     DocSet a = new BitDocSet(bs);
-    DocSet b = getIntDocSet(bs);
+    DocSet b = rand.nextBoolean() ? getIntDocSet(bs) : getRoaringDocSet(bs);
 
     Filter fa = a.getTopFilter();
     Filter fb = b.getTopFilter();
@@ -30,6 +30,7 @@ import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.request.SolrQueryRequest;
+import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -42,9 +43,15 @@ public class TestFiltering extends SolrTestCaseJ4 {
   @BeforeClass
   public static void beforeTests() throws Exception {
     System.setProperty("enable.update.log", "false"); // schema12 doesn't support _version_
+    System.setProperty("solr.segmentFilterCache.size", random().nextBoolean() ? "64" : "0");
     initCore("solrconfig.xml","schema_latest.xml");
   }
 
+  @AfterClass
+  public static void afterTests() {
+    System.clearProperty("solr.segmentFilterCache.size");
+  }
+
   @Test
   public void testLiveDocsSharing() throws Exception {
     clearIndex();
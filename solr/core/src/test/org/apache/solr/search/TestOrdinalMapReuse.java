@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+
+import org.apache.lucene.index.MultiDocValues.MultiSortedDocValues;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.solr.SolrTestCaseJ4;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestOrdinalMapReuse extends SolrTestCaseJ4 {
+
+  private static final String FIELD = "foo_s_dvo";
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // no caches and no listeners, so warming doesn't use any field, and no merges, so segments are kept
+    initCore("solrconfig-nomergepolicyfactory.xml", "schema.xml");
+  }
+
+  @Test
+  public void testNewSearcherReusesOrdinalMapOfPreviousSearcher() throws Exception {
+    assertU(adoc("id", "1", FIELD, "b"));
+    assertU(adoc("id", "2", FIELD, "d"));
+    assertU(commit());
+    assertU(adoc("id", "3", FIELD, "a"));
+    assertU(adoc("id", "4", FIELD, "c"));
+    assertU(commit());
+
+    final OrdinalMap first = h.getCore().withSearcher(TestOrdinalMapReuse::getOrdinalMap);
+    assertEquals(4, first.getValueCount());
+
+    // a term that sorts after all existing ones, the global ordinals of the existing segments don't change
+    assertU(adoc("id", "5", FIELD, "z"));
+    assertU(commit());
+
+    final OrdinalMap second = h.getCore().withSearcher(TestOrdinalMapReuse::getOrdinalMap);
+    assertNotSame(first, second);
+    assertEquals(5, second.getValueCount());
+    // b and d are global ordinals 1 and 3, a and c 0 and 2: neither mapping is the identity, so they can
+    // only be the same instances if the second map was built from the first one
+    assertSame(first.getGlobalOrds(0), second.getGlobalOrds(0));
+    assertSame(first.getGlobalOrds(1), second.getGlobalOrds(1));
+    assertEquals(4, second.getGlobalOrds(2).get(0));
+  }
+
+  private static OrdinalMap getOrdinalMap(SolrIndexSearcher searcher) throws IOException {
+    final SortedDocValues values = searcher.getSlowAtomicReader().getSortedDocValues(FIELD);
+    assertTrue(values instanceof MultiSortedDocValues);
+    return ((MultiSortedDocValues) values).mapping;
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import org.apache.lucene.search.LRUQueryCache;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.apache.solr.request.SolrQueryRequest;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+
+/**
+ * Tests that the per-segment filter cache is shared across searchers, so that a reopen only
+ * computes the filters of the new segments.
+ */
+public class TestSegmentFilterCache extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeTests() throws Exception {
+    // merges would create new segments that are not cached yet
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+    System.setProperty("enable.update.log", "false");
+    System.setProperty("solr.segmentFilterCache.size", "64");
+    initCore("solrconfig.xml", "schema_latest.xml");
+  }
+
+  @AfterClass
+  public static void afterTests() {
+    systemClearPropertySolrTestsMergePolicyFactory();
+    System.clearProperty("enable.update.log");
+    System.clearProperty("solr.segmentFilterCache.size");
+  }
+
+  private static void indexSegment(int start, int end) {
+    for (int i = start; i < end; i++) {
+      assertU(adoc("id", Integer.toString(i), "val_i", Integer.toString(i)));
+    }
+    assertU(commit());
+  }
+
+  public void testReuseAcrossReopens() throws Exception {
+    clearIndex();
+    assertU(commit());
+    LRUQueryCache cache = h.getCore().getSegmentFilterCache();
+    assertNotNull(cache);
+    cache.clear();
+
+    indexSegment(0, 10);
+    indexSegment(10, 20);
+    assertJQ(req("q", "*:*", "fq", "val_i:[5 TO 100]"), "/response/numFound==15");
+    assertEquals(2, cache.getCacheCount());
+
+    // a new segment only needs its own DocIdSet, the others come from the cache
+    long hits = cache.getHitCount();
+    indexSegment(20, 30);
+    assertJQ(req("q", "*:*", "fq", "val_i:[5 TO 100]"), "/response/numFound==25");
+    assertEquals(3, cache.getCacheCount());
+    assertTrue(cache.getHitCount() >= hits + 2);
+
+    // deletions don't invalidate the cached DocIdSets of a segment
+    assertU(delI("7"));
+    assertU(delI("25"));
+    assertU(commit());
+    assertJQ(req("q", "*:*", "fq", "val_i:[5 TO 100]"), "/response/numFound==23");
+    assertJQ(req("q", "*:*", "fq", "-val_i:[5 TO 100]"), "/response/numFound==5");
+    assertEquals(3, cache.getCacheCount());
+
+    // the top-level DocSet is assembled from the cached DocIdSets
+    SolrQueryRequest req = req();
+    try {
+      SolrIndexSearcher searcher = req.getSearcher();
+      DocSet set = searcher.getDocSet(QParser.getParser("val_i:[5 TO 100]", req).getQuery());
+      assertEquals(23, set.size());
+      assertEquals(3, cache.getCacheCount());
+    } finally {
+      req.close();
+    }
+  }
+
+  public void testGraphQueryAfterReopen() throws Exception {
+    clearIndex();
+    assertU(commit());
+    LRUQueryCache cache = h.getCore().getSegmentFilterCache();
+    long inserts = cache.getCacheCount();
+
+    // 1 -> 2 -> 3, 5 is not reachable yet
+    assertU(adoc("id", "1", "node_s", "1", "edge_ss", "2"));
+    assertU(adoc("id", "2", "node_s", "2", "edge_ss", "3"));
+    assertU(adoc("id", "5", "node_s", "5"));
+    assertU(commit());
+    String fq = "{!graph from=node_s to=edge_ss}id:1";
+    assertJQ(req("q", "*:*", "fq", fq), "/response/numFound==2");
+
+    // a new segment makes 5, in the old segment, reachable: 1 -> 2 -> 3 -> 5
+    assertU(adoc("id", "3", "node_s", "3", "edge_ss", "5"));
+    assertU(commit());
+    assertJQ(req("q", "*:*", "fq", fq), "/response/numFound==4");
+    assertEquals(inserts, cache.getCacheCount());
+
+    // same for terms that are filtered by their docFreq in the whole index
+    String graphTerms = "{!graphTerms f=node_s maxDocFreq=1}2,3";
+    assertJQ(req("q", "*:*", "fq", graphTerms), "/response/numFound==2");
+    assertU(adoc("id", "4", "node_s", "3"));
+    assertU(commit());
+    assertJQ(req("q", "*:*", "fq", graphTerms), "/response/numFound==1");
+    assertEquals(inserts, cache.getCacheCount());
+  }
+
+  public void testDisabledWithoutCaching() throws Exception {
+    clearIndex();
+    indexSegment(0, 10);
+    LRUQueryCache cache = h.getCore().getSegmentFilterCache();
+    long inserts = cache.getCacheCount();
+    assertJQ(req("q", "*:*", "fq", "{!cache=false}val_i:[2 TO 3]"), "/response/numFound==2");
+    assertEquals(inserts, cache.getCacheCount());
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.metrics.MetricsMap;
+import org.apache.solr.metrics.SolrMetricManager;
+import org.apache.solr.util.ConcurrentTinyLFUCache;
+import org.apache.solr.util.DefaultSolrThreadFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Test for TinyLFUCache
+ *
+ * @see org.apache.solr.search.TinyLFUCache
+ */
+public class TestTinyLFUCache extends LuceneTestCase {
+  SolrMetricManager metricManager = new SolrMetricManager();
+  String registry = TestUtil.randomSimpleString(random(), 2, 10);
+  String scope = TestUtil.randomSimpleString(random(), 2, 10);
+
+  private TinyLFUCache<Object, Object> newCache(Map<String, String> params, Object persistence) {
+    TinyLFUCache<Object, Object> cache = new TinyLFUCache<>();
+    cache.initializeMetrics(metricManager, registry, "foo", scope);
+    // run maintenance on the calling thread so that evictions are deterministic
+    params.put("async", "false");
+    cache.init(params, persistence, new NoOpRegenerator());
+    return cache;
+  }
+
+  public void testSizeBounded() {
+    Map<String, String> params = new HashMap<>();
+    params.put("size", "100");
+    params.put("initialSize", "10");
+    TinyLFUCache<Object, Object> cache = newCache(params, null);
+    cache.setState(SolrCache.State.LIVE);
+    for (int i = 0; i < 1000; i++) {
+      cache.put(i, "" + i);
+    }
+    assertEquals(100, cache.size());
+    assertEquals("999", cache.get(999)); // the most recent entry is in the admission window
+    Map<String,Object> nl = cache.getMetricsMap().getValue();
+    assertEquals(1000L, nl.get("inserts"));
+    assertEquals(900L, nl.get("evictions"));
+    assertEquals(100L, nl.get("size"));
+    cache.close();
+  }
+
+  public void testScanResistance() {
+    Map<String, String> params = new HashMap<>();
+    params.put("size", "100");
+    TinyLFUCache<Object, Object> cache = newCache(params, null);
+    cache.setState(SolrCache.State.LIVE);
+    for (int i = 0; i < 50; i++) {
+      cache.put(i, "" + i);
+    }
+    for (int round = 0; round < 10; round++) {
+      for (int i = 0; i < 50; i++) {
+        assertEquals("" + i, cache.get(i));
+      }
+    }
+    // a scan of entries that are used only once must not evict the frequently used entries
+    for (int i = 1000; i < 2000; i++) {
+      cache.put(i, "" + i);
+    }
+    cache.getCache().cleanUp();
+    assertEquals(100, cache.size());
+    for (int i = 0; i < 50; i++) {
+      assertEquals("" + i, cache.get(i));
+    }
+    cache.close();
+  }
+
+  public void testReplaceAndRemove() {
+    ConcurrentTinyLFUCache<Integer, String> cache = new ConcurrentTinyLFUCache<>(10, 10, Runnable::run);
+    cache.setAlive(true);
+    assertNull(cache.put(1, "a"));
+    assertEquals("a", cache.put(1, "b"));
+    assertEquals(1, cache.size());
+    assertEquals("b", cache.get(1));
+    assertEquals("b", cache.remove(1));
+    assertNull(cache.remove(1));
+    assertEquals(0, cache.size());
+    for (int i = 0; i < 20; i++) {
+      cache.put(i, "" + i);
+    }
+    assertEquals(10, cache.size());
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertTrue(cache.getHottestItems(10).isEmpty());
+  }
+
+  public void testRamBounded() {
+    ConcurrentTinyLFUCache<Integer, String> cache = new ConcurrentTinyLFUCache<>(64L * 1024, 10, Runnable::run);
+    cache.setAlive(true);
+    for (int i = 0; i < 10000; i++) {
+      cache.put(i, "" + i);
+    }
+    assertTrue(cache.size() > 0);
+    assertTrue(cache.size() < 10000);
+    assertTrue(cache.ramBytesUsed() <= 64L * 1024 + 1024);
+  }
+
+  public void testAutowarm() throws Exception {
+    Map<String, String> params = new HashMap<>();
+    params.put("size", "100");
+    params.put("autowarmCount", "50%");
+    params.put("warmThreads", "" + TestUtil.nextInt(random(), 1, 4));
+    params.put("async", "false");
+    TinyLFUCache<Object, Object> cache = new TinyLFUCache<>();
+    cache.initializeMetrics(metricManager, registry, "foo", scope);
+    Object o = cache.init(params, null, new NoOpRegenerator());
+    cache.setState(SolrCache.State.LIVE);
+    for (int i = 0; i < 100; i++) {
+      cache.put(i, "" + i);
+    }
+    // make the first half hot
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 50; i++) {
+        assertEquals("" + i, cache.get(i));
+      }
+    }
+    TinyLFUCache<Object, Object> cacheNew = newCache(params, o);
+    cacheNew.warm(null, cache);
+    cacheNew.setState(SolrCache.State.LIVE);
+    cache.close();
+    assertEquals(50, cacheNew.size());
+    for (int i = 0; i < 50; i++) {
+      assertEquals("" + i, cacheNew.get(i));
+    }
+    MetricsMap metrics = cacheNew.getMetricsMap();
+    Map<String,Object> nl = metrics.getValue();
+    assertEquals(50L, nl.get("lookups"));
+    assertEquals(50L, nl.get("hits"));
+    assertEquals(0L, nl.get("inserts"));
+    cacheNew.close();
+  }
+
+  public void testConcurrentAccess() throws Exception {
+    ExecutorService executor = ExecutorUtil.newMDCAwareFixedThreadPool(1, new DefaultSolrThreadFactory("testTinyLFUCache"));
+    final ConcurrentTinyLFUCache<Integer, Integer> cache = new ConcurrentTinyLFUCache<>(50, 10, executor);
+    cache.setAlive(true);
+    final AtomicInteger errors = new AtomicInteger();
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      final int seed = random().nextInt();
+      threads[t] = new Thread(() -> {
+        Random r = new Random(seed);
+        for (int i = 0; i < 10000; i++) {
+          int key = r.nextInt(200);
+          if (r.nextBoolean()) {
+            cache.put(key, key);
+          } else {
+            Integer value = cache.get(key);
+            if (value != null && value.intValue() != key) {
+              errors.incrementAndGet();
+            }
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    cache.cleanUp();
+    assertEquals(0, errors.get());
+    assertTrue("size=" + cache.size(), cache.size() <= 50);
+    assertEquals(cache.size(), cache.getMap().size());
+    cache.destroy();
+    ExecutorUtil.shutdownAndAwaitTermination(executor);
+  }
+}